@@ -108,8 +108,25 @@ public final class Specifications {
   public static final TypeName FREQUENCY_SKETCH = ParameterizedTypeName.get(
       ClassName.get(PACKAGE_NAME, "FrequencySketch"), kTypeVar);
 
+  /** The sketch implementation, selected by the caffeine.frequencySketch system property. */
+  public static final TypeName FREQUENCY_SKETCH_IMPL = ParameterizedTypeName.get(
+      ClassName.get(PACKAGE_NAME, frequencySketchClassName()), kTypeVar);
+
   private Specifications() {}
 
+  /** Returns the simple name of the frequency sketch to use, which defaults to the standard. */
+  private static String frequencySketchClassName() {
+    String type = System.getProperty("caffeine.frequencySketch", "standard");
+    switch (type) {
+      case "standard":
+        return "FrequencySketch";
+      case "blocked":
+        return "BlockedFrequencySketch";
+      default:
+        throw new IllegalArgumentException("Unknown frequency sketch: " + type);
+    }
+  }
+
   /** Returns the offset constant to this variable. */
   public static String offsetName(String varName) {
     return CaseFormat.LOWER_CAMEL.to(CaseFormat.UPPER_UNDERSCORE, varName) + "_OFFSET";
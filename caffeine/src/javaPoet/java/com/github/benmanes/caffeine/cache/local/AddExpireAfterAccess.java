@@ -77,8 +77,7 @@ public final class AddExpireAfterAccess extends LocalCacheRule {
         .returns(EXPIRY)
         .build());
 
-    context.constructor.addStatement(
-        "this.timerWheel = builder.expiresVariable() ? new $T(this) : null", TIMER_WHEEL);
+    context.constructor.addStatement("this.timerWheel = builder.getTimerWheel(this)");
     context.cache.addField(FieldSpec.builder(TIMER_WHEEL, "timerWheel", Modifier.FINAL).build());
     context.cache.addMethod(MethodSpec.methodBuilder("timerWheel")
         .addModifiers(context.protectedFinalModifiers())
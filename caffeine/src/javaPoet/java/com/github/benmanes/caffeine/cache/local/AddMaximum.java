@@ -16,6 +16,7 @@
 package com.github.benmanes.caffeine.cache.local;
 
 import static com.github.benmanes.caffeine.cache.Specifications.FREQUENCY_SKETCH;
+import static com.github.benmanes.caffeine.cache.Specifications.FREQUENCY_SKETCH_IMPL;
 import static org.apache.commons.lang3.StringUtils.capitalize;
 
 import javax.lang.model.element.Modifier;
@@ -73,7 +74,7 @@ public final class AddMaximum extends LocalCacheRule {
     context.cache.addField(FieldSpec.builder(
         FREQUENCY_SKETCH, "sketch", Modifier.FINAL).build());
     context.constructor.addCode(CodeBlock.builder()
-        .addStatement("this.sketch = new $T()", FREQUENCY_SKETCH)
+        .addStatement("this.sketch = new $T()", FREQUENCY_SKETCH_IMPL)
         .beginControlFlow("if (builder.hasInitialCapacity())")
             .addStatement("long capacity = Math.min($L, $L)",
                 "builder.getMaximum()", "builder.getInitialCapacity()")
@@ -15,13 +15,22 @@
  */
 package com.github.benmanes.caffeine;
 
+import java.time.Duration;
+
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.Threads;
 
+import com.github.benmanes.caffeine.cache.Ticker;
+
 /**
+ * A benchmark that compares the cost of reading the system clocks to reading the timestamp of a
+ * {@link Ticker#cachedTicker}, which a background thread refreshes at a millisecond resolution.
+ *
  * @author ben.manes@gmail.com (Ben Manes)
  */
 public class TimeBenchmark {
+  static final Ticker systemTicker = Ticker.systemTicker();
+  static final Ticker cachedTicker = Ticker.cachedTicker(Duration.ofMillis(1));
 
   @Benchmark @Threads(1)
   public long nanos_noContention() {
@@ -42,4 +51,24 @@ public class TimeBenchmark {
   public long millis_contention() {
     return System.currentTimeMillis();
   }
+
+  @Benchmark @Threads(1)
+  public long systemTicker_noContention() {
+    return systemTicker.read();
+  }
+
+  @Benchmark @Threads(8)
+  public long systemTicker_contention() {
+    return systemTicker.read();
+  }
+
+  @Benchmark @Threads(1)
+  public long cachedTicker_noContention() {
+    return cachedTicker.read();
+  }
+
+  @Benchmark @Threads(8)
+  public long cachedTicker_contention() {
+    return cachedTicker.read();
+  }
 }
@@ -29,7 +29,9 @@ import com.github.benmanes.caffeine.cache.impl.Ehcache3;
 import com.github.benmanes.caffeine.cache.impl.ElasticSearchCache;
 import com.github.benmanes.caffeine.cache.impl.ExpiringMapCache;
 import com.github.benmanes.caffeine.cache.impl.GuavaCache;
+import com.github.benmanes.caffeine.cache.impl.IntrusiveHashMap;
 import com.github.benmanes.caffeine.cache.impl.LinkedHashMapCache;
+import com.github.benmanes.caffeine.cache.impl.ShardedCaffeineCache;
 import com.github.benmanes.caffeine.cache.impl.TCache;
 import com.googlecode.concurrentlinkedhashmap.ConcurrentLinkedHashMap;
 import com.trivago.triava.tcache.EvictionPolicy;
@@ -56,6 +58,11 @@ public enum CacheType {
       return new ConcurrentMapCache<>(new ConcurrentHashMap<>(maximumSize));
     }
   },
+  IntrusiveHashMap {
+    @Override public <K, V> BasicCache<K, V> create(int maximumSize) {
+      return new ConcurrentMapCache<>(new IntrusiveHashMap<>(maximumSize, CONCURRENCY_LEVEL));
+    }
+  },
   NonBlockingHashMap {
     @Override public <K, V> BasicCache<K, V> create(int maximumSize) {
       // Note that writes that update an entry to the same reference are short circuited
@@ -76,6 +83,12 @@ public enum CacheType {
       return new CaffeineCache<>(maximumSize);
     }
   },
+  Caffeine_Sharded {
+    @Override public <K, V> BasicCache<K, V> create(int maximumSize) {
+      return new ShardedCaffeineCache<>(maximumSize,
+          Runtime.getRuntime().availableProcessors());
+    }
+  },
   Collision {
     @Override public <K, V> BasicCache<K, V> create(int maximumSize) {
       return new Collision<>(maximumSize);
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2020 Ben Manes. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.benmanes.caffeine.cache;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * A benchmark of loading absent entries through a loader whose calls have a fixed overhead, such
+ * as a network round trip, in addition to a small cost per key. Coalescing the individual loads
+ * into bulk loads amortizes that overhead at the cost of the delay spent waiting for a batch to
+ * fill.
+ * <p>
+ * <pre>{@code
+ *   ./gradlew jmh -PincludePattern=CoalescingBulkLoadBenchmark
+ * }</pre>
+ *
+ * @author ben.manes@gmail.com (Ben Manes)
+ */
+@State(Scope.Benchmark)
+public class CoalescingBulkLoadBenchmark {
+  private static final long CALL_TOKENS = 50_000;
+  private static final long KEY_TOKENS = 500;
+  private static final int SIZE = (2 << 14);
+
+  // A batch size of zero disables coalescing
+  @Param({"0", "16", "64"})
+  int batchSize;
+
+  AsyncLoadingCache<Long, Long> cache;
+  ExecutorService executor;
+
+  @State(Scope.Thread)
+  public static class ThreadState {
+    static final Random random = new Random();
+    long key = ((long) random.nextInt()) << 32;
+  }
+
+  @Setup
+  public void setup() {
+    executor = Executors.newCachedThreadPool();
+    Caffeine<Object, Object> builder = Caffeine.newBuilder()
+        .executor(executor)
+        .maximumSize(SIZE);
+    if (batchSize > 0) {
+      builder.scheduler(Scheduler.systemScheduler())
+          .coalesceBulkLoads(Duration.ofMillis(1), batchSize);
+    }
+    cache = builder.buildAsync(new CacheLoader<Long, Long>() {
+      @Override public Long load(Long key) {
+        Blackhole.consumeCPU(CALL_TOKENS + KEY_TOKENS);
+        return key;
+      }
+      @Override public Map<Long, Long> loadAll(Iterable<? extends Long> keys) {
+        Map<Long, Long> result = StreamSupport.stream(keys.spliterator(), /* parallel */ false)
+            .collect(Collectors.toMap(Function.identity(), Function.identity()));
+        Blackhole.consumeCPU(CALL_TOKENS + (KEY_TOKENS * result.size()));
+        return result;
+      }
+    });
+  }
+
+  @TearDown(Level.Iteration)
+  public void tearDown() {
+    cache.synchronous().invalidateAll();
+  }
+
+  @TearDown
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+
+  @Benchmark @Threads(64)
+  public Long load(ThreadState threadState) {
+    return cache.get(threadState.key++).join();
+  }
+}
@@ -16,6 +16,7 @@
 package com.github.benmanes.caffeine.cache;
 
 import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
 import org.openjdk.jmh.annotations.Scope;
 import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
@@ -24,6 +25,10 @@ import site.ycsb.generator.NumberGenerator;
 import site.ycsb.generator.ScrambledZipfianGenerator;
 
 /**
+ * A benchmark of the {@link FrequencySketch} with its counters spread across the table versus the
+ * {@link BlockedFrequencySketch} with an element's counters confined to a single cache line. The
+ * sketches are sized larger than the CPU caches so that the cost of the memory accesses dominates.
+ * <p>
  * <pre>{@code
  *   ./gradlew jmh -PincludePattern=FrequencySketchBenchmark
  * }</pre>
@@ -36,6 +41,13 @@ public class FrequencySketchBenchmark {
   private static final int MASK = SIZE - 1;
   private static final int ITEMS = SIZE / 3;
 
+  @Param({"Standard", "Blocked"})
+  String sketchType;
+
+  // The maximum size, where the larger sketch's table (32 MB) exceeds the CPU caches
+  @Param({"10922", "4194304"})
+  int capacity;
+
   int index = 0;
   Integer[] ints;
   FrequencySketch<Integer> sketch;
@@ -43,8 +55,10 @@ public class FrequencySketchBenchmark {
   @Setup
   public void setup() {
     ints = new Integer[SIZE];
-    sketch = new FrequencySketch<>();
-    sketch.ensureCapacity(ITEMS);
+    sketch = sketchType.equals("Blocked")
+        ? new BlockedFrequencySketch<>()
+        : new FrequencySketch<>();
+    sketch.ensureCapacity(capacity);
 
     NumberGenerator generator = new ScrambledZipfianGenerator(ITEMS);
     for (int i = 0; i < SIZE; i++) {
@@ -62,4 +76,9 @@ public class FrequencySketchBenchmark {
   public int frequency() {
     return sketch.frequency(ints[index++ & MASK]);
   }
+
+  @Benchmark
+  public void reset() {
+    sketch.reset();
+  }
 }
@@ -34,6 +34,9 @@ import site.ycsb.generator.ScrambledZipfianGenerator;
  * A benchmark that evaluates the read/write performance of a cache. The cache is pre-populated for
  * a 100% hit rate and a Zipf distribution of keys is used to mimic application usage patterns.
  * <p>
+ * The scaling at high thread counts can be evaluated by overriding the group distribution using
+ * the <tt>-tg</tt> option of the JMH runner, e.g. <tt>-tg 48,16</tt> for the readwrite group.
+ * <p>
  * <pre>{@code
  *   ./gradlew jmh -PincludePattern=GetPutBenchmark
  * }</pre>
@@ -49,6 +52,7 @@ public class GetPutBenchmark {
   @Param({
     "LinkedHashMap_Lru",
     "Caffeine",
+    "Caffeine_Sharded",
     "ConcurrentLinkedHashMap",
     "Guava",
     "ElasticSearch",
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2020 Ben Manes. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.benmanes.caffeine.cache;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+/**
+ * A benchmark that records the latency distribution of writes when the cache is subjected to a
+ * write storm. Every write inserts a new entry, so each one adds work to the write buffer and
+ * triggers an eviction. The maintenance budget bounds how much of that work a caller may perform
+ * when it is forced to assist, which should be visible in the tail percentiles of the samples.
+ * <p>
+ * <pre>{@code
+ *   ./gradlew jmh -PincludePattern=MaintenanceBudgetBenchmark
+ * }</pre>
+ *
+ * @author ben.manes@gmail.com (Ben Manes)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MaintenanceBudgetBenchmark {
+  private static final int SIZE = (2 << 14);
+
+  // A budget of zero uses the default, which is proportional to the number of processors
+  @Param({"0", "16", "128"})
+  int budget;
+
+  Cache<Long, Boolean> cache;
+
+  @State(Scope.Thread)
+  public static class ThreadState {
+    static final Random random = new Random();
+    long key = ((long) random.nextInt()) << 32;
+  }
+
+  @Setup
+  public void setup() {
+    Caffeine<Object, Object> builder = Caffeine.newBuilder().maximumSize(SIZE);
+    if (budget > 0) {
+      builder.maintenanceBudget(budget);
+    }
+    cache = builder.build();
+  }
+
+  @TearDown(Level.Iteration)
+  public void tearDown() {
+    cache.cleanUp();
+  }
+
+  @Benchmark @Threads(8)
+  public void put(ThreadState threadState) {
+    cache.put(threadState.key++, Boolean.TRUE);
+  }
+}
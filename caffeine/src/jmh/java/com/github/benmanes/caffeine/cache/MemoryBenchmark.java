@@ -19,14 +19,19 @@ import static java.util.function.Function.identity;
 
 import java.io.PrintStream;
 import java.math.RoundingMode;
+import java.nio.ByteBuffer;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 import org.github.jamm.MemoryMeter;
 import org.github.jamm.MemoryMeter.Guess;
 
+import com.github.benmanes.caffeine.cache.impl.IntrusiveHashMap;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.math.LongMath;
@@ -52,10 +57,22 @@ public final class MemoryBenchmark {
   // The pre-computed entries to store into the cache when computing the per-entry overhead
   static final Map<Integer, Integer> workingSet = IntStream.range(0, FUZZY_SIZE)
       .boxed().collect(Collectors.toMap(identity(), i -> -i));
+  // The pre-computed entries with boxed long keys, as the baseline for a long-keyed cache
+  static final Map<Long, Integer> longWorkingSet = workingSet.entrySet().stream()
+      .collect(Collectors.toMap(e -> e.getKey().longValue(), Map.Entry::getValue));
+  // The pre-computed entries whose values are serialized into direct memory
+  static final Map<Integer, ByteBuffer> offHeapWorkingSet = workingSet.entrySet().stream()
+      .collect(Collectors.toMap(Map.Entry::getKey, e -> {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(Integer.BYTES);
+        buffer.putInt(0, e.getValue());
+        return buffer;
+      }));
 
   final MemoryMeter meter = new MemoryMeter()
       .withGuessing(Guess.FALLBACK_BEST)
       .ignoreKnownSingletons();
+  // A direct buffer's cleaner is linked to every other direct buffer's, so it must not be followed
+  final MemoryMeter offHeapMeter = meter.ignoreNonStrongReferences();
   final PrintStream out = System.out;
 
   public void run() throws Exception {
@@ -65,10 +82,13 @@ public final class MemoryBenchmark {
     out.println();
     unbounded();
     maximumSize();
+    maximumSize_longKeys();
+    maximumSize_longCache();
     maximumSize_expireAfterAccess();
     maximumSize_expireAfterWrite();
     maximumSize_refreshAfterWrite();
     maximumWeight();
+    maximumWeight_offHeapValues();
     expireAfterAccess();
     expireAfterWrite();
     expireAfterAccess_expireAfterWrite();
@@ -77,6 +97,7 @@ public final class MemoryBenchmark {
     weakKeys_weakValues();
     weakKeys_softValues();
     softValues();
+    hashTable();
   }
 
   private Caffeine<Object, Object> builder() {
@@ -97,6 +118,59 @@ public final class MemoryBenchmark {
     compare("Maximum Size", caffeine, guava);
   }
 
+  private void maximumSize_longKeys() {
+    Cache<Long, Integer> caffeine = builder().maximumSize(MAXIMUM_SIZE).build();
+    com.google.common.cache.Cache<Long, Integer> guava = CacheBuilder.newBuilder()
+        .maximumSize(MAXIMUM_SIZE).build();
+    caffeine.cleanUp();
+    guava.cleanUp();
+    compare("Maximum Size & Long Keys", caffeine.asMap(), guava.asMap(), longWorkingSet);
+  }
+
+  /**
+   * Compares the per-entry cost of a cache keyed by boxed longs to one that stores them unboxed.
+   * Unlike the other scenarios the boxed keys are included, as they are retained by the cache.
+   */
+  private void maximumSize_longCache() {
+    Cache<Long, Integer> boxed = builder().maximumSize(MAXIMUM_SIZE).build();
+    LongCache<Integer> unboxed = builder().maximumSize(MAXIMUM_SIZE).buildLong();
+    boxed.cleanUp();
+    unboxed.cleanUp();
+
+    String label = "Maximum Size & LongCache";
+    int leftPadded = Math.max((36 - label.length()) / 2 - 1, 1);
+    out.printf(" %2$-" + leftPadded + "s %s%n", label, " ");
+    String[] headers = { "Cache", "Baseline", "Per Entry", "Node" };
+    String result = FlipTable.of(headers, new String[][] {
+        evaluate("Cache<Long, V>", boxed, boxed::put, () -> nodeSize(boxed.asMap())),
+        evaluate("LongCache<V>", unboxed, unboxed::put, () -> {
+          Object node = ((BoundedLongCache<?>) unboxed).getNode(0L);
+          return String.format("%,d bytes (%s)", meter.measure(node),
+              node.getClass().getSimpleName());
+        })
+    });
+    out.println(result);
+  }
+
+  private String[] evaluate(String label, Object cache,
+      BiConsumer<Long, Integer> put, Supplier<String> nodeSize) {
+    long base = meter.measureDeep(cache);
+    longWorkingSet.forEach(put);
+
+    long populated = meter.measureDeep(cache);
+    long entryOverhead = FUZZY_SIZE * meter.measureDeep(longWorkingSet.values().iterator().next());
+    long perEntry = LongMath.divide(populated - entryOverhead - base,
+        FUZZY_SIZE, RoundingMode.HALF_EVEN);
+    perEntry += ((perEntry & 1) == 0) ? 0 : 1;
+    long aligned = ((perEntry % 8) == 0) ? perEntry : ((1 + perEntry / 8) * 8);
+    return new String[] {
+        label,
+        String.format("%,d bytes", base),
+        String.format("%,d bytes (%,d aligned)", perEntry, aligned),
+        nodeSize.get()
+    };
+  }
+
   private void maximumWeight() {
     Cache<Integer, Integer> caffeine = builder()
         .maximumWeight(MAXIMUM_SIZE).weigher((k, v) -> 1).build();
@@ -105,6 +179,21 @@ public final class MemoryBenchmark {
     compare("Maximum Weight", caffeine, guava);
   }
 
+  private void maximumWeight_offHeapValues() {
+    Cache<Integer, ByteBuffer> caffeine = builder()
+        .maximumWeight(Integer.BYTES * MAXIMUM_SIZE)
+        .weigher((Integer k, ByteBuffer v) -> v.capacity())
+        .build();
+    com.google.common.cache.Cache<Integer, ByteBuffer> guava = CacheBuilder.newBuilder()
+        .maximumWeight(Integer.BYTES * MAXIMUM_SIZE)
+        .weigher((Integer k, ByteBuffer v) -> v.capacity())
+        .build();
+    caffeine.cleanUp();
+    guava.cleanUp();
+    compare(offHeapMeter, "Maximum Weight & Off-heap Values",
+        "Caffeine", caffeine.asMap(), "Guava", guava.asMap(), offHeapWorkingSet);
+  }
+
   private void maximumSize_expireAfterAccess() {
     Cache<Integer, Integer> caffeine = builder()
         .expireAfterAccess(1, TimeUnit.MINUTES)
@@ -208,26 +297,46 @@ public final class MemoryBenchmark {
     compare("Soft Values", caffeine, guava);
   }
 
+  /** Compares the per-entry cost of the hash table to one whose entries are linked in the bins. */
+  private void hashTable() {
+    Map<Integer, Integer> chm = new ConcurrentHashMap<>();
+    Map<Integer, Integer> intrusive = new IntrusiveHashMap<>(16, CacheType.CONCURRENCY_LEVEL);
+    compare(meter, "Hash Table",
+        "ConcurrentHashMap", chm, "IntrusiveHashMap", intrusive, workingSet);
+  }
+
   private void compare(String label, Cache<Integer, Integer> caffeine,
       com.google.common.cache.Cache<Integer, Integer> guava) {
     caffeine.cleanUp();
     guava.cleanUp();
+    compare(label, caffeine.asMap(), guava.asMap(), workingSet);
+  }
 
+  private <K, V> void compare(String label, Map<K, V> caffeine,
+      Map<K, V> guava, Map<K, V> entries) {
+    compare(meter, label, "Caffeine", caffeine, "Guava", guava, entries);
+  }
+
+  private <K, V> void compare(MemoryMeter meter, String label, String firstName,
+      Map<K, V> first, String secondName, Map<K, V> second, Map<K, V> entries) {
     int leftPadded = Math.max((36 - label.length()) / 2 - 1, 1);
     out.printf(" %2$-" + leftPadded + "s %s%n", label, " ");
-    String result = FlipTable.of(new String[] { "Cache", "Baseline", "Per Entry" },new String[][] {
-        evaluate("Caffeine", caffeine.asMap()),
-        evaluate("Guava", guava.asMap())
+    String[] headers = { "Cache", "Baseline", "Per Entry", "Node" };
+    String result = FlipTable.of(headers, new String[][] {
+        evaluate(meter, firstName, first, entries),
+        evaluate(meter, secondName, second, entries)
     });
     out.println(result);
   }
 
-  private String[] evaluate(String label, Map<Integer, Integer> map) {
+  private <K, V> String[] evaluate(MemoryMeter meter,
+      String label, Map<K, V> map, Map<K, V> entries) {
     long base = meter.measureDeep(map);
-    map.putAll(workingSet);
+    map.putAll(entries);
 
     long populated = meter.measureDeep(map);
-    long entryOverhead = 2 * FUZZY_SIZE * meter.measureDeep(workingSet.keySet().iterator().next());
+    long entryOverhead = FUZZY_SIZE * (meter.measureDeep(entries.keySet().iterator().next())
+        + meter.measureDeep(entries.values().iterator().next()));
     long perEntry = LongMath.divide(populated - entryOverhead - base,
         FUZZY_SIZE, RoundingMode.HALF_EVEN);
     perEntry += ((perEntry & 1) == 0) ? 0 : 1;
@@ -235,10 +344,23 @@ public final class MemoryBenchmark {
     return new String[] {
         label,
         String.format("%,d bytes", base),
-        String.format("%,d bytes (%,d aligned)", perEntry, aligned)
+        String.format("%,d bytes (%,d aligned)", perEntry, aligned),
+        nodeSize(map)
     };
   }
 
+  /**
+   * Returns the shallow size of the generated node, which shows how close its fields are to the
+   * object alignment boundary, or a placeholder if the map is not a bounded cache.
+   */
+  private String nodeSize(Map<?, ?> map) {
+    if (!(map instanceof BoundedLocalCache<?, ?>)) {
+      return "-";
+    }
+    Node<?, ?> node = ((BoundedLocalCache<?, ?>) map).data.values().iterator().next();
+    return String.format("%,d bytes (%s)", meter.measure(node), node.getClass().getSimpleName());
+  }
+
   public static void main(String[] args) throws Exception {
     new MemoryBenchmark().run();
   }
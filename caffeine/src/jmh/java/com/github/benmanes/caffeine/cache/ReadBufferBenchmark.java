@@ -39,6 +39,13 @@ import com.github.benmanes.caffeine.cache.buffer.BufferType;
  * <p>
  * The buffer should minimize garbage to manage its internal state, such as link nodes. This
  * optimization avoids additional garbage collection pauses that reduces overall throughput.
+ * <p>
+ * The cache's striped buffer is included with both a fixed and an adaptive capacity per stripe,
+ * where the latter is expected to trade a small amount of memory for fewer rejected records.
+ * <p>
+ * <pre>{@code
+ *   ./gradlew jmh -PincludePattern=ReadBufferBenchmark
+ * }</pre>
  *
  * @author ben.manes@gmail.com (Ben Manes)
  */
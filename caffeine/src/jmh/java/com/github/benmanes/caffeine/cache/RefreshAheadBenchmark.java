@@ -0,0 +1,108 @@
+/*
+ * Copyright 2020 Ben Manes. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.benmanes.caffeine.cache;
+
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+import site.ycsb.generator.NumberGenerator;
+import site.ycsb.generator.ScrambledZipfianGenerator;
+
+/**
+ * A benchmark of the read latency of a cache whose entries are refreshed from a slow loader and
+ * expire if not refreshed in time. When refreshed lazily, the less popular entries are likely to
+ * have expired by their next read so that the caller blocks on a load. When refreshed ahead, the
+ * entries are reloaded in the background before they expire, which trims the tail latency at the
+ * cost of reloading entries that may not be read again. The sampled percentiles reported by JMH
+ * should be compared, rather than the average.
+ * <p>
+ * <pre>{@code
+ *   ./gradlew jmh -PincludePattern=RefreshAheadBenchmark
+ * }</pre>
+ *
+ * @author ben.manes@gmail.com (Ben Manes)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RefreshAheadBenchmark {
+  private static final int SIZE = (2 << 14);
+  private static final int MASK = SIZE - 1;
+  private static final int ITEMS = SIZE / 3;
+  private static final long LOAD_MILLIS = 1;
+
+  // A concurrency of zero disables refreshing ahead
+  @Param({"0", "16"})
+  int refreshAheadConcurrency;
+
+  LoadingCache<Integer, Integer> cache;
+  ExecutorService executor;
+  Integer[] ints;
+
+  @State(Scope.Thread)
+  public static class ThreadState {
+    static final Random random = new Random();
+    int index = random.nextInt();
+  }
+
+  @Setup
+  public void setup() {
+    executor = Executors.newCachedThreadPool();
+    Caffeine<Object, Object> builder = Caffeine.newBuilder()
+        .scheduler(Scheduler.systemScheduler())
+        .refreshAfterWrite(200, TimeUnit.MILLISECONDS)
+        .expireAfterWrite(1, TimeUnit.SECONDS)
+        .executor(executor)
+        .maximumSize(SIZE);
+    if (refreshAheadConcurrency > 0) {
+      builder.refreshAhead(refreshAheadConcurrency);
+    }
+    cache = builder.build(key -> {
+      TimeUnit.MILLISECONDS.sleep(LOAD_MILLIS);
+      return key;
+    });
+
+    ints = new Integer[SIZE];
+    NumberGenerator generator = new ScrambledZipfianGenerator(ITEMS);
+    for (int i = 0; i < SIZE; i++) {
+      ints[i] = generator.nextValue().intValue();
+      cache.put(ints[i], ints[i]);
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Benchmark @Threads(8)
+  public Integer read(ThreadState threadState) {
+    return cache.get(ints[threadState.index++ & MASK]);
+  }
+}
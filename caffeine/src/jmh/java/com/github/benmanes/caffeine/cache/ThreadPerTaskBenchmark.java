@@ -0,0 +1,143 @@
+/*
+ * Copyright 2020 Ben Manes. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.benmanes.caffeine.cache;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+import site.ycsb.generator.NumberGenerator;
+import site.ycsb.generator.ScrambledZipfianGenerator;
+
+/**
+ * A benchmark that evaluates the read/write performance of a cache when the operations are
+ * performed by short-lived threads, such as by a thread-per-task or virtual thread executor. These
+ * threads start without a per-thread hash code, which the read buffer uses to select a stripe, so
+ * this workload exercises how well the recordings are distributed across the stripes. The number
+ * of reads dropped by the read buffer are reported as an auxiliary counter to compare against a
+ * pool of long-lived threads.
+ * <p>
+ * The virtual thread executor requires Java 19 or above and fails the trial otherwise.
+ * <p>
+ * <pre>{@code
+ *   ./gradlew jmh -PincludePattern=ThreadPerTaskBenchmark
+ * }</pre>
+ *
+ * @author ben.manes@gmail.com (Ben Manes)
+ */
+@State(Scope.Benchmark)
+public class ThreadPerTaskBenchmark {
+  private static final int SIZE = (2 << 14);
+  private static final int MASK = SIZE - 1;
+  private static final int ITEMS = SIZE / 3;
+  private static final int TASKS = 64;
+  private static final int OPERATIONS = 256;
+
+  @Param({"Pool", "ThreadPerTask", "Virtual"})
+  ExecutorType executorType;
+
+  Cache<Integer, Boolean> cache;
+  Executor executor;
+  Integer[] ints;
+
+  @AuxCounters
+  @State(Scope.Thread)
+  public static class RecordCounter {
+    public long readsDropped;
+  }
+
+  @Setup
+  public void setup() throws ReflectiveOperationException {
+    ints = new Integer[SIZE];
+    executor = executorType.create();
+    cache = Caffeine.newBuilder().maximumSize(2 * SIZE).build();
+
+    // Populate with a realistic access distribution
+    NumberGenerator generator = new ScrambledZipfianGenerator(ITEMS);
+    for (int i = 0; i < SIZE; i++) {
+      ints[i] = generator.nextValue().intValue();
+      cache.put(ints[i], Boolean.TRUE);
+    }
+    cache.cleanUp();
+  }
+
+  @TearDown
+  public void tearDown() {
+    if (executor instanceof ExecutorService) {
+      ((ExecutorService) executor).shutdownNow();
+    }
+  }
+
+  @Benchmark @Threads(4)
+  public void readwrite(RecordCounter counters) {
+    long dropped = cache.policy().readBufferRejected();
+    CompletableFuture<?>[] futures = new CompletableFuture<?>[TASKS];
+    for (int i = 0; i < TASKS; i++) {
+      int start = ThreadLocalRandom.current().nextInt();
+      futures[i] = CompletableFuture.runAsync(() -> perform(start), executor);
+    }
+    CompletableFuture.allOf(futures).join();
+    counters.readsDropped += cache.policy().readBufferRejected() - dropped;
+  }
+
+  /**
+   * Performs a mix of reads and writes in the ratio of the GetPutBenchmark's readwrite group. The
+   * starting index is chosen by the caller so that the task's thread does not initialize its probe.
+   */
+  private void perform(int start) {
+    int index = start;
+    for (int i = 0; i < OPERATIONS; i++) {
+      Integer key = ints[index++ & MASK];
+      if ((i & 3) == 0) {
+        cache.put(key, Boolean.TRUE);
+      } else {
+        cache.getIfPresent(key);
+      }
+    }
+  }
+
+  public enum ExecutorType {
+    Pool {
+      @Override Executor create() {
+        return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+      }
+    },
+    ThreadPerTask {
+      @Override Executor create() {
+        return task -> new Thread(task).start();
+      }
+    },
+    Virtual {
+      @Override Executor create() throws ReflectiveOperationException {
+        return (Executor) Executors.class
+            .getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+      }
+    };
+
+    abstract Executor create() throws ReflectiveOperationException;
+  }
+}
@@ -21,6 +21,7 @@ import java.util.concurrent.TimeUnit;
 
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
 import org.openjdk.jmh.annotations.Scope;
 import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
@@ -39,6 +40,9 @@ public class TimerWheelBenchmark {
   private static final long DELTA = TimeUnit.MINUTES.toNanos(5);
   private static final long UPPERBOUND = TimeUnit.DAYS.toNanos(5);
 
+  @Param({"default", "fine", "deep"})
+  String layout;
+
   TimerWheel<Integer, Integer> timerWheel;
   long[] times;
   Timer timer;
@@ -52,7 +56,7 @@ public class TimerWheelBenchmark {
   public void setup() {
     timer = new Timer(0);
     times = new long[SIZE];
-    timerWheel = new TimerWheel<>(new MockCache());
+    timerWheel = newTimerWheel();
     for (int i = 0; i < SIZE; i++) {
       times[i] = ThreadLocalRandom.current().nextLong(UPPERBOUND);
       timerWheel.schedule(new Timer(times[i]));
@@ -60,6 +64,25 @@ public class TimerWheelBenchmark {
     timerWheel.schedule(timer);
   }
 
+  /**
+   * Returns the timer wheel for the layout, where "fine" has a millisecond resolution and "deep"
+   * spans a year before overflowing.
+   */
+  private TimerWheel<Integer, Integer> newTimerWheel() {
+    switch (layout) {
+      case "default":
+        return new TimerWheel<>(new MockCache());
+      case "fine":
+        return new TimerWheel<>(new MockCache(),
+            TimeUnit.MILLISECONDS.toNanos(1), TimeUnit.DAYS.toNanos(7));
+      case "deep":
+        return new TimerWheel<>(new MockCache(),
+            TimeUnit.SECONDS.toNanos(1), TimeUnit.DAYS.toNanos(365));
+      default:
+        throw new IllegalStateException("Unknown layout: " + layout);
+    }
+  }
+
   @Benchmark
   public Node<Integer, Integer> findBucket(ThreadState threadState) {
     return timerWheel.findBucket(times[threadState.index++ & MASK]);
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2020 Ben Manes. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.benmanes.caffeine.cache;
+
+import java.util.Random;
+import java.util.function.Function;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+/**
+ * A benchmark that evaluates the read performance of a cache that holds its keys weakly, where a
+ * lookup probes the hash table with an adapter that compares the key by identity. The adapter is
+ * taken from a pool owned by the cache rather than allocated per read, which can be verified by the
+ * GC profiler reporting a <tt>gc.alloc.rate.norm</tt> of zero bytes per operation.
+ * <p>
+ * <pre>{@code
+ *   ./gradlew jmh -PincludePattern=WeakKeyReadBenchmark -Pprofilers=gc
+ * }</pre>
+ *
+ * @author ben.manes@gmail.com (Ben Manes)
+ */
+@State(Scope.Benchmark)
+public class WeakKeyReadBenchmark {
+  static final Function<Integer, Boolean> mappingFunction = any -> Boolean.TRUE;
+  static final int SIZE = (2 << 14);
+  static final int MASK = SIZE - 1;
+
+  @Param({"true", "false"})
+  boolean weakKeys;
+
+  Cache<Integer, Boolean> cache;
+  Integer[] keys;
+
+  @State(Scope.Thread)
+  public static class ThreadState {
+    static final Random random = new Random();
+    int index = random.nextInt();
+  }
+
+  @Setup
+  public void setup() {
+    Caffeine<Object, Object> builder = Caffeine.newBuilder().maximumSize(2 * SIZE);
+    if (weakKeys) {
+      builder.weakKeys();
+    }
+    cache = builder.build();
+
+    // The keys are strongly held by the benchmark so that they are not collected
+    keys = new Integer[SIZE];
+    for (int i = 0; i < SIZE; i++) {
+      keys[i] = Integer.valueOf(i);
+      cache.put(keys[i], Boolean.TRUE);
+    }
+  }
+
+  @Benchmark @Threads(4)
+  public Boolean getIfPresent(ThreadState threadState) {
+    return cache.getIfPresent(keys[threadState.index++ & MASK]);
+  }
+
+  @Benchmark @Threads(4)
+  public Boolean get(ThreadState threadState) {
+    return cache.get(keys[threadState.index++ & MASK], mappingFunction);
+  }
+}
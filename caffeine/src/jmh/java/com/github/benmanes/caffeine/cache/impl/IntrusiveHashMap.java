@@ -0,0 +1,438 @@
+/*
+ * Copyright 2020 Ben Manes. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.benmanes.caffeine.cache.impl;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A prototype of a concurrent hash table whose entries are linked directly into the bins, as a
+ * cache's nodes would be if they doubled as the table's entries. Compared to a
+ * {@link java.util.concurrent.ConcurrentHashMap} that maps to a separate node, this removes the
+ * table's own entry object and a pointer chase per lookup. It is used to evaluate that layout, e.g.
+ * by the {@code MemoryBenchmark} and {@code GetPutBenchmark}, before adopting it in the cache.
+ * <p>
+ * The table is split into segments that are each guarded by a lock for writes. Reads are lock-free
+ * and traverse the chains while relying on the entries' volatile links. A resize relinks the
+ * existing entries rather than copying them, so a reader that misses validates the segment's
+ * resize stamp and, if a resize was in progress, retries the lookup under the lock.
+ *
+ * @author ben.manes@gmail.com (Ben Manes)
+ */
+public final class IntrusiveHashMap<K, V> extends AbstractMap<K, V>
+    implements ConcurrentMap<K, V> {
+  static final int MAXIMUM_SEGMENT_CAPACITY = 1 << 30;
+  static final int MINIMUM_SEGMENT_CAPACITY = 2;
+  static final float LOAD_FACTOR = 0.75f;
+
+  final Segment<K, V>[] segments;
+  final int segmentShift;
+  final int segmentMask;
+
+  Set<Entry<K, V>> entrySet;
+
+  @SuppressWarnings({"rawtypes", "unchecked"})
+  public IntrusiveHashMap(int initialCapacity, int concurrencyLevel) {
+    int segmentCount = ceilingPowerOfTwo(Math.max(1, concurrencyLevel));
+    int segmentCapacity = ceilingPowerOfTwo(Math.max(MINIMUM_SEGMENT_CAPACITY,
+        (int) (Math.max(0, initialCapacity) / (segmentCount * LOAD_FACTOR)) + 1));
+    segmentShift = 32 - Integer.numberOfTrailingZeros(segmentCount);
+    segmentMask = segmentCount - 1;
+    segments = new Segment[segmentCount];
+    for (int i = 0; i < segments.length; i++) {
+      segments[i] = new Segment<>(segmentCapacity);
+    }
+  }
+
+  @Override
+  public boolean isEmpty() {
+    for (Segment<K, V> segment : segments) {
+      if (segment.count != 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public int size() {
+    long size = 0L;
+    for (Segment<K, V> segment : segments) {
+      size += segment.count;
+    }
+    return (int) Math.min(size, Integer.MAX_VALUE);
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return get(key) != null;
+  }
+
+  @Override
+  public V get(Object key) {
+    int hash = spread(key.hashCode());
+    return segmentFor(hash).get(key, hash);
+  }
+
+  @Override
+  public V put(K key, V value) {
+    requireNonNull(value);
+    int hash = spread(key.hashCode());
+    return segmentFor(hash).put(key, hash, value, /* onlyIfAbsent */ false);
+  }
+
+  @Override
+  public V putIfAbsent(K key, V value) {
+    requireNonNull(value);
+    int hash = spread(key.hashCode());
+    return segmentFor(hash).put(key, hash, value, /* onlyIfAbsent */ true);
+  }
+
+  @Override
+  public V remove(Object key) {
+    int hash = spread(key.hashCode());
+    return segmentFor(hash).remove(key, hash, /* expectedValue */ null);
+  }
+
+  @Override
+  public boolean remove(Object key, Object value) {
+    if (value == null) {
+      return false;
+    }
+    int hash = spread(key.hashCode());
+    return segmentFor(hash).remove(key, hash, value) != null;
+  }
+
+  @Override
+  public V replace(K key, V value) {
+    requireNonNull(value);
+    int hash = spread(key.hashCode());
+    return segmentFor(hash).replace(key, hash, /* expectedValue */ null, value);
+  }
+
+  @Override
+  public boolean replace(K key, V oldValue, V newValue) {
+    requireNonNull(oldValue);
+    requireNonNull(newValue);
+    int hash = spread(key.hashCode());
+    return segmentFor(hash).replace(key, hash, oldValue, newValue) != null;
+  }
+
+  @Override
+  public void clear() {
+    for (Segment<K, V> segment : segments) {
+      segment.clear();
+    }
+  }
+
+  @Override
+  public Set<Entry<K, V>> entrySet() {
+    Set<Entry<K, V>> es = entrySet;
+    return (es == null) ? (entrySet = new EntrySetView()) : es;
+  }
+
+  Segment<K, V> segmentFor(int hash) {
+    return segments[(hash >>> segmentShift) & segmentMask];
+  }
+
+  /** Applies a supplemental hash function to defend against poor quality hash codes. */
+  static int spread(int h) {
+    h ^= (h >>> 16);
+    h *= 0x85ebca6b;
+    return h ^ (h >>> 13);
+  }
+
+  static int ceilingPowerOfTwo(int x) {
+    return 1 << -Integer.numberOfLeadingZeros(x - 1);
+  }
+
+  /**
+   * An entry that is linked into its bin's chain. In the cache this would be the generated node,
+   * which would gain the {@code hash} and {@code next} fields.
+   */
+  static final class Node<K, V> implements Entry<K, V> {
+    final K key;
+    final int hash;
+
+    volatile V value;
+    volatile Node<K, V> next;
+
+    Node(K key, int hash, V value, Node<K, V> next) {
+      this.key = requireNonNull(key);
+      this.value = value;
+      this.hash = hash;
+      this.next = next;
+    }
+
+    @Override
+    public K getKey() {
+      return key;
+    }
+
+    @Override
+    public V getValue() {
+      return value;
+    }
+
+    @Override
+    public V setValue(V value) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (o == this) {
+        return true;
+      } else if (!(o instanceof Entry<?, ?>)) {
+        return false;
+      }
+      Entry<?, ?> entry = (Entry<?, ?>) o;
+      return key.equals(entry.getKey()) && value.equals(entry.getValue());
+    }
+
+    @Override
+    public int hashCode() {
+      return key.hashCode() ^ value.hashCode();
+    }
+
+    @Override
+    public String toString() {
+      return key + "=" + value;
+    }
+  }
+
+  @SuppressWarnings("serial")
+  static final class Segment<K, V> extends ReentrantLock {
+    volatile AtomicReferenceArray<Node<K, V>> table;
+    /** Incremented before and after a resize relinks the entries, so odd while in progress. */
+    volatile int resizes;
+    volatile int count;
+    int threshold;
+
+    Segment(int capacity) {
+      table = new AtomicReferenceArray<>(capacity);
+      threshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    V get(Object key, int hash) {
+      int stamp = resizes;
+      Node<K, V> node = find(table, key, hash);
+      if (node != null) {
+        return node.value;
+      } else if (((stamp & 1) == 0) && (stamp == resizes)) {
+        return null;
+      }
+
+      // A resize may have moved the entry into a chain that the traversal did not follow
+      lock();
+      try {
+        node = find(table, key, hash);
+        return (node == null) ? null : node.value;
+      } finally {
+        unlock();
+      }
+    }
+
+    static <K, V> Node<K, V> find(AtomicReferenceArray<Node<K, V>> tab, Object key, int hash) {
+      for (Node<K, V> e = tab.get(hash & (tab.length() - 1)); e != null; e = e.next) {
+        if ((e.hash == hash) && key.equals(e.key)) {
+          return e;
+        }
+      }
+      return null;
+    }
+
+    V put(K key, int hash, V value, boolean onlyIfAbsent) {
+      lock();
+      try {
+        AtomicReferenceArray<Node<K, V>> tab = table;
+        Node<K, V> node = find(tab, key, hash);
+        if (node != null) {
+          V oldValue = node.value;
+          if (!onlyIfAbsent) {
+            node.value = value;
+          }
+          return oldValue;
+        }
+        if (count >= threshold) {
+          tab = resize();
+        }
+        int index = hash & (tab.length() - 1);
+        tab.set(index, new Node<>(key, hash, value, tab.get(index)));
+        count++;
+        return null;
+      } finally {
+        unlock();
+      }
+    }
+
+    V replace(K key, int hash, V expectedValue, V value) {
+      lock();
+      try {
+        Node<K, V> node = find(table, key, hash);
+        if ((node == null) || ((expectedValue != null) && !expectedValue.equals(node.value))) {
+          return null;
+        }
+        V oldValue = node.value;
+        node.value = value;
+        return oldValue;
+      } finally {
+        unlock();
+      }
+    }
+
+    V remove(Object key, int hash, Object expectedValue) {
+      lock();
+      try {
+        AtomicReferenceArray<Node<K, V>> tab = table;
+        int index = hash & (tab.length() - 1);
+        for (Node<K, V> pred = null, e = tab.get(index); e != null; pred = e, e = e.next) {
+          if ((e.hash != hash) || !key.equals(e.key)) {
+            continue;
+          } else if ((expectedValue != null) && !expectedValue.equals(e.value)) {
+            return null;
+          }
+
+          // The removed entry retains its link so that a concurrent traversal may continue
+          if (pred == null) {
+            tab.set(index, e.next);
+          } else {
+            pred.next = e.next;
+          }
+          count--;
+          return e.value;
+        }
+        return null;
+      } finally {
+        unlock();
+      }
+    }
+
+    void clear() {
+      lock();
+      try {
+        table = new AtomicReferenceArray<>(table.length());
+        count = 0;
+      } finally {
+        unlock();
+      }
+    }
+
+    /** Doubles the table by relinking the entries into the new bins. */
+    AtomicReferenceArray<Node<K, V>> resize() {
+      AtomicReferenceArray<Node<K, V>> oldTable = table;
+      int oldCapacity = oldTable.length();
+      if (oldCapacity >= MAXIMUM_SEGMENT_CAPACITY) {
+        threshold = Integer.MAX_VALUE;
+        return oldTable;
+      }
+
+      resizes++;
+      AtomicReferenceArray<Node<K, V>> newTable = new AtomicReferenceArray<>(2 * oldCapacity);
+      int mask = newTable.length() - 1;
+      for (int i = 0; i < oldCapacity; i++) {
+        Node<K, V> next;
+        for (Node<K, V> e = oldTable.get(i); e != null; e = next) {
+          next = e.next;
+          int index = e.hash & mask;
+          e.next = newTable.get(index);
+          newTable.set(index, e);
+        }
+      }
+      table = newTable;
+      threshold = (int) (newTable.length() * LOAD_FACTOR);
+      resizes++;
+      return newTable;
+    }
+  }
+
+  final class EntrySetView extends AbstractSet<Entry<K, V>> {
+    @Override public int size() {
+      return IntrusiveHashMap.this.size();
+    }
+    @Override public void clear() {
+      IntrusiveHashMap.this.clear();
+    }
+    @Override public Iterator<Entry<K, V>> iterator() {
+      return new EntryIterator();
+    }
+  }
+
+  /**
+   * A weakly consistent iterator that may skip or repeat an entry if its segment is concurrently
+   * resized.
+   */
+  final class EntryIterator implements Iterator<Entry<K, V>> {
+    AtomicReferenceArray<Node<K, V>> table;
+    Node<K, V> current;
+    Node<K, V> next;
+    int segmentIndex;
+    int binIndex;
+
+    EntryIterator() {
+      table = segments[0].table;
+      advance();
+    }
+
+    void advance() {
+      if (next != null) {
+        next = next.next;
+      }
+      while (next == null) {
+        if (binIndex < table.length()) {
+          next = table.get(binIndex++);
+        } else if (++segmentIndex < segments.length) {
+          table = segments[segmentIndex].table;
+          binIndex = 0;
+        } else {
+          return;
+        }
+      }
+    }
+
+    @Override
+    public boolean hasNext() {
+      return (next != null);
+    }
+
+    @Override
+    public Entry<K, V> next() {
+      if (next == null) {
+        throw new NoSuchElementException();
+      }
+      current = next;
+      advance();
+      return current;
+    }
+
+    @Override
+    public void remove() {
+      if (current == null) {
+        throw new IllegalStateException();
+      }
+      IntrusiveHashMap.this.remove(current.key, current.value);
+      current = null;
+    }
+  }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2020 Ben Manes. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.benmanes.caffeine.cache.impl;
+
+import com.github.benmanes.caffeine.cache.BasicCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * A cache that is partitioned into independent shards by the key's hash, where each shard has its
+ * own eviction lock, policy, and frequency sketch bounded by a slice of the maximum size. This
+ * trades a global eviction order for reduced contention on the maintenance work.
+ *
+ * @author ben.manes@gmail.com (Ben Manes)
+ */
+public final class ShardedCaffeineCache<K, V> implements BasicCache<K, V> {
+  private final Cache<K, V>[] shards;
+  private final int mask;
+
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  public ShardedCaffeineCache(int maximumSize, int shardCount) {
+    int size = 1 << -Integer.numberOfLeadingZeros(shardCount - 1);
+    shards = new Cache[size];
+    mask = size - 1;
+    for (int i = 0; i < size; i++) {
+      shards[i] = Caffeine.newBuilder()
+          .initialCapacity(maximumSize / size)
+          .maximumSize(maximumSize / size)
+          .build();
+    }
+  }
+
+  private Cache<K, V> shardFor(Object key) {
+    int h = key.hashCode() * 0x9E3779B9;
+    return shards[(h ^ (h >>> 16)) & mask];
+  }
+
+  @Override
+  public V get(K key) {
+    return shardFor(key).getIfPresent(key);
+  }
+
+  @Override
+  public void put(K key, V value) {
+    shardFor(key).put(key, value);
+  }
+
+  @Override
+  public void remove(K key) {
+    shardFor(key).invalidate(key);
+  }
+
+  @Override
+  public void clear() {
+    for (Cache<K, V> shard : shards) {
+      shard.invalidateAll();
+    }
+  }
+
+  @Override
+  public void cleanUp() {
+    for (Cache<K, V> shard : shards) {
+      shard.cleanUp();
+    }
+  }
+}
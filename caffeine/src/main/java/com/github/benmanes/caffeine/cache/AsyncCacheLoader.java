@@ -93,4 +93,30 @@ public interface AsyncCacheLoader<K, V> {
       @NonNull K key, @NonNull V oldValue, @NonNull Executor executor) {
     return asyncLoad(key, executor);
   }
+
+  /**
+   * Asynchronously computes or retrieves the replacement values corresponding to already-cached
+   * {@code keys}. This method is called when the refreshes of existing cache entries are coalesced
+   * by {@link Caffeine#coalesceRefreshes}.
+   * <p>
+   * If the returned map doesn't contain a requested key, or maps it to {@code null}, then the
+   * replacement value is treated as not found and the mapping will be removed. If the returned map
+   * contains extra keys not present in {@code oldValues} then those entries are ignored.
+   * <p>
+   * This method should be overridden when bulk retrieval is significantly more efficient than many
+   * individual lookups. Note that {@link Caffeine#coalesceRefreshes} requires that this method is
+   * overridden.
+   * <p>
+   * <b>Note:</b> <i>all exceptions thrown by this method will be logged and then swallowed</i>.
+   *
+   * @param oldValues the non-null old values corresponding to the keys being refreshed
+   * @param executor the executor with which the entries are asynchronously loaded
+   * @return a future containing the map from each key in {@code oldValues} to its new value
+   */
+  @NonNull
+  default CompletableFuture<Map<@NonNull K, @NonNull V>> asyncReloadAll(
+      @NonNull Map<? extends @NonNull K, ? extends @NonNull V> oldValues,
+      @NonNull Executor executor) {
+    throw new UnsupportedOperationException();
+  }
 }
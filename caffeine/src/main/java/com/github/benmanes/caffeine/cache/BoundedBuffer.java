@@ -16,6 +16,7 @@
 package com.github.benmanes.caffeine.cache;
 
 import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Consumer;
 
 /**
@@ -42,23 +43,49 @@ final class BoundedBuffer<E> extends StripedBuffer<E> {
    * adding new buffers when contention is detected, up to an internal maximum. When rehashing in
    * order to discover an available buffer, the producer may retry adding its element to determine
    * whether it found a satisfactory buffer or if resizing is necessary.
+   *
+   * When adaptive, each ring buffer allocates its array at the maximum size but only accepts up to
+   * its current capacity. The consumer adjusts the capacity after every drain by doubling it if
+   * producers were rejected due to the buffer being full, and by halving it if the buffer was
+   * mostly idle. As only the consumer changes the capacity and the index mask is fixed by the
+   * array's length, a producer that observes a stale capacity cannot overrun the buffer.
+   *
+   * The rejections are counted by a striped adder, rather than a field of the ring buffer, so that
+   * the producers that race to record them neither lose updates nor invalidate the cache line that
+   * holds the capacity and mask which every producer reads.
    */
 
-  /** The maximum number of elements per buffer. */
+  /** The initial, and when not adaptive the fixed, number of elements per buffer. */
   static final int BUFFER_SIZE = 16;
-  static final int MASK = BUFFER_SIZE - 1;
+  /** The maximum number of elements per buffer when the capacity is adaptive. */
+  static final int MAXIMUM_BUFFER_SIZE = 4 * BUFFER_SIZE;
+
+  final boolean adaptive;
+
+  BoundedBuffer(boolean adaptive) {
+    this.adaptive = adaptive;
+  }
 
   @Override
   protected Buffer<E> create(E e) {
-    return new RingBuffer<>(e);
+    return new RingBuffer<>(e, adaptive ? MAXIMUM_BUFFER_SIZE : BUFFER_SIZE);
   }
 
   static final class RingBuffer<E> extends BBHeader.ReadAndWriteCounterRef implements Buffer<E> {
     final AtomicReferenceArray<E> buffer;
+    final int mask;
+
+    final LongAdder rejected;
+
+    int capacity;
+    long lastRejected;
 
     @SuppressWarnings({"unchecked", "cast", "rawtypes"})
-    public RingBuffer(E e) {
-      buffer = new AtomicReferenceArray<>(BUFFER_SIZE);
+    public RingBuffer(E e, int maximumSize) {
+      buffer = new AtomicReferenceArray<>(maximumSize);
+      rejected = new LongAdder();
+      mask = maximumSize - 1;
+      capacity = BUFFER_SIZE;
       buffer.lazySet(0, e);
     }
 
@@ -67,11 +94,12 @@ final class BoundedBuffer<E> extends StripedBuffer<E> {
       long head = readCounter;
       long tail = relaxedWriteCounter();
       long size = (tail - head);
-      if (size >= BUFFER_SIZE) {
+      if (size >= capacity) {
+        rejected.increment();
         return Buffer.FULL;
       }
       if (casWriteCounter(tail, tail + 1)) {
-        int index = (int) (tail & MASK);
+        int index = (int) (tail & mask);
         buffer.lazySet(index, e);
         return Buffer.SUCCESS;
       }
@@ -83,21 +111,45 @@ final class BoundedBuffer<E> extends StripedBuffer<E> {
       long head = readCounter;
       long tail = relaxedWriteCounter();
       long size = (tail - head);
-      if (size == 0) {
-        return;
+      if (size != 0) {
+        do {
+          int index = (int) (head & mask);
+          E e = buffer.get(index);
+          if (e == null) {
+            // not published yet
+            break;
+          }
+          buffer.lazySet(index, null);
+          consumer.accept(e);
+          head++;
+        } while (head != tail);
+        lazySetReadCounter(head);
       }
-      do {
-        int index = (int) (head & MASK);
-        E e = buffer.get(index);
-        if (e == null) {
-          // not published yet
-          break;
+      adapt((int) size);
+    }
+
+    /** Resizes the capacity based on the rejections and utilization since the last drain. */
+    void adapt(int drained) {
+      long total = rejected.sum();
+      long dropped = total - lastRejected;
+      lastRejected = total;
+      if (dropped > 0) {
+        if (capacity <= mask) {
+          capacity <<= 1;
         }
-        buffer.lazySet(index, null);
-        consumer.accept(e);
-        head++;
-      } while (head != tail);
-      lazySetReadCounter(head);
+      } else if ((capacity > BUFFER_SIZE) && (drained < (capacity >>> 2))) {
+        capacity >>>= 1;
+      }
+    }
+
+    @Override
+    public long rejected() {
+      return rejected.sum();
+    }
+
+    @Override
+    public long accepted() {
+      return writeCounter;
     }
 
     @Override
@@ -32,6 +32,7 @@ import java.io.Serializable;
 import java.lang.ref.Reference;
 import java.lang.ref.ReferenceQueue;
 import java.lang.ref.WeakReference;
+import java.time.Duration;
 import java.util.AbstractCollection;
 import java.util.AbstractMap;
 import java.util.AbstractSet;
@@ -57,8 +58,10 @@ import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
@@ -74,6 +77,8 @@ import org.checkerframework.checker.nullness.qual.Nullable;
 import com.github.benmanes.caffeine.cache.Async.AsyncExpiry;
 import com.github.benmanes.caffeine.cache.LinkedDeque.PeekingIterator;
 import com.github.benmanes.caffeine.cache.References.InternalReference;
+import com.github.benmanes.caffeine.cache.References.LookupKeyPool;
+import com.github.benmanes.caffeine.cache.References.ReusableLookupKeyReference;
 import com.github.benmanes.caffeine.cache.stats.StatsCounter;
 import com.google.errorprone.annotations.concurrent.GuardedBy;
 
@@ -153,6 +158,13 @@ abstract class BoundedLocalCache<K, V> extends BLCHeader.DrainStatusRef<K, V>
    * random chance of being admitted. This causes the victim to be evicted, but in a way that
    * marginally impacts the hit rate.
    *
+   * When the entries are weighted, a heavy candidate that is more popular than the victim may
+   * require many more entries to be evicted before the cache is within its bounds. If size-aware
+   * admission is enabled then the candidate is instead compared against the combined frequency of
+   * the probation entries whose combined weight it would displace, similar to how AdaptSize [6]
+   * weighs an object's size against its popularity. This favors retaining many light entries over
+   * a few heavy ones.
+   *
    * Expiration:
    * -----------
    * Expiration is implemented in O(1) time complexity. The time-to-idle policy uses an access-order
@@ -178,6 +190,8 @@ abstract class BoundedLocalCache<K, V> extends BLCHeader.DrainStatusRef<K, V>
    * https://www.usenix.org/legacy/events/sec03/tech/full_papers/crosby/crosby.pdf
    * [5] Hashed and Hierarchical Timing Wheels
    * http://www.cs.columbia.edu/~nahum/w6998/papers/ton97-timing-wheels.pdf
+   * [6] AdaptSize: Orchestrating the Hot Object Memory Cache in a Content Delivery Network
+   * https://www.usenix.org/conference/nsdi17/technical-sessions/presentation/berger
    */
 
   static final Logger logger = Logger.getLogger(BoundedLocalCache.class.getName());
@@ -204,6 +218,8 @@ abstract class BoundedLocalCache<K, V> extends BLCHeader.DrainStatusRef<K, V>
   static final double HILL_CLIMBER_STEP_DECAY_RATE = 0.98d;
   /** The maximum number of entries that can be transfered between queues. */
   static final int QUEUE_TRANSFER_THRESHOLD = 1_000;
+  /** The maximum number of victims that a candidate may displace when admitting by size. */
+  static final int ADMIT_BY_SIZE_SCAN_LIMIT = 64;
   /** The maximum time window between entry updates before the expiration must be reordered. */
   static final long EXPIRE_WRITE_TOLERANCE = TimeUnit.SECONDS.toNanos(1);
   /** The maximum duration before an entry expires. */
@@ -220,6 +236,20 @@ abstract class BoundedLocalCache<K, V> extends BLCHeader.DrainStatusRef<K, V>
   final Weigher<K, V> weigher;
   final Executor executor;
   final boolean isAsync;
+  final boolean sizeAwareAdmission;
+  final int maintenanceBudget;
+  final @Nullable RefreshAheadTask refreshAheadTask;
+  final @Nullable CoalescingReloader<K, V> refreshCoalescer;
+  final @Nullable LoadLimiter loadLimiter;
+  final @Nullable Cache<K, Boolean> absentLoads;
+  final long staleWhileRevalidateNanos;
+  final long staleIfErrorNanos;
+  final long staleIfErrorAgeNanos;
+  final @Nullable Jitter refreshJitter;
+  final @Nullable Jitter jitter;
+  final int expirationBudget;
+  final MaintenanceRecorder maintenanceRecorder;
+  final @Nullable LookupKeyPool lookupKeys;
 
   // The collection views
   @Nullable transient Set<K> keySet;
@@ -230,18 +260,39 @@ abstract class BoundedLocalCache<K, V> extends BLCHeader.DrainStatusRef<K, V>
   protected BoundedLocalCache(Caffeine<K, V> builder,
       @Nullable CacheLoader<K, V> cacheLoader, boolean isAsync) {
     this.isAsync = isAsync;
+    sizeAwareAdmission = builder.isSizeAwareAdmission();
     this.cacheLoader = cacheLoader;
     executor = builder.getExecutor();
     writer = builder.getCacheWriter();
     evictionLock = new ReentrantLock();
     weigher = builder.getWeigher(isAsync);
     drainBuffersTask = new PerformCleanupTask(this);
+    maintenanceBudget = builder.hasMaintenanceBudget()
+        ? builder.getMaintenanceBudget()
+        : WRITE_BUFFER_MAX;
+    refreshAheadTask = builder.refreshesAhead()
+        ? new RefreshAheadTask(this, builder.getScheduler(), builder.getRefreshAheadConcurrency())
+        : null;
+    refreshCoalescer = builder.coalescesRefreshes()
+        ? new CoalescingReloader<>(requireNonNull(cacheLoader), builder.getScheduler(),
+            builder.getRefreshCoalesceDelayNanos(), builder.getRefreshCoalesceBatchSize())
+        : null;
+    loadLimiter = builder.getLoadLimiter();
+    absentLoads = builder.getAbsentLoads();
+    staleWhileRevalidateNanos = builder.getStaleWhileRevalidateNanos();
+    staleIfErrorNanos = builder.getStaleIfErrorNanos();
+    staleIfErrorAgeNanos = builder.getStaleIfErrorAgeNanos();
+    refreshJitter = builder.refreshAfterWrite() ? builder.getJitter() : null;
+    jitter = builder.getJitter();
+    expirationBudget = builder.getExpirationBudget();
+    maintenanceRecorder = builder.getMaintenanceRecorder();
     nodeFactory = NodeFactory.newFactory(builder, isAsync);
     data = new ConcurrentHashMap<>(builder.getInitialCapacity());
     readBuffer = evicts() || collectKeys() || collectValues() || expiresAfterAccess()
-        ? new BoundedBuffer<>()
+        ? new BoundedBuffer<>(builder.hasAdaptiveReadBuffer())
         : Buffer.disabled();
     accessPolicy = (evicts() || expiresAfterAccess()) ? this::onAccess : e -> {};
+    lookupKeys = collectKeys() ? new LookupKeyPool() : null;
 
     if (evicts()) {
       setMaximumSize(builder.getMaximum());
@@ -250,6 +301,27 @@ abstract class BoundedLocalCache<K, V> extends BLCHeader.DrainStatusRef<K, V>
 
   /* --------------- Shared --------------- */
 
+  /**
+   * Returns the node mapped to the key, or {@code null} if absent. When the keys are weakly held
+   * the map is probed with a pooled lookup key, rather than allocating one per read.
+   */
+  final @Nullable Node<K, V> getNode(Object key) {
+    LookupKeyPool pool = lookupKeys;
+    if (pool == null) {
+      return data.get(nodeFactory.newLookupKey(key));
+    }
+    int index = LookupKeyPool.index();
+    ReusableLookupKeyReference lookupKey = pool.acquire(index);
+    if (lookupKey == null) {
+      return data.get(nodeFactory.newLookupKey(key));
+    }
+    try {
+      return data.get(lookupKey.set(key));
+    } finally {
+      pool.release(index, lookupKey);
+    }
+  }
+
   /** Returns if the node's value is currently being computed, asynchronously. */
   final boolean isComputingAsync(Node<?, ?> node) {
     return isAsync && !Async.isReady((CompletableFuture<?>) node.getValue());
@@ -289,6 +361,16 @@ abstract class BoundedLocalCache<K, V> extends BLCHeader.DrainStatusRef<K, V>
     return executor;
   }
 
+  @Override
+  public final @Nullable LoadLimiter loadLimiter() {
+    return loadLimiter;
+  }
+
+  @Override
+  public final @Nullable Cache<K, Boolean> absentLoads() {
+    return absentLoads;
+  }
+
   /** Returns whether this cache notifies a writer when an entry is modified. */
   protected boolean hasWriter() {
     return (writer != CacheWriter.disabledWriter());
@@ -733,6 +815,25 @@ abstract class BoundedLocalCache<K, V> extends BLCHeader.DrainStatusRef<K, V>
         continue;
       }
 
+      // Evict the heavier candidate or the lighter victims that it would displace
+      if (sizeAwareAdmission && (candidate.getPolicyWeight() > victim.getPolicyWeight())) {
+        candidates--;
+        int victims = admitBySize(candidate, candidateKey, victim);
+        if (victims == 0) {
+          Node<K, V> evict = candidate;
+          candidate = candidate.getPreviousInAccessOrder();
+          evictEntry(evict, RemovalCause.SIZE, 0L);
+          continue;
+        }
+        for (int i = 0; (i < victims) && (weightedSize() > maximum()); i++) {
+          Node<K, V> evict = victim;
+          victim = victim.getNextInAccessOrder();
+          evictEntry(evict, RemovalCause.SIZE, 0L);
+        }
+        candidate = candidate.getPreviousInAccessOrder();
+        continue;
+      }
+
       // Evict the entry with the lowest frequency
       candidates--;
       if (admit(candidateKey, victimKey)) {
@@ -762,6 +863,52 @@ abstract class BoundedLocalCache<K, V> extends BLCHeader.DrainStatusRef<K, V>
   boolean admit(K candidateKey, K victimKey) {
     int victimFreq = frequencySketch().frequency(victimKey);
     int candidateFreq = frequencySketch().frequency(candidateKey);
+    return admit(candidateFreq, victimFreq);
+  }
+
+  /**
+   * Determines if the candidate should be accepted into the main space in place of the victims
+   * that it would displace, as determined by its frequency relative to their combined frequency.
+   * The victims are the entries in eviction order, starting from the given victim, whose combined
+   * weight is at least the candidate's weight. The candidate is rejected if those entries cannot
+   * be found within a bounded scan, as a very heavy entry would displace a large portion of the
+   * cache.
+   *
+   * @param candidate the entry being proposed for long term retention
+   * @param candidateKey the key for the entry being proposed for long term retention
+   * @param victim the first entry chosen by the eviction policy for replacement
+   * @return the number of victims, starting from the given victim, to eject for the candidate to
+   *         be admitted, or zero if the candidate should be rejected
+   */
+  @GuardedBy("evictionLock")
+  int admitBySize(Node<K, V> candidate, K candidateKey, Node<K, V> victim) {
+    long candidateWeight = candidate.getPolicyWeight();
+    long victimsWeight = 0L;
+    int victimsFreq = 0;
+    int victims = 0;
+
+    Node<K, V> node = victim;
+    while (victimsWeight < candidateWeight) {
+      K key;
+      if ((node == null) || (node == candidate)
+          || (victims == ADMIT_BY_SIZE_SCAN_LIMIT) || ((key = node.getKey()) == null)) {
+        return 0;
+      }
+      victimsWeight += node.getPolicyWeight();
+      victimsFreq += frequencySketch().frequency(key);
+      node = node.getNextInAccessOrder();
+      victims++;
+    }
+
+    int candidateFreq = frequencySketch().frequency(candidateKey);
+    return admit(candidateFreq, victimsFreq) ? victims : 0;
+  }
+
+  /**
+   * Determines if the candidate should be accepted into the main space given the frequencies of
+   * the candidate and the victim, with randomness to protect against hash collision attacks.
+   */
+  static boolean admit(int candidateFreq, int victimFreq) {
     if (candidateFreq > victimFreq) {
       return true;
     } else if (candidateFreq <= 5) {
@@ -834,11 +981,15 @@ abstract class BoundedLocalCache<K, V> extends BLCHeader.DrainStatusRef<K, V>
     }
   }
 
-  /** Expires entries in the timer wheel. */
+  /**
+   * Expires entries in the timer wheel, up to the expiration budget. If the budget is exhausted
+   * then the drain status is set so that another maintenance cycle is scheduled to resume the
+   * cascade.
+   */
   @GuardedBy("evictionLock")
   void expireVariableEntries(long now) {
-    if (expiresVariable()) {
-      timerWheel().advance(now);
+    if (expiresVariable() && !timerWheel().advance(now, expirationBudget)) {
+      lazySetDrainStatus(PROCESSING_TO_REQUIRED);
     }
   }
 
@@ -1170,16 +1321,49 @@ abstract class BoundedLocalCache<K, V> extends BLCHeader.DrainStatusRef<K, V>
    */
   @SuppressWarnings("FutureReturnValueIgnored")
   void refreshIfNeeded(Node<K, V> node, long now) {
+    refresh(node, now);
+  }
+
+  /**
+   * Returns the duration after the write time at which the entry becomes eligible for a refresh.
+   * If jittered, the duration is derived from the key's hash and the write time so that it is
+   * stable across reads yet differs between entries that were written together.
+   *
+   * @param node the entry in the cache
+   * @param writeTime the entry's write time, in nanoseconds
+   * @return the refresh duration, in nanoseconds
+   */
+  long refreshAfterWriteNanos(Node<K, V> node, long writeTime) {
+    long refreshAfterWriteNanos = refreshAfterWriteNanos();
+    return (refreshJitter == null)
+        ? refreshAfterWriteNanos
+        : refreshJitter.apply(refreshAfterWriteNanos,
+            (31L * node.getKeyReference().hashCode()) ^ writeTime);
+  }
+
+  /**
+   * Asynchronously refreshes the entry if eligible.
+   *
+   * @param node the entry in the cache to refresh
+   * @param now the current time, in nanoseconds
+   * @return the in-flight refresh, or null if the entry was not refreshed
+   */
+  @Nullable CompletableFuture<V> refresh(Node<K, V> node, long now) {
     if (!refreshAfterWrite()) {
-      return;
+      return null;
     }
     K key;
     V oldValue;
     long oldWriteTime = node.getWriteTime();
     long refreshWriteTime = (now + ASYNC_EXPIRY);
-    if (((now - oldWriteTime) > refreshAfterWriteNanos())
+    if (((now - oldWriteTime) > refreshAfterWriteNanos(node, oldWriteTime))
         && ((key = node.getKey()) != null) && ((oldValue = node.getValue()) != null)
         && node.casWriteTime(oldWriteTime, refreshWriteTime)) {
+      if ((loadLimiter != null) && !loadLimiter.tryAcquire()) {
+        // skipped while saturated, so the current value is served and a later read may refresh
+        node.casWriteTime(refreshWriteTime, oldWriteTime);
+        return null;
+      }
       try {
         CompletableFuture<V> refreshFuture;
         long startTime = statsTicker().read();
@@ -1189,24 +1373,27 @@ abstract class BoundedLocalCache<K, V> extends BLCHeader.DrainStatusRef<K, V>
           if (Async.isReady(future)) {
             @SuppressWarnings("NullAway")
             CompletableFuture<V> refresh = future.thenCompose(value ->
-              cacheLoader.asyncReload(key, value, executor));
+              reload(key, value));
             refreshFuture = refresh;
           } else {
             // no-op if load is pending
             node.casWriteTime(refreshWriteTime, oldWriteTime);
-            return;
+            releaseLoadPermit();
+            return null;
           }
         } else {
           @SuppressWarnings("NullAway")
-          CompletableFuture<V> refresh = cacheLoader.asyncReload(key, oldValue, executor);
+          CompletableFuture<V> refresh = reload(key, oldValue);
           refreshFuture = refresh;
         }
         refreshFuture.whenComplete((newValue, error) -> {
           long loadTime = statsTicker().read() - startTime;
+          releaseLoadPermit();
           if (error != null) {
             logger.log(Level.WARNING, "Exception thrown during refresh", error);
             node.casWriteTime(refreshWriteTime, oldWriteTime);
-            statsCounter().recordLoadFailure(loadTime);
+            serveStaleIfError(node, oldWriteTime);
+            statsCounter().recordRefreshFailure(loadTime);
             return;
           }
 
@@ -1228,16 +1415,113 @@ abstract class BoundedLocalCache<K, V> extends BLCHeader.DrainStatusRef<K, V>
             notifyRemoval(key, value, RemovalCause.REPLACED);
           }
           if (newValue == null) {
-            statsCounter().recordLoadFailure(loadTime);
+            statsCounter().recordRefreshFailure(loadTime);
           } else {
-            statsCounter().recordLoadSuccess(loadTime);
+            statsCounter().recordRefreshSuccess(loadTime);
           }
         });
+        return refreshFuture;
       } catch (Throwable t) {
         node.casWriteTime(refreshWriteTime, oldWriteTime);
+        releaseLoadPermit();
         logger.log(Level.SEVERE, "Exception thrown when submitting refresh task", t);
       }
     }
+    return null;
+  }
+
+  /**
+   * Extends the lifetime of a stale entry whose reload failed, up to the stale-if-error limit, so
+   * that it continues to be served while subsequent reads retry the reload.
+   *
+   * @param node the entry whose reload failed
+   * @param writeTime the write time of the entry's stale value
+   */
+  void serveStaleIfError(Node<K, V> node, long writeTime) {
+    if ((staleIfErrorAgeNanos == 0L) || !node.isAlive()) {
+      return;
+    }
+    long deadline = writeTime + staleIfErrorAgeNanos;
+    long variableTime = node.getVariableTime();
+    if (((deadline - variableTime) > 0) && node.casVariableTime(variableTime, deadline)) {
+      afterWrite(new UpdateTask(node, /* weightDifference */ 0));
+    }
+  }
+
+  /** Releases the permit acquired to refresh an entry, if the loads are limited. */
+  void releaseLoadPermit() {
+    if (loadLimiter != null) {
+      loadLimiter.release();
+    }
+  }
+
+  /**
+   * Returns the future of the entry's new value, which is loaded individually or is coalesced into
+   * a bulk reload if enabled.
+   *
+   * @param key the key of the entry being refreshed
+   * @param oldValue the value of the entry being refreshed
+   * @return the future of the new value
+   */
+  @SuppressWarnings("NullAway")
+  CompletableFuture<V> reload(K key, V oldValue) {
+    return (refreshCoalescer == null)
+        ? cacheLoader.asyncReload(key, oldValue, executor)
+        : refreshCoalescer.reload(key, oldValue, executor);
+  }
+
+  /**
+   * Proactively refreshes the entries that are eligible for a refresh, in order of their estimated
+   * popularity, while the permits allow for additional in-flight reloads. This is performed outside
+   * of the eviction lock, as the reload may be performed on the calling thread. The popularity is
+   * read once per candidate while briefly holding the lock, so that the ordering is stable while
+   * sorting and the sketch is not observed while being resized.
+   *
+   * @param permits the number of reloads that may be in-flight
+   */
+  @SuppressWarnings("FutureReturnValueIgnored")
+  void refreshAheadEntries(Semaphore permits) {
+    if (!refreshAfterWrite() || (permits.availablePermits() == 0)) {
+      return;
+    }
+    long now = expirationTicker().read();
+    List<RefreshCandidate<K, V>> candidates = new ArrayList<>();
+    for (Node<K, V> node : data.values()) {
+      long writeTime = node.getWriteTime();
+      if (((now - writeTime) > refreshAfterWriteNanos(node, writeTime))
+          && (node.getKey() != null) && (node.getValue() != null) && !hasExpired(node, now)) {
+        candidates.add(new RefreshCandidate<>(node, writeTime));
+      }
+    }
+    if (candidates.isEmpty()) {
+      return;
+    }
+
+    if (evicts()) {
+      evictionLock.lock();
+      try {
+        for (RefreshCandidate<K, V> candidate : candidates) {
+          K key = candidate.node.getKey();
+          candidate.frequency = (key == null) ? 0 : frequencySketch().frequency(key);
+        }
+      } finally {
+        evictionLock.unlock();
+      }
+    }
+    candidates.sort(Comparator.<RefreshCandidate<K, V>>comparingInt(
+        candidate -> candidate.frequency).reversed()
+        .thenComparingLong(candidate -> candidate.writeTime));
+    for (RefreshCandidate<K, V> candidate : candidates) {
+      if (!permits.tryAcquire()) {
+        return;
+      }
+      CompletableFuture<V> refreshFuture = refresh(candidate.node, now);
+      if (refreshFuture == null) {
+        permits.release();
+      } else {
+        refreshFuture.whenComplete((value, error) -> permits.release());
+      }
+    }
   }
 
   /**
@@ -1356,12 +1640,14 @@ abstract class BoundedLocalCache<K, V> extends BLCHeader.DrainStatusRef<K, V>
           scheduleAfterWrite();
           return;
         }
+        maintenanceRecorder.recordWriteBufferRetry();
         scheduleDrainBuffers();
       }
 
       // The maintenance task may be scheduled but not running due to all of the executor's threads
       // being busy. If all of the threads are writing into the cache then no progress can be made
       // without assistance.
+      maintenanceRecorder.recordWriteBufferOverflow();
       try {
         performCleanUp(task);
       } catch (RuntimeException e) {
@@ -1422,6 +1708,7 @@ abstract class BoundedLocalCache<K, V> extends BLCHeader.DrainStatusRef<K, V>
         maintenance(/* ignored */ null);
       } finally {
         evictionLock.unlock();
+        maintenanceRecorder.publish();
       }
     }
   }
@@ -1442,15 +1729,137 @@ abstract class BoundedLocalCache<K, V> extends BLCHeader.DrainStatusRef<K, V>
    * @param task an additional pending task to run, or {@code null} if not present
    */
   void performCleanUp(@Nullable Runnable task) {
+    long waitStartTime = maintenanceRecorder.now();
     evictionLock.lock();
     try {
+      maintenanceRecorder.lockAcquired(waitStartTime);
       maintenance(task);
     } finally {
       evictionLock.unlock();
+      maintenanceRecorder.publish();
     }
-    if ((drainStatus() == REQUIRED) && (executor == ForkJoinPool.commonPool())) {
+    if ((drainStatus() == REQUIRED) && ((executor == ForkJoinPool.commonPool())
+        || (buffersWrites() && !writeBuffer().isEmpty()))) {
+      // writes left over by an exhausted maintenance budget are drained by a follow-up task
       scheduleDrainBuffers();
     }
+    if (refreshAheadTask != null) {
+      refreshAheadTask.scheduleIfDue(executor);
+    }
+  }
+
+  /** Returns the approximate number of pending operations to be applied to the policy. */
+  int maintenanceBacklog() {
+    int pending = readBuffer.size();
+    if (buffersWrites()) {
+      pending += writeBuffer().size();
+    }
+    return pending;
+  }
+
+  /**
+   * Initializes the sketch, or increases its capacity, in order to adopt a popularity history. A
+   * weighted cache does not know how many entries it will hold, so the sketch is sized by the given
+   * number of entries if larger than the current count.
+   *
+   * @param entries the estimated number of entries that the history was collected for
+   */
+  @GuardedBy("evictionLock")
+  void ensureSketchCapacity(long entries) {
+    long capacity = isWeighted() ? Math.max(entries, data.mappingCount()) : maximum();
+    frequencySketch().ensureCapacity(capacity);
+  }
+
+  /**
+   * Adopts the popularity history from the serialized sketch, either replacing the current history
+   * or merging into it with an aging of the combined counts.
+   *
+   * @param sketch the serialized sketch, as produced by {@link FrequencySketch#toByteArray()}
+   * @param merge if the history should be merged, rather than replaced
+   */
+  void importFrequencySketch(byte[] sketch, boolean merge) {
+    long[] counters = FrequencySketch.copyOf(sketch);
+    evictionLock.lock();
+    try {
+      ensureSketchCapacity(counters.length);
+      if (merge) {
+        frequencySketch().merge(counters, /* reset */ true);
+      } else {
+        frequencySketch().replace(counters);
+      }
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  /**
+   * Returns the estimated popularity of the key, or zero if the cache does not evict. The sketch is
+   * read under the eviction lock, as it may otherwise be observed while being resized.
+   */
+  @SuppressWarnings("unchecked")
+  int frequencyOf(Object key) {
+    if (!evicts()) {
+      return 0;
+    }
+    evictionLock.lock();
+    try {
+      return frequencySketch().frequency((K) key);
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  /**
+   * Returns the estimated popularity of the keys, ordered from the hottest to the coldest entry, or
+   * an empty map if the cache does not evict. The frequencies are captured while the eviction lock
+   * is held for the traversal, as the sketch may otherwise be observed while being resized.
+   *
+   * @return an unmodifiable snapshot of the keys' popularity in eviction order
+   */
+  Map<K, Integer> hottestFrequencies() {
+    if (!evicts()) {
+      return Collections.emptyMap();
+    }
+    evictionLock.lock();
+    try {
+      maintenance(/* ignored */ null);
+
+      Map<K, Integer> frequencies = new LinkedHashMap<>(size());
+      Iterator<Node<K, V>> iterator = evictionOrderIterator(/* hottest */ true);
+      while (iterator.hasNext()) {
+        Node<K, V> node = iterator.next();
+        K key = node.getKey();
+        if ((key != null) && node.isAlive()) {
+          frequencies.put(key, frequencySketch().frequency(key));
+        }
+      }
+      return Collections.unmodifiableMap(frequencies);
+    } finally {
+      evictionLock.unlock();
+      maintenanceRecorder.publish();
+    }
+  }
+
+  /**
+   * Raises the estimated popularity of the keys to at least their given frequencies. The sketch is
+   * initialized eagerly, sized for the number of entries that are about to be inserted, so that the
+   * restored history is not discarded by the lazy initialization.
+   *
+   * @param count the number of entries that are being restored
+   * @param frequencies the mappings of key to its popularity
+   */
+  @SuppressWarnings("unchecked")
+  void restoreFrequencies(long count, Map<?, Integer> frequencies) {
+    if (!evicts()) {
+      return;
+    }
+    evictionLock.lock();
+    try {
+      ensureSketchCapacity(count);
+      frequencies.forEach((key, frequency) -> frequencySketch().raise((K) key, frequency));
+    } finally {
+      evictionLock.unlock();
+    }
   }
 
   /**
@@ -1462,27 +1871,37 @@ abstract class BoundedLocalCache<K, V> extends BLCHeader.DrainStatusRef<K, V>
    */
   @GuardedBy("evictionLock")
   void maintenance(@Nullable Runnable task) {
+    long startTime = statsTicker().read();
     lazySetDrainStatus(PROCESSING_TO_IDLE);
+    maintenanceRecorder.startCycle(this);
 
     try {
       drainReadBuffer();
+      maintenanceRecorder.endPhase(MaintenanceStats.READ_DRAIN_TIME);
 
       drainWriteBuffer();
       if (task != null) {
         task.run();
       }
+      maintenanceRecorder.endPhase(MaintenanceStats.WRITE_DRAIN_TIME);
 
       drainKeyReferences();
       drainValueReferences();
+      maintenanceRecorder.endPhase(MaintenanceStats.REFERENCE_DRAIN_TIME);
 
       expireEntries();
+      maintenanceRecorder.endPhase(MaintenanceStats.EXPIRATION_TIME);
       evictEntries();
+      maintenanceRecorder.endPhase(MaintenanceStats.EVICTION_TIME);
 
       climb();
+      maintenanceRecorder.endPhase(MaintenanceStats.CLIMB_TIME);
     } finally {
       if ((drainStatus() != PROCESSING_TO_IDLE) || !casDrainStatus(PROCESSING_TO_IDLE, IDLE)) {
         lazySetDrainStatus(REQUIRED);
       }
+      statsCounter().recordMaintenance(statsTicker().read() - startTime);
+      maintenanceRecorder.endCycle();
     }
   }
 
@@ -1579,14 +1998,17 @@ abstract class BoundedLocalCache<K, V> extends BLCHeader.DrainStatusRef<K, V>
     }
   }
 
-  /** Drains the write buffer. */
+  /**
+   * Drains the write buffer, up to the maintenance budget. If the budget is exhausted then the
+   * drain status is set so that another maintenance cycle is scheduled to apply the remainder.
+   */
   @GuardedBy("evictionLock")
   void drainWriteBuffer() {
     if (!buffersWrites()) {
       return;
     }
 
-    for (int i = 0; i < WRITE_BUFFER_MAX; i++) {
+    for (int i = 0; i < maintenanceBudget; i++) {
       Runnable task = writeBuffer().poll();
       if (task == null) {
         return;
@@ -1772,6 +2194,10 @@ abstract class BoundedLocalCache<K, V> extends BLCHeader.DrainStatusRef<K, V>
   @Override
   @SuppressWarnings("FutureReturnValueIgnored")
   public void clear() {
+    if (absentLoads != null) {
+      absentLoads.invalidateAll();
+    }
+
     evictionLock.lock();
     try {
       long now = expirationTicker().read();
@@ -1847,7 +2273,7 @@ abstract class BoundedLocalCache<K, V> extends BLCHeader.DrainStatusRef<K, V>
 
   @Override
   public boolean containsKey(Object key) {
-    Node<K, V> node = data.get(nodeFactory.newLookupKey(key));
+    Node<K, V> node = getNode(key);
     return (node != null) && (node.getValue() != null)
         && !hasExpired(node, expirationTicker().read());
   }
@@ -1872,7 +2298,7 @@ abstract class BoundedLocalCache<K, V> extends BLCHeader.DrainStatusRef<K, V>
 
   @Override
   public @Nullable V getIfPresent(Object key, boolean recordStats) {
-    Node<K, V> node = data.get(nodeFactory.newLookupKey(key));
+    Node<K, V> node = getNode(key);
     if (node == null) {
       if (recordStats) {
         statsCounter().recordMisses(1);
@@ -1906,7 +2332,7 @@ abstract class BoundedLocalCache<K, V> extends BLCHeader.DrainStatusRef<K, V>
   @Override
   public @Nullable V getIfPresentQuietly(Object key, long[/* 1 */] writeTime) {
     V value;
-    Node<K, V> node = data.get(nodeFactory.newLookupKey(key));
+    Node<K, V> node = getNode(key);
     if ((node == null) || ((value = node.getValue()) == null)
         || hasExpired(node, expirationTicker().read())) {
       return null;
@@ -1927,7 +2353,7 @@ abstract class BoundedLocalCache<K, V> extends BLCHeader.DrainStatusRef<K, V>
     Map<Object, Object> result = new LinkedHashMap<>(uniqueKeys.size());
     for (Object key : uniqueKeys) {
       V value;
-      Node<K, V> node = data.get(nodeFactory.newLookupKey(key));
+      Node<K, V> node = getNode(key);
       if ((node == null) || ((value = node.getValue()) == null) || hasExpired(node, now)) {
         misses++;
       } else {
@@ -1979,12 +2405,15 @@ abstract class BoundedLocalCache<K, V> extends BLCHeader.DrainStatusRef<K, V>
   @Nullable V put(K key, V value, Expiry<K, V> expiry, boolean notifyWriter, boolean onlyIfAbsent) {
     requireNonNull(key);
     requireNonNull(value);
+    if (absentLoads != null) {
+      absentLoads.invalidate(key);
+    }
 
     Node<K, V> node = null;
     long now = expirationTicker().read();
     int newWeight = weigher.weigh(key, value);
     for (;;) {
-      Node<K, V> prior = data.get(nodeFactory.newLookupKey(key));
+      Node<K, V> prior = getNode(key);
       if (prior == null) {
         if (node == null) {
           node = nodeFactory.newNode(key, keyReferenceQueue(),
@@ -2090,6 +2519,10 @@ abstract class BoundedLocalCache<K, V> extends BLCHeader.DrainStatusRef<K, V>
 
   @Override
   public @Nullable V remove(Object key) {
+    if (absentLoads != null) {
+      absentLoads.invalidate(key);
+    }
+
     @SuppressWarnings("unchecked")
     K castKey = (K) key;
     @SuppressWarnings({"unchecked", "rawtypes"})
@@ -2304,7 +2737,7 @@ abstract class BoundedLocalCache<K, V> extends BLCHeader.DrainStatusRef<K, V>
     long now = expirationTicker().read();
 
     // An optimistic fast path to avoid unnecessary locking
-    Node<K, V> node = data.get(nodeFactory.newLookupKey(key));
+    Node<K, V> node = getNode(key);
     if (node != null) {
       V value = node.getValue();
       if ((value != null) && !hasExpired(node, now)) {
@@ -2622,28 +3055,38 @@ abstract class BoundedLocalCache<K, V> extends BLCHeader.DrainStatusRef<K, V>
    * @param hottest the iteration order
    * @return an unmodifiable snapshot in a specified order
    */
-  @SuppressWarnings("GuardedByChecker")
   Map<K, V> evictionOrder(int limit, Function<V, V> transformer, boolean hottest) {
-    Supplier<Iterator<Node<K, V>>> iteratorSupplier = () -> {
-      Comparator<Node<K, V>> comparator = Comparator.comparingInt(node -> {
-          K key = node.getKey();
-          return (key == null) ? 0 : frequencySketch().frequency(key);
-      });
-      if (hottest) {
-        PeekingIterator<Node<K, V>> secondary = PeekingIterator.comparing(
-            accessOrderProbationDeque().descendingIterator(),
-            accessOrderWindowDeque().descendingIterator(), comparator);
-        return PeekingIterator.concat(accessOrderProtectedDeque().descendingIterator(), secondary);
-      } else {
-        PeekingIterator<Node<K, V>> primary = PeekingIterator.comparing(
-            accessOrderWindowDeque().iterator(), accessOrderProbationDeque().iterator(),
-            comparator.reversed());
-        return PeekingIterator.concat(primary, accessOrderProtectedDeque().iterator());
-      }
-    };
+    Supplier<Iterator<Node<K, V>>> iteratorSupplier = () -> evictionOrderIterator(hottest);
     return fixedSnapshot(iteratorSupplier, limit, transformer);
   }
 
+  /**
+   * Returns an iterator over the entries in eviction order, either ascending or descending. The
+   * caller must hold the eviction lock.
+   *
+   * @param hottest the iteration order
+   * @return an iterator in the specified order
+   */
+  @GuardedBy("evictionLock")
+  @SuppressWarnings("GuardedByChecker")
+  Iterator<Node<K, V>> evictionOrderIterator(boolean hottest) {
+    Comparator<Node<K, V>> comparator = Comparator.comparingInt(node -> {
+        K key = node.getKey();
+        return (key == null) ? 0 : frequencySketch().frequency(key);
+    });
+    if (hottest) {
+      PeekingIterator<Node<K, V>> secondary = PeekingIterator.comparing(
+          accessOrderProbationDeque().descendingIterator(),
+          accessOrderWindowDeque().descendingIterator(), comparator);
+      return PeekingIterator.concat(accessOrderProtectedDeque().descendingIterator(), secondary);
+    } else {
+      PeekingIterator<Node<K, V>> primary = PeekingIterator.comparing(
+          accessOrderWindowDeque().iterator(), accessOrderProbationDeque().iterator(),
+          comparator.reversed());
+      return PeekingIterator.concat(primary, accessOrderProtectedDeque().iterator());
+    }
+  }
+
   /**
    * Returns an unmodifiable snapshot map ordered in access expiration order, either ascending or
    * descending. Beware that obtaining the mappings is <em>NOT</em> a constant-time operation.
@@ -2728,6 +3171,7 @@ abstract class BoundedLocalCache<K, V> extends BLCHeader.DrainStatusRef<K, V>
       return Collections.unmodifiableMap(map);
     } finally {
       evictionLock.unlock();
+      maintenanceRecorder.publish();
     }
   }
 
@@ -2748,6 +3192,7 @@ abstract class BoundedLocalCache<K, V> extends BLCHeader.DrainStatusRef<K, V>
       return timerWheel().snapshot(ascending, limit, transformer);
     } finally {
       evictionLock.unlock();
+      maintenanceRecorder.publish();
     }
   }
 
@@ -3064,7 +3509,7 @@ abstract class BoundedLocalCache<K, V> extends BLCHeader.DrainStatusRef<K, V>
         return false;
       }
       Entry<?, ?> entry = (Entry<?, ?>) obj;
-      Node<K, V> node = cache.data.get(cache.nodeFactory.newLookupKey(entry.getKey()));
+      Node<K, V> node = cache.getNode(entry.getKey());
       return (node != null) && Objects.equals(node.getValue(), entry.getValue());
     }
 
@@ -3301,6 +3746,81 @@ abstract class BoundedLocalCache<K, V> extends BLCHeader.DrainStatusRef<K, V>
     @Override public boolean cancel(boolean mayInterruptIfRunning) { return false; }
   }
 
+  /**
+   * A task that proactively refreshes the eligible entries. The search is performed periodically,
+   * at a fraction of the refresh duration, and is triggered after the maintenance work or, if
+   * enabled, by the scheduler when the cache is idle.
+   */
+  static final class RefreshAheadTask implements Runnable {
+    final WeakReference<BoundedLocalCache<?, ?>> reference;
+    final Scheduler scheduler;
+    final Semaphore permits;
+    final AtomicLong nextRunTime;
+    final int concurrency;
+
+    RefreshAheadTask(BoundedLocalCache<?, ?> cache, Scheduler scheduler, int permits) {
+      this.reference = new WeakReference<BoundedLocalCache<?,?>>(cache);
+      this.nextRunTime = new AtomicLong(cache.expirationTicker().read());
+      this.permits = new Semaphore(permits);
+      this.scheduler = scheduler;
+      this.concurrency = permits;
+    }
+
+    /** Returns the duration between searches for the entries to refresh. */
+    static long intervalNanos(BoundedLocalCache<?, ?> cache) {
+      return Math.max(Pacer.TOLERANCE, cache.refreshAfterWriteNanos() / 4);
+    }
+
+    /** Submits the task to the executor if the next search is due and not already claimed. */
+    void scheduleIfDue(Executor executor) {
+      BoundedLocalCache<?, ?> cache = reference.get();
+      if (cache == null) {
+        return;
+      }
+      long now = cache.expirationTicker().read();
+      long runAt = nextRunTime.get();
+      if (((now - runAt) < 0) || !nextRunTime.compareAndSet(runAt, now + intervalNanos(cache))) {
+        return;
+      }
+      try {
+        executor.execute(this);
+      } catch (Throwable t) {
+        logger.log(Level.WARNING, "Exception thrown when submitting the refresh ahead task", t);
+      }
+    }
+
+    @Override
+    @SuppressWarnings("FutureReturnValueIgnored")
+    public void run() {
+      BoundedLocalCache<?, ?> cache = reference.get();
+      if (cache == null) {
+        return;
+      }
+      try {
+        cache.refreshAheadEntries(permits);
+      } catch (Throwable t) {
+        logger.log(Level.WARNING, "Exception thrown when refreshing entries ahead", t);
+      }
+      if (scheduler != Scheduler.disabledScheduler()) {
+        Executor executor = cache.executor;
+        scheduler.schedule(executor, () -> scheduleIfDue(executor),
+            intervalNanos(cache), TimeUnit.NANOSECONDS);
+      }
+    }
+  }
+
+  /** An entry that is eligible for a refresh, with the sort keys captured when it was found. */
+  static final class RefreshCandidate<K, V> {
+    final Node<K, V> node;
+    final long writeTime;
+    int frequency;
+
+    RefreshCandidate(Node<K, V> node, long writeTime) {
+      this.writeTime = writeTime;
+      this.node = node;
+    }
+  }
+
   /** Creates a serialization proxy based on the common configuration shared by all cache types. */
   static <K, V> SerializationProxy<K, V> makeSerializationProxy(
       BoundedLocalCache<?, ?> cache, boolean isWeighted) {
@@ -3319,8 +3839,11 @@ abstract class BoundedLocalCache<K, V> extends BLCHeader.DrainStatusRef<K, V>
       proxy.expiresAfterWriteNanos = cache.expiresAfterWriteNanos();
     }
     if (cache.expiresVariable()) {
-      proxy.expiry = cache.expiry();
+      setVariableExpiration(proxy, cache);
     }
+    proxy.staleWhileRevalidateNanos = cache.staleWhileRevalidateNanos;
+    proxy.staleIfErrorNanos = cache.staleIfErrorNanos;
+    proxy.jitter = cache.jitter;
     if (cache.evicts()) {
       if (isWeighted) {
         proxy.weigher = cache.weigher;
@@ -3329,9 +3852,64 @@ abstract class BoundedLocalCache<K, V> extends BLCHeader.DrainStatusRef<K, V>
         proxy.maximumSize = cache.maximum();
       }
     }
+    proxy.sizeAwareAdmission = cache.sizeAwareAdmission;
+    if (cache.maintenanceBudget != WRITE_BUFFER_MAX) {
+      proxy.maintenanceBudget = cache.maintenanceBudget;
+    }
+    if (cache.readBuffer instanceof BoundedBuffer<?>) {
+      proxy.adaptiveReadBuffer = ((BoundedBuffer<?>) cache.readBuffer).adaptive;
+    }
+    if (cache.expiresVariable()) {
+      proxy.expirationResolutionNanos = cache.timerWheel().resolutionNanos;
+      proxy.expirationHorizonNanos = cache.timerWheel().horizonNanos;
+    }
+    if (cache.expirationBudget != Integer.MAX_VALUE) {
+      proxy.expirationBudget = cache.expirationBudget;
+    }
+    if (cache.refreshAheadTask != null) {
+      proxy.refreshAheadConcurrency = cache.refreshAheadTask.concurrency;
+    }
+    if (cache.refreshCoalescer != null) {
+      proxy.refreshCoalesceDelayNanos = cache.refreshCoalescer.delayNanos;
+      proxy.refreshCoalesceBatchSize = cache.refreshCoalescer.maximumBatchSize;
+    }
+    if (cache.maintenanceRecorder instanceof TimedMaintenanceRecorder) {
+      TimedMaintenanceRecorder recorder = (TimedMaintenanceRecorder) cache.maintenanceRecorder;
+      MaintenanceListener listener = recorder.listener;
+      if (listener != Caffeine.IGNORING_MAINTENANCE_LISTENER) {
+        proxy.maintenanceListener = listener;
+      }
+      proxy.recordMaintenance = true;
+    }
+    proxy.setLoadingOptions(cache);
     return proxy;
   }
 
+  /**
+   * Records the variable expiration into the proxy. The settings that are emulated by a fixed
+   * expiry, such as when serving stale or jittering, are unwrapped so that they are recreated from
+   * the original durations rather than as a custom expiry that would discard those features.
+   */
+  static void setVariableExpiration(SerializationProxy<?, ?> proxy, BoundedLocalCache<?, ?> cache) {
+    Expiry<?, ?> expiry = cache.expiry();
+    if (expiry instanceof AsyncExpiry<?, ?>) {
+      expiry = ((AsyncExpiry<?, ?>) expiry).delegate;
+    }
+    if (expiry instanceof JitteredExpiry<?, ?>) {
+      expiry = ((JitteredExpiry<?, ?>) expiry).delegate;
+    }
+    if (!(expiry instanceof FixedExpiry<?, ?>)) {
+      proxy.expiry = expiry;
+    } else if (((FixedExpiry<?, ?>) expiry).afterAccess) {
+      proxy.expiresAfterAccessNanos = ((FixedExpiry<?, ?>) expiry).durationNanos;
+    } else if (cache.staleWhileRevalidateNanos == Caffeine.UNSET_INT) {
+      proxy.expiresAfterWriteNanos = ((FixedExpiry<?, ?>) expiry).durationNanos;
+    } else {
+      // the freshness lifetime is the refresh duration, as the grace period extends the expiry
+      proxy.expiresAfterWriteNanos = cache.refreshAfterWriteNanos();
+    }
+  }
+
   /* --------------- Manual Cache --------------- */
 
   static class BoundedLocalManualCache<K, V> implements LocalManualCache<K, V>, Serializable {
@@ -3394,12 +3972,36 @@ abstract class BoundedLocalCache<K, V> extends BLCHeader.DrainStatusRef<K, V>
       return cache.isRecordingStats();
     }
     @Override public @Nullable V getIfPresentQuietly(Object key) {
-      Node<K, V> node = cache.data.get(cache.nodeFactory.newLookupKey(key));
+      Node<K, V> node = cache.getNode(key);
       if ((node == null) || cache.hasExpired(node, cache.expirationTicker().read())) {
         return null;
       }
       return transformer.apply(node.getValue());
     }
+    @Override public int maintenanceBacklog() {
+      return cache.maintenanceBacklog();
+    }
+    @Override public long readBufferAccepted() {
+      return cache.readBuffer.accepted();
+    }
+    @Override public long readBufferRejected() {
+      return cache.readBuffer.rejected();
+    }
+    @Override public int inFlightLoads() {
+      return (cache.loadLimiter == null) ? 0 : cache.loadLimiter.inFlight();
+    }
+    @Override public int queuedLoads() {
+      return (cache.loadLimiter == null) ? 0 : cache.loadLimiter.queued();
+    }
+    @Override public long expirationTimersProcessed() {
+      return cache.expiresVariable() ? cache.timerWheel().processed() : 0L;
+    }
+    @Override public Duration expirationLag() {
+      return cache.expiresVariable() ? Duration.ofNanos(cache.timerWheel().lag()) : Duration.ZERO;
+    }
+    @Override public Optional<MaintenanceStats> maintenanceStats() {
+      return cache.maintenanceRecorder.snapshot();
+    }
     @Override public Optional<Eviction<K, V>> eviction() {
       return cache.evicts()
           ? (eviction == null) ? (eviction = Optional.of(new BoundedEviction())) : eviction
@@ -3447,7 +4049,7 @@ abstract class BoundedLocalCache<K, V> extends BLCHeader.DrainStatusRef<K, V>
         if (!isWeighted) {
           return OptionalInt.empty();
         }
-        Node<K, V> node = cache.data.get(cache.nodeFactory.newLookupKey(key));
+        Node<K, V> node = cache.getNode(key);
         if (node == null) {
           return OptionalInt.empty();
         }
@@ -3481,6 +4083,7 @@ abstract class BoundedLocalCache<K, V> extends BLCHeader.DrainStatusRef<K, V>
           cache.maintenance(/* ignored */ null);
         } finally {
           cache.evictionLock.unlock();
+          cache.maintenanceRecorder.publish();
         }
       }
       @Override public Map<K, V> coldest(int limit) {
@@ -3489,6 +4092,22 @@ abstract class BoundedLocalCache<K, V> extends BLCHeader.DrainStatusRef<K, V>
       @Override public Map<K, V> hottest(int limit) {
         return cache.evictionOrder(limit, transformer, /* hottest */ true);
       }
+      @Override public byte[] exportFrequencySketch() {
+        cache.evictionLock.lock();
+        try {
+          return cache.frequencySketch().toByteArray();
+        } finally {
+          cache.evictionLock.unlock();
+        }
+      }
+      @Override public void importFrequencySketch(byte[] sketch) {
+        requireNonNull(sketch);
+        cache.importFrequencySketch(sketch, /* merge */ false);
+      }
+      @Override public void mergeFrequencySketch(byte[] sketch) {
+        requireNonNull(sketch);
+        cache.importFrequencySketch(sketch, /* merge */ true);
+      }
     }
 
     @SuppressWarnings("PreferJavaTimeOverload")
@@ -3684,8 +4303,8 @@ abstract class BoundedLocalCache<K, V> extends BLCHeader.DrainStatusRef<K, V>
     BoundedLocalLoadingCache(Caffeine<K, V> builder, CacheLoader<? super K, V> loader) {
       super(builder, loader);
       requireNonNull(loader);
-      mappingFunction = newMappingFunction(loader);
-      bulkMappingFunction = newBulkMappingFunction(loader);
+      mappingFunction = newMappingFunction(loader, cache.absentLoads);
+      bulkMappingFunction = newBulkMappingFunction(loader, cache.loadLimiter, cache.absentLoads);
     }
 
     @Override
@@ -3836,7 +4455,7 @@ abstract class BoundedLocalCache<K, V> extends BLCHeader.DrainStatusRef<K, V>
       if (cache.refreshAfterWrite()) {
         proxy.refreshAfterWriteNanos = cache.refreshAfterWriteNanos();
       }
-      proxy.loader = loader;
+      writeLoader(proxy);
       proxy.async = true;
       return proxy;
     }
@@ -3863,6 +4482,13 @@ abstract class BoundedLocalCache<K, V> extends BLCHeader.DrainStatusRef<K, V>
       @Override public CompletableFuture<V> asyncReload(K key, V oldValue, Executor executor) {
         return loader.asyncReload(key, oldValue, executor);
       }
+      @Override public CompletableFuture<Map<K, V>> asyncReloadAll(
+          Map<? extends K, ? extends V> oldValues, Executor executor) {
+        @SuppressWarnings("unchecked")
+        CompletableFuture<Map<K, V>> newValues = (CompletableFuture<Map<K, V>>) (Object)
+            loader.asyncReloadAll((Map<K, V>) oldValues, executor);
+        return newValues;
+      }
     }
   }
 }
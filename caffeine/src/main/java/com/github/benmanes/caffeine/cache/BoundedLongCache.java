@@ -0,0 +1,949 @@
+/*
+ * Copyright 2020 Ben Manes. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.benmanes.caffeine.cache;
+
+import static com.github.benmanes.caffeine.cache.BLCHeader.DrainStatusRef.IDLE;
+import static com.github.benmanes.caffeine.cache.BLCHeader.DrainStatusRef.PROCESSING_TO_IDLE;
+import static com.github.benmanes.caffeine.cache.BLCHeader.DrainStatusRef.PROCESSING_TO_REQUIRED;
+import static com.github.benmanes.caffeine.cache.BLCHeader.DrainStatusRef.REQUIRED;
+import static com.github.benmanes.caffeine.cache.BoundedLocalCache.MAXIMUM_CAPACITY;
+import static com.github.benmanes.caffeine.cache.BoundedLocalCache.PERCENT_MAIN;
+import static com.github.benmanes.caffeine.cache.BoundedLocalCache.PERCENT_MAIN_PROTECTED;
+import static com.github.benmanes.caffeine.cache.BoundedLocalCache.WRITE_BUFFER_MAX;
+import static com.github.benmanes.caffeine.cache.BoundedLocalCache.WRITE_BUFFER_MIN;
+import static com.github.benmanes.caffeine.cache.BoundedLocalCache.WRITE_BUFFER_RETRIES;
+import static com.github.benmanes.caffeine.cache.Caffeine.ceilingPowerOfTwo;
+import static java.util.Objects.requireNonNull;
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.LongFunction;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import com.github.benmanes.caffeine.cache.AccessOrderDeque.AccessOrder;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.github.benmanes.caffeine.cache.stats.StatsCounter;
+import com.google.errorprone.annotations.concurrent.GuardedBy;
+
+/**
+ * A size bounded cache keyed by primitive {@code long} values. The eviction policy is the Window
+ * TinyLFU policy of {@link BoundedLocalCache}, with the window and main spaces sized by the same
+ * fixed percentages, and is updated by replaying the reads and writes that were recorded into the
+ * same kind of buffers. The adaptive sizing of the window by hill climbing is not performed.
+ * <p>
+ * The entries are stored in a lock striped hash table that probes by open addressing, where the
+ * slots hold the policy's nodes directly. A node stores its key unboxed, so that a read is a
+ * lock-free probe that does not allocate and an entry has no object other than its node.
+ *
+ * @author ben.manes@gmail.com (Ben Manes)
+ * @param <V> the type of mapped values
+ */
+class BoundedLongCache<V> implements LongCache<V> {
+  static final Logger logger = Logger.getLogger(BoundedLongCache.class.getName());
+
+  /** The number of lock stripes of the hash table. */
+  static final int SEGMENTS = 4 * ceilingPowerOfTwo(StripedBuffer.NCPU);
+  /** The number of bits of the hash that select a stripe. */
+  static final int SEGMENT_SHIFT = Integer.SIZE - Integer.numberOfTrailingZeros(SEGMENTS);
+  /** The maximum number of slots in a stripe's table. */
+  static final int MAXIMUM_SEGMENT_CAPACITY = 1 << 30;
+  /** A marker left in the slot of a removed node, so that probes continue past it. */
+  static final LongNode<?> TOMBSTONE = new LongNode<>(0L, null);
+
+  static final int UNLINKED = 0;
+  static final int WINDOW = 1;
+  static final int PROBATION = 2;
+  static final int PROTECTED = 3;
+
+  final Segment<V>[] segments;
+  final Buffer<LongNode<V>> readBuffer;
+  final MpscGrowableArrayQueue<Runnable> writeBuffer;
+  final FrequencySketch<LongNode<V>> sketch;
+  final Consumer<LongNode<V>> accessPolicy;
+  final Runnable drainBuffersTask;
+  final ReentrantLock evictionLock;
+  final AtomicInteger drainStatus;
+  final StatsCounter statsCounter;
+  final Ticker statsTicker;
+  final Executor executor;
+  final int maintenanceBudget;
+  final @Nullable RemovalListener<Long, V> removalListener;
+
+  final long maximum;
+  final long windowMaximum;
+  final long mainProtectedMaximum;
+
+  @GuardedBy("evictionLock")
+  final AccessOrderDeque<LongNode<V>> windowDeque;
+  @GuardedBy("evictionLock")
+  final AccessOrderDeque<LongNode<V>> probationDeque;
+  @GuardedBy("evictionLock")
+  final AccessOrderDeque<LongNode<V>> protectedDeque;
+  @GuardedBy("evictionLock")
+  long size;
+  @GuardedBy("evictionLock")
+  long windowSize;
+  @GuardedBy("evictionLock")
+  long mainProtectedSize;
+
+  /** Creates an instance based on the builder's configuration. */
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  BoundedLongCache(Caffeine<Long, V> builder) {
+    long max = Math.min(builder.getMaximum(), MAXIMUM_CAPACITY);
+    maximum = max;
+    windowMaximum = max - (long) (PERCENT_MAIN * max);
+    mainProtectedMaximum = (long) (PERCENT_MAIN_PROTECTED * (max - windowMaximum));
+
+    int capacity = builder.hasInitialCapacity()
+        ? builder.getInitialCapacity()
+        : Caffeine.DEFAULT_INITIAL_CAPACITY;
+    int segmentCapacity = ceilingPowerOfTwo(Math.max(4, (2 * capacity) / SEGMENTS));
+    segments = new Segment[SEGMENTS];
+    for (int i = 0; i < segments.length; i++) {
+      segments[i] = new Segment<>(segmentCapacity);
+    }
+
+    executor = builder.getExecutor();
+    statsTicker = builder.getTicker();
+    evictionLock = new ReentrantLock();
+    drainStatus = new AtomicInteger();
+    sketch = new FrequencySketch<>();
+    accessPolicy = this::onAccess;
+    windowDeque = new AccessOrderDeque<>();
+    probationDeque = new AccessOrderDeque<>();
+    protectedDeque = new AccessOrderDeque<>();
+    drainBuffersTask = new PerformCleanupTask(this);
+    removalListener = builder.getRemovalListener(/* async */ false);
+    statsCounter = builder.getStatsCounterSupplier().get();
+    readBuffer = new BoundedBuffer<>(builder.hasAdaptiveReadBuffer());
+    writeBuffer = new MpscGrowableArrayQueue<>(WRITE_BUFFER_MIN, WRITE_BUFFER_MAX);
+    maintenanceBudget = builder.hasMaintenanceBudget()
+        ? builder.getMaintenanceBudget()
+        : WRITE_BUFFER_MAX;
+  }
+
+  /** Returns the spread hash of the key, whose high bits select the stripe. */
+  static int hash(long key) {
+    long h = key * 0x9E3779B97F4A7C15L;
+    return (int) (h ^ (h >>> 32));
+  }
+
+  Segment<V> segmentFor(int hash) {
+    return segments[hash >>> SEGMENT_SHIFT];
+  }
+
+  /** Returns the node mapped to the key, or {@code null} if absent. */
+  @Nullable LongNode<V> getNode(long key) {
+    int hash = hash(key);
+    return segmentFor(hash).find(key, hash);
+  }
+
+  /* --------------- Cache --------------- */
+
+  @Override
+  public @Nullable V getIfPresent(long key) {
+    LongNode<V> node = getNode(key);
+    if (node == null) {
+      statsCounter.recordMisses(1);
+      return null;
+    }
+    V value = node.value;
+    statsCounter.recordHits(1);
+    afterRead(node);
+    return value;
+  }
+
+  @Override
+  public @Nullable V get(long key, LongFunction<? extends V> mappingFunction) {
+    requireNonNull(mappingFunction);
+    LongNode<V> node = getNode(key);
+    if (node != null) {
+      V value = node.value;
+      statsCounter.recordHits(1);
+      afterRead(node);
+      return value;
+    }
+
+    int hash = hash(key);
+    Segment<V> segment = segmentFor(hash);
+    if (segment.isHeldByCurrentThread()) {
+      throw new IllegalStateException("Recursive update");
+    }
+
+    V value;
+    LongNode<V> added = null;
+    segment.lock();
+    try {
+      node = segment.find(key, hash);
+      if (node == null) {
+        value = load(key, mappingFunction);
+        if (value != null) {
+          added = new LongNode<>(key, value);
+          segment.insert(added, hash);
+        }
+      } else {
+        value = node.value;
+      }
+    } finally {
+      segment.unlock();
+    }
+
+    if (added != null) {
+      afterWrite(new AddTask(added));
+    } else if (node != null) {
+      statsCounter.recordHits(1);
+      afterRead(node);
+    }
+    return value;
+  }
+
+  /** Returns the value computed by the mapping function, recording the load statistics. */
+  @Nullable V load(long key, LongFunction<? extends V> mappingFunction) {
+    statsCounter.recordMisses(1);
+    long startTime = statsTicker.read();
+    V value;
+    try {
+      value = mappingFunction.apply(key);
+    } catch (RuntimeException | Error e) {
+      statsCounter.recordLoadFailure(statsTicker.read() - startTime);
+      throw e;
+    }
+    long loadTime = statsTicker.read() - startTime;
+    if (value == null) {
+      statsCounter.recordLoadFailure(loadTime);
+    } else {
+      statsCounter.recordLoadSuccess(loadTime);
+    }
+    return value;
+  }
+
+  @Override
+  public void put(long key, V value) {
+    requireNonNull(value);
+    int hash = hash(key);
+    Segment<V> segment = segmentFor(hash);
+
+    V oldValue = null;
+    LongNode<V> node;
+    LongNode<V> added = null;
+    segment.lock();
+    try {
+      node = segment.find(key, hash);
+      if (node == null) {
+        added = new LongNode<>(key, value);
+        segment.insert(added, hash);
+      } else {
+        oldValue = node.value;
+        node.value = value;
+      }
+    } finally {
+      segment.unlock();
+    }
+
+    if (added != null) {
+      afterWrite(new AddTask(added));
+    } else {
+      afterRead(node);
+      if (oldValue != value) {
+        notifyRemoval(key, oldValue, RemovalCause.REPLACED);
+      }
+    }
+  }
+
+  @Override
+  public void invalidate(long key) {
+    int hash = hash(key);
+    Segment<V> segment = segmentFor(hash);
+
+    LongNode<V> node;
+    segment.lock();
+    try {
+      node = segment.find(key, hash);
+      if (node == null) {
+        return;
+      }
+      segment.remove(node, hash);
+      node.retire();
+    } finally {
+      segment.unlock();
+    }
+
+    afterWrite(new RemovalTask(node));
+    notifyRemoval(key, node.value, RemovalCause.EXPLICIT);
+  }
+
+  @Override
+  public void invalidateAll() {
+    evictionLock.lock();
+    try {
+      // Apply all pending writes so that every linked node is unlinked below
+      Runnable task;
+      while ((task = writeBuffer.poll()) != null) {
+        task.run();
+      }
+
+      for (Segment<V> segment : segments) {
+        AtomicReferenceArray<LongNode<V>> table;
+        segment.lock();
+        try {
+          table = segment.clear();
+        } finally {
+          segment.unlock();
+        }
+        for (int i = 0; i < table.length(); i++) {
+          LongNode<V> node = table.get(i);
+          if ((node != null) && (node != TOMBSTONE)) {
+            unlink(node);
+            node.die();
+            notifyRemoval(node.key, node.value, RemovalCause.EXPLICIT);
+          }
+        }
+      }
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  @Override
+  public long estimatedSize() {
+    long count = 0L;
+    for (Segment<V> segment : segments) {
+      count += segment.count;
+    }
+    return count;
+  }
+
+  @Override
+  public CacheStats stats() {
+    return statsCounter.snapshot();
+  }
+
+  @Override
+  public void cleanUp() {
+    try {
+      performCleanUp(/* ignored */ null);
+    } catch (RuntimeException e) {
+      logger.log(Level.SEVERE, "Exception thrown when performing the maintenance task", e);
+    }
+  }
+
+  /** Publishes the removal notification to the listener, if one is registered. */
+  void notifyRemoval(long key, @Nullable V value, RemovalCause cause) {
+    RemovalListener<Long, V> listener = removalListener;
+    if (listener == null) {
+      return;
+    }
+    Runnable task = () -> {
+      try {
+        listener.onRemoval(key, value, cause);
+      } catch (Throwable t) {
+        logger.log(Level.WARNING, "Exception thrown by removal listener", t);
+      }
+    };
+    try {
+      executor.execute(task);
+    } catch (Throwable t) {
+      logger.log(Level.SEVERE, "Exception thrown when submitting removal listener", t);
+      task.run();
+    }
+  }
+
+  /* --------------- Maintenance --------------- */
+
+  /** Records the read into the buffer and schedules a drain if it is full. */
+  void afterRead(LongNode<V> node) {
+    boolean delayable = (readBuffer.offer(node) != Buffer.FULL);
+    if (shouldDrainBuffers(delayable)) {
+      scheduleDrainBuffers();
+    }
+  }
+
+  /** Returns if the buffers should be drained, as described by {@link BoundedLocalCache}. */
+  boolean shouldDrainBuffers(boolean delayable) {
+    switch (drainStatus.get()) {
+      case IDLE:
+        return !delayable;
+      case REQUIRED:
+        return true;
+      case PROCESSING_TO_IDLE:
+      case PROCESSING_TO_REQUIRED:
+        return false;
+      default:
+        throw new IllegalStateException();
+    }
+  }
+
+  /** Records the write into the buffer, applying it directly if the buffer remains full. */
+  void afterWrite(Runnable task) {
+    for (int i = 0; i < WRITE_BUFFER_RETRIES; i++) {
+      if (writeBuffer.offer(task)) {
+        scheduleAfterWrite();
+        return;
+      }
+      scheduleDrainBuffers();
+    }
+
+    // The maintenance task may be scheduled but not running due to all of the executor's threads
+    // being busy, so the writer assists in order to make progress
+    try {
+      performCleanUp(task);
+    } catch (RuntimeException e) {
+      logger.log(Level.SEVERE, "Exception thrown when performing the maintenance task", e);
+    }
+  }
+
+  /** Transitions the drain status after a write and schedules the maintenance if required. */
+  void scheduleAfterWrite() {
+    for (;;) {
+      switch (drainStatus.get()) {
+        case IDLE:
+          drainStatus.compareAndSet(IDLE, REQUIRED);
+          scheduleDrainBuffers();
+          return;
+        case REQUIRED:
+          scheduleDrainBuffers();
+          return;
+        case PROCESSING_TO_IDLE:
+          if (drainStatus.compareAndSet(PROCESSING_TO_IDLE, PROCESSING_TO_REQUIRED)) {
+            return;
+          }
+          continue;
+        case PROCESSING_TO_REQUIRED:
+          return;
+        default:
+          throw new IllegalStateException();
+      }
+    }
+  }
+
+  /**
+   * Attempts to schedule an asynchronous task to apply the pending operations to the page
+   * replacement policy. If the executor rejects the task then it is run directly.
+   */
+  void scheduleDrainBuffers() {
+    if (drainStatus.get() >= PROCESSING_TO_IDLE) {
+      return;
+    }
+    if (evictionLock.tryLock()) {
+      try {
+        if (drainStatus.get() >= PROCESSING_TO_IDLE) {
+          return;
+        }
+        drainStatus.lazySet(PROCESSING_TO_IDLE);
+        executor.execute(drainBuffersTask);
+      } catch (Throwable t) {
+        logger.log(Level.WARNING, "Exception thrown when submitting maintenance task", t);
+        maintenance(/* ignored */ null);
+      } finally {
+        evictionLock.unlock();
+      }
+    }
+  }
+
+  /**
+   * Performs the maintenance work, blocking until the lock is acquired, and schedules another
+   * cycle if the maintenance budget left writes pending.
+   */
+  void performCleanUp(@Nullable Runnable task) {
+    evictionLock.lock();
+    try {
+      maintenance(task);
+    } finally {
+      evictionLock.unlock();
+    }
+    if ((drainStatus.get() == REQUIRED)
+        && ((executor == ForkJoinPool.commonPool()) || !writeBuffer.isEmpty())) {
+      scheduleDrainBuffers();
+    }
+  }
+
+  /** Applies the pending reads and writes to the policy and evicts if the cache is too large. */
+  @GuardedBy("evictionLock")
+  void maintenance(@Nullable Runnable task) {
+    drainStatus.lazySet(PROCESSING_TO_IDLE);
+    try {
+      readBuffer.drainTo(accessPolicy);
+      drainWriteBuffer();
+      if (task != null) {
+        task.run();
+      }
+      evictEntries();
+    } finally {
+      if ((drainStatus.get() != PROCESSING_TO_IDLE)
+          || !drainStatus.compareAndSet(PROCESSING_TO_IDLE, IDLE)) {
+        drainStatus.lazySet(REQUIRED);
+      }
+    }
+  }
+
+  /** Applies up to the maintenance budget of pending writes to the policy. */
+  @GuardedBy("evictionLock")
+  void drainWriteBuffer() {
+    for (int i = 0; i < maintenanceBudget; i++) {
+      Runnable task = writeBuffer.poll();
+      if (task == null) {
+        return;
+      }
+      task.run();
+    }
+    drainStatus.lazySet(PROCESSING_TO_REQUIRED);
+  }
+
+  /** Updates the node's location in the page replacement policy. */
+  @GuardedBy("evictionLock")
+  void onAccess(LongNode<V> node) {
+    if (node.queueType == UNLINKED) {
+      return;
+    }
+    sketch.increment(node);
+    if (node.queueType == WINDOW) {
+      windowDeque.moveToBack(node);
+    } else if (node.queueType == PROBATION) {
+      probationDeque.remove(node);
+      protectedDeque.add(node);
+      node.queueType = PROTECTED;
+      mainProtectedSize++;
+      demoteFromMainProtected();
+    } else {
+      protectedDeque.moveToBack(node);
+    }
+  }
+
+  /** Moves the least recently used entries from the protected to the probation queue. */
+  @GuardedBy("evictionLock")
+  void demoteFromMainProtected() {
+    while (mainProtectedSize > mainProtectedMaximum) {
+      LongNode<V> demoted = protectedDeque.poll();
+      if (demoted == null) {
+        break;
+      }
+      demoted.queueType = PROBATION;
+      probationDeque.add(demoted);
+      mainProtectedSize--;
+    }
+  }
+
+  /** Removes the node from the queue that it is linked into, if any. */
+  @GuardedBy("evictionLock")
+  void unlink(LongNode<V> node) {
+    if (node.queueType == WINDOW) {
+      windowDeque.remove(node);
+      windowSize--;
+    } else if (node.queueType == PROBATION) {
+      probationDeque.remove(node);
+    } else if (node.queueType == PROTECTED) {
+      protectedDeque.remove(node);
+      mainProtectedSize--;
+    } else {
+      return;
+    }
+    node.queueType = UNLINKED;
+    size--;
+  }
+
+  /** Evicts entries if the cache exceeds the maximum. */
+  @GuardedBy("evictionLock")
+  void evictEntries() {
+    int candidates = evictFromWindow();
+    evictFromMain(candidates);
+  }
+
+  /**
+   * Moves the entries that exceed the window's capacity into the probation queue, where they are
+   * the candidates for admission into the main space.
+   *
+   * @return the number of candidate entries evicted from the window space
+   */
+  @GuardedBy("evictionLock")
+  int evictFromWindow() {
+    int candidates = 0;
+    while (windowSize > windowMaximum) {
+      LongNode<V> node = windowDeque.poll();
+      if (node == null) {
+        break;
+      }
+      node.queueType = PROBATION;
+      probationDeque.add(node);
+      windowSize--;
+      candidates++;
+    }
+    return candidates;
+  }
+
+  /**
+   * Evicts entries from the main space if the cache exceeds the maximum capacity, as described by
+   * {@link BoundedLocalCache#evictFromMain}. The candidates from the window were placed at the MRU
+   * position of the probation queue and each is compared to the victim at its LRU position, so that
+   * the entry with the lower frequency is removed.
+   *
+   * @param candidates the number of candidate entries evicted from the window space
+   */
+  @GuardedBy("evictionLock")
+  void evictFromMain(int candidates) {
+    int victimQueue = PROBATION;
+    LongNode<V> victim = probationDeque.peekFirst();
+    LongNode<V> candidate = probationDeque.peekLast();
+    while (size > maximum) {
+      // Stop trying to evict candidates and always prefer the victim
+      if (candidates == 0) {
+        candidate = null;
+      }
+
+      // Try evicting from the protected and window queues
+      if ((candidate == null) && (victim == null)) {
+        if (victimQueue == PROBATION) {
+          victim = protectedDeque.peekFirst();
+          victimQueue = PROTECTED;
+          continue;
+        } else if (victimQueue == PROTECTED) {
+          victim = windowDeque.peekFirst();
+          victimQueue = WINDOW;
+          continue;
+        }
+        break;
+      }
+
+      // Evict immediately if only one of the entries is present
+      if (victim == null) {
+        @SuppressWarnings("NullAway")
+        LongNode<V> evict = candidate;
+        candidate = evict.getPreviousInAccessOrder();
+        candidates--;
+        evictEntry(evict);
+        continue;
+      } else if ((candidate == null) || (candidate == victim)) {
+        LongNode<V> evict = victim;
+        victim = victim.getNextInAccessOrder();
+        candidate = null;
+        evictEntry(evict);
+        continue;
+      }
+
+      // Evict the entry with the lowest frequency
+      candidates--;
+      if (BoundedLocalCache.admit(sketch.frequency(candidate), sketch.frequency(victim))) {
+        LongNode<V> evict = victim;
+        victim = victim.getNextInAccessOrder();
+        evictEntry(evict);
+        candidate = candidate.getPreviousInAccessOrder();
+      } else {
+        LongNode<V> evict = candidate;
+        candidate = candidate.getPreviousInAccessOrder();
+        evictEntry(evict);
+      }
+    }
+  }
+
+  /** Removes the node from the hash table and the policy due to the size bound. */
+  @GuardedBy("evictionLock")
+  void evictEntry(LongNode<V> node) {
+    int hash = hash(node.key);
+    Segment<V> segment = segmentFor(hash);
+    boolean removed;
+    segment.lock();
+    try {
+      removed = segment.remove(node, hash);
+      if (removed) {
+        node.retire();
+      }
+    } finally {
+      segment.unlock();
+    }
+
+    unlink(node);
+    if (removed) {
+      // An explicit removal raced with the eviction and its pending task will discard the node
+      node.die();
+      statsCounter.recordEviction(1, RemovalCause.SIZE);
+      notifyRemoval(node.key, node.value, RemovalCause.SIZE);
+    }
+  }
+
+  /** Adds the node to the page replacement policy. */
+  final class AddTask implements Runnable {
+    final LongNode<V> node;
+
+    AddTask(LongNode<V> node) {
+      this.node = node;
+    }
+
+    @Override
+    @GuardedBy("evictionLock")
+    public void run() {
+      // The node was removed before its addition was applied
+      if (!node.isAlive()) {
+        return;
+      }
+
+      node.queueType = WINDOW;
+      windowDeque.add(node);
+      windowSize++;
+      size++;
+
+      // Lazily initialize when close to the maximum size
+      if (sketch.isNotInitialized() && (size >= (maximum >>> 1))) {
+        sketch.ensureCapacity(maximum);
+      }
+      sketch.increment(node);
+    }
+  }
+
+  /** Removes a node from the page replacement policy. */
+  final class RemovalTask implements Runnable {
+    final LongNode<V> node;
+
+    RemovalTask(LongNode<V> node) {
+      this.node = node;
+    }
+
+    @Override
+    @GuardedBy("evictionLock")
+    public void run() {
+      unlink(node);
+      node.die();
+    }
+  }
+
+  /** A task that performs the maintenance work if the cache has not been garbage collected. */
+  static final class PerformCleanupTask implements Runnable {
+    final WeakReference<BoundedLongCache<?>> reference;
+
+    PerformCleanupTask(BoundedLongCache<?> cache) {
+      reference = new WeakReference<>(cache);
+    }
+
+    @Override
+    public void run() {
+      BoundedLongCache<?> cache = reference.get();
+      if (cache != null) {
+        cache.performCleanUp(/* ignored */ null);
+      }
+    }
+  }
+
+  /* --------------- Hash Table --------------- */
+
+  /**
+   * An entry that is both the slot's value in the hash table and the element of the page
+   * replacement policy's queue. The frequency sketch hashes the node by its key.
+   */
+  static final class LongNode<V> implements AccessOrder<LongNode<V>> {
+    static final int ALIVE = 0;
+    static final int RETIRED = 1;
+    static final int DEAD = 2;
+
+    final long key;
+    volatile @Nullable V value;
+    volatile int state;
+
+    @GuardedBy("evictionLock")
+    @Nullable LongNode<V> previousInAccessOrder;
+    @GuardedBy("evictionLock")
+    @Nullable LongNode<V> nextInAccessOrder;
+    @GuardedBy("evictionLock")
+    int queueType;
+
+    LongNode(long key, @Nullable V value) {
+      this.key = key;
+      this.value = value;
+    }
+
+    /** Returns if the entry is in the hash table. */
+    boolean isAlive() {
+      return (state == ALIVE);
+    }
+
+    /** Marks the entry as removed from the hash table, but not yet from the policy. */
+    void retire() {
+      state = RETIRED;
+    }
+
+    /** Marks the entry as removed from both the hash table and the policy. */
+    void die() {
+      state = DEAD;
+    }
+
+    @Override
+    public @Nullable LongNode<V> getPreviousInAccessOrder() {
+      return previousInAccessOrder;
+    }
+
+    @Override
+    public void setPreviousInAccessOrder(@Nullable LongNode<V> prev) {
+      this.previousInAccessOrder = prev;
+    }
+
+    @Override
+    public @Nullable LongNode<V> getNextInAccessOrder() {
+      return nextInAccessOrder;
+    }
+
+    @Override
+    public void setNextInAccessOrder(@Nullable LongNode<V> next) {
+      this.nextInAccessOrder = next;
+    }
+
+    @Override
+    public int hashCode() {
+      return Long.hashCode(key);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return (o == this);
+    }
+
+    @Override
+    public String toString() {
+      return key + "=" + value;
+    }
+  }
+
+  /**
+   * A stripe of the hash table, which is an open addressed table that resolves collisions by
+   * linear probing. A reader probes the table without locking, while a writer holds the stripe's
+   * lock. A removed node's slot is replaced by a tombstone, and the table is rebuilt when the live
+   * and tombstone slots exceed the load factor, so that a probe always reaches an empty slot. A
+   * rebuilt table is fully populated before it is published, so a reader that is probing the
+   * previous table observes a consistent snapshot.
+   */
+  @SuppressWarnings("serial")
+  static final class Segment<V> extends ReentrantLock {
+    volatile AtomicReferenceArray<LongNode<V>> table;
+    volatile int count;
+    @GuardedBy("this")
+    int tombstones;
+
+    Segment(int capacity) {
+      table = new AtomicReferenceArray<>(capacity);
+    }
+
+    /** Returns the node mapped to the key, or {@code null} if absent. */
+    @Nullable LongNode<V> find(long key, int hash) {
+      AtomicReferenceArray<LongNode<V>> table = this.table;
+      int mask = table.length() - 1;
+      for (int i = hash & mask; ; i = (i + 1) & mask) {
+        LongNode<V> node = table.get(i);
+        if (node == null) {
+          return null;
+        } else if ((node.key == key) && (node != TOMBSTONE)) {
+          return node;
+        }
+      }
+    }
+
+    /** Adds the node, whose key must not already be present, to the table. */
+    @GuardedBy("this")
+    void insert(LongNode<V> node, int hash) {
+      AtomicReferenceArray<LongNode<V>> table = this.table;
+      if (4 * (count + tombstones + 1) > 3 * table.length()) {
+        table = rebuild();
+      }
+      int mask = table.length() - 1;
+      for (int i = hash & mask; ; i = (i + 1) & mask) {
+        LongNode<V> current = table.get(i);
+        if ((current == null) || (current == TOMBSTONE)) {
+          if (current == TOMBSTONE) {
+            tombstones--;
+          }
+          table.set(i, node);
+          count++;
+          return;
+        }
+      }
+    }
+
+    /** Removes the node from the table, returning if it was present. */
+    @GuardedBy("this")
+    @SuppressWarnings("unchecked")
+    boolean remove(LongNode<V> node, int hash) {
+      AtomicReferenceArray<LongNode<V>> table = this.table;
+      int mask = table.length() - 1;
+      for (int i = hash & mask; ; i = (i + 1) & mask) {
+        LongNode<V> current = table.get(i);
+        if (current == null) {
+          return false;
+        } else if (current == node) {
+          table.set(i, (LongNode<V>) TOMBSTONE);
+          tombstones++;
+          count--;
+          return true;
+        }
+      }
+    }
+
+    /** Replaces the table with an empty one, returning the previous table. */
+    @GuardedBy("this")
+    AtomicReferenceArray<LongNode<V>> clear() {
+      AtomicReferenceArray<LongNode<V>> previous = table;
+      table = new AtomicReferenceArray<>(previous.length());
+      tombstones = 0;
+      count = 0;
+      return previous;
+    }
+
+    /** Rebuilds the table without tombstones, doubling its capacity if at least half full. */
+    @GuardedBy("this")
+    AtomicReferenceArray<LongNode<V>> rebuild() {
+      AtomicReferenceArray<LongNode<V>> previous = table;
+      int capacity = previous.length();
+      if ((2 * count >= capacity) && (capacity < MAXIMUM_SEGMENT_CAPACITY)) {
+        capacity <<= 1;
+      }
+      AtomicReferenceArray<LongNode<V>> rebuilt = new AtomicReferenceArray<>(capacity);
+      int mask = capacity - 1;
+      for (int i = 0; i < previous.length(); i++) {
+        LongNode<V> node = previous.get(i);
+        if ((node == null) || (node == TOMBSTONE)) {
+          continue;
+        }
+        int j = hash(node.key) & mask;
+        while (rebuilt.get(j) != null) {
+          j = (j + 1) & mask;
+        }
+        rebuilt.lazySet(j, node);
+      }
+      tombstones = 0;
+      table = rebuilt;
+      return rebuilt;
+    }
+  }
+
+  /* --------------- Loading Cache --------------- */
+
+  static final class BoundedLongLoadingCache<V>
+      extends BoundedLongCache<V> implements LongLoadingCache<V> {
+    final LongFunction<? extends V> loader;
+
+    BoundedLongLoadingCache(Caffeine<Long, V> builder, LongFunction<? extends V> loader) {
+      super(builder);
+      this.loader = requireNonNull(loader);
+    }
+
+    @Override
+    public @Nullable V get(long key) {
+      return get(key, loader);
+    }
+  }
+}
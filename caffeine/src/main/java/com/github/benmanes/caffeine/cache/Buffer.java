@@ -82,6 +82,24 @@ interface Buffer<E> {
    * @return the number of elements written to this buffer
    */
   int writes();
+
+  /**
+   * Returns the number of elements that have been accepted by the buffer.
+   *
+   * @return the number of elements accepted by this buffer
+   */
+  default long accepted() {
+    return writes();
+  }
+
+  /**
+   * Returns the number of elements that were rejected because the buffer was full.
+   *
+   * @return the number of elements rejected by this buffer
+   */
+  default long rejected() {
+    return 0L;
+  }
 }
 
 enum DisabledBuffer implements Buffer<Object> {
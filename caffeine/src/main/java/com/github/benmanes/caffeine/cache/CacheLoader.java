@@ -195,4 +195,58 @@ public interface CacheLoader<K, V> extends AsyncCacheLoader<K, V> {
       }
     }, executor);
   }
+
+  /**
+   * Computes or retrieves the replacement values corresponding to already-cached {@code keys}.
+   * This method is called when the refreshes of existing cache entries are coalesced by
+   * {@link Caffeine#coalesceRefreshes}.
+   * <p>
+   * If the returned map doesn't contain a requested key, or maps it to {@code null}, then the
+   * replacement value is treated as not found and the mapping will be removed. If the returned map
+   * contains extra keys not present in {@code oldValues} then those entries are ignored.
+   * <p>
+   * This method should be overridden when bulk retrieval is significantly more efficient than many
+   * individual lookups. Note that {@link Caffeine#coalesceRefreshes} requires that this method is
+   * overridden.
+   * <p>
+   * <b>Note:</b> <i>all exceptions thrown by this method will be logged and then swallowed</i>.
+   *
+   * @param oldValues the non-null old values corresponding to the keys being refreshed
+   * @return a map from each key in {@code oldValues} to its new value
+   * @throws Exception or Error, in which case the mappings are unchanged
+   * @throws InterruptedException if this method is interrupted. {@code InterruptedException} is
+   *         treated like any other {@code Exception} in all respects except that, when it is
+   *         caught, the thread's interrupt status is set
+   */
+  @NonNull
+  default Map<@NonNull K, @NonNull V> reloadAll(
+      @NonNull Map<? extends @NonNull K, ? extends @NonNull V> oldValues) throws Exception {
+    throw new UnsupportedOperationException();
+  }
+
+  /**
+   * Asynchronously computes or retrieves the replacement values corresponding to already-cached
+   * {@code keys}. This method is called when the refreshes of existing cache entries are coalesced
+   * by {@link Caffeine#coalesceRefreshes}.
+   *
+   * @param oldValues the non-null old values corresponding to the keys being refreshed
+   * @param executor the executor with which the entries are asynchronously loaded
+   * @return a future containing the map from each key in {@code oldValues} to its new value
+   */
+  @Override @NonNull
+  default CompletableFuture<Map<@NonNull K, @NonNull V>> asyncReloadAll(
+      @NonNull Map<? extends @NonNull K, ? extends @NonNull V> oldValues,
+      @NonNull Executor executor) {
+    requireNonNull(oldValues);
+    requireNonNull(executor);
+    return CompletableFuture.supplyAsync(() -> {
+      try {
+        return reloadAll(oldValues);
+      } catch (RuntimeException e) {
+        throw e;
+      } catch (Exception e) {
+        throw new CompletionException(e);
+      }
+    }, executor);
+  }
 }
@@ -0,0 +1,298 @@
+/*
+ * Copyright 2020 Ben Manes. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.benmanes.caffeine.cache;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Writes the contents of a cache to a file and restores them into a cache, such as to avoid a cold
+ * start after a restart. The entries are written in the eviction policy's order, from the hottest
+ * to the coldest, along with their estimated popularity in the admission policy. When restored the
+ * popularity is recorded before the entries are inserted from the coldest to the hottest, so that
+ * a cache with a smaller maximum retains the entries that it would have favored originally.
+ * <p>
+ * The expiration times and the recency of an entry are not captured, so restored entries are
+ * treated as if newly written. The keys and values are serialized by the supplied {@link Codec}s.
+ * <p>
+ * The file format is a header of a magic number, a version, and the number of entries followed by
+ * a record per entry of the frequency, the encoded key's length and bytes, and the encoded value's
+ * length and bytes.
+ *
+ * @author ben.manes@gmail.com (Ben Manes)
+ */
+public final class CacheSnapshot {
+  static final int MAGIC = 0xCAFFE1AE;
+  static final int VERSION = 1;
+  static final int HEADER_SIZE = Integer.BYTES + Integer.BYTES + Long.BYTES;
+  static final int RECORD_HEADER_SIZE = Byte.BYTES + Integer.BYTES;
+  static final int BUFFER_SIZE = 64 * 1024;
+
+  private CacheSnapshot() {}
+
+  /** A serializer of the keys or values within a snapshot. */
+  public interface Codec<T> {
+
+    /**
+     * Returns the serialized form of the object.
+     *
+     * @param value the object to serialize
+     * @return the serialized form
+     */
+    byte @NonNull [] encode(@NonNull T value);
+
+    /**
+     * Returns the object that was serialized by {@link #encode}.
+     *
+     * @param bytes the serialized form
+     * @return the deserialized object
+     */
+    @NonNull T decode(byte @NonNull [] bytes);
+  }
+
+  /**
+   * Writes the entries of the cache to the file, replacing any existing content. The cache may be
+   * concurrently modified, in which case the snapshot is weakly consistent.
+   *
+   * @param cache the cache whose entries are written
+   * @param path the file to write to
+   * @param keyCodec the serializer of the keys
+   * @param valueCodec the serializer of the values
+   * @param <K> the type of keys
+   * @param <V> the type of values
+   * @return the number of entries written
+   * @throws IOException if an I/O error occurs
+   */
+  public static <K, V> long write(@NonNull Cache<K, V> cache, @NonNull Path path,
+      @NonNull Codec<? super K> keyCodec, @NonNull Codec<? super V> valueCodec)
+      throws IOException {
+    requireNonNull(valueCodec);
+    requireNonNull(keyCodec);
+    requireNonNull(path);
+
+    @Nullable BoundedLocalCache<?, ?> bounded = boundedLocalCache(cache);
+    Map<?, Integer> frequencies = (bounded == null)
+        ? Collections.emptyMap()
+        : bounded.hottestFrequencies();
+    Map<K, V> entries = frequencies.isEmpty()
+        ? cache.policy().eviction()
+            .map(eviction -> eviction.hottest(Integer.MAX_VALUE))
+            .orElseGet(cache::asMap)
+        : entriesOf(cache, frequencies.keySet());
+
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+      buffer.putInt(MAGIC).putInt(VERSION).putLong(0L);
+
+      long count = 0;
+      for (Map.Entry<K, V> entry : entries.entrySet()) {
+        int frequency = frequencies.getOrDefault(entry.getKey(), 0);
+        byte[] key = keyCodec.encode(entry.getKey());
+        byte[] value = valueCodec.encode(entry.getValue());
+
+        ensureRemaining(channel, buffer, RECORD_HEADER_SIZE);
+        buffer.put((byte) frequency).putInt(key.length);
+        put(channel, buffer, key);
+        ensureRemaining(channel, buffer, Integer.BYTES);
+        buffer.putInt(value.length);
+        put(channel, buffer, value);
+        count++;
+      }
+      flush(channel, buffer);
+
+      ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+      header.putInt(MAGIC).putInt(VERSION).putLong(count).flip();
+      while (header.hasRemaining()) {
+        channel.write(header, header.position());
+      }
+      channel.force(/* metaData */ false);
+      return count;
+    }
+  }
+
+  /**
+   * Reads the entries from the file and inserts them into the cache, replacing any existing
+   * mappings for the same keys. If the cache is bounded by a maximum then it may evict some of the
+   * restored entries, favoring those that were the most popular when the snapshot was taken.
+   *
+   * @param cache the cache to restore the entries into
+   * @param path the file to read from
+   * @param keyCodec the deserializer of the keys
+   * @param valueCodec the deserializer of the values
+   * @param <K> the type of keys
+   * @param <V> the type of values
+   * @return the number of entries read
+   * @throws IOException if an I/O error occurs or the file is not a valid snapshot
+   */
+  public static <K, V> long read(@NonNull Cache<K, V> cache, @NonNull Path path,
+      @NonNull Codec<? extends K> keyCodec, @NonNull Codec<? extends V> valueCodec)
+      throws IOException {
+    requireNonNull(valueCodec);
+    requireNonNull(keyCodec);
+    requireNonNull(cache);
+
+    List<K> keys;
+    List<V> values;
+    Map<K, Integer> frequencies;
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+      buffer.flip();
+
+      require(channel, buffer, HEADER_SIZE);
+      if ((buffer.getInt() != MAGIC) || (buffer.getInt() != VERSION)) {
+        throw new StreamCorruptedException("Not a cache snapshot: " + path);
+      }
+      long count = buffer.getLong();
+      if ((count < 0) || (count > Integer.MAX_VALUE)) {
+        throw new StreamCorruptedException("Invalid entry count: " + count);
+      }
+
+      keys = new ArrayList<>();
+      values = new ArrayList<>();
+      frequencies = new LinkedHashMap<>();
+      for (long i = 0; i < count; i++) {
+        require(channel, buffer, RECORD_HEADER_SIZE);
+        int frequency = buffer.get();
+        K key = keyCodec.decode(get(channel, buffer, buffer.getInt()));
+        require(channel, buffer, Integer.BYTES);
+        V value = valueCodec.decode(get(channel, buffer, buffer.getInt()));
+
+        keys.add(key);
+        values.add(value);
+        if (frequency > 0) {
+          frequencies.put(key, frequency);
+        }
+      }
+    }
+
+    @Nullable BoundedLocalCache<?, ?> bounded = boundedLocalCache(cache);
+    if (bounded != null) {
+      bounded.restoreFrequencies(keys.size(), frequencies);
+    }
+    for (int i = keys.size() - 1; i >= 0; i--) {
+      cache.put(keys.get(i), values.get(i));
+    }
+    return keys.size();
+  }
+
+  /** Returns the present entries of the keys, in their iteration order, without side effects. */
+  @SuppressWarnings("unchecked")
+  static <K, V> Map<K, V> entriesOf(Cache<K, V> cache, Iterable<?> keys) {
+    Map<K, V> entries = new LinkedHashMap<>();
+    for (Object key : keys) {
+      V value = cache.policy().getIfPresentQuietly(key);
+      if (value != null) {
+        entries.put((K) key, value);
+      }
+    }
+    return entries;
+  }
+
+  /** Returns the bounded cache backing the view, or null if not available. */
+  static @Nullable BoundedLocalCache<?, ?> boundedLocalCache(Cache<?, ?> cache) {
+    LocalCache<?, ?> localCache = null;
+    if (cache instanceof LocalManualCache<?, ?>) {
+      localCache = ((LocalManualCache<?, ?>) cache).cache();
+    } else if (cache instanceof LocalAsyncCache.AbstractCacheView<?, ?>) {
+      localCache = ((LocalAsyncCache.AbstractCacheView<?, ?>) cache).asyncCache().cache();
+    }
+    return (localCache instanceof BoundedLocalCache<?, ?>)
+        ? (BoundedLocalCache<?, ?>) localCache
+        : null;
+  }
+
+  /** Writes the bytes to the channel, staging them in the buffer if they fit. */
+  static void put(FileChannel channel, ByteBuffer buffer, byte[] bytes) throws IOException {
+    if (bytes.length <= buffer.remaining()) {
+      buffer.put(bytes);
+      return;
+    }
+    flush(channel, buffer);
+    if (bytes.length <= buffer.remaining()) {
+      buffer.put(bytes);
+    } else {
+      ByteBuffer large = ByteBuffer.wrap(bytes);
+      while (large.hasRemaining()) {
+        channel.write(large);
+      }
+    }
+  }
+
+  /** Flushes the buffer if it does not have room for the number of bytes. */
+  static void ensureRemaining(FileChannel channel,
+      ByteBuffer buffer, int bytes) throws IOException {
+    if (buffer.remaining() < bytes) {
+      flush(channel, buffer);
+    }
+  }
+
+  /** Writes the buffered contents to the channel and clears the buffer. */
+  static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+    buffer.flip();
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+    buffer.clear();
+  }
+
+  /** Reads from the channel until the buffer has at least the number of bytes remaining. */
+  static void require(FileChannel channel, ByteBuffer buffer, int bytes) throws IOException {
+    if (buffer.remaining() >= bytes) {
+      return;
+    }
+    buffer.compact();
+    while (buffer.position() < bytes) {
+      if (channel.read(buffer) < 0) {
+        throw new EOFException("Truncated cache snapshot");
+      }
+    }
+    buffer.flip();
+  }
+
+  /** Returns the next number of bytes, reading them from the channel if not buffered. */
+  static byte[] get(FileChannel channel, ByteBuffer buffer, int length) throws IOException {
+    if (length < 0) {
+      throw new StreamCorruptedException("Invalid record length: " + length);
+    }
+    byte[] bytes = new byte[length];
+    int buffered = Math.min(length, buffer.remaining());
+    buffer.get(bytes, 0, buffered);
+
+    ByteBuffer remaining = ByteBuffer.wrap(bytes, buffered, length - buffered);
+    while (remaining.hasRemaining()) {
+      if (channel.read(remaining) < 0) {
+        throw new EOFException("Truncated cache snapshot");
+      }
+    }
+    return bytes;
+  }
+}
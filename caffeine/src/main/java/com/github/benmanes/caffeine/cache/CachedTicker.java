@@ -0,0 +1,108 @@
+/*
+ * Copyright 2020 Ben Manes. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.benmanes.caffeine.cache;
+
+import static com.github.benmanes.caffeine.cache.Caffeine.requireArgument;
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * A ticker that reads a timestamp which is periodically refreshed from {@link System#nanoTime} by a
+ * shared daemon thread. A read is a volatile load, and the timestamp is monotonic because it is
+ * only written to by the single refresh thread.
+ *
+ * @author ben.manes@gmail.com (Ben Manes)
+ */
+final class CachedTicker implements Ticker {
+  final long resolutionNanos;
+
+  volatile long nanos;
+
+  CachedTicker(long resolutionNanos) {
+    requireArgument(resolutionNanos > 0, "resolution must be positive: %s", resolutionNanos);
+    this.resolutionNanos = resolutionNanos;
+    this.nanos = System.nanoTime();
+  }
+
+  /** Returns a ticker that is refreshed at the given resolution until it is garbage collected. */
+  static CachedTicker create(long resolutionNanos) {
+    CachedTicker ticker = new CachedTicker(resolutionNanos);
+    Tick tick = new Tick(ticker);
+    tick.future = TickerThread.executor.scheduleAtFixedRate(
+        tick, resolutionNanos, resolutionNanos, TimeUnit.NANOSECONDS);
+    return ticker;
+  }
+
+  @Override
+  public long read() {
+    return nanos;
+  }
+
+  /** Refreshes the timestamp from the system clock. */
+  void tick() {
+    nanos = System.nanoTime();
+  }
+
+  @Override
+  public String toString() {
+    return getClass().getSimpleName() + "{resolution=" + resolutionNanos + "ns}";
+  }
+
+  /**
+   * A periodic task that refreshes a ticker. The ticker is weakly referenced so that the task
+   * cancels itself once the caches that used the ticker are no longer in use.
+   */
+  static final class Tick extends WeakReference<CachedTicker> implements Runnable {
+    volatile @Nullable Future<?> future;
+
+    Tick(CachedTicker ticker) {
+      super(ticker);
+    }
+
+    @Override
+    public void run() {
+      CachedTicker ticker = get();
+      if (ticker != null) {
+        ticker.tick();
+        return;
+      }
+      Future<?> f = future;
+      if (f != null) {
+        f.cancel(/* mayInterruptIfRunning */ false);
+      }
+    }
+  }
+
+  /** The lazily started thread that refreshes all of the tickers. */
+  static final class TickerThread {
+    static final ScheduledThreadPoolExecutor executor = newExecutor();
+
+    static ScheduledThreadPoolExecutor newExecutor() {
+      ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, task -> {
+        Thread thread = new Thread(task, "Caffeine-CachedTicker");
+        thread.setDaemon(true);
+        return thread;
+      });
+      executor.setRemoveOnCancelPolicy(true);
+      return executor;
+    }
+  }
+}
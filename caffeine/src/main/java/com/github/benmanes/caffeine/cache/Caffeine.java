@@ -31,11 +31,13 @@ import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.function.LongFunction;
 import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import org.checkerframework.checker.index.qual.NonNegative;
+import org.checkerframework.checker.index.qual.Positive;
 import org.checkerframework.checker.nullness.qual.NonNull;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
@@ -139,6 +141,7 @@ import com.google.errorprone.annotations.FormatMethod;
 public final class Caffeine<K, V> {
   static final Logger logger = Logger.getLogger(Caffeine.class.getName());
   static final Supplier<StatsCounter> ENABLED_STATS_COUNTER_SUPPLIER = ConcurrentStatsCounter::new;
+  static final MaintenanceListener IGNORING_MAINTENANCE_LISTENER = cycle -> {};
 
   enum Strength { WEAK, SOFT }
   static final int UNSET_INT = -1;
@@ -148,20 +151,39 @@ public final class Caffeine<K, V> {
   static final int DEFAULT_REFRESH_NANOS = 0;
 
   boolean strictParsing = true;
+  boolean sizeAwareAdmission;
+  boolean adaptiveReadBuffer;
 
   long maximumSize = UNSET_INT;
   long maximumWeight = UNSET_INT;
   int initialCapacity = UNSET_INT;
+  int maintenanceBudget = UNSET_INT;
 
   long expireAfterWriteNanos = UNSET_INT;
   long expireAfterAccessNanos = UNSET_INT;
   long refreshAfterWriteNanos = UNSET_INT;
+  long coalesceDelayNanos = UNSET_INT;
+  int coalesceBatchSize = UNSET_INT;
+  int refreshAheadConcurrency = UNSET_INT;
+  long refreshCoalesceDelayNanos = UNSET_INT;
+  int refreshCoalesceBatchSize = UNSET_INT;
+  long loadQueueTimeoutNanos = UNSET_INT;
+  long staleWhileRevalidateNanos = UNSET_INT;
+  long staleIfErrorNanos = UNSET_INT;
+  long absentLoadsNanos = UNSET_INT;
+  long absentLoadsMaximum = UNSET_INT;
+  long expirationResolutionNanos = UNSET_INT;
+  long expirationHorizonNanos = UNSET_INT;
+  int expirationBudget = UNSET_INT;
+  int loadConcurrency = UNSET_INT;
 
   @Nullable RemovalListener<? super K, ? super V> removalListener;
+  @Nullable MaintenanceListener maintenanceListener;
   @Nullable Supplier<StatsCounter> statsCounterSupplier;
   @Nullable CacheWriter<? super K, ? super V> writer;
   @Nullable Weigher<? super K, ? super V> weigher;
   @Nullable Expiry<? super K, ? super V> expiry;
+  @Nullable Jitter jitter;
   @Nullable Scheduler scheduler;
   @Nullable Executor executor;
   @Nullable Ticker ticker;
@@ -345,6 +367,63 @@ public final class Caffeine<K, V> {
     return Scheduler.guardedScheduler(scheduler);
   }
 
+  /**
+   * Specifies the maximum number of pending writes that are applied to the eviction policy during a
+   * single maintenance cycle. The maintenance work is performed under an exclusive lock, so a burst
+   * of writes may otherwise cause a caller that performs the cleanup to observe a long pause. When
+   * the budget is exhausted then the remaining work is deferred to a subsequent maintenance cycle,
+   * which is scheduled on the {@link #executor(Executor)}. By default, the budget is
+   * implementation-specific and is proportional to the number of available processors.
+   * <p>
+   * A small budget bounds the lock hold time at the cost of the policy lagging further behind
+   * the hash table. The size bound is still enforced by each maintenance cycle, so the cache may
+   * only temporarily exceed its maximum by the number of entries that are pending.
+   *
+   * @param maximumTasks the maximum number of pending writes to apply per maintenance cycle
+   * @return this {@code Caffeine} instance (for chaining)
+   * @throws IllegalArgumentException if {@code maximumTasks} is not positive
+   * @throws IllegalStateException if a maintenance budget was already set
+   */
+  @NonNull
+  public Caffeine<K, V> maintenanceBudget(@Positive int maximumTasks) {
+    requireState(this.maintenanceBudget == UNSET_INT,
+        "maintenance budget was already set to %s", this.maintenanceBudget);
+    requireArgument(maximumTasks > 0, "maximum tasks must be positive");
+    this.maintenanceBudget = maximumTasks;
+    return this;
+  }
+
+  boolean hasMaintenanceBudget() {
+    return (maintenanceBudget != UNSET_INT);
+  }
+
+  int getMaintenanceBudget() {
+    return maintenanceBudget;
+  }
+
+  /**
+   * Specifies that a bounded cache should adapt the capacity of its read buffer to the rate at
+   * which reads are dropped. The read buffer is lossy, so under a heavy and skewed read load some
+   * of the access history used to make eviction decisions is discarded, which may lower the hit
+   * rate. When this option is enabled, each stripe of the buffer grows up to four times its default
+   * capacity while reads are being dropped and shrinks back when it is mostly idle. This costs more
+   * memory per stripe, so it is recommended only when {@link Policy#readBufferRejected()} shows a
+   * high rate of drops.
+   *
+   * @return this {@code Caffeine} instance (for chaining)
+   * @throws IllegalStateException if the adaptive read buffer was already set
+   */
+  @NonNull
+  public Caffeine<K, V> adaptiveReadBuffer() {
+    requireState(!adaptiveReadBuffer, "adaptive read buffer was already set");
+    adaptiveReadBuffer = true;
+    return this;
+  }
+
+  boolean hasAdaptiveReadBuffer() {
+    return adaptiveReadBuffer;
+  }
+
   /**
    * Specifies the maximum number of entries the cache may contain. Note that the cache <b>may evict
    * an entry before this limit is exceeded or temporarily exceed the threshold while evicting</b>.
@@ -456,6 +535,32 @@ public final class Caffeine<K, V> {
     return self;
   }
 
+  /**
+   * Specifies that a weighted cache should take the weight of an entry into account when deciding
+   * whether to retain it. By default, an entry is admitted into the main space if it is used more
+   * frequently than the single entry that the eviction policy chose to replace, regardless of how
+   * many additional entries must then be evicted to make room for it. When this option is enabled,
+   * a heavier entry must instead be used more frequently than all of the entries whose combined
+   * weight it would displace. This favors retaining many light entries over a few heavy ones,
+   * which typically improves the hit rate of workloads whose entry weights vary widely, such as
+   * content delivery caches, though it may lower the fraction of the weight served from the cache.
+   * <p>
+   * This feature requires {@link #maximumWeight} and {@link #weigher}.
+   *
+   * @return this {@code Caffeine} instance (for chaining)
+   * @throws IllegalStateException if size-aware admission was already set
+   */
+  @NonNull
+  public Caffeine<K, V> sizeAwareAdmission() {
+    requireState(!sizeAwareAdmission, "size-aware admission was already set");
+    sizeAwareAdmission = true;
+    return this;
+  }
+
+  boolean isSizeAwareAdmission() {
+    return sizeAwareAdmission;
+  }
+
   boolean evicts() {
     return getMaximum() != UNSET_INT;
   }
@@ -623,7 +728,145 @@ public final class Caffeine<K, V> {
   }
 
   boolean expiresAfterWrite() {
-    return (expireAfterWriteNanos != UNSET_INT);
+    return (expireAfterWriteNanos != UNSET_INT) && !servesStale() && (jitter == null);
+  }
+
+  /**
+   * Specifies that an entry which has exceeded its {@link #expireAfterWrite} duration may continue
+   * to be served for a grace period while its replacement value is loaded in the background. The
+   * first read of the stale entry triggers a single asynchronous reload through the same mechanism
+   * as {@link #refreshAfterWrite}, and the entry is removed if it is not successfully reloaded by
+   * the end of the grace period. This turns a slow backing resource into background work rather
+   * than a blocking load for every caller.
+   * <p>
+   * The entry's hard deadline is maintained as a variable expiration, so the
+   * {@link Policy#expireVariably()} view reports the time until the end of the grace period and the
+   * {@link Policy#refreshAfterWrite()} view reports the {@code expireAfterWrite} duration.
+   * <p>
+   * This feature requires a cache built by {@link #build(CacheLoader)},
+   * {@link #buildAsync(CacheLoader)}, or {@link #buildAsync(AsyncCacheLoader)} with
+   * {@link #expireAfterWrite} and without {@link #refreshAfterWrite}.
+   *
+   * @param gracePeriod the length of time after an entry has expired that it may be served stale
+   * @return this {@code Caffeine} instance (for chaining)
+   * @throws NullPointerException if the grace period is null
+   * @throws IllegalArgumentException if {@code gracePeriod} is not positive
+   * @throws IllegalStateException if the stale-while-revalidate grace period was already set
+   * @throws ArithmeticException for durations greater than +/- approximately 292 years
+   */
+  @NonNull
+  public Caffeine<K, V> staleWhileRevalidate(@NonNull Duration gracePeriod) {
+    requireState(staleWhileRevalidateNanos == UNSET_INT,
+        "staleWhileRevalidate was already set to %s ns", staleWhileRevalidateNanos);
+    long gracePeriodNanos = saturatedToNanos(gracePeriod);
+    requireArgument(gracePeriodNanos > 0, "grace period must be positive: %s", gracePeriod);
+    this.staleWhileRevalidateNanos = gracePeriodNanos;
+    return this;
+  }
+
+  /**
+   * Specifies that a stale entry whose background reload failed may continue to be served until a
+   * hard limit has elapsed after it expired, rather than only for the
+   * {@linkplain #staleWhileRevalidate grace period}. The failed reload is retried by the next read
+   * of the entry. The limit is measured from the entry's expiration and has no effect if it is not
+   * longer than the grace period.
+   * <p>
+   * This feature requires {@link #staleWhileRevalidate}.
+   *
+   * @param maximumStaleness the length of time after an entry has expired that it may be served
+   *        stale while its reloads fail
+   * @return this {@code Caffeine} instance (for chaining)
+   * @throws NullPointerException if the maximum staleness is null
+   * @throws IllegalArgumentException if {@code maximumStaleness} is not positive
+   * @throws IllegalStateException if the stale-if-error limit was already set
+   * @throws ArithmeticException for durations greater than +/- approximately 292 years
+   */
+  @NonNull
+  public Caffeine<K, V> staleIfError(@NonNull Duration maximumStaleness) {
+    requireState(staleIfErrorNanos == UNSET_INT,
+        "staleIfError was already set to %s ns", staleIfErrorNanos);
+    long maximumStalenessNanos = saturatedToNanos(maximumStaleness);
+    requireArgument(maximumStalenessNanos > 0,
+        "maximum staleness must be positive: %s", maximumStaleness);
+    this.staleIfErrorNanos = maximumStalenessNanos;
+    return this;
+  }
+
+  boolean servesStale() {
+    return (staleWhileRevalidateNanos != UNSET_INT);
+  }
+
+  long getStaleWhileRevalidateNanos() {
+    return staleWhileRevalidateNanos;
+  }
+
+  long getStaleIfErrorNanos() {
+    return staleIfErrorNanos;
+  }
+
+  /**
+   * Returns the maximum age of an entry whose reload failed, measured from its last write, or zero
+   * if a failure does not extend the entry's lifetime.
+   */
+  long getStaleIfErrorAgeNanos() {
+    if ((staleIfErrorNanos == UNSET_INT) || (staleIfErrorNanos <= staleWhileRevalidateNanos)) {
+      return 0L;
+    }
+    return saturatedAdd(expireAfterWriteNanos, staleIfErrorNanos);
+  }
+
+  /**
+   * Specifies that a key whose load computed a {@code null} value should be remembered as absent
+   * for a fixed duration, during which a lookup of the key returns {@code null} without calling the
+   * loader. This protects the backing resource from repeated queries for a popular key that does
+   * not exist, such as a lookup that results in a not found response.
+   * <p>
+   * The absent keys are held apart from the cache's entries and are bounded by their own maximum
+   * size, so they do not count towards the cache's size or weight and are not visible through the
+   * {@link Cache#asMap()} view. A lookup served by an absent key is recorded by
+   * {@link StatsCounter#recordAbsentHits} rather than as a hit or miss. An absent key is forgotten
+   * once its duration elapses, a value for it is loaded, refreshed, or put into the cache, or it
+   * is invalidated. A value written by {@code compute} or {@code merge} through the {@code asMap}
+   * view does not discard the absent key, which may then be observed again if that value is
+   * removed before the duration has elapsed.
+   * <p>
+   * This feature requires a cache built by {@link #build(CacheLoader)},
+   * {@link #buildAsync(CacheLoader)}, or {@link #buildAsync(AsyncCacheLoader)}.
+   *
+   * @param duration the length of time after a load was absent that the key is remembered
+   * @param maximumSize the maximum number of absent keys that are remembered
+   * @return this {@code Caffeine} instance (for chaining)
+   * @throws NullPointerException if the duration is null
+   * @throws IllegalArgumentException if {@code duration} or {@code maximumSize} is not positive
+   * @throws IllegalStateException if the remembering of absent loads was already set
+   * @throws ArithmeticException for durations greater than +/- approximately 292 years
+   */
+  @NonNull
+  public Caffeine<K, V> cacheAbsentLoads(@NonNull Duration duration, @Positive long maximumSize) {
+    requireState(absentLoadsNanos == UNSET_INT,
+        "cacheAbsentLoads was already set to %s ns", absentLoadsNanos);
+    long durationNanos = saturatedToNanos(duration);
+    requireArgument(durationNanos > 0, "duration must be positive: %s", duration);
+    requireArgument(maximumSize > 0, "maximum size must be positive: %s", maximumSize);
+    this.absentLoadsNanos = durationNanos;
+    this.absentLoadsMaximum = maximumSize;
+    return this;
+  }
+
+  /** Returns a new store of the keys whose loads were absent, or null if not remembered. */
+  @Nullable <K1> Cache<K1, Boolean> getAbsentLoads() {
+    if (absentLoadsNanos == UNSET_INT) {
+      return null;
+    }
+    Caffeine<Object, Object> builder = Caffeine.newBuilder()
+        .expireAfterWrite(absentLoadsNanos, TimeUnit.NANOSECONDS)
+        .maximumSize(absentLoadsMaximum)
+        .ticker((ticker == null) ? Ticker.systemTicker() : ticker)
+        .executor(getExecutor());
+    if (keyStrength != null) {
+      builder.weakKeys();
+    }
+    return builder.build();
   }
 
   /**
@@ -685,7 +928,7 @@ public final class Caffeine<K, V> {
   }
 
   boolean expiresAfterAccess() {
-    return (expireAfterAccessNanos != UNSET_INT);
+    return (expireAfterAccessNanos != UNSET_INT) && (jitter == null);
   }
 
   /**
@@ -722,16 +965,174 @@ public final class Caffeine<K, V> {
   }
 
   boolean expiresVariable() {
-    return expiry != null;
+    return (expiry != null) || servesStale() || jittersFixedExpiration();
   }
 
   @SuppressWarnings("unchecked")
   @Nullable Expiry<K, V> getExpiry(boolean isAsync) {
+    Expiry<? super K, ? super V> expiry = this.expiry;
+    if (servesStale()) {
+      // only the freshness lifetime is jittered so that the grace period is never shortened
+      expiry = (jitter == null)
+          ? FixedExpiry.afterWrite(saturatedAdd(expireAfterWriteNanos, staleWhileRevalidateNanos))
+          : new JitteredExpiry<>(FixedExpiry.afterWrite(expireAfterWriteNanos),
+              jitter, staleWhileRevalidateNanos);
+    } else {
+      if (jittersFixedExpiration()) {
+        expiry = (expireAfterWriteNanos == UNSET_INT)
+            ? FixedExpiry.afterAccess(expireAfterAccessNanos)
+            : FixedExpiry.afterWrite(expireAfterWriteNanos);
+      }
+      if ((expiry != null) && (jitter != null)) {
+        expiry = new JitteredExpiry<>((Expiry<K, V>) expiry, jitter);
+      }
+    }
     return isAsync && (expiry != null)
         ? (Expiry<K, V>) new AsyncExpiry<>(expiry)
         : (Expiry<K, V>) expiry;
   }
 
+  /**
+   * Specifies that the expiration and refresh durations of each entry should be randomly shortened
+   * by up to the given fraction. When many entries are written at once, such as by a bulk load,
+   * they would otherwise all expire or become eligible for refresh at the same moment, resulting in
+   * a stampede of loads and a long pause while the expired entries are removed. The jitter spreads
+   * this work out over the interval instead. For example, a fraction of {@code 0.1} with an
+   * {@link #expireAfterWrite} duration of ten minutes expires each entry at a random time between
+   * nine and ten minutes after it was written.
+   * <p>
+   * The {@link #expireAfterWrite} and {@link #expireAfterAccess} settings are emulated by variable
+   * expiration when jittered, so the cache's policy reports them through
+   * {@link Policy#expireVariably()}. A duration calculated by an {@link Expiry} is jittered each
+   * time that it is changed.
+   *
+   * @param fraction the maximum fraction of a duration that it may be shortened by
+   * @return this {@code Caffeine} instance (for chaining)
+   * @throws IllegalArgumentException if {@code fraction} is not between zero and one, exclusive
+   * @throws IllegalStateException if the jitter was already set
+   */
+  @NonNull
+  public Caffeine<K, V> jitter(double fraction) {
+    requireState(jitter == null, "jitter was already set to %s", jitter);
+    requireArgument((fraction > 0.0) && (fraction < 1.0),
+        "fraction must be between zero and one: %s", fraction);
+    this.jitter = Jitter.ofFraction(fraction);
+    return this;
+  }
+
+  /**
+   * Specifies that the expiration and refresh durations of each entry should be randomly shortened
+   * by up to the given amount of time, or by up to the entire duration if it is shorter. This has
+   * the same effect as {@link #jitter(double)} but with an absolute bound, which is preferable when
+   * the durations vary widely such as when calculated by an {@link Expiry}.
+   *
+   * @param maximum the maximum length of time that a duration may be shortened by
+   * @return this {@code Caffeine} instance (for chaining)
+   * @throws NullPointerException if the maximum is null
+   * @throws IllegalArgumentException if {@code maximum} is not positive
+   * @throws IllegalStateException if the jitter was already set
+   * @throws ArithmeticException for durations greater than +/- approximately 292 years
+   */
+  @NonNull
+  public Caffeine<K, V> jitter(@NonNull Duration maximum) {
+    requireState(jitter == null, "jitter was already set to %s", jitter);
+    long maximumNanos = saturatedToNanos(maximum);
+    requireArgument(maximumNanos > 0, "maximum jitter must be positive: %s", maximum);
+    this.jitter = Jitter.ofDuration(maximumNanos);
+    return this;
+  }
+
+  @Nullable Jitter getJitter() {
+    return jitter;
+  }
+
+  /**
+   * Specifies the precision and range of the timer wheel that schedules the variable expiration of
+   * entries. By default the wheel is tuned for durations of seconds to days, so that an entry that
+   * expires after less than a second may be removed up to a second late and an entry that expires
+   * after more than a week is held in an overflow bucket that is repeatedly rescheduled. The
+   * resolution is the length of time covered by a bucket in the finest wheel, which bounds how late
+   * an expired entry may be removed. The horizon is the longest duration that the wheels track
+   * before an entry is placed into the overflow bucket. A finer resolution or longer horizon
+   * requires more wheels, which increases the memory overhead and the cost of cascading the
+   * entries into finer wheels as time advances.
+   * <p>
+   * This setting applies to {@link #expireAfter(Expiry)} and to the settings that are emulated by
+   * variable expiration, such as {@link #staleWhileRevalidate} and {@link #jitter(double)}.
+   *
+   * @param resolution the length of time covered by each bucket of the finest wheel, which will be
+   *        rounded up to a power of two nanoseconds
+   * @param horizon the longest duration that is scheduled without overflowing
+   * @return this {@code Caffeine} instance (for chaining)
+   * @throws NullPointerException if the resolution or horizon is null
+   * @throws IllegalArgumentException if {@code resolution} is not positive or if {@code horizon}
+   *         is not greater than the resolution once rounded up to a power of two
+   * @throws IllegalStateException if the expiration resolution was already set
+   * @throws ArithmeticException for durations greater than +/- approximately 292 years
+   */
+  @NonNull
+  public Caffeine<K, V> expirationResolution(
+      @NonNull Duration resolution, @NonNull Duration horizon) {
+    requireState(expirationResolutionNanos == UNSET_INT,
+        "expirationResolution was already set to %s ns", expirationResolutionNanos);
+    long resolutionNanos = saturatedToNanos(resolution);
+    long horizonNanos = saturatedToNanos(horizon);
+    requireArgument(resolutionNanos > 0, "resolution must be positive: %s", resolution);
+    requireArgument(horizonNanos > ceilingPowerOfTwo(Math.min(resolutionNanos, 1L << 62)),
+        "horizon must be greater than the resolution rounded up to a power of two: %s", horizon);
+    this.expirationResolutionNanos = resolutionNanos;
+    this.expirationHorizonNanos = horizonNanos;
+    return this;
+  }
+
+  /**
+   * Specifies the maximum number of entries whose expiration timers are processed during a single
+   * maintenance cycle. When the timer wheel advances it expires the entries in the elapsed buckets
+   * and cascades the remaining entries into finer buckets, which is performed under an exclusive
+   * lock. After a long pause, such as due to garbage collection, or when a large number of entries
+   * expire together this may otherwise cause a caller that performs the cleanup to observe a long
+   * pause. When the budget is exhausted then the cascade is resumed by a subsequent maintenance
+   * cycle, which is scheduled on the {@link #executor(Executor)}. By default, the budget is
+   * unbounded.
+   * <p>
+   * An expired entry that is pending removal is not visible to read or write operations, but
+   * remains counted in {@link Cache#estimatedSize()} and may delay the notification of its
+   * removal. The progress of the cascade is reported by {@link Policy#expirationLag()}.
+   *
+   * @param maximumEntries the maximum number of expiration timers to process per maintenance cycle
+   * @return this {@code Caffeine} instance (for chaining)
+   * @throws IllegalArgumentException if {@code maximumEntries} is not positive
+   * @throws IllegalStateException if the expiration budget was already set
+   */
+  @NonNull
+  public Caffeine<K, V> expirationBudget(@Positive int maximumEntries) {
+    requireState(expirationBudget == UNSET_INT,
+        "expiration budget was already set to %s", expirationBudget);
+    requireArgument(maximumEntries > 0, "maximum entries must be positive");
+    this.expirationBudget = maximumEntries;
+    return this;
+  }
+
+  int getExpirationBudget() {
+    return (expirationBudget == UNSET_INT) ? Integer.MAX_VALUE : expirationBudget;
+  }
+
+  /** Returns a new timer wheel for the cache, or null if the entries do not expire variably. */
+  @Nullable TimerWheel<K, V> getTimerWheel(BoundedLocalCache<K, V> cache) {
+    if (!expiresVariable()) {
+      return null;
+    }
+    return (expirationResolutionNanos == UNSET_INT)
+        ? new TimerWheel<>(cache)
+        : new TimerWheel<>(cache, expirationResolutionNanos, expirationHorizonNanos);
+  }
+
+  /** Returns if the fixed expiration settings must be emulated by variable expiration. */
+  boolean jittersFixedExpiration() {
+    return (jitter != null) && (expiry == null)
+        && ((expireAfterWriteNanos != UNSET_INT) || (expireAfterAccessNanos != UNSET_INT));
+  }
+
   /**
    * Specifies that active entries are eligible for automatic refresh once a fixed duration has
    * elapsed after the entry's creation, or the most recent replacement of its value. The semantics
@@ -789,11 +1190,213 @@ public final class Caffeine<K, V> {
   }
 
   long getRefreshAfterWriteNanos() {
+    if (servesStale()) {
+      return expireAfterWriteNanos;
+    }
     return refreshAfterWrite() ? refreshAfterWriteNanos : DEFAULT_REFRESH_NANOS;
   }
 
   boolean refreshAfterWrite() {
-    return refreshAfterWriteNanos != UNSET_INT;
+    return (refreshAfterWriteNanos != UNSET_INT) || servesStale();
+  }
+
+  /**
+   * Specifies that entries eligible for a refresh should be reloaded proactively, rather than
+   * waiting for the first read after the {@link #refreshAfterWrite} duration has elapsed. This takes
+   * the reload off of the request path for popular entries and avoids an entry that was not read in
+   * the meantime from expiring into a synchronous load.
+   * <p>
+   * The cache periodically looks for the entries that are eligible to be refreshed, at an interval
+   * of a fraction of the refresh duration (but no more often than once a second). The eligible
+   * entries are reloaded in order of their popularity, as estimated by the eviction policy if the
+   * cache is size bounded, otherwise by their age. This search requires a traversal of the entries.
+   * <p>
+   * The search is performed as part of the cache's maintenance, which is triggered by its activity.
+   * If a {@link #scheduler(Scheduler)} is specified then it is also used to trigger the search when
+   * the cache is idle.
+   *
+   * @param maximumConcurrentRefreshes the maximum number of proactive reloads that may be in-flight
+   * @return this {@code Caffeine} instance (for chaining)
+   * @throws IllegalArgumentException if {@code maximumConcurrentRefreshes} is not positive
+   * @throws IllegalStateException if the refresh ahead was already set
+   */
+  @NonNull
+  public Caffeine<K, V> refreshAhead(@Positive int maximumConcurrentRefreshes) {
+    requireState(refreshAheadConcurrency == UNSET_INT,
+        "refresh ahead was already set to %s", refreshAheadConcurrency);
+    requireArgument(maximumConcurrentRefreshes > 0,
+        "maximum concurrent refreshes must be positive");
+    this.refreshAheadConcurrency = maximumConcurrentRefreshes;
+    return this;
+  }
+
+  boolean refreshesAhead() {
+    return (refreshAheadConcurrency != UNSET_INT);
+  }
+
+  int getRefreshAheadConcurrency() {
+    return refreshAheadConcurrency;
+  }
+
+  /**
+   * Specifies that the reloads of entries being refreshed should be coalesced into a bulk reload.
+   * A reload is delayed until either the maximum batch size is reached or the delay has elapsed
+   * since the first entry in the batch was refreshed, whichever comes first. The batch is then
+   * reloaded by a single call to {@link AsyncCacheLoader#asyncReloadAll}, such as by
+   * {@link CacheLoader#reloadAll}. This is useful when many entries become eligible for a refresh
+   * at around the same time, as each would otherwise be reloaded by an individual call to the
+   * backing resource. The reloaded values are applied to the entries as when refreshed singly, so
+   * a value is discarded if the entry was modified while the batch was pending.
+   * <p>
+   * The delay is enforced using the {@link #scheduler(Scheduler)}. If a scheduler is not specified
+   * then the batch is instead dispatched when the {@link #executor(Executor)} runs its task, so
+   * only the refreshes that are triggered in the meantime are coalesced.
+   * <p>
+   * This feature requires {@link #refreshAfterWrite} and a loader that implements bulk reloading.
+   *
+   * @param delay the maximum length of time that a refresh may wait for a batch to fill
+   * @param maximumBatchSize the number of entries that causes a batch to be reloaded immediately
+   * @return this {@code Caffeine} instance (for chaining)
+   * @throws NullPointerException if the delay is null
+   * @throws IllegalArgumentException if {@code delay} is negative or {@code maximumBatchSize} is
+   *         not positive
+   * @throws IllegalStateException if refresh coalescing was already set
+   * @throws ArithmeticException for durations greater than +/- approximately 292 years
+   */
+  @NonNull
+  public Caffeine<K, V> coalesceRefreshes(@NonNull Duration delay,
+      @Positive int maximumBatchSize) {
+    requireState(refreshCoalesceDelayNanos == UNSET_INT,
+        "refresh coalescing was already set to %s ns", refreshCoalesceDelayNanos);
+    long delayNanos = saturatedToNanos(delay);
+    requireArgument(delayNanos >= 0, "delay must not be negative: %s", delay);
+    requireArgument(maximumBatchSize > 0, "maximum batch size must be positive");
+    this.refreshCoalesceBatchSize = maximumBatchSize;
+    this.refreshCoalesceDelayNanos = delayNanos;
+    return this;
+  }
+
+  boolean coalescesRefreshes() {
+    return (refreshCoalesceDelayNanos != UNSET_INT);
+  }
+
+  long getRefreshCoalesceDelayNanos() {
+    return refreshCoalesceDelayNanos;
+  }
+
+  int getRefreshCoalesceBatchSize() {
+    return refreshCoalesceBatchSize;
+  }
+
+  /**
+   * Specifies the maximum number of loads and refreshes that the cache may have in-flight, such as
+   * to protect the backing resource from a thundering herd after a cold start or when many entries
+   * expire at once. A load that cannot be started immediately waits in an admission queue and fails
+   * with a {@link java.util.concurrent.TimeoutException} if it is not admitted within the timeout.
+   * For a {@link LoadingCache} the calling thread blocks while waiting and the exception is thrown
+   * wrapped in a {@link java.util.concurrent.CompletionException}, whereas for an
+   * {@link AsyncLoadingCache} the returned future is completed exceptionally. A load waits before
+   * the entry is locked for its computation, so that it does not delay the loads of other keys.
+   * <p>
+   * An automatic refresh due to {@link #refreshAfterWrite} is skipped while the limit is reached
+   * and the current value continues to be served, so that the entry is eligible to be refreshed by
+   * a later read. An explicit call to {@link LoadingCache#refresh} is not limited. The number of
+   * in-flight and queued loads may be observed through {@link Policy#inFlightLoads()} and
+   * {@link Policy#queuedLoads()}.
+   * <p>
+   * If a {@link #scheduler(Scheduler)} is specified then it is used to promptly fail the queued
+   * asynchronous loads that have timed out, otherwise they are failed when next considered for
+   * admission.
+   *
+   * @param maximumConcurrentLoads the maximum number of loads and refreshes that may be in-flight
+   * @param queueTimeout the maximum length of time that a load may wait to be admitted
+   * @return this {@code Caffeine} instance (for chaining)
+   * @throws NullPointerException if the timeout is null
+   * @throws IllegalArgumentException if {@code maximumConcurrentLoads} is not positive or the
+   *         {@code queueTimeout} is negative
+   * @throws IllegalStateException if the maximum concurrent loads was already set
+   * @throws ArithmeticException for durations greater than +/- approximately 292 years
+   */
+  @NonNull
+  public Caffeine<K, V> maximumConcurrentLoads(@Positive int maximumConcurrentLoads,
+      @NonNull Duration queueTimeout) {
+    requireState(loadConcurrency == UNSET_INT,
+        "maximum concurrent loads was already set to %s", loadConcurrency);
+    long timeoutNanos = saturatedToNanos(queueTimeout);
+    requireArgument(maximumConcurrentLoads > 0, "maximum concurrent loads must be positive");
+    requireArgument(timeoutNanos >= 0, "queue timeout must not be negative: %s", queueTimeout);
+    this.loadConcurrency = maximumConcurrentLoads;
+    this.loadQueueTimeoutNanos = timeoutNanos;
+    return this;
+  }
+
+  boolean limitsLoads() {
+    return (loadConcurrency != UNSET_INT);
+  }
+
+  /** Returns a new governor of the cache's loads, or null if not limited. */
+  @Nullable LoadLimiter getLoadLimiter() {
+    return limitsLoads()
+        ? new LoadLimiter(loadConcurrency, loadQueueTimeoutNanos, getScheduler())
+        : null;
+  }
+
+  /**
+   * Specifies that the loads of absent entries should be coalesced into a bulk load. A load is
+   * delayed until either the maximum batch size is reached or the delay has elapsed since the first
+   * key in the batch was requested, whichever comes first. The batch is then loaded by a single
+   * call to {@link AsyncCacheLoader#asyncLoadAll}, such as by {@link CacheLoader#loadAll}. This is
+   * useful when a bulk load is significantly more efficient than many individual loads and it is
+   * acceptable to trade a small amount of latency for fewer calls to the backing resource.
+   * <p>
+   * Concurrent calls to {@link AsyncLoadingCache#get} or {@link AsyncLoadingCache#getAll} that
+   * request an absent key which is already in-flight will wait for that load instead of issuing a
+   * new one. Similarly, a key that is pending in a batch is requested only once.
+   * <p>
+   * The delay is enforced using the {@link #scheduler(Scheduler)}. If a scheduler is not specified
+   * then the batch is instead dispatched when the {@link #executor(Executor)} runs its task, so
+   * only the loads that are requested in the meantime are coalesced.
+   * <p>
+   * This feature requires a cache built by {@link #buildAsync(CacheLoader)} or
+   * {@link #buildAsync(AsyncCacheLoader)} whose loader implements bulk loading.
+   *
+   * @param delay the maximum length of time that a load may wait for a batch to fill
+   * @param maximumBatchSize the number of keys that causes a batch to be loaded immediately
+   * @return this {@code Caffeine} instance (for chaining)
+   * @throws NullPointerException if the delay is null
+   * @throws IllegalArgumentException if {@code delay} is negative or {@code maximumBatchSize} is
+   *         not positive
+   * @throws IllegalStateException if bulk load coalescing was already set
+   * @throws ArithmeticException for durations greater than +/- approximately 292 years
+   */
+  @NonNull
+  public Caffeine<K, V> coalesceBulkLoads(@NonNull Duration delay,
+      @Positive int maximumBatchSize) {
+    requireState(coalesceDelayNanos == UNSET_INT,
+        "bulk load coalescing was already set to %s ns", coalesceDelayNanos);
+    long delayNanos = saturatedToNanos(delay);
+    requireArgument(delayNanos >= 0, "delay must not be negative: %s", delay);
+    requireArgument(maximumBatchSize > 0, "maximum batch size must be positive");
+    this.coalesceBatchSize = maximumBatchSize;
+    this.coalesceDelayNanos = delayNanos;
+    return this;
+  }
+
+  boolean coalescesBulkLoads() {
+    return (coalesceDelayNanos != UNSET_INT);
+  }
+
+  /** Returns the loader, wrapped to coalesce its loads into batches if enabled. */
+  @SuppressWarnings("unchecked")
+  <K1 extends K, V1 extends V> AsyncCacheLoader<? super K1, V1> getAsyncCacheLoader(
+      AsyncCacheLoader<? super K1, V1> loader) {
+    if (!coalescesBulkLoads()) {
+      return loader;
+    }
+    requireState(LocalAsyncLoadingCache.canBulkLoad(loader),
+        "coalesceBulkLoads requires a loader that implements bulk loading");
+    return new CoalescingLoader<>((AsyncCacheLoader<K1, V1>) loader,
+        getScheduler(), coalesceDelayNanos, coalesceBatchSize);
   }
 
   /**
@@ -802,6 +1405,8 @@ public final class Caffeine<K, V> {
    * <p>
    * The primary intent of this method is to facilitate testing of caches which have been configured
    * with {@link #expireAfterWrite}, {@link #expireAfterAccess}, or {@link #refreshAfterWrite}.
+   * Alternatively, {@link Ticker#cachedTicker} may be used to trade precision for a cheaper read of
+   * the time by caches that perform a very high rate of operations.
    *
    * @param ticker a nanosecond-precision time source
    * @return this {@code Caffeine} instance (for chaining)
@@ -960,6 +1565,57 @@ public final class Caffeine<K, V> {
         : statsCounterSupplier;
   }
 
+  /**
+   * Enables the accumulation of {@link MaintenanceStats} by a bounded cache, which are available
+   * from {@link Policy#maintenanceStats()}. The statistics describe how long the maintenance work
+   * ran for, which phases it spent time in, how long the eviction lock was waited on and held, and
+   * the pressure on the read and write buffers. This can be used to diagnose latency spikes caused
+   * by the maintenance being performed on a caller's thread. Note that recording the statistics
+   * reads the {@linkplain #ticker(Ticker) ticker} several times per maintenance cycle, except that
+   * the system clock is read instead of a {@linkplain Ticker#cachedTicker cached ticker} as the
+   * cycles are typically shorter than its resolution.
+   *
+   * @return this {@code Caffeine} instance (for chaining)
+   * @throws IllegalStateException if maintenance recording was already set
+   */
+  @NonNull
+  public Caffeine<K, V> recordMaintenance() {
+    requireState(maintenanceListener == null, "Maintenance recording was already set");
+    maintenanceListener = IGNORING_MAINTENANCE_LISTENER;
+    return this;
+  }
+
+  /**
+   * Enables the accumulation of {@link MaintenanceStats} by a bounded cache, as described by
+   * {@link #recordMaintenance()}, and specifies a listener that is notified with the statistics of
+   * each maintenance cycle when it completes. Any exception thrown by the listener will be
+   * suppressed and logged.
+   *
+   * @param listener a listener instance that is notified after each maintenance cycle
+   * @return this {@code Caffeine} instance (for chaining)
+   * @throws IllegalStateException if maintenance recording was already set
+   * @throws NullPointerException if the specified listener is null
+   */
+  @NonNull
+  public Caffeine<K, V> recordMaintenance(@NonNull MaintenanceListener listener) {
+    requireState(maintenanceListener == null, "Maintenance recording was already set");
+    maintenanceListener = requireNonNull(listener);
+    return this;
+  }
+
+  @NonNull
+  MaintenanceRecorder getMaintenanceRecorder() {
+    return (maintenanceListener == null)
+        ? MaintenanceRecorder.disabled()
+        : new TimedMaintenanceRecorder(maintenanceListener, getMaintenanceTicker());
+  }
+
+  /** Returns the ticker for timing the maintenance cycles, which must have a fine resolution. */
+  @NonNull
+  Ticker getMaintenanceTicker() {
+    return ((ticker == null) || (ticker instanceof CachedTicker)) ? Ticker.systemTicker() : ticker;
+  }
+
   boolean isBounded() {
     return (maximumSize != UNSET_INT)
         || (maximumWeight != UNSET_INT)
@@ -989,6 +1645,11 @@ public final class Caffeine<K, V> {
   public <K1 extends K, V1 extends V> Cache<K1, V1> build() {
     requireWeightWithWeigher();
     requireNonLoadingCache();
+    requireExpirationToJitter();
+    requireVariableExpirationToConfigureTimers();
+    requireBoundedToRecordMaintenance();
+    requireWeigherForSizeAwareAdmission();
+    requireBoundedForAdaptiveReadBuffer();
 
     @SuppressWarnings("unchecked")
     Caffeine<K1, V1> self = (Caffeine<K1, V1>) this;
@@ -1015,6 +1676,15 @@ public final class Caffeine<K, V> {
   public <K1 extends K, V1 extends V> LoadingCache<K1, V1> build(
       @NonNull CacheLoader<? super K1, V1> loader) {
     requireWeightWithWeigher();
+    requireAsyncLoadingCacheToCoalesce();
+    requireExpireAfterWriteToServeStale();
+    requireExpirationToJitter();
+    requireVariableExpirationToConfigureTimers();
+    requireBoundedToRecordMaintenance();
+    requireWeigherForSizeAwareAdmission();
+    requireBoundedForAdaptiveReadBuffer();
+    requireRefreshAfterWriteToRefreshAhead();
+    requireBulkReloadToCoalesceRefreshes(loader);
 
     @SuppressWarnings("unchecked")
     Caffeine<K1, V1> self = (Caffeine<K1, V1>) this;
@@ -1023,6 +1693,59 @@ public final class Caffeine<K, V> {
         : new UnboundedLocalCache.UnboundedLocalLoadingCache<>(self, loader);
   }
 
+  /**
+   * Builds a size bounded cache keyed by primitive {@code long} values, which does not
+   * automatically load values when keys are requested unless a mapping function is provided. The
+   * keys are stored unboxed, so that a lookup does not allocate and an entry is smaller than in a
+   * cache built by {@link #build()}.
+   * <p>
+   * This method does not alter the state of this {@code Caffeine} instance, so it can be invoked
+   * again to create multiple independent caches.
+   * <p>
+   * This construction requires {@link #maximumSize(long)} and supports only the
+   * {@link #initialCapacity}, {@link #executor}, {@link #removalListener}, {@link #recordStats},
+   * {@link #ticker}, {@link #maintenanceBudget}, and {@link #adaptiveReadBuffer} settings.
+   *
+   * @param <V1> the value type of the cache
+   * @return a cache having the requested features
+   * @throws IllegalStateException if the configuration is not supported by a {@link LongCache}
+   */
+  @NonNull
+  public <V1 extends V> LongCache<V1> buildLong() {
+    requireLongCacheFeatures();
+
+    @SuppressWarnings("unchecked")
+    Caffeine<Long, V1> self = (Caffeine<Long, V1>) this;
+    return new BoundedLongCache<>(self);
+  }
+
+  /**
+   * Builds a size bounded cache keyed by primitive {@code long} values, which either returns an
+   * already-loaded value for a given key or atomically computes it using the supplied loader. The
+   * keys are stored unboxed, so that a lookup does not allocate and an entry is smaller than in a
+   * cache built by {@link #build(CacheLoader)}.
+   * <p>
+   * This method does not alter the state of this {@code Caffeine} instance, so it can be invoked
+   * again to create multiple independent caches.
+   * <p>
+   * This construction has the same requirements as {@link #buildLong()}.
+   *
+   * @param loader the function used to obtain new values
+   * @param <V1> the value type of the loader
+   * @return a cache having the requested features
+   * @throws IllegalStateException if the configuration is not supported by a {@link LongCache}
+   */
+  @NonNull
+  public <V1 extends V> LongLoadingCache<V1> buildLong(
+      @NonNull LongFunction<? extends V1> loader) {
+    requireNonNull(loader);
+    requireLongCacheFeatures();
+
+    @SuppressWarnings("unchecked")
+    Caffeine<Long, V1> self = (Caffeine<Long, V1>) this;
+    return new BoundedLongCache.BoundedLongLoadingCache<>(self, loader);
+  }
+
   /**
    * Builds a cache which does not automatically load values when keys are requested unless a
    * mapping function is provided. The returned {@link CompletableFuture} may be already loaded or
@@ -1049,6 +1772,11 @@ public final class Caffeine<K, V> {
     requireState(writer == null, "CacheWriter can not be combined with AsyncCache");
     requireWeightWithWeigher();
     requireNonLoadingCache();
+    requireExpirationToJitter();
+    requireVariableExpirationToConfigureTimers();
+    requireBoundedToRecordMaintenance();
+    requireWeigherForSizeAwareAdmission();
+    requireBoundedForAdaptiveReadBuffer();
 
     @SuppressWarnings("unchecked")
     Caffeine<K1, V1> self = (Caffeine<K1, V1>) this;
@@ -1106,17 +1834,113 @@ public final class Caffeine<K, V> {
         "Weak or soft values can not be combined with AsyncLoadingCache");
     requireState(writer == null, "CacheWriter can not be combined with AsyncLoadingCache");
     requireWeightWithWeigher();
-    requireNonNull(loader);
+    requireExpireAfterWriteToServeStale();
+    requireExpirationToJitter();
+    requireVariableExpirationToConfigureTimers();
+    requireBoundedToRecordMaintenance();
+    requireWeigherForSizeAwareAdmission();
+    requireBoundedForAdaptiveReadBuffer();
+    requireRefreshAfterWriteToRefreshAhead();
+    requireBulkReloadToCoalesceRefreshes(loader);
 
     @SuppressWarnings("unchecked")
     Caffeine<K1, V1> self = (Caffeine<K1, V1>) this;
+    AsyncCacheLoader<? super K1, V1> asyncLoader = self.getAsyncCacheLoader(loader);
     return isBounded() || refreshAfterWrite()
-        ? new BoundedLocalCache.BoundedLocalAsyncLoadingCache<>(self, loader)
-        : new UnboundedLocalCache.UnboundedLocalAsyncLoadingCache<>(self, loader);
+        ? new BoundedLocalCache.BoundedLocalAsyncLoadingCache<>(self, asyncLoader)
+        : new UnboundedLocalCache.UnboundedLocalAsyncLoadingCache<>(self, asyncLoader);
   }
 
   void requireNonLoadingCache() {
     requireState(refreshAfterWriteNanos == UNSET_INT, "refreshAfterWrite requires a LoadingCache");
+    requireState(refreshAheadConcurrency == UNSET_INT, "refreshAhead requires a LoadingCache");
+    requireState(refreshCoalesceDelayNanos == UNSET_INT,
+        "coalesceRefreshes requires a LoadingCache");
+    requireState(loadConcurrency == UNSET_INT, "maximumConcurrentLoads requires a LoadingCache");
+    requireState(staleWhileRevalidateNanos == UNSET_INT,
+        "staleWhileRevalidate requires a LoadingCache");
+    requireState(staleIfErrorNanos == UNSET_INT, "staleIfError requires a LoadingCache");
+    requireState(absentLoadsNanos == UNSET_INT, "cacheAbsentLoads requires a LoadingCache");
+    requireAsyncLoadingCacheToCoalesce();
+  }
+
+  void requireLongCacheFeatures() {
+    requireWeightWithWeigher();
+    requireWeigherForSizeAwareAdmission();
+    requireState(maximumSize != UNSET_INT, "LongCache requires maximumSize");
+    requireState(isStrongKeys() && isStrongValues(),
+        "Weak or soft references can not be combined with LongCache");
+    requireState(!expiresAfterAccess() && !expiresAfterWrite() && !expiresVariable()
+        && (jitter == null) && (expirationResolutionNanos == UNSET_INT)
+        && (expirationBudget == UNSET_INT), "Expiration can not be combined with LongCache");
+    requireState(!refreshAfterWrite() && (refreshAheadConcurrency == UNSET_INT)
+        && (refreshCoalesceDelayNanos == UNSET_INT), "Refresh can not be combined with LongCache");
+    requireState((loadConcurrency == UNSET_INT) && (absentLoadsNanos == UNSET_INT)
+        && (coalesceDelayNanos == UNSET_INT) && (staleIfErrorNanos == UNSET_INT),
+        "Load policies can not be combined with LongCache");
+    requireState(writer == null, "CacheWriter can not be combined with LongCache");
+    requireState(maintenanceListener == null,
+        "recordMaintenance can not be combined with LongCache");
+  }
+
+  void requireExpireAfterWriteToServeStale() {
+    if (servesStale()) {
+      requireState(expireAfterWriteNanos != UNSET_INT,
+          "staleWhileRevalidate requires expireAfterWrite");
+      requireState(refreshAfterWriteNanos == UNSET_INT,
+          "staleWhileRevalidate may not be used with refreshAfterWrite");
+    }
+    requireState((staleIfErrorNanos == UNSET_INT) || servesStale(),
+        "staleIfError requires staleWhileRevalidate");
+  }
+
+  void requireExpirationToJitter() {
+    if (jitter != null) {
+      requireState(expiresVariable() || refreshAfterWrite(),
+          "jitter requires expiration or refreshAfterWrite");
+      requireState((expireAfterWriteNanos == UNSET_INT) || (expireAfterAccessNanos == UNSET_INT),
+          "jitter may not be used with both expireAfterWrite and expireAfterAccess");
+    }
+  }
+
+  void requireVariableExpirationToConfigureTimers() {
+    requireState((expirationResolutionNanos == UNSET_INT) || expiresVariable(),
+        "expirationResolution requires variable expiration");
+    requireState((expirationBudget == UNSET_INT) || expiresVariable(),
+        "expirationBudget requires variable expiration");
+  }
+
+  void requireBoundedToRecordMaintenance() {
+    requireState((maintenanceListener == null) || isBounded(),
+        "recordMaintenance requires a bounded cache");
+  }
+
+  void requireBoundedForAdaptiveReadBuffer() {
+    requireState(!adaptiveReadBuffer || isBounded(), "adaptiveReadBuffer requires a bounded cache");
+  }
+
+  void requireWeigherForSizeAwareAdmission() {
+    requireState(!sizeAwareAdmission || ((weigher != null) && (maximumWeight != UNSET_INT)),
+        "sizeAwareAdmission requires maximumWeight with a weigher");
+  }
+
+  void requireRefreshAfterWriteToRefreshAhead() {
+    requireState(!refreshesAhead() || refreshAfterWrite(),
+        "refreshAhead requires refreshAfterWrite");
+  }
+
+  void requireBulkReloadToCoalesceRefreshes(AsyncCacheLoader<?, ?> loader) {
+    requireNonNull(loader);
+    if (coalescesRefreshes()) {
+      requireState(refreshAfterWrite(), "coalesceRefreshes requires refreshAfterWrite");
+      requireState(LocalAsyncLoadingCache.canBulkReload(loader),
+          "coalesceRefreshes requires a loader that implements bulk reloading");
+    }
+  }
+
+  void requireAsyncLoadingCacheToCoalesce() {
+    requireState(coalesceDelayNanos == UNSET_INT,
+        "coalesceBulkLoads requires an AsyncLoadingCache");
   }
 
   void requireWeightWithWeigher() {
@@ -1146,6 +1970,12 @@ public final class Caffeine<K, V> {
     }
   }
 
+  /** Returns the sum of the non-negative durations, saturating to {@link Long#MAX_VALUE}. */
+  private static long saturatedAdd(long a, long b) {
+    long sum = a + b;
+    return (sum < 0) ? Long.MAX_VALUE : sum;
+  }
+
   /**
    * Returns a string representation for this Caffeine instance. The exact form of the returned
    * string is not specified.
@@ -1158,12 +1988,21 @@ public final class Caffeine<K, V> {
     if (initialCapacity != UNSET_INT) {
       s.append("initialCapacity=").append(initialCapacity).append(", ");
     }
+    if (maintenanceBudget != UNSET_INT) {
+      s.append("maintenanceBudget=").append(maintenanceBudget).append(", ");
+    }
+    if (adaptiveReadBuffer) {
+      s.append("adaptiveReadBuffer, ");
+    }
     if (maximumSize != UNSET_INT) {
       s.append("maximumSize=").append(maximumSize).append(", ");
     }
     if (maximumWeight != UNSET_INT) {
       s.append("maximumWeight=").append(maximumWeight).append(", ");
     }
+    if (sizeAwareAdmission) {
+      s.append("sizeAwareAdmission, ");
+    }
     if (expireAfterWriteNanos != UNSET_INT) {
       s.append("expireAfterWrite=").append(expireAfterWriteNanos).append("ns, ");
     }
@@ -1173,9 +2012,44 @@ public final class Caffeine<K, V> {
     if (expiry != null) {
       s.append("expiry, ");
     }
+    if (jitter != null) {
+      s.append("jitter=").append(jitter).append(", ");
+    }
+    if (expirationResolutionNanos != UNSET_INT) {
+      s.append("expirationResolution=").append(expirationResolutionNanos).append("ns/")
+          .append(expirationHorizonNanos).append("ns, ");
+    }
+    if (expirationBudget != UNSET_INT) {
+      s.append("expirationBudget=").append(expirationBudget).append(", ");
+    }
     if (refreshAfterWriteNanos != UNSET_INT) {
       s.append("refreshAfterWriteNanos=").append(refreshAfterWriteNanos).append("ns, ");
     }
+    if (refreshAheadConcurrency != UNSET_INT) {
+      s.append("refreshAheadConcurrency=").append(refreshAheadConcurrency).append(", ");
+    }
+    if (coalesceDelayNanos != UNSET_INT) {
+      s.append("coalesceBulkLoads=").append(coalesceDelayNanos).append("ns/")
+          .append(coalesceBatchSize).append(", ");
+    }
+    if (staleWhileRevalidateNanos != UNSET_INT) {
+      s.append("staleWhileRevalidate=").append(staleWhileRevalidateNanos).append("ns, ");
+    }
+    if (staleIfErrorNanos != UNSET_INT) {
+      s.append("staleIfError=").append(staleIfErrorNanos).append("ns, ");
+    }
+    if (absentLoadsNanos != UNSET_INT) {
+      s.append("cacheAbsentLoads=").append(absentLoadsNanos).append("ns/")
+          .append(absentLoadsMaximum).append(", ");
+    }
+    if (loadConcurrency != UNSET_INT) {
+      s.append("maximumConcurrentLoads=").append(loadConcurrency).append('/')
+          .append(loadQueueTimeoutNanos).append("ns, ");
+    }
+    if (refreshCoalesceDelayNanos != UNSET_INT) {
+      s.append("coalesceRefreshes=").append(refreshCoalesceDelayNanos).append("ns/")
+          .append(refreshCoalesceBatchSize).append(", ");
+    }
     if (keyStrength != null) {
       s.append("keyStrength=").append(keyStrength.toString().toLowerCase(US)).append(", ");
     }
@@ -1185,6 +2059,9 @@ public final class Caffeine<K, V> {
     if (removalListener != null) {
       s.append("removalListener, ");
     }
+    if (maintenanceListener != null) {
+      s.append("recordMaintenance, ");
+    }
     if (writer != null) {
       s.append("writer, ");
     }
@@ -0,0 +1,189 @@
+/*
+ * Copyright 2020 Ben Manes. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.benmanes.caffeine.cache;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import com.google.errorprone.annotations.concurrent.GuardedBy;
+
+/**
+ * Accumulates keys into a batch that is resolved by a single bulk operation. A batch is dispatched
+ * when it reaches the maximum size or, otherwise, once the delay has elapsed since its first key
+ * was added. A key that is added again while it is pending shares the existing future.
+ * <p>
+ * A batch that fills up is detached while adding its last key, so that the next key starts a new
+ * batch rather than exceeding the maximum size while the full one waits for the executor. Each
+ * batch is tagged with a generation that is advanced when it is detached, so that a task which
+ * outlives its batch, such as the timer of a batch that was dispatched when it filled up, is
+ * ignored rather than dispatching the next batch early. If the executor rejects the dispatch then
+ * the batch's futures are completed exceptionally so that the callers are not left waiting.
+ *
+ * @author ben.manes@gmail.com (Ben Manes)
+ */
+abstract class Coalescer<K, V> {
+  final int maximumBatchSize;
+  final Scheduler scheduler;
+  final long delayNanos;
+
+  @GuardedBy("this")
+  Batch<K, V> pending;
+  @GuardedBy("this")
+  long generation;
+
+  Coalescer(Scheduler scheduler, long delayNanos, int maximumBatchSize) {
+    this.pending = new Batch<>();
+    this.scheduler = requireNonNull(scheduler);
+    this.maximumBatchSize = maximumBatchSize;
+    this.delayNanos = delayNanos;
+  }
+
+  /** Returns a future that completes with the values resolved by the bulk operation. */
+  abstract CompletableFuture<? extends Map<? extends K, ? extends V>> resolve(
+      Batch<K, V> batch, Executor executor);
+
+  /**
+   * Returns the future of the key's value, adding it to the pending batch if absent. The old value,
+   * if present, is retained for the bulk operation while the key is pending. The batch is
+   * detached and dispatched if it is now full, or its dispatch is scheduled if this was its first
+   * key. If scheduling is disabled then the dispatch is deferred to the executor, so that only the
+   * keys that arrive until the task is run are coalesced. A full batch is also handed to the
+   * executor, as the caller may be holding a lock for the entry being resolved.
+   */
+  @SuppressWarnings("FutureReturnValueIgnored")
+  CompletableFuture<V> add(K key, @Nullable V oldValue, Executor executor) {
+    CompletableFuture<V> future;
+    @Nullable Batch<K, V> full;
+    long batch;
+    int size;
+    synchronized (this) {
+      future = pending.futures.get(key);
+      if (future != null) {
+        return future;
+      }
+      future = new CompletableFuture<>();
+      pending.futures.put(key, future);
+      if (oldValue != null) {
+        pending.oldValues.put(key, oldValue);
+      }
+      size = pending.futures.size();
+      batch = generation;
+      full = (size >= maximumBatchSize) ? detach() : null;
+    }
+
+    if (full != null) {
+      execute(full, executor);
+    } else if (size == 1) {
+      if (scheduler == Scheduler.disabledScheduler()) {
+        execute(batch, executor);
+      } else {
+        scheduler.schedule(Runnable::run, () -> execute(batch, executor),
+            delayNanos, TimeUnit.NANOSECONDS);
+      }
+    }
+    return future;
+  }
+
+  /**
+   * Hands the dispatch of the batch to the executor, failing the batch if it is rejected. The timer
+   * calls this method directly on the scheduler's thread so that a rejection is observed here.
+   */
+  @SuppressWarnings("PMD.AvoidCatchingThrowable")
+  void execute(long batch, Executor executor) {
+    try {
+      executor.execute(() -> dispatch(batch, executor));
+    } catch (Throwable t) {
+      Batch<K, V> drained = drain(batch);
+      if (drained != null) {
+        drained.futures.values().forEach(future -> future.completeExceptionally(t));
+      }
+    }
+  }
+
+  /** Hands the resolution of the detached batch to the executor, failing it if rejected. */
+  @SuppressWarnings("PMD.AvoidCatchingThrowable")
+  void execute(Batch<K, V> batch, Executor executor) {
+    try {
+      executor.execute(() -> dispatch(batch, executor));
+    } catch (Throwable t) {
+      batch.futures.values().forEach(future -> future.completeExceptionally(t));
+    }
+  }
+
+  /** Resolves the batch, if still pending, and completes its futures when it finishes. */
+  void dispatch(long batch, Executor executor) {
+    Batch<K, V> drained = drain(batch);
+    if (drained != null) {
+      dispatch(drained, executor);
+    }
+  }
+
+  /** Resolves the detached batch and completes its futures when it finishes. */
+  @SuppressWarnings({"FutureReturnValueIgnored", "PMD.AvoidCatchingThrowable"})
+  void dispatch(Batch<K, V> drained, Executor executor) {
+    CompletableFuture<? extends Map<? extends K, ? extends V>> result;
+    try {
+      result = requireNonNull(resolve(drained, executor));
+    } catch (Throwable t) {
+      drained.futures.values().forEach(future -> future.completeExceptionally(t));
+      return;
+    }
+    result.whenComplete((resolved, error) -> {
+      drained.futures.forEach((key, future) -> {
+        if (error == null) {
+          future.complete((resolved == null) ? null : resolved.get(key));
+        } else {
+          future.completeExceptionally(error);
+        }
+      });
+    });
+  }
+
+  /**
+   * Returns the pending batch and starts the next one, or null if the generation was already
+   * dispatched or has no keys.
+   */
+  @Nullable Batch<K, V> drain(long batch) {
+    synchronized (this) {
+      if ((batch != generation) || pending.futures.isEmpty()) {
+        return null;
+      }
+      return detach();
+    }
+  }
+
+  /** Returns the pending batch and starts the next one. */
+  @GuardedBy("this")
+  Batch<K, V> detach() {
+    Batch<K, V> detached = pending;
+    pending = new Batch<>();
+    generation++;
+    return detached;
+  }
+
+  /** The keys awaiting a bulk operation, with the old values of the entries being reloaded. */
+  static final class Batch<K, V> {
+    final Map<K, CompletableFuture<V>> futures = new LinkedHashMap<>();
+    final Map<K, V> oldValues = new LinkedHashMap<>();
+  }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2020 Ben Manes. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.benmanes.caffeine.cache;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * An {@link AsyncCacheLoader} that accumulates the keys to be loaded into a batch, which is loaded
+ * by a single call to the delegate's {@link AsyncCacheLoader#asyncLoadAll}. A batch is dispatched
+ * when it reaches the maximum size or, otherwise, once the delay has elapsed since its first key
+ * was added. A key that is requested again while it is pending shares the existing future.
+ *
+ * @author ben.manes@gmail.com (Ben Manes)
+ */
+final class CoalescingLoader<K, V> extends Coalescer<K, V> implements AsyncCacheLoader<K, V> {
+  final AsyncCacheLoader<K, V> delegate;
+
+  CoalescingLoader(AsyncCacheLoader<K, V> delegate,
+      Scheduler scheduler, long delayNanos, int maximumBatchSize) {
+    super(scheduler, delayNanos, maximumBatchSize);
+    this.delegate = requireNonNull(delegate);
+  }
+
+  @Override
+  public CompletableFuture<V> asyncLoad(K key, Executor executor) {
+    return add(key, /* oldValue */ null, executor);
+  }
+
+  @Override
+  public CompletableFuture<Map<K, V>> asyncLoadAll(
+      Iterable<? extends K> keys, Executor executor) {
+    Map<K, CompletableFuture<V>> futures = new LinkedHashMap<>();
+    for (K key : keys) {
+      futures.computeIfAbsent(key, k -> add(k, /* oldValue */ null, executor));
+    }
+
+    @SuppressWarnings("rawtypes")
+    CompletableFuture<?>[] array = futures.values().toArray(new CompletableFuture[0]);
+    return CompletableFuture.allOf(array).thenApply(ignored -> {
+      Map<K, V> result = new LinkedHashMap<>(futures.size());
+      futures.forEach((key, future) -> {
+        V value = future.join();
+        if (value != null) {
+          result.put(key, value);
+        }
+      });
+      return Collections.unmodifiableMap(result);
+    });
+  }
+
+  @Override
+  public CompletableFuture<V> asyncReload(K key, V oldValue, Executor executor) {
+    return delegate.asyncReload(key, oldValue, executor);
+  }
+
+  @Override
+  public CompletableFuture<Map<K, V>> asyncReloadAll(
+      Map<? extends K, ? extends V> oldValues, Executor executor) {
+    return delegate.asyncReloadAll(oldValues, executor);
+  }
+
+  @Override
+  CompletableFuture<? extends Map<? extends K, ? extends V>> resolve(
+      Batch<K, V> batch, Executor executor) {
+    return delegate.asyncLoadAll(batch.futures.keySet(), executor);
+  }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2020 Ben Manes. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.benmanes.caffeine.cache;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Accumulates the entries being refreshed into a batch, which is reloaded by a single call to the
+ * loader's {@link AsyncCacheLoader#asyncReloadAll}. A batch is dispatched when it reaches the
+ * maximum size or, otherwise, once the delay has elapsed since its first entry was added. A key
+ * that is refreshed again while it is pending shares the existing future, as the cache will
+ * discard the reloaded value if the entry was modified in the meantime.
+ *
+ * @author ben.manes@gmail.com (Ben Manes)
+ */
+final class CoalescingReloader<K, V> extends Coalescer<K, V> {
+  final AsyncCacheLoader<K, V> loader;
+
+  CoalescingReloader(AsyncCacheLoader<K, V> loader,
+      Scheduler scheduler, long delayNanos, int maximumBatchSize) {
+    super(scheduler, delayNanos, maximumBatchSize);
+    this.loader = requireNonNull(loader);
+  }
+
+  /**
+   * Returns the future of the entry's new value, which completes when its batch is reloaded. If the
+   * batch cannot be dispatched then the future completes exceptionally, so that the cache restores
+   * the entry's write time and it remains eligible for a later refresh.
+   */
+  CompletableFuture<V> reload(K key, V oldValue, Executor executor) {
+    return add(key, requireNonNull(oldValue), executor);
+  }
+
+  @Override
+  CompletableFuture<? extends Map<? extends K, ? extends V>> resolve(
+      Batch<K, V> batch, Executor executor) {
+    return loader.asyncReloadAll(batch.oldValues, executor);
+  }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2020 Ben Manes. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.benmanes.caffeine.cache;
+
+import java.io.Serializable;
+
+/**
+ * An expiration policy of a fixed duration, which allows the {@link Caffeine#expireAfterWrite} and
+ * {@link Caffeine#expireAfterAccess} settings to be emulated by variable expiration. This is used
+ * when the deadline of an entry may be adjusted individually, such as to serve it stale for a
+ * grace period after its freshness lifetime or to randomly spread out the expiration of entries
+ * that were written together.
+ *
+ * @author ben.manes@gmail.com (Ben Manes)
+ */
+final class FixedExpiry<K, V> implements Expiry<K, V>, Serializable {
+  private static final long serialVersionUID = 1L;
+
+  final long durationNanos;
+  final boolean afterAccess;
+
+  private FixedExpiry(long durationNanos, boolean afterAccess) {
+    this.durationNanos = durationNanos;
+    this.afterAccess = afterAccess;
+  }
+
+  /** Returns an expiry that removes the entry once the duration has elapsed since its write. */
+  static <K, V> FixedExpiry<K, V> afterWrite(long durationNanos) {
+    return new FixedExpiry<>(durationNanos, /* afterAccess */ false);
+  }
+
+  /** Returns an expiry that removes the entry once the duration has elapsed since its access. */
+  static <K, V> FixedExpiry<K, V> afterAccess(long durationNanos) {
+    return new FixedExpiry<>(durationNanos, /* afterAccess */ true);
+  }
+
+  @Override
+  public long expireAfterCreate(K key, V value, long currentTime) {
+    return durationNanos;
+  }
+
+  @Override
+  public long expireAfterUpdate(K key, V value, long currentTime, long currentDuration) {
+    return durationNanos;
+  }
+
+  @Override
+  public long expireAfterRead(K key, V value, long currentTime, long currentDuration) {
+    return afterAccess ? durationNanos : currentDuration;
+  }
+}
@@ -17,6 +17,9 @@ package com.github.benmanes.caffeine.cache;
 
 import static com.github.benmanes.caffeine.cache.Caffeine.requireArgument;
 
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
 import org.checkerframework.checker.index.qual.NonNegative;
 import org.checkerframework.checker.nullness.qual.NonNull;
 
@@ -24,10 +27,13 @@ import org.checkerframework.checker.nullness.qual.NonNull;
  * A probabilistic multiset for estimating the popularity of an element within a time window. The
  * maximum frequency of an element is limited to 15 (4-bits) and an aging process periodically
  * halves the popularity of all elements.
+ * <p>
+ * The counters of an element are spread across the table, see {@link BlockedFrequencySketch} for
+ * an alternative layout that confines them to a single cache line.
  *
  * @author ben.manes@gmail.com (Ben Manes)
  */
-final class FrequencySketch<E> {
+class FrequencySketch<E> {
 
   /*
    * This class maintains a 4-bit CountMinSketch [1] with periodic aging to provide the popularity
@@ -154,6 +160,113 @@ final class FrequencySketch<E> {
     }
   }
 
+  /**
+   * Raises the popularity of the element to at least the given frequency, such as when restoring a
+   * previously observed history. Unlike {@link #increment}, this does not count as an event towards
+   * the sample period that triggers the aging process.
+   *
+   * @param e the element to raise the popularity of
+   * @param frequency the minimum frequency, which is truncated to the maximum (15)
+   */
+  void raise(@NonNull E e, @NonNegative int frequency) {
+    if (isNotInitialized()) {
+      return;
+    }
+
+    long count = Math.min(frequency, 15);
+    int hash = spread(e.hashCode());
+    int start = (hash & 3) << 2;
+    for (int i = 0; i < 4; i++) {
+      int index = indexOf(hash, i);
+      int offset = (start + i) << 2;
+      long mask = (0xfL << offset);
+      if (((table[index] & mask) >>> offset) < count) {
+        table[index] = (table[index] & ~mask) | (count << offset);
+      }
+    }
+  }
+
+  /**
+   * Returns the counters in a serialized form that can be used by {@link #copyOf} to adopt or merge
+   * the popularity history, e.g. by another instance. The form is the number of table slots
+   * followed by the table's contents, and is empty if the sketch has not been initialized.
+   *
+   * @return the serialized counters
+   */
+  byte[] toByteArray() {
+    long[] counters = isNotInitialized() ? new long[0] : table;
+    ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES + (Long.BYTES * counters.length));
+    buffer.putInt(counters.length);
+    buffer.asLongBuffer().put(counters);
+    return buffer.array();
+  }
+
+  /**
+   * Returns the counters from the serialized form produced by {@link #toByteArray}.
+   *
+   * @param bytes the serialized counters
+   * @return the table of counters, whose length is zero or a power of two
+   * @throws IllegalArgumentException if the bytes are not a serialized sketch
+   */
+  static long[] copyOf(byte[] bytes) {
+    requireArgument(bytes.length >= Integer.BYTES, "Invalid frequency sketch");
+    ByteBuffer buffer = ByteBuffer.wrap(bytes);
+    int length = buffer.getInt();
+    requireArgument((length >= 0) && ((length & (length - 1)) == 0)
+        && (buffer.remaining() == ((long) Long.BYTES * length)), "Invalid frequency sketch");
+    long[] counters = new long[length];
+    buffer.asLongBuffer().get(counters);
+    return counters;
+  }
+
+  /**
+   * Adds the counters to this sketch, saturating at the maximum (15). If the tables differ in
+   * length then a larger table is folded onto the smaller one, or a smaller table is repeated onto
+   * the larger one, which retains the property that the estimates are never underestimated.
+   *
+   * @param counters the table of counters, whose length is a power of two
+   * @param reset if the aging process should be applied to the combined counters
+   */
+  void merge(long[] counters, boolean reset) {
+    if (isNotInitialized() || (counters.length == 0)) {
+      return;
+    }
+    int otherMask = counters.length - 1;
+    int length = Math.max(table.length, counters.length);
+    for (int i = 0; i < length; i++) {
+      int index = (i & tableMask);
+      table[index] = saturatedAdd(table[index], counters[i & otherMask]);
+    }
+    if (reset) {
+      reset();
+    }
+  }
+
+  /**
+   * Replaces the counters of this sketch, such as to adopt the popularity history of another
+   * instance.
+   *
+   * @param counters the table of counters, whose length is a power of two
+   */
+  void replace(long[] counters) {
+    if (isNotInitialized()) {
+      return;
+    }
+    Arrays.fill(table, 0L);
+    merge(counters, /* reset */ false);
+    size = 0;
+  }
+
+  /** Returns the sum of each pair of 4-bit counters, capped at the maximum (15). */
+  static long saturatedAdd(long x, long y) {
+    long result = 0L;
+    for (int offset = 0; offset < Long.SIZE; offset += 4) {
+      long count = ((x >>> offset) & 0xfL) + ((y >>> offset) & 0xfL);
+      result |= (Math.min(count, 15L) << offset);
+    }
+    return result;
+  }
+
   /**
    * Increments the specified counter by 1 if it is not already at the maximum value (15).
    *
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2020 Ben Manes. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.benmanes.caffeine.cache;
+
+import java.io.Serializable;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A random reduction of an expiration or refresh duration, bounded by either a fraction of the
+ * duration or a fixed amount of time. The duration is only ever shortened so that an entry is
+ * never retained for longer than configured, while entries that were written together are spread
+ * across the interval rather than all expiring or becoming eligible for a refresh at once.
+ *
+ * @author ben.manes@gmail.com (Ben Manes)
+ */
+final class Jitter implements Serializable {
+  private static final long serialVersionUID = 1L;
+
+  final double fraction;
+  final long maximumNanos;
+
+  private Jitter(double fraction, long maximumNanos) {
+    this.fraction = fraction;
+    this.maximumNanos = maximumNanos;
+  }
+
+  /** Returns a jitter of up to the given fraction of the duration. */
+  static Jitter ofFraction(double fraction) {
+    return new Jitter(fraction, Long.MAX_VALUE);
+  }
+
+  /** Returns a jitter of up to the given amount of time. */
+  static Jitter ofDuration(long maximumNanos) {
+    return new Jitter(1.0, maximumNanos);
+  }
+
+  /**
+   * Returns the duration reduced by a random amount.
+   *
+   * @param durationNanos the length of time in nanoseconds
+   * @return the jittered duration
+   */
+  long apply(long durationNanos) {
+    return reduce(durationNanos, ThreadLocalRandom.current().nextDouble());
+  }
+
+  /**
+   * Returns the duration reduced by a pseudorandom amount that is determined by the seed, which
+   * allows for the same jittered duration to be recomputed without storing it.
+   *
+   * @param durationNanos the length of time in nanoseconds
+   * @param seed the source of randomness, such as a combination of the key's hash and write time
+   * @return the jittered duration
+   */
+  long apply(long durationNanos, long seed) {
+    return reduce(durationNanos, (mix64(seed) >>> 11) * 0x1.0p-53);
+  }
+
+  private long reduce(long durationNanos, double random) {
+    if ((durationNanos <= 0) || (durationNanos >= BoundedLocalCache.MAXIMUM_EXPIRY)) {
+      return durationNanos;
+    }
+    long bound = Math.min(maximumNanos, (long) (fraction * durationNanos));
+    return durationNanos - (long) (random * bound);
+  }
+
+  /** Returns the finalization step of the SplitMix64 generator, a well-distributed hash. */
+  static long mix64(long z) {
+    z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+    z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+    return z ^ (z >>> 31);
+  }
+
+  @Override
+  public String toString() {
+    return (maximumNanos == Long.MAX_VALUE)
+        ? String.format("%.0f%%", 100 * fraction)
+        : maximumNanos + "ns";
+  }
+}
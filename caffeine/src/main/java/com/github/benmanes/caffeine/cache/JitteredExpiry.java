@@ -0,0 +1,70 @@
+/*
+ * Copyright 2020 Ben Manes. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.benmanes.caffeine.cache;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.Serializable;
+
+/**
+ * An expiration policy that randomly shortens the durations calculated by the delegate, so that
+ * entries which were written at the same time do not all expire together. A duration that the
+ * delegate left unchanged is not jittered again, as otherwise every read would shorten the
+ * remaining lifetime of the entry. A grace period, such as the time that a stale entry may be
+ * served, is added after the jitter so that it is never shortened.
+ *
+ * @author ben.manes@gmail.com (Ben Manes)
+ */
+final class JitteredExpiry<K, V> implements Expiry<K, V>, Serializable {
+  private static final long serialVersionUID = 1L;
+
+  final Expiry<K, V> delegate;
+  final Jitter jitter;
+  final long graceNanos;
+
+  JitteredExpiry(Expiry<K, V> delegate, Jitter jitter) {
+    this(delegate, jitter, 0L);
+  }
+
+  JitteredExpiry(Expiry<K, V> delegate, Jitter jitter, long graceNanos) {
+    this.delegate = requireNonNull(delegate);
+    this.jitter = requireNonNull(jitter);
+    this.graceNanos = graceNanos;
+  }
+
+  @Override
+  public long expireAfterCreate(K key, V value, long currentTime) {
+    return jitter(delegate.expireAfterCreate(key, value, currentTime));
+  }
+
+  @Override
+  public long expireAfterUpdate(K key, V value, long currentTime, long currentDuration) {
+    long duration = delegate.expireAfterUpdate(key, value, currentTime, currentDuration);
+    return (duration == currentDuration) ? duration : jitter(duration);
+  }
+
+  @Override
+  public long expireAfterRead(K key, V value, long currentTime, long currentDuration) {
+    long duration = delegate.expireAfterRead(key, value, currentTime, currentDuration);
+    return (duration == currentDuration) ? duration : jitter(duration);
+  }
+
+  /** Returns the jittered duration extended by the grace period, saturating on overflow. */
+  private long jitter(long durationNanos) {
+    long jittered = jitter.apply(durationNanos) + graceNanos;
+    return (jittered < 0) ? Long.MAX_VALUE : jittered;
+  }
+}
@@ -0,0 +1,269 @@
+/*
+ * Copyright 2020 Ben Manes. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.benmanes.caffeine.cache;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.checkerframework.checker.index.qual.NonNegative;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * A governor that bounds the number of loads and refreshes that a cache may have in-flight. A load
+ * waits for a permit in an admission queue and fails with a {@link TimeoutException} if one is not
+ * granted within the timeout. A refresh is optional work, so it does not wait and is instead
+ * skipped when the limit is reached, which allows the cache to continue serving the current value.
+ * <p>
+ * A synchronous load blocks the calling thread while waiting for a permit, which is acquired before
+ * the entry is computed so that the wait does not hold the hash table's lock. The load is first
+ * registered by its key, so that the concurrent callers for an equal key wait for its outcome
+ * rather than each taking a permit to wait on the same computation. An asynchronous load is queued
+ * without blocking and is started by the load that releases the permit, or is failed by the
+ * scheduler once its timeout elapses. If scheduling is disabled then an expired load is instead
+ * failed when it reaches the head of the queue.
+ *
+ * @author ben.manes@gmail.com (Ben Manes)
+ */
+final class LoadLimiter {
+  final ConcurrentMap<Object, CompletableFuture<?>> loading;
+  final Queue<PendingLoad<?>> pending;
+  final AtomicInteger queued;
+  final Scheduler scheduler;
+  final long timeoutNanos;
+  final Semaphore permits;
+  final int maximum;
+
+  LoadLimiter(int maximum, long timeoutNanos, Scheduler scheduler) {
+    this.pending = new ConcurrentLinkedQueue<>();
+    this.loading = new ConcurrentHashMap<>();
+    this.scheduler = requireNonNull(scheduler);
+    this.permits = new Semaphore(maximum);
+    this.queued = new AtomicInteger();
+    this.timeoutNanos = timeoutNanos;
+    this.maximum = maximum;
+  }
+
+  /** Returns the number of loads and refreshes that are holding a permit. */
+  @NonNegative
+  int inFlight() {
+    return Math.max(0, maximum - permits.availablePermits());
+  }
+
+  /** Returns the number of loads that are waiting for a permit. */
+  @NonNegative
+  int queued() {
+    return Math.max(0, queued.get());
+  }
+
+  /** Returns if a permit was acquired without waiting, which must be {@link #release}d. */
+  boolean tryAcquire() {
+    return permits.tryAcquire();
+  }
+
+  /** Releases a permit, handing it to the next queued asynchronous load if present. */
+  void release() {
+    handOff();
+  }
+
+  /**
+   * Returns a function that performs the computation while holding a permit, waiting for one to
+   * become available if necessary.
+   */
+  <T, R> Function<T, R> limit(Function<T, R> function) {
+    requireNonNull(function);
+    return key -> {
+      acquire();
+      try {
+        return function.apply(key);
+      } finally {
+        release();
+      }
+    };
+  }
+
+  /**
+   * Registers the future as the synchronous load of the key, unless one is already in-flight. The
+   * registered load must be completed and then {@link #unregister}ed by the caller.
+   *
+   * @param key the key being loaded
+   * @param load the future to complete with the outcome of the load
+   * @return the in-flight load of an equal key, or {@code null} if the future was registered
+   */
+  @Nullable CompletableFuture<?> register(Object key, CompletableFuture<?> load) {
+    return loading.putIfAbsent(key, load);
+  }
+
+  /** Removes the registration of the load if it is still associated with the key. */
+  void unregister(Object key, CompletableFuture<?> load) {
+    loading.remove(key, load);
+  }
+
+  /**
+   * Waits for the in-flight load to complete, rethrowing its failure as it was thrown to the thread
+   * that performed the load.
+   */
+  @SuppressWarnings("unchecked")
+  static <V> @Nullable V await(CompletableFuture<?> load) {
+    try {
+      return (V) load.join();
+    } catch (CompletionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      } else if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Returns the future of the load, which is started when a permit is available or is completed
+   * exceptionally if one is not granted within the timeout.
+   */
+  <T> CompletableFuture<T> submit(Supplier<CompletableFuture<T>> load) {
+    requireNonNull(load);
+    if (permits.tryAcquire()) {
+      return start(load);
+    }
+
+    PendingLoad<T> pendingLoad = new PendingLoad<>(load, System.nanoTime() + timeoutNanos);
+    queued.incrementAndGet();
+    pending.add(pendingLoad);
+    if (scheduler != Scheduler.disabledScheduler()) {
+      scheduler.schedule(Runnable::run, () -> expire(pendingLoad),
+          timeoutNanos, TimeUnit.NANOSECONDS);
+    }
+
+    // A permit may have been released before the load was enqueued
+    if (permits.tryAcquire()) {
+      handOff();
+    }
+    return pendingLoad.future;
+  }
+
+  /** Waits for a permit, throwing a {@link CompletionException} if not acquired in time. */
+  void acquire() {
+    if (permits.tryAcquire()) {
+      return;
+    }
+    queued.incrementAndGet();
+    try {
+      if (!permits.tryAcquire(timeoutNanos, TimeUnit.NANOSECONDS)) {
+        throw new CompletionException(newTimeoutException());
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new CompletionException(e);
+    } finally {
+      queued.decrementAndGet();
+    }
+  }
+
+  /**
+   * Transfers the held permit to the next queued load that has not expired, or otherwise releases
+   * it. If a load was enqueued concurrently with the permit's release then the permit is reacquired
+   * so that the load is not stranded.
+   */
+  @SuppressWarnings("FutureReturnValueIgnored")
+  void handOff() {
+    for (;;) {
+      PendingLoad<?> next = pending.poll();
+      if (next == null) {
+        permits.release();
+        if (pending.isEmpty() || !permits.tryAcquire()) {
+          return;
+        }
+        continue;
+      }
+      queued.decrementAndGet();
+      if ((System.nanoTime() - next.deadline) >= 0) {
+        next.future.completeExceptionally(newTimeoutException());
+      } else if (!next.future.isDone()) {
+        next.run();
+        return;
+      }
+    }
+  }
+
+  /** Fails the load if it is still waiting for a permit. */
+  void expire(PendingLoad<?> pendingLoad) {
+    if (pending.remove(pendingLoad)) {
+      queued.decrementAndGet();
+      pendingLoad.future.completeExceptionally(newTimeoutException());
+    }
+  }
+
+  /** Starts the load while holding a permit, which is released when the load completes. */
+  @SuppressWarnings({"FutureReturnValueIgnored", "PMD.AvoidCatchingThrowable"})
+  <T> CompletableFuture<T> start(Supplier<CompletableFuture<T>> load) {
+    CompletableFuture<T> future;
+    try {
+      future = requireNonNull(load.get());
+    } catch (Throwable t) {
+      release();
+      throw t;
+    }
+    future.whenComplete((result, error) -> release());
+    return future;
+  }
+
+  TimeoutException newTimeoutException() {
+    return new TimeoutException(String.format(
+        "Timed out after %,d ns waiting for one of %,d load permits", timeoutNanos, maximum));
+  }
+
+  /** An asynchronous load that is waiting for a permit. */
+  final class PendingLoad<T> {
+    final Supplier<CompletableFuture<T>> load;
+    final CompletableFuture<T> future;
+    final long deadline;
+
+    PendingLoad(Supplier<CompletableFuture<T>> load, long deadline) {
+      this.future = new CompletableFuture<>();
+      this.deadline = deadline;
+      this.load = load;
+    }
+
+    /** Starts the load with the permit that was handed off, propagating its outcome. */
+    @SuppressWarnings({"FutureReturnValueIgnored", "PMD.AvoidCatchingThrowable"})
+    void run() {
+      try {
+        start(load).whenComplete((result, error) -> {
+          if (error == null) {
+            future.complete(result);
+          } else {
+            future.completeExceptionally(error);
+          }
+        });
+      } catch (Throwable t) {
+        future.completeExceptionally(t);
+      }
+    }
+  }
+}
@@ -22,6 +22,7 @@ import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
+import java.util.function.BiFunction;
 import java.util.function.Function;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -49,8 +50,24 @@ abstract class LocalAsyncLoadingCache<K, V>
     this.canBulkLoad = canBulkLoad(loader);
   }
 
+  /**
+   * Records the loader into the serialized form, unwrapping it to the user's loader and the
+   * configuration to coalesce its loads with if enabled, so that the wrapper is rebuilt when the
+   * cache is deserialized.
+   */
+  void writeLoader(SerializationProxy<K, V> proxy) {
+    if (loader instanceof CoalescingLoader<?, ?>) {
+      CoalescingLoader<K, V> coalescingLoader = (CoalescingLoader<K, V>) loader;
+      proxy.coalesceBatchSize = coalescingLoader.maximumBatchSize;
+      proxy.coalesceDelayNanos = coalescingLoader.delayNanos;
+      proxy.loader = coalescingLoader.delegate;
+    } else {
+      proxy.loader = loader;
+    }
+  }
+
   /** Returns whether the supplied cache loader has bulk load functionality. */
-  private static boolean canBulkLoad(AsyncCacheLoader<?, ?> loader) {
+  static boolean canBulkLoad(AsyncCacheLoader<?, ?> loader) {
     try {
       Class<?> defaultLoaderClass = AsyncCacheLoader.class;
       if (loader instanceof CacheLoader<?, ?>) {
@@ -74,15 +91,96 @@ abstract class LocalAsyncLoadingCache<K, V>
     }
   }
 
+  /** Returns whether the supplied cache loader has bulk reload functionality. */
+  static boolean canBulkReload(AsyncCacheLoader<?, ?> loader) {
+    try {
+      Class<?> defaultLoaderClass = AsyncCacheLoader.class;
+      if (loader instanceof CacheLoader<?, ?>) {
+        defaultLoaderClass = CacheLoader.class;
+
+        Method classReloadAll = loader.getClass().getMethod("reloadAll", Map.class);
+        Method defaultReloadAll = CacheLoader.class.getMethod("reloadAll", Map.class);
+        if (!classReloadAll.equals(defaultReloadAll)) {
+          return true;
+        }
+      }
+
+      Method classAsyncReloadAll = loader.getClass().getMethod(
+          "asyncReloadAll", Map.class, Executor.class);
+      Method defaultAsyncReloadAll = defaultLoaderClass.getMethod(
+          "asyncReloadAll", Map.class, Executor.class);
+      return !classAsyncReloadAll.equals(defaultAsyncReloadAll);
+    } catch (NoSuchMethodException | SecurityException e) {
+      logger.log(Level.WARNING, "Cannot determine if CacheLoader can bulk reload", e);
+      return false;
+    }
+  }
+
   @Override
   public CompletableFuture<V> get(K key) {
-    return get(key, loader::asyncLoad);
+    LoadLimiter loadLimiter = cache().loadLimiter();
+    BiFunction<K, Executor, CompletableFuture<V>> mappingFunction = (loadLimiter == null)
+        ? loader::asyncLoad
+        : (k, executor) -> loadLimiter.submit(() -> loader.asyncLoad(k, executor));
+    Cache<K, Boolean> absentLoads = cache().absentLoads();
+    return (absentLoads == null)
+        ? get(key, mappingFunction)
+        : getUnlessAbsent(key, mappingFunction, absentLoads);
+  }
+
+  /**
+   * Returns the future for the key, or a future of null without loading if the key's recent load
+   * was absent. If the key is loaded and its value is absent then the key is remembered.
+   */
+  @SuppressWarnings("FutureReturnValueIgnored")
+  CompletableFuture<V> getUnlessAbsent(K key,
+      BiFunction<K, Executor, CompletableFuture<V>> mappingFunction,
+      Cache<K, Boolean> absentLoads) {
+    CompletableFuture<V> future = cache().getIfPresent(key, /* recordStats */ false);
+    if (future != null) {
+      cache().statsCounter().recordHits(1);
+      return future;
+    } else if (absentLoads.getIfPresent(key) != null) {
+      cache().statsCounter().recordAbsentHits(1);
+      return CompletableFuture.completedFuture(null);
+    }
+    return get(key, (k, executor) -> {
+      CompletableFuture<V> loading = mappingFunction.apply(k, executor);
+      loading.thenAccept(value -> {
+        if (value == null) {
+          absentLoads.put(k, Boolean.TRUE);
+        }
+      });
+      return loading;
+    });
   }
 
   @Override
+  @SuppressWarnings("FutureReturnValueIgnored")
   public CompletableFuture<Map<K, V>> getAll(Iterable<? extends K> keys) {
     if (canBulkLoad) {
-      return getAll(keys, loader::asyncLoadAll);
+      LoadLimiter loadLimiter = cache().loadLimiter();
+      BiFunction<Iterable<? extends K>, Executor, CompletableFuture<Map<K, V>>> mappingFunction =
+          (loadLimiter == null)
+              ? loader::asyncLoadAll
+              : (keysToLoad, executor) ->
+                  loadLimiter.submit(() -> loader.asyncLoadAll(keysToLoad, executor));
+      Cache<K, Boolean> absentLoads = cache().absentLoads();
+      if (absentLoads == null) {
+        return getAll(keys, mappingFunction);
+      }
+      return getAll(LocalLoadingCache.withoutAbsentLoads(cache(), absentLoads, keys),
+          (keysToLoad, executor) -> {
+            CompletableFuture<Map<K, V>> loading = mappingFunction.apply(keysToLoad, executor);
+            loading.thenAccept(loaded -> {
+              for (K key : keysToLoad) {
+                if (!loaded.containsKey(key)) {
+                  absentLoads.put(key, Boolean.TRUE);
+                }
+              }
+            });
+            return loading;
+          });
     }
 
     Map<K, CompletableFuture<V>> result = new LinkedHashMap<>();
@@ -152,7 +250,7 @@ abstract class LocalAsyncLoadingCache<K, V>
         refreshFuture.whenComplete((newValue, error) -> {
           long loadTime = asyncCache.cache().statsTicker().read() - now;
           if (error != null) {
-            asyncCache.cache().statsCounter().recordLoadFailure(loadTime);
+            asyncCache.cache().statsCounter().recordRefreshFailure(loadTime);
             logger.log(Level.WARNING, "Exception thrown during refresh", error);
             return;
           }
@@ -177,10 +275,14 @@ abstract class LocalAsyncLoadingCache<K, V>
           if (discard[0] && asyncCache.cache().hasRemovalListener()) {
             asyncCache.cache().notifyRemoval(key, refreshFuture, RemovalCause.REPLACED);
           }
+          Cache<K, Boolean> absentLoads = asyncCache.cache().absentLoads();
+          if ((absentLoads != null) && (newValue == null) && !discard[0]) {
+            absentLoads.put(key, Boolean.TRUE);
+          }
           if (newValue == null) {
-            asyncCache.cache().statsCounter().recordLoadFailure(loadTime);
+            asyncCache.cache().statsCounter().recordRefreshFailure(loadTime);
           } else {
-            asyncCache.cache().statsCounter().recordLoadSuccess(loadTime);
+            asyncCache.cache().statsCounter().recordRefreshSuccess(loadTime);
           }
         });
       });
@@ -52,6 +52,12 @@ interface LocalCache<K, V> extends ConcurrentMap<K, V> {
   /** Returns the {@link Executor} used by this cache. */
   @NonNull Executor executor();
 
+  /** Returns the governor of the loads performed by this cache, or null if not limited. */
+  @Nullable LoadLimiter loadLimiter();
+
+  /** Returns the keys whose loads were recently absent, or null if not remembered. */
+  @Nullable Cache<K, Boolean> absentLoads();
+
   /** Returns whether the cache captures the write time of the entry. */
   boolean hasWriteTime();
 
@@ -18,9 +18,11 @@ package com.github.benmanes.caffeine.cache;
 import static java.util.Objects.requireNonNull;
 
 import java.lang.reflect.Method;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
@@ -51,15 +53,86 @@ interface LocalLoadingCache<K, V> extends LocalManualCache<K, V>, LoadingCache<K
 
   @Override
   default @Nullable V get(K key) {
-    return cache().computeIfAbsent(key, mappingFunction());
+    Cache<K, Boolean> absentLoads = cache().absentLoads();
+    LoadLimiter loadLimiter = cache().loadLimiter();
+    if ((absentLoads == null) && (loadLimiter == null)) {
+      return cache().computeIfAbsent(key, mappingFunction());
+    }
+
+    V value = cache().getIfPresent(key, /* recordStats */ false);
+    if (value != null) {
+      cache().statsCounter().recordHits(1);
+      return value;
+    } else if ((absentLoads != null) && (absentLoads.getIfPresent(key) != null)) {
+      cache().statsCounter().recordAbsentHits(1);
+      return null;
+    } else if (loadLimiter == null) {
+      return cache().computeIfAbsent(key, mappingFunction());
+    }
+
+    // Joins the in-flight load of the key rather than taking another permit to wait on it
+    CompletableFuture<V> load = new CompletableFuture<>();
+    CompletableFuture<?> inFlight = loadLimiter.register(key, load);
+    if (inFlight != null) {
+      V joined = LoadLimiter.await(inFlight);
+      if (joined == null) {
+        cache().statsCounter().recordMisses(1);
+      } else {
+        cache().statsCounter().recordHits(1);
+      }
+      return joined;
+    }
+
+    // Waits for the permit before computing, as the hash table's lock would otherwise be held and
+    // block the callers of other keys that share its bin beyond their timeout
+    try {
+      loadLimiter.acquire();
+      try {
+        V loaded = cache().computeIfAbsent(key, mappingFunction());
+        load.complete(loaded);
+        return loaded;
+      } finally {
+        loadLimiter.release();
+      }
+    } catch (Throwable t) {
+      load.completeExceptionally(t);
+      throw t;
+    } finally {
+      loadLimiter.unregister(key, load);
+    }
   }
 
   @Override
   default Map<K, V> getAll(Iterable<? extends K> keys) {
     Function<Iterable<? extends K>, Map<K, V>> mappingFunction = bulkMappingFunction();
-    return (mappingFunction == null)
-        ? loadSequentially(keys)
-        : getAll(keys, mappingFunction);
+    if (mappingFunction == null) {
+      return loadSequentially(keys);
+    }
+    Cache<K, Boolean> absentLoads = cache().absentLoads();
+    return (absentLoads == null)
+        ? getAll(keys, mappingFunction)
+        : getAll(withoutAbsentLoads(cache(), absentLoads, keys), mappingFunction);
+  }
+
+  /**
+   * Returns the keys excluding those that are not present and whose recent loads were absent,
+   * which are recorded as absent hits.
+   */
+  static <K> List<K> withoutAbsentLoads(LocalCache<K, ?> cache,
+      Cache<K, Boolean> absentLoads, Iterable<? extends K> keys) {
+    int absentHits = 0;
+    long[] writeTime = new long[1];
+    List<K> keysToLookup = new ArrayList<>();
+    for (K key : keys) {
+      if ((absentLoads.getIfPresent(key) != null)
+          && (cache.getIfPresentQuietly(key, writeTime) == null)) {
+        absentHits++;
+      } else {
+        keysToLookup.add(key);
+      }
+    }
+    cache.statsCounter().recordAbsentHits(absentHits);
+    return keysToLookup;
   }
 
   /** Sequentially loads each missing entry. */
@@ -102,7 +175,7 @@ interface LocalLoadingCache<K, V> extends LocalManualCache<K, V>, LoadingCache<K
       long loadTime = cache().statsTicker().read() - startTime;
       if (error != null) {
         logger.log(Level.WARNING, "Exception thrown during refresh", error);
-        cache().statsCounter().recordLoadFailure(loadTime);
+        cache().statsCounter().recordRefreshFailure(loadTime);
         return;
       }
 
@@ -126,17 +199,26 @@ interface LocalLoadingCache<K, V> extends LocalManualCache<K, V>, LoadingCache<K
       if (discard[0] && cache().hasRemovalListener()) {
         cache().notifyRemoval(key, newValue, RemovalCause.REPLACED);
       }
+      Cache<K, Boolean> absentLoads = cache().absentLoads();
+      if ((absentLoads != null) && (newValue == null) && !discard[0]) {
+        absentLoads.put(key, Boolean.TRUE);
+      }
       if (newValue == null) {
-        cache().statsCounter().recordLoadFailure(loadTime);
+        cache().statsCounter().recordRefreshFailure(loadTime);
       } else {
-        cache().statsCounter().recordLoadSuccess(loadTime);
+        cache().statsCounter().recordRefreshSuccess(loadTime);
       }
     });
   }
 
-  /** Returns a mapping function that adapts to {@link CacheLoader#load}. */
-  static <K, V> Function<K, V> newMappingFunction(CacheLoader<? super K, V> cacheLoader) {
-    return key -> {
+  /**
+   * Returns a mapping function that adapts to {@link CacheLoader#load} and remembers the key if its
+   * load is absent. A permit from the governor of the cache's loads, if present, is acquired by
+   * {@link #get} before the computation rather than by the function.
+   */
+  static <K, V> Function<K, V> newMappingFunction(CacheLoader<? super K, V> cacheLoader,
+      @Nullable Cache<K, Boolean> absentLoads) {
+    Function<K, V> mappingFunction = key -> {
       try {
         return cacheLoader.load(key);
       } catch (RuntimeException e) {
@@ -148,15 +230,30 @@ interface LocalLoadingCache<K, V> extends LocalManualCache<K, V>, LoadingCache<K
         throw new CompletionException(e);
       }
     };
+    if (absentLoads == null) {
+      return mappingFunction;
+    }
+    return key -> {
+      V value = mappingFunction.apply(key);
+      if (value == null) {
+        absentLoads.put(key, Boolean.TRUE);
+      }
+      return value;
+    };
   }
 
-  /** Returns a mapping function that adapts to {@link CacheLoader#loadAll}, if implemented. */
+  /**
+   * Returns a mapping function that adapts to {@link CacheLoader#loadAll}, if implemented, which
+   * waits for a permit from the governor of the cache's loads if present and remembers the keys
+   * that are absent from the loaded entries.
+   */
   static <K, V> @Nullable Function<Iterable<? extends K>, Map<K, V>> newBulkMappingFunction(
-      CacheLoader<? super K, V> cacheLoader) {
+      CacheLoader<? super K, V> cacheLoader, @Nullable LoadLimiter loadLimiter,
+      @Nullable Cache<K, Boolean> absentLoads) {
     if (!hasLoadAll(cacheLoader)) {
       return null;
     }
-    return keysToLoad -> {
+    Function<Iterable<? extends K>, Map<K, V>> mappingFunction = keysToLoad -> {
       try {
         @SuppressWarnings("unchecked")
         Map<K, V> loaded = (Map<K, V>) cacheLoader.loadAll(keysToLoad);
@@ -170,6 +267,67 @@ interface LocalLoadingCache<K, V> extends LocalManualCache<K, V>, LoadingCache<K
         throw new CompletionException(e);
       }
     };
+    Function<Iterable<? extends K>, Map<K, V>> limited = (loadLimiter == null)
+        ? mappingFunction
+        : limitBulkLoad(loadLimiter, mappingFunction);
+    if (absentLoads == null) {
+      return limited;
+    }
+    return keysToLoad -> {
+      Map<K, V> loaded = limited.apply(keysToLoad);
+      for (K key : keysToLoad) {
+        if (!loaded.containsKey(key)) {
+          absentLoads.put(key, Boolean.TRUE);
+        }
+      }
+      return loaded;
+    };
+  }
+
+  /**
+   * Returns a mapping function that loads the keys which are not already being loaded while holding
+   * a permit, and that joins the in-flight loads of the others rather than loading them again.
+   */
+  static <K, V> Function<Iterable<? extends K>, Map<K, V>> limitBulkLoad(
+      LoadLimiter loadLimiter, Function<Iterable<? extends K>, Map<K, V>> mappingFunction) {
+    Function<Iterable<? extends K>, Map<K, V>> limited = loadLimiter.limit(mappingFunction);
+    return keysToLoad -> {
+      Map<K, CompletableFuture<V>> owned = new LinkedHashMap<>();
+      Map<K, CompletableFuture<?>> joined = new LinkedHashMap<>();
+      for (K key : keysToLoad) {
+        if (owned.containsKey(key) || joined.containsKey(key)) {
+          continue;
+        }
+        CompletableFuture<V> load = new CompletableFuture<>();
+        CompletableFuture<?> inFlight = loadLimiter.register(key, load);
+        if (inFlight == null) {
+          owned.put(key, load);
+        } else {
+          joined.put(key, inFlight);
+        }
+      }
+
+      Map<K, V> result = new LinkedHashMap<>();
+      try {
+        if (!owned.isEmpty()) {
+          result.putAll(limited.apply(Collections.unmodifiableSet(owned.keySet())));
+        }
+        owned.forEach((key, load) -> load.complete(result.get(key)));
+      } catch (Throwable t) {
+        owned.values().forEach(load -> load.completeExceptionally(t));
+        throw t;
+      } finally {
+        owned.forEach(loadLimiter::unregister);
+      }
+
+      joined.forEach((key, load) -> {
+        V value = LoadLimiter.await(load);
+        if (value != null) {
+          result.put(key, value);
+        }
+      });
+      return result;
+    };
   }
 
   /** Returns whether the supplied cache loader has bulk load functionality. */
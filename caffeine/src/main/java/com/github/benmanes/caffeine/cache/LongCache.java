@@ -0,0 +1,123 @@
+/*
+ * Copyright 2020 Ben Manes. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.benmanes.caffeine.cache;
+
+import java.util.function.LongFunction;
+
+import org.checkerframework.checker.index.qual.NonNegative;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+/**
+ * A semi-persistent mapping from primitive {@code long} keys to values. Cache entries are manually
+ * added using {@link #get(long, LongFunction)} or {@link #put(long, Object)}, and are stored in the
+ * cache until either evicted or manually invalidated.
+ * <p>
+ * This is a specialization of a size bounded {@link Cache} for callers whose keys are naturally
+ * primitive, such as database identifiers, and is obtained from {@link Caffeine#buildLong()}. The
+ * keys are stored unboxed, so that a read does not allocate and an entry is smaller than in a
+ * {@link Cache Cache&lt;Long, V&gt;}.
+ * <p>
+ * Implementations of this interface are expected to be thread-safe, and can be safely accessed by
+ * multiple concurrent threads.
+ *
+ * @author ben.manes@gmail.com (Ben Manes)
+ * @param <V> the type of mapped values
+ */
+public interface LongCache<V> {
+
+  /**
+   * Returns the value associated with the {@code key} in this cache, or {@code null} if there is no
+   * cached value for the {@code key}.
+   *
+   * @param key the key whose associated value is to be returned
+   * @return the value to which the specified key is mapped, or {@code null} if this cache contains
+   *         no mapping for the key
+   */
+  @Nullable
+  V getIfPresent(long key);
+
+  /**
+   * Returns the value associated with the {@code key} in this cache, obtaining that value from the
+   * {@code mappingFunction} if necessary. The entire method invocation is performed atomically, so
+   * the function is applied at most once per key. Some attempted update operations on this cache
+   * by other threads may be blocked while the computation is in progress, so the computation
+   * should be short and simple, and must not attempt to update any other mappings of this cache.
+   *
+   * @param key the key with which the specified value is to be associated
+   * @param mappingFunction the function to compute a value
+   * @return the current (existing or computed) value associated with the specified key, or null if
+   *         the computed value is null
+   * @throws NullPointerException if the specified mappingFunction is null
+   * @throws IllegalStateException if the computation detectably attempts a recursive update to this
+   *         cache that would otherwise never complete
+   * @throws RuntimeException or Error if the mappingFunction does so, in which case the mapping is
+   *         left unestablished
+   */
+  @Nullable
+  V get(long key, @NonNull LongFunction<? extends V> mappingFunction);
+
+  /**
+   * Associates the {@code value} with the {@code key} in this cache. If the cache previously
+   * contained a value associated with the {@code key}, the old value is replaced by the new
+   * {@code value}.
+   *
+   * @param key the key with which the specified value is to be associated
+   * @param value value to be associated with the specified key
+   * @throws NullPointerException if the specified value is null
+   */
+  void put(long key, @NonNull V value);
+
+  /**
+   * Discards any cached value for the {@code key}.
+   *
+   * @param key the key whose mapping is to be removed from the cache
+   */
+  void invalidate(long key);
+
+  /** Discards all entries in the cache. */
+  void invalidateAll();
+
+  /**
+   * Returns the approximate number of entries in this cache. The value returned is an estimate; the
+   * actual count may differ if there are concurrent insertions or removals, or if the pending
+   * evictions have not yet been applied.
+   *
+   * @return the estimated number of mappings
+   */
+  @NonNegative
+  long estimatedSize();
+
+  /**
+   * Returns a current snapshot of this cache's cumulative statistics. All statistics are
+   * initialized to zero, and are monotonically increasing over the lifetime of the cache.
+   * <p>
+   * Due to the performance penalty of maintaining statistics, some implementations may not record
+   * the usage history immediately or at all.
+   *
+   * @return the current snapshot of the statistics of this cache
+   */
+  @NonNull
+  CacheStats stats();
+
+  /**
+   * Performs any pending maintenance operations needed by the cache. Exactly which activities are
+   * performed -- if any -- is implementation-dependent.
+   */
+  void cleanUp();
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2020 Ben Manes. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.benmanes.caffeine.cache;
+
+import java.util.function.LongFunction;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * A semi-persistent mapping from primitive {@code long} keys to values. Values are automatically
+ * loaded by the cache, and are stored in the cache until either evicted or manually invalidated.
+ * <p>
+ * Implementations of this interface are expected to be thread-safe, and can be safely accessed
+ * by multiple concurrent threads.
+ *
+ * @author ben.manes@gmail.com (Ben Manes)
+ * @param <V> the type of mapped values
+ */
+public interface LongLoadingCache<V> extends LongCache<V> {
+
+  /**
+   * Returns the value associated with the {@code key} in this cache, obtaining that value from the
+   * loader if necessary. The loader is applied atomically, as by
+   * {@link #get(long, LongFunction)}.
+   *
+   * @param key key with which the specified value is to be associated
+   * @return the current (existing or computed) value associated with the specified key, or null if
+   *         the computed value is null
+   * @throws IllegalStateException if the computation detectably attempts a recursive update to this
+   *         cache that would otherwise never complete
+   * @throws RuntimeException or Error if the loader does so, in which case the mapping is left
+   *         unestablished
+   */
+  @Nullable
+  V get(long key);
+}
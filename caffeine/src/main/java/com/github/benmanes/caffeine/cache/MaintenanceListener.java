@@ -0,0 +1,42 @@
+/*
+ * Copyright 2020 Ben Manes. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.benmanes.caffeine.cache;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+/**
+ * An object that can receive a notification when a bounded cache completes a maintenance cycle.
+ * The maintenance work applies the pending reads and writes to the cache's policies, and evicts and
+ * expires entries, while holding an exclusive lock.
+ * <p>
+ * The listener is called synchronously after the lock was released, typically by the thread that
+ * performed the maintenance, which may be a thread that was writing into the cache rather than the
+ * {@linkplain Caffeine#executor executor}. Implementations of this interface should be fast, such
+ * as by recording the statistics into a metrics system, and avoid blocking. The listener must not
+ * call back into the cache, such as to {@linkplain Cache#cleanUp perform the maintenance}.
+ *
+ * @author ben.manes@gmail.com (Ben Manes)
+ */
+@FunctionalInterface
+public interface MaintenanceListener {
+
+  /**
+   * Notifies the listener that a maintenance cycle completed.
+   *
+   * @param cycle the statistics of the maintenance cycle that completed
+   */
+  void onMaintenance(@NonNull MaintenanceStats cycle);
+}
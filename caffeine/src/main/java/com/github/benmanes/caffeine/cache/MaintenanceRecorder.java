@@ -0,0 +1,221 @@
+/*
+ * Copyright 2020 Ben Manes. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.benmanes.caffeine.cache;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+/**
+ * A recorder of the work performed by a bounded cache's maintenance cycles. The cycle and phase
+ * methods are called while holding the eviction lock, whereas the write buffer methods may be
+ * called concurrently by the writing threads. The completed cycles are published to the listener
+ * only after the eviction lock was released, so that a slow listener does not stall the writers.
+ *
+ * @author ben.manes@gmail.com (Ben Manes)
+ */
+interface MaintenanceRecorder {
+
+  /** Returns a no-op implementation. */
+  static MaintenanceRecorder disabled() {
+    return DisabledMaintenanceRecorder.INSTANCE;
+  }
+
+  /** Returns the current time for measuring the lock wait, or zero if not recording. */
+  long now();
+
+  /**
+   * Records that the eviction lock was acquired in order to perform the maintenance.
+   *
+   * @param waitStartTime the time when the lock was requested, as given by {@link #now()}
+   */
+  void lockAcquired(long waitStartTime);
+
+  /** Records the start of a maintenance cycle. */
+  void startCycle(@NonNull BoundedLocalCache<?, ?> cache);
+
+  /**
+   * Records the end of a phase, which started at the end of the previous phase or of the cycle.
+   *
+   * @param phase the index of the phase's duration in the {@link MaintenanceStats}
+   */
+  void endPhase(int phase);
+
+  /** Records the end of a maintenance cycle, which will be published to the listener. */
+  void endCycle();
+
+  /** Notifies the listener of the completed cycles, which must be called without the lock held. */
+  void publish();
+
+  /** Records that the write buffer was full and the write will be retried. */
+  void recordWriteBufferRetry();
+
+  /** Records that the write buffer was full and the writer will perform the maintenance. */
+  void recordWriteBufferOverflow();
+
+  /** Returns the accumulated statistics, or empty if not recording. */
+  Optional<MaintenanceStats> snapshot();
+}
+
+/** A recorder that does not record. */
+enum DisabledMaintenanceRecorder implements MaintenanceRecorder {
+  INSTANCE;
+
+  @Override public long now() { return 0L; }
+  @Override public void lockAcquired(long waitStartTime) {}
+  @Override public void startCycle(BoundedLocalCache<?, ?> cache) {}
+  @Override public void endPhase(int phase) {}
+  @Override public void endCycle() {}
+  @Override public void publish() {}
+  @Override public void recordWriteBufferRetry() {}
+  @Override public void recordWriteBufferOverflow() {}
+  @Override public Optional<MaintenanceStats> snapshot() { return Optional.empty(); }
+}
+
+/** A recorder that measures each cycle and publishes it to a {@link MaintenanceListener}. */
+final class TimedMaintenanceRecorder implements MaintenanceRecorder {
+  static final Logger logger = Logger.getLogger(TimedMaintenanceRecorder.class.getName());
+
+  final Queue<MaintenanceStats> completed;
+  final MaintenanceListener listener;
+  final AtomicBoolean publishing;
+  final LongAdder writeBufferOverflows;
+  final LongAdder writeBufferRetries;
+  final Ticker ticker;
+
+  volatile MaintenanceStats totals;
+
+  // Guarded by the cache's eviction lock
+  final long[] cycle;
+  long lockAcquiredTime;
+  long phaseStartTime;
+  long cycleStartTime;
+  boolean lockAcquired;
+  long readBufferDrops;
+  long overflows;
+  long retries;
+
+  TimedMaintenanceRecorder(MaintenanceListener listener, Ticker ticker) {
+    this.listener = requireNonNull(listener);
+    this.ticker = requireNonNull(ticker);
+    this.completed = new ConcurrentLinkedQueue<>();
+    this.publishing = new AtomicBoolean();
+    this.cycle = new long[MaintenanceStats.COUNTERS];
+    this.writeBufferOverflows = new LongAdder();
+    this.writeBufferRetries = new LongAdder();
+    this.totals = MaintenanceStats.empty();
+  }
+
+  @Override
+  public long now() {
+    return ticker.read();
+  }
+
+  @Override
+  public void lockAcquired(long waitStartTime) {
+    lockAcquiredTime = ticker.read();
+    cycle[MaintenanceStats.LOCK_WAIT_TIME] += Math.max(0L, lockAcquiredTime - waitStartTime);
+    lockAcquired = true;
+  }
+
+  @Override
+  public void startCycle(BoundedLocalCache<?, ?> cache) {
+    cycleStartTime = ticker.read();
+    phaseStartTime = cycleStartTime;
+    if (cache.buffersWrites()) {
+      cycle[MaintenanceStats.WRITE_BUFFER_PEAK] = cache.writeBuffer().size();
+    }
+
+    long drops = cache.readBuffer.rejected();
+    cycle[MaintenanceStats.READ_BUFFER_DROPS] = Math.max(0L, drops - readBufferDrops);
+    readBufferDrops = drops;
+
+    long retried = writeBufferRetries.sum();
+    cycle[MaintenanceStats.WRITE_BUFFER_RETRIES] = retried - retries;
+    retries = retried;
+
+    long overflowed = writeBufferOverflows.sum();
+    cycle[MaintenanceStats.WRITE_BUFFER_OVERFLOWS] = overflowed - overflows;
+    overflows = overflowed;
+  }
+
+  @Override
+  public void endPhase(int phase) {
+    long now = ticker.read();
+    cycle[phase] += Math.max(0L, now - phaseStartTime);
+    phaseStartTime = now;
+  }
+
+  @Override
+  public void endCycle() {
+    long now = ticker.read();
+    long holdStartTime = lockAcquired ? lockAcquiredTime : cycleStartTime;
+    cycle[MaintenanceStats.CYCLES] = 1L;
+    cycle[MaintenanceStats.TOTAL_TIME] = Math.max(0L, now - cycleStartTime);
+    cycle[MaintenanceStats.LOCK_HOLD_TIME] = Math.max(0L, now - holdStartTime);
+
+    MaintenanceStats stats = new MaintenanceStats(cycle.clone());
+    Arrays.fill(cycle, 0L);
+    lockAcquired = false;
+
+    totals = totals.plus(stats);
+    completed.add(stats);
+  }
+
+  @Override
+  public void publish() {
+    // A single thread notifies the listener at a time, so that the cycles are delivered in order
+    // and a listener that calls back into the cache does not recursively publish
+    while (!completed.isEmpty() && publishing.compareAndSet(false, true)) {
+      try {
+        MaintenanceStats stats;
+        while ((stats = completed.poll()) != null) {
+          try {
+            listener.onMaintenance(stats);
+          } catch (Throwable t) {
+            logger.log(Level.WARNING, "Exception thrown by maintenance listener", t);
+          }
+        }
+      } finally {
+        publishing.set(false);
+      }
+    }
+  }
+
+  @Override
+  public void recordWriteBufferRetry() {
+    writeBufferRetries.increment();
+  }
+
+  @Override
+  public void recordWriteBufferOverflow() {
+    writeBufferOverflows.increment();
+  }
+
+  @Override
+  public Optional<MaintenanceStats> snapshot() {
+    return Optional.of(totals);
+  }
+}
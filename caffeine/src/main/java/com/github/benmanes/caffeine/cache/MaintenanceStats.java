@@ -0,0 +1,313 @@
+/*
+ * Copyright 2020 Ben Manes. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.benmanes.caffeine.cache;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.Arrays;
+
+import org.checkerframework.checker.index.qual.NonNegative;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+import com.google.errorprone.annotations.Immutable;
+
+/**
+ * Statistics about the maintenance work performed by a bounded cache. An instance describes either
+ * a single cycle, as given to a {@link MaintenanceListener}, or the accumulation of every cycle
+ * since the cache was created, as returned by {@link Policy#maintenanceStats()}. The statistics are
+ * only recorded when enabled by {@link Caffeine#recordMaintenance()}.
+ * <p>
+ * The durations are measured in nanoseconds by the cache's {@linkplain Caffeine#ticker ticker}.
+ * A maintenance cycle is performed in phases, in the order of:
+ * <ul>
+ *   <li>read drain: replaying the recorded reads onto the eviction and expiration policies
+ *   <li>write drain: applying the pending writes, including any write that could not be buffered
+ *   <li>reference drain: removing the entries whose weak or soft references were collected
+ *   <li>expiration: removing the expired entries
+ *   <li>eviction: removing the entries that exceed the maximum size or weight
+ *   <li>climb: adapting the eviction policy's admission window
+ * </ul>
+ * <p>
+ * The maintenance is performed while holding an exclusive lock. The lock wait and hold times are
+ * only measured when a thread blocks to acquire the lock in order to perform the maintenance,
+ * otherwise the hold time is the duration of the cycle.
+ *
+ * @author ben.manes@gmail.com (Ben Manes)
+ */
+@Immutable
+@SuppressWarnings("Immutable")
+public final class MaintenanceStats {
+  static final int CYCLES = 0;
+  static final int TOTAL_TIME = 1;
+  static final int READ_DRAIN_TIME = 2;
+  static final int WRITE_DRAIN_TIME = 3;
+  static final int REFERENCE_DRAIN_TIME = 4;
+  static final int EXPIRATION_TIME = 5;
+  static final int EVICTION_TIME = 6;
+  static final int CLIMB_TIME = 7;
+  static final int LOCK_WAIT_TIME = 8;
+  static final int LOCK_HOLD_TIME = 9;
+  static final int WRITE_BUFFER_PEAK = 10;
+  static final int WRITE_BUFFER_RETRIES = 11;
+  static final int WRITE_BUFFER_OVERFLOWS = 12;
+  static final int READ_BUFFER_DROPS = 13;
+  static final int COUNTERS = 14;
+
+  private static final MaintenanceStats EMPTY = new MaintenanceStats(new long[COUNTERS]);
+
+  private final long[] counters;
+
+  /** Creates an instance that takes ownership of the counters, indexed by the constants. */
+  MaintenanceStats(long[] counters) {
+    this.counters = counters;
+  }
+
+  /**
+   * Returns statistics where no maintenance was performed.
+   *
+   * @return an empty statistics instance
+   */
+  @NonNull
+  public static MaintenanceStats empty() {
+    return EMPTY;
+  }
+
+  /**
+   * Returns the number of maintenance cycles that were performed.
+   *
+   * @return the number of maintenance cycles
+   */
+  @NonNegative
+  public long cycleCount() {
+    return counters[CYCLES];
+  }
+
+  /**
+   * Returns the total number of nanoseconds spent performing the maintenance cycles.
+   *
+   * @return the total duration of the maintenance cycles
+   */
+  @NonNegative
+  public long totalTime() {
+    return counters[TOTAL_TIME];
+  }
+
+  /**
+   * Returns the number of nanoseconds spent replaying the recorded reads.
+   *
+   * @return the duration of the read drain phase
+   */
+  @NonNegative
+  public long readDrainTime() {
+    return counters[READ_DRAIN_TIME];
+  }
+
+  /**
+   * Returns the number of nanoseconds spent applying the pending writes.
+   *
+   * @return the duration of the write drain phase
+   */
+  @NonNegative
+  public long writeDrainTime() {
+    return counters[WRITE_DRAIN_TIME];
+  }
+
+  /**
+   * Returns the number of nanoseconds spent removing the entries whose references were collected.
+   *
+   * @return the duration of the reference drain phase
+   */
+  @NonNegative
+  public long referenceDrainTime() {
+    return counters[REFERENCE_DRAIN_TIME];
+  }
+
+  /**
+   * Returns the number of nanoseconds spent removing the expired entries.
+   *
+   * @return the duration of the expiration phase
+   */
+  @NonNegative
+  public long expirationTime() {
+    return counters[EXPIRATION_TIME];
+  }
+
+  /**
+   * Returns the number of nanoseconds spent evicting the entries that exceed the maximum.
+   *
+   * @return the duration of the eviction phase
+   */
+  @NonNegative
+  public long evictionTime() {
+    return counters[EVICTION_TIME];
+  }
+
+  /**
+   * Returns the number of nanoseconds spent adapting the eviction policy.
+   *
+   * @return the duration of the climb phase
+   */
+  @NonNegative
+  public long climbTime() {
+    return counters[CLIMB_TIME];
+  }
+
+  /**
+   * Returns the number of nanoseconds that the threads performing the maintenance were blocked
+   * while waiting to acquire the eviction lock.
+   *
+   * @return the duration spent waiting for the eviction lock
+   */
+  @NonNegative
+  public long lockWaitTime() {
+    return counters[LOCK_WAIT_TIME];
+  }
+
+  /**
+   * Returns the number of nanoseconds that the eviction lock was held while performing the
+   * maintenance.
+   *
+   * @return the duration that the eviction lock was held for
+   */
+  @NonNegative
+  public long lockHoldTime() {
+    return counters[LOCK_HOLD_TIME];
+  }
+
+  /**
+   * Returns the largest number of pending writes that a maintenance cycle found in the write
+   * buffer. A value that approaches the buffer's capacity indicates that the writers may be
+   * forced to wait for the maintenance to catch up.
+   *
+   * @return the highest observed number of pending writes
+   */
+  @NonNegative
+  public long writeBufferPeak() {
+    return counters[WRITE_BUFFER_PEAK];
+  }
+
+  /**
+   * Returns the number of times that a writer failed to add into the full write buffer and retried
+   * after attempting to schedule the maintenance.
+   *
+   * @return the number of write buffer retries
+   */
+  @NonNegative
+  public long writeBufferRetries() {
+    return counters[WRITE_BUFFER_RETRIES];
+  }
+
+  /**
+   * Returns the number of times that a writer exhausted its retries and performed the maintenance
+   * itself, blocking on the eviction lock if needed.
+   *
+   * @return the number of writes that were applied by the writing thread
+   */
+  @NonNegative
+  public long writeBufferOverflows() {
+    return counters[WRITE_BUFFER_OVERFLOWS];
+  }
+
+  /**
+   * Returns the number of reads that were not recorded because the read buffer was full.
+   *
+   * @return the number of dropped reads
+   */
+  @NonNegative
+  public long readBufferDrops() {
+    return counters[READ_BUFFER_DROPS];
+  }
+
+  /**
+   * Returns a new {@code MaintenanceStats} representing the difference between this instance and
+   * {@code other}. Negative values, which aren't supported by {@code MaintenanceStats} will be
+   * rounded up to zero. The {@link #writeBufferPeak()} of this instance is retained.
+   *
+   * @param other the statistics to subtract with
+   * @return the difference between this instance and {@code other}
+   */
+  @NonNull
+  public MaintenanceStats minus(@NonNull MaintenanceStats other) {
+    requireNonNull(other);
+    long[] difference = new long[COUNTERS];
+    for (int i = 0; i < COUNTERS; i++) {
+      difference[i] = (i == WRITE_BUFFER_PEAK)
+          ? counters[i]
+          : Math.max(0L, counters[i] - other.counters[i]);
+    }
+    return new MaintenanceStats(difference);
+  }
+
+  /**
+   * Returns a new {@code MaintenanceStats} representing the sum of this instance and
+   * {@code other}. The {@link #writeBufferPeak()} is the larger of the two.
+   *
+   * @param other the statistics to add with
+   * @return the sum of the statistics
+   */
+  @NonNull
+  public MaintenanceStats plus(@NonNull MaintenanceStats other) {
+    requireNonNull(other);
+    long[] sum = new long[COUNTERS];
+    for (int i = 0; i < COUNTERS; i++) {
+      sum[i] = (i == WRITE_BUFFER_PEAK)
+          ? Math.max(counters[i], other.counters[i])
+          : saturatedAdd(counters[i], other.counters[i]);
+    }
+    return new MaintenanceStats(sum);
+  }
+
+  /** Returns the sum of {@code a} and {@code b}, or {@code Long.MAX_VALUE} if it overflows. */
+  private static long saturatedAdd(long a, long b) {
+    long naiveSum = a + b;
+    return (naiveSum < 0L) ? Long.MAX_VALUE : naiveSum;
+  }
+
+  @Override
+  public int hashCode() {
+    return Arrays.hashCode(counters);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (o == this) {
+      return true;
+    } else if (!(o instanceof MaintenanceStats)) {
+      return false;
+    }
+    return Arrays.equals(counters, ((MaintenanceStats) o).counters);
+  }
+
+  @Override
+  public String toString() {
+    return getClass().getSimpleName() + '{'
+        + "cycleCount=" + cycleCount() + ", "
+        + "totalTime=" + totalTime() + ", "
+        + "readDrainTime=" + readDrainTime() + ", "
+        + "writeDrainTime=" + writeDrainTime() + ", "
+        + "referenceDrainTime=" + referenceDrainTime() + ", "
+        + "expirationTime=" + expirationTime() + ", "
+        + "evictionTime=" + evictionTime() + ", "
+        + "climbTime=" + climbTime() + ", "
+        + "lockWaitTime=" + lockWaitTime() + ", "
+        + "lockHoldTime=" + lockHoldTime() + ", "
+        + "writeBufferPeak=" + writeBufferPeak() + ", "
+        + "writeBufferRetries=" + writeBufferRetries() + ", "
+        + "writeBufferOverflows=" + writeBufferOverflows() + ", "
+        + "readBufferDrops=" + readBufferDrops()
+        + '}';
+  }
+}
@@ -61,6 +61,117 @@ public interface Policy<K, V> {
     throw new UnsupportedOperationException();
   }
 
+  /**
+   * Returns the approximate number of reads and writes that have been recorded but not yet applied
+   * to the cache's policy by a maintenance cycle. A persistently large backlog indicates that the
+   * maintenance work is not keeping up with the rate of writes, such as when a small
+   * {@linkplain Caffeine#maintenanceBudget(int) maintenance budget} is configured.
+   *
+   * @return the estimated number of pending operations
+   */
+  @NonNegative
+  default int maintenanceBacklog() {
+    // This method was added & implemented in version 2.9.0
+    throw new UnsupportedOperationException();
+  }
+
+  /**
+   * Returns the number of reads that were recorded into the read buffer for replay on the cache's
+   * policy. The read buffer is lossy and a cache that does not require its access history, such as
+   * an unbounded cache, will not record any reads.
+   *
+   * @return the number of reads accepted by the read buffer
+   */
+  @NonNegative
+  default long readBufferAccepted() {
+    // This method was added & implemented in version 2.9.0
+    throw new UnsupportedOperationException();
+  }
+
+  /**
+   * Returns the approximate number of reads that were dropped because the read buffer was full. A
+   * high rate of rejections relative to {@link #readBufferAccepted()} indicates that the access
+   * history used to make eviction decisions is being sampled rather than fully captured.
+   *
+   * @return the number of reads rejected by the read buffer
+   */
+  @NonNegative
+  default long readBufferRejected() {
+    // This method was added & implemented in version 2.9.0
+    throw new UnsupportedOperationException();
+  }
+
+  /**
+   * Returns the approximate number of loads and refreshes that are in-flight while holding a permit
+   * from the {@linkplain Caffeine#maximumConcurrentLoads load governor}. If the loads are not
+   * limited then zero is returned.
+   *
+   * @return the number of loads and refreshes that are in-flight
+   */
+  @NonNegative
+  default int inFlightLoads() {
+    // This method was added & implemented in version 2.9.0
+    throw new UnsupportedOperationException();
+  }
+
+  /**
+   * Returns the approximate number of loads that are waiting to be admitted by the
+   * {@linkplain Caffeine#maximumConcurrentLoads load governor}. A persistently non-empty queue
+   * indicates that the loads are throttled by the backing resource's latency. If the loads are not
+   * limited then zero is returned.
+   *
+   * @return the number of loads that are waiting for a permit
+   */
+  @NonNegative
+  default int queuedLoads() {
+    // This method was added & implemented in version 2.9.0
+    throw new UnsupportedOperationException();
+  }
+
+  /**
+   * Returns the cumulative number of expiration timers that were processed when advancing the
+   * {@linkplain #expireVariably() variable expiration} policy's timer wheel, whether the entry was
+   * expired or cascaded into a finer-grained bucket. A high rate relative to the number of evictions
+   * indicates that the entries are frequently rescheduled. If the cache does not expire variably
+   * then zero is returned.
+   *
+   * @return the number of expiration timers that were processed
+   */
+  @NonNegative
+  default long expirationTimersProcessed() {
+    // This method was added & implemented in version 2.9.0
+    throw new UnsupportedOperationException();
+  }
+
+  /**
+   * Returns how far the variable expiration policy's processing lags behind the current time
+   * because the {@linkplain Caffeine#expirationBudget expiration budget} was exhausted. The expired
+   * entries within this span are not visible, but their removal is pending a subsequent maintenance
+   * cycle. If the processing is complete or the cache does not expire variably then zero is
+   * returned.
+   *
+   * @return the duration that the expiration of entries lags behind
+   */
+  @NonNull
+  default Duration expirationLag() {
+    // This method was added & implemented in version 2.9.0
+    throw new UnsupportedOperationException();
+  }
+
+  /**
+   * Returns the accumulated statistics of the maintenance work performed by the cache, such as the
+   * time spent in each phase, the time spent waiting for and holding the eviction lock, and the
+   * pressure on the read and write buffers. If the cache was not built with
+   * {@link Caffeine#recordMaintenance()} then an empty {@link Optional} is returned.
+   *
+   * @return the statistics of the maintenance cycles performed since the cache was created
+   */
+  @NonNull
+  default Optional<MaintenanceStats> maintenanceStats() {
+    // This method was added & implemented in version 2.9.0
+    throw new UnsupportedOperationException();
+  }
+
   /**
    * Returns access to perform operations based on the maximum size or maximum weight eviction
    * policy. If the cache was not constructed with a size-based bound or the implementation does
@@ -220,6 +331,51 @@ public interface Policy<K, V> {
      */
     @NonNull
     Map<@NonNull K, @NonNull V> hottest(@NonNegative int limit);
+
+    /**
+     * Returns the popularity history that the eviction policy uses to decide whether to admit an
+     * entry, in a compact serialized form. This can be adopted by another cache instance, such as
+     * a newly started replica, by using {@link #importFrequencySketch} or
+     * {@link #mergeFrequencySketch}. The history is keyed by the {@link Object#hashCode()} of the
+     * cache's keys, so it is only meaningful to caches whose keys have a stable hash code across
+     * processes.
+     *
+     * @return the serialized popularity history
+     * @throws UnsupportedOperationException if the eviction policy does not track popularity
+     */
+    default byte @NonNull [] exportFrequencySketch() {
+      // This method was added & implemented in version 2.9.0
+      throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Replaces the popularity history that the eviction policy uses to decide whether to admit an
+     * entry with the one produced by {@link #exportFrequencySketch}. The history may have been
+     * exported by a cache of a different maximum size, in which case the estimates are adapted to
+     * this cache's capacity and may be less accurate.
+     *
+     * @param sketch the serialized popularity history
+     * @throws IllegalArgumentException if the sketch is not a serialized popularity history
+     * @throws UnsupportedOperationException if the eviction policy does not track popularity
+     */
+    default void importFrequencySketch(byte @NonNull [] sketch) {
+      // This method was added & implemented in version 2.9.0
+      throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Combines the popularity history produced by {@link #exportFrequencySketch} with this cache's
+     * history. The estimates are summed, limited by the maximum that the policy tracks, and then
+     * aged so that the combined history does not dominate the popularity observed afterwards.
+     *
+     * @param sketch the serialized popularity history
+     * @throws IllegalArgumentException if the sketch is not a serialized popularity history
+     * @throws UnsupportedOperationException if the eviction policy does not track popularity
+     */
+    default void mergeFrequencySketch(byte @NonNull [] sketch) {
+      // This method was added & implemented in version 2.9.0
+      throw new UnsupportedOperationException();
+    }
   }
 
   /** The low-level operations for a cache with a fixed expiration policy. */
@@ -20,6 +20,8 @@ import static java.util.Objects.requireNonNull;
 import java.lang.ref.ReferenceQueue;
 import java.lang.ref.SoftReference;
 import java.lang.ref.WeakReference;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import org.checkerframework.checker.nullness.qual.NonNull;
 import org.checkerframework.checker.nullness.qual.Nullable;
@@ -110,6 +112,92 @@ final class References {
     }
   }
 
+  /**
+   * A reusable adapter used for looking up an entry in the cache where the keys are weakly held, so
+   * that a read does not allocate a {@linkplain LookupKeyReference}. An instance holds the key only
+   * for the duration of a probe of the map and must not be passed to an operation that may retain
+   * it or call back into the cache.
+   */
+  static final class ReusableLookupKeyReference implements InternalReference<Object> {
+    @Nullable Object e;
+    int hashCode;
+
+    /** Sets the key to look up, which must be cleared when the lookup completes. */
+    ReusableLookupKeyReference set(@NonNull Object e) {
+      this.hashCode = System.identityHashCode(e);
+      this.e = requireNonNull(e);
+      return this;
+    }
+
+    /** Clears the key so that it is not retained by the adapter. */
+    void clear() {
+      e = null;
+    }
+
+    @Override
+    public @Nullable Object get() {
+      return e;
+    }
+
+    @Override
+    public Object getKeyReference() {
+      return this;
+    }
+
+    @Override
+    public boolean equals(Object object) {
+      return referenceEquals(object);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+  }
+
+  /**
+   * A striped pool of {@linkplain ReusableLookupKeyReference} adapters owned by a cache. A thread
+   * claims the adapter in the slot selected by its probe and returns it when the lookup completes.
+   * If the slot is in use by another thread then the caller falls back to allocating an adapter,
+   * so a claim never blocks or spins.
+   */
+  static final class LookupKeyPool {
+    static final int SIZE = 4 * Caffeine.ceilingPowerOfTwo(StripedBuffer.NCPU);
+
+    final AtomicReferenceArray<ReusableLookupKeyReference> slots;
+
+    LookupKeyPool() {
+      slots = new AtomicReferenceArray<>(SIZE);
+      for (int i = 0; i < SIZE; i++) {
+        slots.lazySet(i, new ReusableLookupKeyReference());
+      }
+    }
+
+    /** Returns the index of the slot for the current thread. */
+    static int index() {
+      int probe = StripedBuffer.getProbe();
+      if (probe == 0) {
+        ThreadLocalRandom.current(); // force initialization
+        probe = StripedBuffer.getProbe();
+      }
+      return probe & (SIZE - 1);
+    }
+
+    /** Returns the adapter in the slot if it was claimed, or {@code null} if in use. */
+    @Nullable ReusableLookupKeyReference acquire(int index) {
+      ReusableLookupKeyReference lookupKey = slots.get(index);
+      return ((lookupKey != null) && slots.compareAndSet(index, lookupKey, null))
+          ? lookupKey
+          : null;
+    }
+
+    /** Clears the adapter and returns it to the slot that it was claimed from. */
+    void release(int index, ReusableLookupKeyReference lookupKey) {
+      lookupKey.clear();
+      slots.lazySet(index, lookupKey);
+    }
+  }
+
   /**
    * The key in a cache that holds keys weakly. This class retains the key's identity hash code in
    * the advent that the key is reclaimed so that the entry can be removed from the cache in
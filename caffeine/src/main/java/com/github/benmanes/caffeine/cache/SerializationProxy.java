@@ -18,6 +18,7 @@ package com.github.benmanes.caffeine.cache;
 import static com.github.benmanes.caffeine.cache.Caffeine.UNSET_INT;
 
 import java.io.Serializable;
+import java.time.Duration;
 import java.util.concurrent.TimeUnit;
 
 import org.checkerframework.checker.nullness.qual.Nullable;
@@ -38,18 +39,53 @@ final class SerializationProxy<K, V> implements Serializable {
   boolean weakValues;
   boolean softValues;
   boolean isRecordingStats;
+  boolean recordMaintenance;
+  boolean sizeAwareAdmission;
+  boolean adaptiveReadBuffer;
   long refreshAfterWriteNanos;
   long expiresAfterWriteNanos;
   long expiresAfterAccessNanos;
+  long staleWhileRevalidateNanos = UNSET_INT;
+  long staleIfErrorNanos = UNSET_INT;
   long maximumSize = UNSET_INT;
   long maximumWeight = UNSET_INT;
+  long coalesceDelayNanos = UNSET_INT;
+  int coalesceBatchSize = UNSET_INT;
+  long refreshCoalesceDelayNanos = UNSET_INT;
+  int refreshCoalesceBatchSize = UNSET_INT;
+  int refreshAheadConcurrency = UNSET_INT;
+  int loadConcurrency = UNSET_INT;
+  long loadQueueTimeoutNanos = UNSET_INT;
+  long absentLoadsNanos = UNSET_INT;
+  long absentLoadsMaximum = UNSET_INT;
+  long expirationResolutionNanos = UNSET_INT;
+  long expirationHorizonNanos = UNSET_INT;
+  int expirationBudget = UNSET_INT;
+  int maintenanceBudget = UNSET_INT;
 
   @Nullable Ticker ticker;
+  @Nullable Jitter jitter;
   @Nullable Expiry<?, ?> expiry;
   @Nullable Weigher<?, ?> weigher;
   @Nullable CacheWriter<?, ?> writer;
   @Nullable AsyncCacheLoader<?, ?> loader;
   @Nullable RemovalListener<?, ?> removalListener;
+  @Nullable MaintenanceListener maintenanceListener;
+
+  /** Records the governor of the loads and the remembering of absent loads, if enabled. */
+  void setLoadingOptions(LocalCache<?, ?> cache) {
+    LoadLimiter loadLimiter = cache.loadLimiter();
+    if (loadLimiter != null) {
+      loadConcurrency = loadLimiter.maximum;
+      loadQueueTimeoutNanos = loadLimiter.timeoutNanos;
+    }
+    Cache<?, Boolean> absentLoads = cache.absentLoads();
+    if (absentLoads != null) {
+      Policy<?, Boolean> policy = absentLoads.policy();
+      absentLoadsNanos = policy.expireAfterWrite().get().getExpiresAfter(TimeUnit.NANOSECONDS);
+      absentLoadsMaximum = policy.eviction().get().getMaximum();
+    }
+  }
 
   @SuppressWarnings({"unchecked", "PreferJavaTimeOverload"})
   Caffeine<Object, Object> recreateCaffeine() {
@@ -60,6 +96,11 @@ final class SerializationProxy<K, V> implements Serializable {
     if (isRecordingStats) {
       builder.recordStats();
     }
+    if (maintenanceListener != null) {
+      builder.recordMaintenance(maintenanceListener);
+    } else if (recordMaintenance) {
+      builder.recordMaintenance();
+    }
     if (maximumSize != UNSET_INT) {
       builder.maximumSize(maximumSize);
     }
@@ -67,6 +108,15 @@ final class SerializationProxy<K, V> implements Serializable {
       builder.maximumWeight(maximumWeight);
       builder.weigher((Weigher<Object, Object>) weigher);
     }
+    if (sizeAwareAdmission) {
+      builder.sizeAwareAdmission();
+    }
+    if (maintenanceBudget != UNSET_INT) {
+      builder.maintenanceBudget(maintenanceBudget);
+    }
+    if (adaptiveReadBuffer) {
+      builder.adaptiveReadBuffer();
+    }
     if (expiry != null) {
       builder.expireAfter(expiry);
     }
@@ -76,9 +126,41 @@ final class SerializationProxy<K, V> implements Serializable {
     if (expiresAfterAccessNanos > 0) {
       builder.expireAfterAccess(expiresAfterAccessNanos, TimeUnit.NANOSECONDS);
     }
-    if (refreshAfterWriteNanos > 0) {
+    if (staleWhileRevalidateNanos != UNSET_INT) {
+      // the grace period implies the refresh, so refreshAfterWrite may not be set as well
+      builder.staleWhileRevalidate(Duration.ofNanos(staleWhileRevalidateNanos));
+    } else if (refreshAfterWriteNanos > 0) {
       builder.refreshAfterWrite(refreshAfterWriteNanos, TimeUnit.NANOSECONDS);
     }
+    if (staleIfErrorNanos != UNSET_INT) {
+      builder.staleIfError(Duration.ofNanos(staleIfErrorNanos));
+    }
+    if (jitter != null) {
+      builder.jitter = jitter;
+    }
+    if (expirationResolutionNanos != UNSET_INT) {
+      builder.expirationResolution(Duration.ofNanos(expirationResolutionNanos),
+          Duration.ofNanos(expirationHorizonNanos));
+    }
+    if (expirationBudget != UNSET_INT) {
+      builder.expirationBudget(expirationBudget);
+    }
+    if (refreshAheadConcurrency != UNSET_INT) {
+      builder.refreshAhead(refreshAheadConcurrency);
+    }
+    if (refreshCoalesceDelayNanos != UNSET_INT) {
+      builder.coalesceRefreshes(Duration.ofNanos(refreshCoalesceDelayNanos),
+          refreshCoalesceBatchSize);
+    }
+    if (loadConcurrency != UNSET_INT) {
+      builder.maximumConcurrentLoads(loadConcurrency, Duration.ofNanos(loadQueueTimeoutNanos));
+    }
+    if (absentLoadsNanos != UNSET_INT) {
+      builder.cacheAbsentLoads(Duration.ofNanos(absentLoadsNanos), absentLoadsMaximum);
+    }
+    if (coalesceDelayNanos != UNSET_INT) {
+      builder.coalesceBulkLoads(Duration.ofNanos(coalesceDelayNanos), coalesceBatchSize);
+    }
     if (weakKeys) {
       builder.weakKeys();
     }
@@ -62,7 +62,11 @@ abstract class StripedBuffer<E> implements Buffer<E> {
    *
    * The Thread probe fields maintained via ThreadLocalRandom serve as per-thread hash codes. We let
    * them remain uninitialized as zero (if they come in this way) until they contend at slot 0. They
-   * are then initialized to values that typically do not often conflict with others. Contention
+   * are then initialized to values that typically do not often conflict with others. Until then a
+   * thread selects its buffer by a spreading of its identifier, as otherwise every short-lived
+   * thread (such as a virtual thread or a thread-per-task executor's worker) would first record
+   * into, and often remain at, slot 0. The identifiers are sequential, so spreading them
+   * distributes the uninitialized threads across the table without requiring a probe. Contention
    * and/or table collisions are indicated by failed CASes when performing an update operation. Upon
    * a collision, if the table size is less than the capacity, it is doubled in size unless some
    * other thread holds the lock. If a hashed slot is empty, and lock is available, a new Buffer is
@@ -115,6 +119,21 @@ abstract class StripedBuffer<E> implements Buffer<E> {
     return UnsafeAccess.UNSAFE.getInt(Thread.currentThread(), PROBE);
   }
 
+  /**
+   * Returns the hash used to select a buffer for the current thread. This is the thread's probe
+   * value if initialized, otherwise a spreading of the thread's identifier.
+   */
+  static final int getThreadHash() {
+    Thread thread = Thread.currentThread();
+    int probe = UnsafeAccess.UNSAFE.getInt(thread, PROBE);
+    if (probe != 0) {
+      return probe;
+    }
+    long id = thread.getId();
+    int h = (int) (id ^ (id >>> 32)) * 0x9E3779B9;
+    return h ^ (h >>> 16);
+  }
+
   /**
    * Pseudo-randomly advances and records the given probe value for the given thread. Duplicated
    * from ThreadLocalRandom because of packaging restrictions.
@@ -144,7 +163,7 @@ abstract class StripedBuffer<E> implements Buffer<E> {
     Buffer<E>[] buffers = table;
     if ((buffers == null)
         || (mask = buffers.length - 1) < 0
-        || (buffer = buffers[getProbe() & mask]) == null
+        || (buffer = buffers[getThreadHash() & mask]) == null
         || !(uncontended = ((result = buffer.offer(e)) != Buffer.FAILED))) {
       expandOrRetry(e, uncontended);
     }
@@ -194,6 +213,36 @@ abstract class StripedBuffer<E> implements Buffer<E> {
     return writes;
   }
 
+  @Override
+  public long accepted() {
+    Buffer<E>[] buffers = table;
+    if (buffers == null) {
+      return 0L;
+    }
+    long accepted = 0L;
+    for (Buffer<E> buffer : buffers) {
+      if (buffer != null) {
+        accepted += buffer.accepted();
+      }
+    }
+    return accepted;
+  }
+
+  @Override
+  public long rejected() {
+    Buffer<E>[] buffers = table;
+    if (buffers == null) {
+      return 0L;
+    }
+    long rejected = 0L;
+    for (Buffer<E> buffer : buffers) {
+      if (buffer != null) {
+        rejected += buffer.rejected();
+      }
+    }
+    return rejected;
+  }
+
   /**
    * Handles cases of updates involving initialization, resizing, creating new Buffers, and/or
    * contention. See above for explanation. This method suffers the usual non-modularity problems of
@@ -15,6 +15,8 @@
  */
 package com.github.benmanes.caffeine.cache;
 
+import java.time.Duration;
+
 import org.checkerframework.checker.nullness.qual.NonNull;
 
 /**
@@ -41,6 +43,28 @@ public interface Ticker {
     return SystemTicker.INSTANCE;
   }
 
+  /**
+   * Returns a ticker that reads a timestamp which is refreshed from {@link System#nanoTime} by a
+   * background thread at the given resolution. This avoids the cost of querying the system clock
+   * on every cache operation, which may be significant on hot read paths or on virtual machines
+   * with a slow clock source, in exchange for a clock that lags the system clock by up to the
+   * resolution.
+   * <p>
+   * A cache using this ticker may expire or refresh an entry up to the resolution earlier or later
+   * than its configured duration, and its recorded load times will be rounded to the resolution.
+   * The resolution should therefore be small relative to the expiration and refresh durations. The
+   * ticker is refreshed until it is no longer referenced, so an instance should be shared by the
+   * caches that use it rather than created per cache.
+   *
+   * @param resolution the interval at which the timestamp is refreshed
+   * @return a ticker that reads a timestamp that is periodically refreshed by a background thread
+   * @throws IllegalArgumentException if the resolution is not positive
+   * @throws ArithmeticException if the resolution is too large to fit in a long in nanoseconds
+   */
+  static @NonNull Ticker cachedTicker(@NonNull Duration resolution) {
+    return CachedTicker.create(resolution.toNanos());
+  }
+
   /**
    * Returns a ticker that always returns {@code 0}.
    *
@@ -50,6 +50,11 @@ final class TimerWheel<K, V> {
    * to be added, removed, and expired in O(1) time, where expiration occurs for the entire bucket,
    * and penalty of cascading is amortized by the rotations.
    *
+   * The default layout is tuned for durations of seconds to days. A cache may instead specify the
+   * resolution of the finest wheel and the horizon that the wheels span, in which case each wheel
+   * is 64 times coarser than the one below it until the horizon is covered. Durations beyond the
+   * horizon are held in an overflow bucket and are cascaded down when it is processed.
+   *
    * [1] Hashed and Hierarchical Timing Wheels
    * http://www.cs.columbia.edu/~nahum/w6998/papers/ton97-timing-wheels.pdf
    */
@@ -63,49 +68,145 @@ final class TimerWheel<K, V> {
       BUCKETS[3] * ceilingPowerOfTwo(TimeUnit.DAYS.toNanos(1)), // 6.5d
       BUCKETS[3] * ceilingPowerOfTwo(TimeUnit.DAYS.toNanos(1)), // 6.5d
   };
-  static final long[] SHIFT = {
-      Long.numberOfTrailingZeros(SPANS[0]),
-      Long.numberOfTrailingZeros(SPANS[1]),
-      Long.numberOfTrailingZeros(SPANS[2]),
-      Long.numberOfTrailingZeros(SPANS[3]),
-      Long.numberOfTrailingZeros(SPANS[4]),
-  };
+
+  static final int WHEEL_BUCKETS_SHIFT = 6;
 
   final BoundedLocalCache<K, V> cache;
+  final long resolutionNanos;
+  final long horizonNanos;
   final Node<K, V>[][] wheel;
+  final long[] spans;
+  final long[] shift;
+  final long[] cursor;
 
   long nanos;
+  int remaining;
+  int pendingWheel;
+  long processed;
 
-  @SuppressWarnings({"rawtypes", "unchecked"})
+  /** Creates a timer wheel with the default layout. */
   TimerWheel(BoundedLocalCache<K, V> cache) {
-    this.cache = requireNonNull(cache);
+    this(cache, BUCKETS, SPANS, Caffeine.UNSET_INT, Caffeine.UNSET_INT);
+  }
+
+  /**
+   * Creates a timer wheel whose finest wheel has at least the given resolution and whose wheels
+   * span at least the given horizon.
+   *
+   * @param cache the cache whose entries are expired
+   * @param resolutionNanos the duration of a bucket in the finest wheel
+   * @param horizonNanos the duration that the wheels span before the overflow bucket
+   */
+  TimerWheel(BoundedLocalCache<K, V> cache, long resolutionNanos, long horizonNanos) {
+    this(cache, spansFor(resolutionNanos, horizonNanos), resolutionNanos, horizonNanos);
+  }
+
+  private TimerWheel(BoundedLocalCache<K, V> cache,
+      long[] spans, long resolutionNanos, long horizonNanos) {
+    this(cache, bucketsFor(spans), spans, resolutionNanos, horizonNanos);
+  }
 
-    wheel = new Node[BUCKETS.length][1];
+  @SuppressWarnings({"rawtypes", "unchecked"})
+  private TimerWheel(BoundedLocalCache<K, V> cache, int[] buckets,
+      long[] spans, long resolutionNanos, long horizonNanos) {
+    this.cache = requireNonNull(cache);
+    this.resolutionNanos = resolutionNanos;
+    this.horizonNanos = horizonNanos;
+    this.spans = spans;
+
+    pendingWheel = buckets.length;
+    cursor = new long[buckets.length];
+    shift = new long[buckets.length];
+    wheel = new Node[buckets.length][1];
     for (int i = 0; i < wheel.length; i++) {
-      wheel[i] = new Node[BUCKETS[i]];
+      shift[i] = Long.numberOfTrailingZeros(spans[i]);
+      wheel[i] = new Node[buckets[i]];
       for (int j = 0; j < wheel[i].length; j++) {
         wheel[i][j] = new Sentinel<>();
       }
     }
   }
 
+  /**
+   * Returns the spans of the wheels for the resolution and horizon, where the last span is repeated
+   * for the overflow bucket. At least one wheel precedes the overflow bucket, as otherwise every
+   * timer would be rescanned on each advancement.
+   */
+  static long[] spansFor(long resolutionNanos, long horizonNanos) {
+    requireArgument(resolutionNanos > 0);
+    long maximumSpan = (Long.MAX_VALUE >>> (WHEEL_BUCKETS_SHIFT + 1));
+    long span = ceilingPowerOfTwo(Math.min(resolutionNanos, maximumSpan));
+    List<Long> spans = new ArrayList<>();
+    spans.add(span);
+    do {
+      span <<= WHEEL_BUCKETS_SHIFT;
+      spans.add(span);
+    } while ((span < horizonNanos) && (span <= maximumSpan));
+    spans.add(span);
+
+    long[] array = new long[spans.size()];
+    for (int i = 0; i < array.length; i++) {
+      array[i] = spans.get(i);
+    }
+    return array;
+  }
+
+  /** Returns the number of buckets in each wheel, where the last is the overflow bucket. */
+  static int[] bucketsFor(long[] spans) {
+    int[] buckets = new int[spans.length - 1];
+    for (int i = 0; i < buckets.length - 1; i++) {
+      buckets[i] = (int) (spans[i + 1] / spans[i]);
+    }
+    buckets[buckets.length - 1] = 1;
+    return buckets;
+  }
+
   /**
    * Advances the timer and evicts entries that have expired.
    *
    * @param currentTimeNanos the current time, in nanoseconds
    */
   public void advance(long currentTimeNanos) {
+    advance(currentTimeNanos, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Advances the timer and evicts entries that have expired, processing at most the budgeted number
+   * of timer events. If the budget is exhausted then the position in each wheel is retained so that
+   * the next advancement resumes the cascade where this one stopped.
+   *
+   * @param currentTimeNanos the current time, in nanoseconds
+   * @param budget the maximum number of timer events to process
+   * @return if all of the elapsed buckets were processed
+   */
+  public boolean advance(long currentTimeNanos, int budget) {
     long previousTimeNanos = nanos;
     try {
       nanos = currentTimeNanos;
-      for (int i = 0; i < SHIFT.length; i++) {
-        long previousTicks = (previousTimeNanos >>> SHIFT[i]);
-        long currentTicks = (currentTimeNanos >>> SHIFT[i]);
-        if ((currentTicks - previousTicks) <= 0L) {
-          break;
+      remaining = budget;
+      for (int i = 0; i < shift.length; i++) {
+        boolean resumed = (i >= pendingWheel);
+        long previousTicks = resumed ? cursor[i] : (previousTimeNanos >>> shift[i]);
+        long currentTicks = (currentTimeNanos >>> shift[i]);
+        long delta = (currentTicks - previousTicks);
+        if ((delta < 0L) || ((delta == 0L) && !resumed)) {
+          if (pendingWheel == wheel.length) {
+            break;
+          }
+          continue;
+        }
+        if (!expire(i, previousTicks, currentTicks)) {
+          for (int j = i + 1; j < shift.length; j++) {
+            if (j < pendingWheel) {
+              cursor[j] = (previousTimeNanos >>> shift[j]);
+            }
+          }
+          pendingWheel = i;
+          return false;
         }
-        expire(i, previousTicks, currentTicks);
       }
+      pendingWheel = wheel.length;
+      return true;
     } catch (Throwable t) {
       nanos = previousTimeNanos;
       throw t;
@@ -113,26 +214,22 @@ final class TimerWheel<K, V> {
   }
 
   /**
-   * Expires entries or reschedules into the proper bucket if still active.
+   * Expires entries or reschedules into the proper bucket if still active. If the budget is
+   * exhausted then the unprocessed entries are retained in their bucket and the wheel's cursor is
+   * set to resume from it.
    *
    * @param index the wheel being operated on
    * @param previousTicks the previous number of ticks
    * @param currentTicks the current number of ticks
+   * @return if all of the elapsed buckets in the wheel were processed
    */
-  void expire(int index, long previousTicks, long currentTicks) {
+  boolean expire(int index, long previousTicks, long currentTicks) {
     Node<K, V>[] timerWheel = wheel[index];
 
-    int start, end;
-    if ((currentTicks - previousTicks) >= timerWheel.length) {
-      end = timerWheel.length;
-      start = 0;
-    } else {
-      long mask = SPANS[index] - 1;
-      start = (int) (previousTicks & mask);
-      end = 1 + (int) (currentTicks & mask);
-    }
-
+    // measured by the elapsed ticks, as the masked current ticks may wrap around below the start
     int mask = timerWheel.length - 1;
+    int start = (int) (previousTicks & mask);
+    int end = 1 + start + (int) Math.min(currentTicks - previousTicks, mask);
     for (int i = start; i < end; i++) {
       Node<K, V> sentinel = timerWheel[(i & mask)];
       Node<K, V> prev = sentinel.getPreviousInVariableOrder();
@@ -141,6 +238,14 @@ final class TimerWheel<K, V> {
       sentinel.setNextInVariableOrder(sentinel);
 
       while (node != sentinel) {
+        if (remaining <= 0) {
+          relink(sentinel, node, prev);
+          cursor[index] = previousTicks + (i - start);
+          return false;
+        }
+        remaining--;
+        processed++;
+
         Node<K, V> next = node.getNextInVariableOrder();
         node.setPreviousInVariableOrder(null);
         node.setNextInVariableOrder(null);
@@ -152,14 +257,39 @@ final class TimerWheel<K, V> {
           }
           node = next;
         } catch (Throwable t) {
-          node.setPreviousInVariableOrder(sentinel.getPreviousInVariableOrder());
           node.setNextInVariableOrder(next);
-          sentinel.getPreviousInVariableOrder().setNextInVariableOrder(node);
-          sentinel.setPreviousInVariableOrder(prev);
+          relink(sentinel, node, prev);
           throw t;
         }
       }
     }
+    return true;
+  }
+
+  /** Restores the detached list of unprocessed nodes, from the head to the tail, into the bucket. */
+  void relink(Node<K, V> sentinel, Node<K, V> head, Node<K, V> tail) {
+    head.setPreviousInVariableOrder(sentinel.getPreviousInVariableOrder());
+    sentinel.getPreviousInVariableOrder().setNextInVariableOrder(head);
+    sentinel.setPreviousInVariableOrder(tail);
+  }
+
+  /**
+   * Returns the cumulative number of timer events that were processed by advancing the wheels,
+   * whether they were expired or cascaded into another bucket.
+   */
+  public long processed() {
+    return processed;
+  }
+
+  /**
+   * Returns how far the cascade lags behind the current time due to an exhausted budget, or zero if
+   * all of the elapsed buckets were processed.
+   */
+  public long lag() {
+    if (pendingWheel == wheel.length) {
+      return 0L;
+    }
+    return Math.max(0L, nanos - (cursor[pendingWheel] << shift[pendingWheel]));
   }
 
   /**
@@ -205,8 +335,8 @@ final class TimerWheel<K, V> {
     long duration = time - nanos;
     int length = wheel.length - 1;
     for (int i = 0; i < length; i++) {
-      if (duration < SPANS[i + 1]) {
-        long ticks = (time >>> SHIFT[i]);
+      if (duration < spans[i + 1]) {
+        long ticks = (time >>> shift[i]);
         int index = (int) (ticks & (wheel[i].length - 1));
         return wheel[i][index];
       }
@@ -236,11 +366,15 @@ final class TimerWheel<K, V> {
   /** Returns the duration until the next bucket expires, or {@link Long.MAX_VALUE} if none. */
   @SuppressWarnings("IntLongMath")
   public long getExpirationDelay() {
-    for (int i = 0; i < SHIFT.length; i++) {
+    if (pendingWheel != wheel.length) {
+      // the cascade was interrupted, so the elapsed buckets may still hold expired entries
+      return 0L;
+    }
+    for (int i = 0; i < shift.length; i++) {
       Node<K, V>[] timerWheel = wheel[i];
-      long ticks = (nanos >>> SHIFT[i]);
+      long ticks = (nanos >>> shift[i]);
 
-      long spanMask = SPANS[i] - 1;
+      long spanMask = spans[i] - 1;
       int start = (int) (ticks & spanMask);
       int end = start + timerWheel.length;
       int mask = timerWheel.length - 1;
@@ -251,10 +385,10 @@ final class TimerWheel<K, V> {
           continue;
         }
         long buckets = (j - start);
-        long delay = (buckets << SHIFT[i]) - (nanos & spanMask);
-        delay = (delay > 0) ? delay : SPANS[i];
+        long delay = (buckets << shift[i]) - (nanos & spanMask);
+        delay = (delay > 0) ? delay : spans[i];
 
-        for (int k = i + 1; k < SHIFT.length; k++) {
+        for (int k = i + 1; k < shift.length; k++) {
           long nextDelay = peekAhead(k);
           delay = Math.min(delay, nextDelay);
         }
@@ -269,15 +403,15 @@ final class TimerWheel<K, V> {
    * Returns the duration when the wheel's next bucket expires, or {@link Long.MAX_VALUE} if empty.
    */
   long peekAhead(int i) {
-    long ticks = (nanos >>> SHIFT[i]);
+    long ticks = (nanos >>> shift[i]);
     Node<K, V>[] timerWheel = wheel[i];
 
-    long spanMask = SPANS[i] - 1;
+    long spanMask = spans[i] - 1;
     int mask = timerWheel.length - 1;
     int probe = (int) ((ticks  + 1) & mask);
     Node<K, V> sentinel = timerWheel[probe];
     Node<K, V> next = sentinel.getNextInVariableOrder();
-    return (next == sentinel) ? Long.MAX_VALUE : (SPANS[i] - (nanos & spanMask));
+    return (next == sentinel) ? Long.MAX_VALUE : (spans[i] - (nanos & spanMask));
   }
 
   /**
@@ -299,7 +433,7 @@ final class TimerWheel<K, V> {
       int indexOffset = ascending ? i : -i;
       int index = startLevel + indexOffset;
 
-      int ticks = (int) (nanos >>> SHIFT[index]);
+      int ticks = (int) (nanos >>> shift[index]);
       int bucketMask = (wheel[index].length - 1);
       int startBucket = (ticks & bucketMask) + (ascending ? 1 : 0);
       for (int j = 0; j < wheel[index].length; j++) {
@@ -22,6 +22,7 @@ import static java.util.Objects.requireNonNull;
 import java.io.InvalidObjectException;
 import java.io.ObjectInputStream;
 import java.io.Serializable;
+import java.time.Duration;
 import java.util.AbstractCollection;
 import java.util.AbstractSet;
 import java.util.Collection;
@@ -59,6 +60,8 @@ final class UnboundedLocalCache<K, V> implements LocalCache<K, V> {
   final StatsCounter statsCounter;
   final boolean isRecordingStats;
   final CacheWriter<K, V> writer;
+  final @Nullable LoadLimiter loadLimiter;
+  final @Nullable Cache<K, Boolean> absentLoads;
   final Executor executor;
   final Ticker ticker;
 
@@ -72,6 +75,8 @@ final class UnboundedLocalCache<K, V> implements LocalCache<K, V> {
     this.removalListener = builder.getRemovalListener(async);
     this.isRecordingStats = builder.isRecordingStats();
     this.writer = builder.getCacheWriter();
+    this.loadLimiter = builder.getLoadLimiter();
+    this.absentLoads = builder.getAbsentLoads();
     this.executor = builder.getExecutor();
     this.ticker = builder.getTicker();
   }
@@ -167,6 +172,16 @@ final class UnboundedLocalCache<K, V> implements LocalCache<K, V> {
     return executor;
   }
 
+  @Override
+  public @Nullable LoadLimiter loadLimiter() {
+    return loadLimiter;
+  }
+
+  @Override
+  public @Nullable Cache<K, Boolean> absentLoads() {
+    return absentLoads;
+  }
+
   @Override
   public Ticker expirationTicker() {
     return Ticker.disabledTicker();
@@ -337,6 +352,10 @@ final class UnboundedLocalCache<K, V> implements LocalCache<K, V> {
 
   @Override
   public void clear() {
+    if (absentLoads != null) {
+      absentLoads.invalidateAll();
+    }
+
     if (!hasRemovalListener() && (writer == CacheWriter.disabledWriter())) {
       data.clear();
       return;
@@ -369,6 +388,9 @@ final class UnboundedLocalCache<K, V> implements LocalCache<K, V> {
   @Override
   public @Nullable V put(K key, V value, boolean notifyWriter) {
     requireNonNull(value);
+    if (absentLoads != null) {
+      absentLoads.invalidate(key);
+    }
 
     // ensures that the removal notification is processed after the removal has completed
     @SuppressWarnings({"unchecked", "rawtypes"})
@@ -395,6 +417,9 @@ final class UnboundedLocalCache<K, V> implements LocalCache<K, V> {
   @Override
   public @Nullable V putIfAbsent(K key, V value) {
     requireNonNull(value);
+    if (absentLoads != null) {
+      absentLoads.invalidate(key);
+    }
 
     boolean[] wasAbsent = new boolean[1];
     V val = data.computeIfAbsent(key, k -> {
@@ -407,6 +432,9 @@ final class UnboundedLocalCache<K, V> implements LocalCache<K, V> {
 
   @Override
   public void putAll(Map<? extends K, ? extends V> map) {
+    if (absentLoads != null) {
+      absentLoads.invalidateAll(map.keySet());
+    }
     if (!hasRemovalListener() && (writer == CacheWriter.disabledWriter())) {
       data.putAll(map);
       return;
@@ -416,6 +444,10 @@ final class UnboundedLocalCache<K, V> implements LocalCache<K, V> {
 
   @Override
   public @Nullable V remove(Object key) {
+    if (absentLoads != null) {
+      absentLoads.invalidate(key);
+    }
+
     @SuppressWarnings("unchecked")
     K castKey = (K) key;
     @SuppressWarnings({"unchecked", "rawtypes"})
@@ -884,6 +916,7 @@ final class UnboundedLocalCache<K, V> implements LocalCache<K, V> {
       proxy.removalListener = cache.removalListener;
       proxy.ticker = cache.ticker;
       proxy.writer = cache.writer;
+      proxy.setLoadingOptions(cache);
       return proxy;
     }
   }
@@ -903,6 +936,30 @@ final class UnboundedLocalCache<K, V> implements LocalCache<K, V> {
     @Override public V getIfPresentQuietly(Object key) {
       return transformer.apply(cache.data.get(key));
     }
+    @Override public int maintenanceBacklog() {
+      return 0;
+    }
+    @Override public long readBufferAccepted() {
+      return 0L;
+    }
+    @Override public long readBufferRejected() {
+      return 0L;
+    }
+    @Override public int inFlightLoads() {
+      return (cache.loadLimiter == null) ? 0 : cache.loadLimiter.inFlight();
+    }
+    @Override public int queuedLoads() {
+      return (cache.loadLimiter == null) ? 0 : cache.loadLimiter.queued();
+    }
+    @Override public long expirationTimersProcessed() {
+      return 0L;
+    }
+    @Override public Duration expirationLag() {
+      return Duration.ZERO;
+    }
+    @Override public Optional<MaintenanceStats> maintenanceStats() {
+      return Optional.empty();
+    }
     @Override public Optional<Eviction<K, V>> eviction() {
       return Optional.empty();
     }
@@ -930,8 +987,9 @@ final class UnboundedLocalCache<K, V> implements LocalCache<K, V> {
     UnboundedLocalLoadingCache(Caffeine<K, V> builder, CacheLoader<? super K, V> loader) {
       super(builder);
       this.loader = loader;
-      this.mappingFunction = newMappingFunction(loader);
-      this.bulkMappingFunction = newBulkMappingFunction(loader);
+      this.mappingFunction = newMappingFunction(loader, cache.absentLoads);
+      this.bulkMappingFunction = newBulkMappingFunction(
+          loader, cache.loadLimiter, cache.absentLoads);
     }
 
     @Override
@@ -1074,7 +1132,8 @@ final class UnboundedLocalCache<K, V> implements LocalCache<K, V> {
       proxy.removalListener = cache.removalListener();
       proxy.ticker = cache.ticker;
       proxy.writer = cache.writer;
-      proxy.loader = loader;
+      proxy.setLoadingOptions(cache);
+      writeLoader(proxy);
       proxy.async = true;
       return proxy;
     }
@@ -15,12 +15,15 @@
  */
 package com.github.benmanes.caffeine.cache.stats;
 
+import static java.util.Objects.requireNonNull;
+
 import java.util.Objects;
 
 import org.checkerframework.checker.index.qual.NonNegative;
 import org.checkerframework.checker.nullness.qual.NonNull;
 
 import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.github.benmanes.caffeine.cache.LoadingCache;
 import com.google.errorprone.annotations.Immutable;
 
@@ -45,6 +48,13 @@ import com.google.errorprone.annotations.Immutable;
  *       {@code loadSuccessCount} or {@code loadFailureCount} is incremented.
  *   <li>When an entry is evicted from the cache, {@code evictionCount} is incremented and the
  *       weight added to {@code evictionWeight}.
+ *   <li>When a lookup of a {@link LoadingCache} that {@linkplain Caffeine#cacheAbsentLoads
+ *       remembers absent loads} encounters a key whose recent load was absent, {@code
+ *       absentHitCount} is incremented instead of {@code hitCount} or {@code missCount}.
+ *   <li>When the {@link StatsCounter} records latencies, such as one created by
+ *       {@link ConcurrentStatsCounter#withLatencyHistograms()}, the duration of each load, refresh,
+ *       and maintenance cycle is added to the {@code loadLatency}, {@code refreshLatency}, and
+ *       {@code maintenanceLatency} histograms. A refresh is also counted as a load.
  *   <li>No stats are modified when a cache entry is invalidated or manually removed.
  *   <li>No stats are modified by non-computing operations invoked on the
  *       {@linkplain Cache#asMap asMap} view of the cache.
@@ -58,7 +68,7 @@ import com.google.errorprone.annotations.Immutable;
  */
 @Immutable
 public final class CacheStats {
-  private static final CacheStats EMPTY_STATS = new CacheStats(0, 0, 0, 0, 0, 0, 0);
+  private static final CacheStats EMPTY_STATS = new CacheStats(0, 0, 0, 0, 0, 0, 0, 0);
 
   private final long hitCount;
   private final long missCount;
@@ -67,6 +77,10 @@ public final class CacheStats {
   private final long totalLoadTime;
   private final long evictionCount;
   private final long evictionWeight;
+  private final long absentHitCount;
+  private final LatencyHistogram loadLatency;
+  private final LatencyHistogram refreshLatency;
+  private final LatencyHistogram maintenanceLatency;
 
   /**
    * Constructs a new {@code CacheStats} instance.
@@ -104,8 +118,55 @@ public final class CacheStats {
       @NonNegative long loadSuccessCount, @NonNegative long loadFailureCount,
       @NonNegative long totalLoadTime, @NonNegative long evictionCount,
       @NonNegative long evictionWeight) {
+    this(hitCount, missCount, loadSuccessCount, loadFailureCount,
+        totalLoadTime, evictionCount, evictionWeight, 0L);
+  }
+
+  /**
+   * Constructs a new {@code CacheStats} instance.
+   *
+   * @param hitCount the number of cache hits
+   * @param missCount the number of cache misses
+   * @param loadSuccessCount the number of successful cache loads
+   * @param loadFailureCount the number of failed cache loads
+   * @param totalLoadTime the total load time (success and failure)
+   * @param evictionCount the number of entries evicted from the cache
+   * @param evictionWeight the sum of weights of entries evicted from the cache
+   * @param absentHitCount the number of lookups that found a remembered absent load
+   */
+  public CacheStats(@NonNegative long hitCount, @NonNegative long missCount,
+      @NonNegative long loadSuccessCount, @NonNegative long loadFailureCount,
+      @NonNegative long totalLoadTime, @NonNegative long evictionCount,
+      @NonNegative long evictionWeight, @NonNegative long absentHitCount) {
+    this(hitCount, missCount, loadSuccessCount, loadFailureCount, totalLoadTime, evictionCount,
+        evictionWeight, absentHitCount, LatencyHistogram.empty(), LatencyHistogram.empty(),
+        LatencyHistogram.empty());
+  }
+
+  /**
+   * Constructs a new {@code CacheStats} instance.
+   *
+   * @param hitCount the number of cache hits
+   * @param missCount the number of cache misses
+   * @param loadSuccessCount the number of successful cache loads
+   * @param loadFailureCount the number of failed cache loads
+   * @param totalLoadTime the total load time (success and failure)
+   * @param evictionCount the number of entries evicted from the cache
+   * @param evictionWeight the sum of weights of entries evicted from the cache
+   * @param absentHitCount the number of lookups that found a remembered absent load
+   * @param loadLatency the distribution of load durations (success and failure)
+   * @param refreshLatency the distribution of refresh durations (success and failure)
+   * @param maintenanceLatency the distribution of maintenance cycle durations
+   */
+  public CacheStats(@NonNegative long hitCount, @NonNegative long missCount,
+      @NonNegative long loadSuccessCount, @NonNegative long loadFailureCount,
+      @NonNegative long totalLoadTime, @NonNegative long evictionCount,
+      @NonNegative long evictionWeight, @NonNegative long absentHitCount,
+      @NonNull LatencyHistogram loadLatency, @NonNull LatencyHistogram refreshLatency,
+      @NonNull LatencyHistogram maintenanceLatency) {
     if ((hitCount < 0) || (missCount < 0) || (loadSuccessCount < 0) || (loadFailureCount < 0)
-        || (totalLoadTime < 0) || (evictionCount < 0) || (evictionWeight < 0)) {
+        || (totalLoadTime < 0) || (evictionCount < 0) || (evictionWeight < 0)
+        || (absentHitCount < 0)) {
       throw new IllegalArgumentException();
     }
     this.hitCount = hitCount;
@@ -115,6 +176,10 @@ public final class CacheStats {
     this.totalLoadTime = totalLoadTime;
     this.evictionCount = evictionCount;
     this.evictionWeight = evictionWeight;
+    this.absentHitCount = absentHitCount;
+    this.loadLatency = requireNonNull(loadLatency);
+    this.refreshLatency = requireNonNull(refreshLatency);
+    this.maintenanceLatency = requireNonNull(maintenanceLatency);
   }
 
   /**
@@ -307,6 +372,52 @@ public final class CacheStats {
     return evictionWeight;
   }
 
+  /**
+   * Returns the number of times {@link LoadingCache} lookup methods have returned null without
+   * loading because the key's recent load was absent and is {@linkplain Caffeine#cacheAbsentLoads
+   * remembered}. These lookups are not included in the {@link #requestCount}.
+   *
+   * @return the number of times a lookup was served by a remembered absent load
+   */
+  @NonNegative
+  public long absentHitCount() {
+    return absentHitCount;
+  }
+
+  /**
+   * Returns the distribution of the time spent loading new values, including refreshes. The
+   * histogram is empty unless the {@link StatsCounter} records latencies.
+   *
+   * @return the distribution of load durations, in nanoseconds
+   */
+  @NonNull
+  public LatencyHistogram loadLatency() {
+    return loadLatency;
+  }
+
+  /**
+   * Returns the distribution of the time spent refreshing values. The histogram is empty unless
+   * the {@link StatsCounter} records latencies.
+   *
+   * @return the distribution of refresh durations, in nanoseconds
+   */
+  @NonNull
+  public LatencyHistogram refreshLatency() {
+    return refreshLatency;
+  }
+
+  /**
+   * Returns the distribution of the time spent performing the cache's maintenance, such as
+   * applying the pending policy updates and evicting entries. The histogram is empty unless the
+   * {@link StatsCounter} records latencies.
+   *
+   * @return the distribution of maintenance cycle durations, in nanoseconds
+   */
+  @NonNull
+  public LatencyHistogram maintenanceLatency() {
+    return maintenanceLatency;
+  }
+
   /**
    * Returns a new {@code CacheStats} representing the difference between this {@code CacheStats}
    * and {@code other}. Negative values, which aren't supported by {@code CacheStats} will be
@@ -324,7 +435,11 @@ public final class CacheStats {
         Math.max(0L, saturatedSubtract(loadFailureCount, other.loadFailureCount)),
         Math.max(0L, saturatedSubtract(totalLoadTime, other.totalLoadTime)),
         Math.max(0L, saturatedSubtract(evictionCount, other.evictionCount)),
-        Math.max(0L, saturatedSubtract(evictionWeight, other.evictionWeight)));
+        Math.max(0L, saturatedSubtract(evictionWeight, other.evictionWeight)),
+        Math.max(0L, saturatedSubtract(absentHitCount, other.absentHitCount)),
+        loadLatency.minus(other.loadLatency),
+        refreshLatency.minus(other.refreshLatency),
+        maintenanceLatency.minus(other.maintenanceLatency));
   }
 
   /**
@@ -347,7 +462,11 @@ public final class CacheStats {
         saturatedAdd(loadFailureCount, other.loadFailureCount),
         saturatedAdd(totalLoadTime, other.totalLoadTime),
         saturatedAdd(evictionCount, other.evictionCount),
-        saturatedAdd(evictionWeight, other.evictionWeight));
+        saturatedAdd(evictionWeight, other.evictionWeight),
+        saturatedAdd(absentHitCount, other.absentHitCount),
+        loadLatency.plus(other.loadLatency),
+        refreshLatency.plus(other.refreshLatency),
+        maintenanceLatency.plus(other.maintenanceLatency));
   }
 
   /**
@@ -384,8 +503,9 @@ public final class CacheStats {
 
   @Override
   public int hashCode() {
-    return Objects.hash(hitCount, missCount, loadSuccessCount,
-        loadFailureCount, totalLoadTime, evictionCount, evictionWeight);
+    return Objects.hash(hitCount, missCount, loadSuccessCount, loadFailureCount, totalLoadTime,
+        evictionCount, evictionWeight, absentHitCount, loadLatency, refreshLatency,
+        maintenanceLatency);
   }
 
   @Override
@@ -402,19 +522,34 @@ public final class CacheStats {
         && loadFailureCount == other.loadFailureCount
         && totalLoadTime == other.totalLoadTime
         && evictionCount == other.evictionCount
-        && evictionWeight == other.evictionWeight;
+        && evictionWeight == other.evictionWeight
+        && absentHitCount == other.absentHitCount
+        && loadLatency.equals(other.loadLatency)
+        && refreshLatency.equals(other.refreshLatency)
+        && maintenanceLatency.equals(other.maintenanceLatency);
   }
 
   @Override
   public String toString() {
-    return getClass().getSimpleName() + '{'
-        + "hitCount=" + hitCount + ", "
-        + "missCount=" + missCount + ", "
-        + "loadSuccessCount=" + loadSuccessCount + ", "
-        + "loadFailureCount=" + loadFailureCount + ", "
-        + "totalLoadTime=" + totalLoadTime + ", "
-        + "evictionCount=" + evictionCount + ", "
-        + "evictionWeight=" + evictionWeight
-        + '}';
+    StringBuilder s = new StringBuilder(256);
+    s.append(getClass().getSimpleName()).append('{')
+        .append("hitCount=").append(hitCount).append(", ")
+        .append("missCount=").append(missCount).append(", ")
+        .append("loadSuccessCount=").append(loadSuccessCount).append(", ")
+        .append("loadFailureCount=").append(loadFailureCount).append(", ")
+        .append("totalLoadTime=").append(totalLoadTime).append(", ")
+        .append("evictionCount=").append(evictionCount).append(", ")
+        .append("evictionWeight=").append(evictionWeight).append(", ")
+        .append("absentHitCount=").append(absentHitCount);
+    if (loadLatency.count() != 0L) {
+      s.append(", loadLatency=").append(loadLatency);
+    }
+    if (refreshLatency.count() != 0L) {
+      s.append(", refreshLatency=").append(refreshLatency);
+    }
+    if (maintenanceLatency.count() != 0L) {
+      s.append(", maintenanceLatency=").append(maintenanceLatency);
+    }
+    return s.append('}').toString();
   }
 }
@@ -16,10 +16,13 @@
 package com.github.benmanes.caffeine.cache.stats;
 
 import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
 
 import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.github.benmanes.caffeine.cache.RemovalCause;
 
 /**
@@ -35,11 +38,19 @@ public final class ConcurrentStatsCounter implements StatsCounter {
   private final LongAdder totalLoadTime;
   private final LongAdder evictionCount;
   private final LongAdder evictionWeight;
+  private final LongAdder absentHitCount;
+  private final @Nullable LatencyRecorder loadLatency;
+  private final @Nullable LatencyRecorder refreshLatency;
+  private final @Nullable LatencyRecorder maintenanceLatency;
 
   /**
    * Constructs an instance with all counts initialized to zero.
    */
   public ConcurrentStatsCounter() {
+    this(/* recordLatencies */ false);
+  }
+
+  private ConcurrentStatsCounter(boolean recordLatencies) {
     hitCount = new LongAdder();
     missCount = new LongAdder();
     loadSuccessCount = new LongAdder();
@@ -47,6 +58,23 @@ public final class ConcurrentStatsCounter implements StatsCounter {
     totalLoadTime = new LongAdder();
     evictionCount = new LongAdder();
     evictionWeight = new LongAdder();
+    absentHitCount = new LongAdder();
+    loadLatency = recordLatencies ? new LatencyRecorder() : null;
+    refreshLatency = recordLatencies ? new LatencyRecorder() : null;
+    maintenanceLatency = recordLatencies ? new LatencyRecorder() : null;
+  }
+
+  /**
+   * Returns an accumulator with all counts initialized to zero that also records the distribution
+   * of the load, refresh, and maintenance durations into {@link LatencyHistogram}s. This may be
+   * supplied to {@link Caffeine#recordStats(Supplier)}, such as by
+   * {@code recordStats(ConcurrentStatsCounter::withLatencyHistograms)}.
+   *
+   * @return an accumulator that records the latency histograms
+   */
+  @NonNull
+  public static ConcurrentStatsCounter withLatencyHistograms() {
+    return new ConcurrentStatsCounter(/* recordLatencies */ true);
   }
 
   @Override
@@ -63,12 +91,41 @@ public final class ConcurrentStatsCounter implements StatsCounter {
   public void recordLoadSuccess(long loadTime) {
     loadSuccessCount.increment();
     totalLoadTime.add(loadTime);
+    if (loadLatency != null) {
+      loadLatency.record(loadTime);
+    }
   }
 
   @Override
   public void recordLoadFailure(long loadTime) {
     loadFailureCount.increment();
     totalLoadTime.add(loadTime);
+    if (loadLatency != null) {
+      loadLatency.record(loadTime);
+    }
+  }
+
+  @Override
+  public void recordRefreshSuccess(long refreshTime) {
+    recordLoadSuccess(refreshTime);
+    if (refreshLatency != null) {
+      refreshLatency.record(refreshTime);
+    }
+  }
+
+  @Override
+  public void recordRefreshFailure(long refreshTime) {
+    recordLoadFailure(refreshTime);
+    if (refreshLatency != null) {
+      refreshLatency.record(refreshTime);
+    }
+  }
+
+  @Override
+  public void recordMaintenance(long maintenanceTime) {
+    if (maintenanceLatency != null) {
+      maintenanceLatency.record(maintenanceTime);
+    }
   }
 
   @Override @Deprecated
@@ -90,6 +147,11 @@ public final class ConcurrentStatsCounter implements StatsCounter {
     evictionWeight.add(weight);
   }
 
+  @Override
+  public void recordAbsentHits(int count) {
+    absentHitCount.add(count);
+  }
+
   @Override
   public CacheStats snapshot() {
     return new CacheStats(
@@ -99,7 +161,16 @@ public final class ConcurrentStatsCounter implements StatsCounter {
         negativeToMaxValue(loadFailureCount.sum()),
         negativeToMaxValue(totalLoadTime.sum()),
         negativeToMaxValue(evictionCount.sum()),
-        negativeToMaxValue(evictionWeight.sum()));
+        negativeToMaxValue(evictionWeight.sum()),
+        negativeToMaxValue(absentHitCount.sum()),
+        snapshotOf(loadLatency),
+        snapshotOf(refreshLatency),
+        snapshotOf(maintenanceLatency));
+  }
+
+  /** Returns the histogram of the recorded durations, or an empty one if not recorded. */
+  private static LatencyHistogram snapshotOf(@Nullable LatencyRecorder recorder) {
+    return (recorder == null) ? LatencyHistogram.empty() : recorder.snapshot();
   }
 
   /** Returns {@code value}, if non-negative. Otherwise, returns {@link Long#MAX_VALUE}. */
@@ -121,6 +192,16 @@ public final class ConcurrentStatsCounter implements StatsCounter {
     totalLoadTime.add(otherStats.totalLoadTime());
     evictionCount.add(otherStats.evictionCount());
     evictionWeight.add(otherStats.evictionWeight());
+    absentHitCount.add(otherStats.absentHitCount());
+    if (loadLatency != null) {
+      loadLatency.add(otherStats.loadLatency());
+    }
+    if (refreshLatency != null) {
+      refreshLatency.add(otherStats.refreshLatency());
+    }
+    if (maintenanceLatency != null) {
+      maintenanceLatency.add(otherStats.maintenanceLatency());
+    }
   }
 
   @Override
@@ -103,6 +103,42 @@ final class GuardedStatsCounter implements StatsCounter {
     }
   }
 
+  @Override
+  public void recordRefreshSuccess(long refreshTime) {
+    try {
+      delegate.recordRefreshSuccess(refreshTime);
+    } catch (Throwable t) {
+      logger.log(Level.WARNING, "Exception thrown by stats counter", t);
+    }
+  }
+
+  @Override
+  public void recordRefreshFailure(long refreshTime) {
+    try {
+      delegate.recordRefreshFailure(refreshTime);
+    } catch (Throwable t) {
+      logger.log(Level.WARNING, "Exception thrown by stats counter", t);
+    }
+  }
+
+  @Override
+  public void recordMaintenance(long maintenanceTime) {
+    try {
+      delegate.recordMaintenance(maintenanceTime);
+    } catch (Throwable t) {
+      logger.log(Level.WARNING, "Exception thrown by stats counter", t);
+    }
+  }
+
+  @Override
+  public void recordAbsentHits(int count) {
+    try {
+      delegate.recordAbsentHits(count);
+    } catch (Throwable t) {
+      logger.log(Level.WARNING, "Exception thrown by stats counter", t);
+    }
+  }
+
   @Override
   public CacheStats snapshot() {
     try {
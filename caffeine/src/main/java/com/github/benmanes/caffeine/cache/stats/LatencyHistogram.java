@@ -0,0 +1,222 @@
+/*
+ * Copyright 2020 Ben Manes. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.benmanes.caffeine.cache.stats;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.Arrays;
+
+import org.checkerframework.checker.index.qual.NonNegative;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+import com.google.errorprone.annotations.Immutable;
+
+/**
+ * An immutable snapshot of the distribution of durations, in nanoseconds, that were recorded by a
+ * {@link StatsCounter}. The durations are counted in logarithmic buckets, where each power of two
+ * is divided into eight linear sub-buckets, so that a reported value is within 12.5% of the
+ * recorded durations that it represents. Durations longer than about eighteen minutes are counted
+ * in the last bucket.
+ * <p>
+ * Instances of this class are obtained from {@link CacheStats}, such as by
+ * {@link CacheStats#loadLatency()}.
+ *
+ * @author ben.manes@gmail.com (Ben Manes)
+ */
+@Immutable
+@SuppressWarnings("Immutable")
+public final class LatencyHistogram {
+  static final int SUB_BUCKET_BITS = 3;
+  static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  static final int MAXIMUM_EXPONENT = 40;
+  static final int BUCKETS = (MAXIMUM_EXPONENT - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+  private static final LatencyHistogram EMPTY = new LatencyHistogram(new long[BUCKETS], 0L);
+
+  private final long[] counts;
+  private final long count;
+
+  private LatencyHistogram(long[] counts, long count) {
+    this.counts = counts;
+    this.count = count;
+  }
+
+  /**
+   * Returns a histogram where no durations have been recorded.
+   *
+   * @return an empty histogram
+   */
+  @NonNull
+  public static LatencyHistogram empty() {
+    return EMPTY;
+  }
+
+  /** Returns a histogram of the bucket counts, taking ownership of the array. */
+  static LatencyHistogram of(long[] counts) {
+    long count = 0L;
+    for (long bucketCount : counts) {
+      count = saturatedAdd(count, bucketCount);
+    }
+    return (count == 0L) ? EMPTY : new LatencyHistogram(counts, count);
+  }
+
+  /**
+   * Returns the number of durations that were recorded.
+   *
+   * @return the number of durations that were recorded
+   */
+  @NonNegative
+  public long count() {
+    return count;
+  }
+
+  /**
+   * Returns the duration, in nanoseconds, that the given percentage of the recorded durations are
+   * less than or equal to. The value is the upper bound of the bucket that the duration was counted
+   * in, or zero if no durations were recorded.
+   *
+   * @param percentile the percentage of durations, between {@code 0.0} and {@code 100.0}
+   * @return the duration at the percentile, in nanoseconds
+   * @throws IllegalArgumentException if the percentile is not between {@code 0.0} and
+   *         {@code 100.0}
+   */
+  @NonNegative
+  public long percentile(double percentile) {
+    if (!((percentile >= 0.0) && (percentile <= 100.0))) {
+      throw new IllegalArgumentException("percentile must be between 0 and 100: " + percentile);
+    } else if (count == 0L) {
+      return 0L;
+    }
+
+    long rank = Math.max(1L, (long) Math.ceil((percentile / 100.0) * count));
+    long seen = 0L;
+    for (int i = 0; i < counts.length; i++) {
+      seen += counts[i];
+      if (seen >= rank) {
+        return highestValueOf(i);
+      }
+    }
+    return max();
+  }
+
+  /**
+   * Returns the upper bound of the bucket of the longest recorded duration, in nanoseconds, or zero
+   * if no durations were recorded.
+   *
+   * @return the longest recorded duration, in nanoseconds
+   */
+  @NonNegative
+  public long max() {
+    for (int i = counts.length - 1; i >= 0; i--) {
+      if (counts[i] != 0L) {
+        return highestValueOf(i);
+      }
+    }
+    return 0L;
+  }
+
+  /**
+   * Returns a new histogram of the bucket-wise difference between this histogram and
+   * {@code other}. Negative counts are rounded up to zero.
+   *
+   * @param other the histogram to subtract with
+   * @return the difference between this instance and {@code other}
+   */
+  @NonNull
+  public LatencyHistogram minus(@NonNull LatencyHistogram other) {
+    requireNonNull(other);
+    long[] difference = new long[BUCKETS];
+    for (int i = 0; i < BUCKETS; i++) {
+      difference[i] = Math.max(0L, counts[i] - other.counts[i]);
+    }
+    return of(difference);
+  }
+
+  /**
+   * Returns a new histogram of the bucket-wise sum of this histogram and {@code other}.
+   *
+   * @param other the histogram to add with
+   * @return the sum of the histograms
+   */
+  @NonNull
+  public LatencyHistogram plus(@NonNull LatencyHistogram other) {
+    requireNonNull(other);
+    long[] sum = new long[BUCKETS];
+    for (int i = 0; i < BUCKETS; i++) {
+      sum[i] = saturatedAdd(counts[i], other.counts[i]);
+    }
+    return of(sum);
+  }
+
+  /** Returns the count recorded in the bucket. */
+  long bucketCount(int bucket) {
+    return counts[bucket];
+  }
+
+  /** Returns the index of the bucket that the duration is counted in. */
+  static int bucketFor(long duration) {
+    if (duration < SUB_BUCKETS) {
+      return (int) Math.max(0L, duration);
+    }
+    int exponent = 63 - Long.numberOfLeadingZeros(duration);
+    if (exponent >= MAXIMUM_EXPONENT) {
+      return BUCKETS - 1;
+    }
+    int shift = exponent - SUB_BUCKET_BITS;
+    return ((shift + 1) << SUB_BUCKET_BITS) + (int) ((duration >>> shift) & (SUB_BUCKETS - 1));
+  }
+
+  /** Returns the largest duration that is counted in the bucket. */
+  static long highestValueOf(int bucket) {
+    if (bucket < SUB_BUCKETS) {
+      return bucket;
+    }
+    int shift = (bucket >>> SUB_BUCKET_BITS) - 1;
+    long lowest = (long) (SUB_BUCKETS + (bucket & (SUB_BUCKETS - 1))) << shift;
+    return lowest + (1L << shift) - 1;
+  }
+
+  /** Returns the sum of {@code a} and {@code b}, or {@code Long.MAX_VALUE} if it overflows. */
+  private static long saturatedAdd(long a, long b) {
+    long naiveSum = a + b;
+    return (naiveSum < 0L) ? Long.MAX_VALUE : naiveSum;
+  }
+
+  @Override
+  public int hashCode() {
+    return Arrays.hashCode(counts);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (o == this) {
+      return true;
+    } else if (!(o instanceof LatencyHistogram)) {
+      return false;
+    }
+    return Arrays.equals(counts, ((LatencyHistogram) o).counts);
+  }
+
+  @Override
+  public String toString() {
+    return getClass().getSimpleName() + '{'
+        + "count=" + count + ", "
+        + "p50=" + percentile(50.0) + ", "
+        + "p99=" + percentile(99.0) + ", "
+        + "max=" + max()
+        + '}';
+  }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2020 Ben Manes. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.benmanes.caffeine.cache.stats;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A concurrent recorder of durations into the buckets of a {@link LatencyHistogram}. Each bucket
+ * is a {@link LongAdder} so that threads recording similar durations do not contend on a single
+ * counter.
+ *
+ * @author ben.manes@gmail.com (Ben Manes)
+ */
+final class LatencyRecorder {
+  final LongAdder[] buckets;
+
+  LatencyRecorder() {
+    buckets = new LongAdder[LatencyHistogram.BUCKETS];
+    for (int i = 0; i < buckets.length; i++) {
+      buckets[i] = new LongAdder();
+    }
+  }
+
+  /** Records the duration, in nanoseconds. */
+  void record(long duration) {
+    buckets[LatencyHistogram.bucketFor(duration)].increment();
+  }
+
+  /** Adds the counts of the histogram to this recorder. */
+  void add(LatencyHistogram histogram) {
+    for (int i = 0; i < buckets.length; i++) {
+      long count = histogram.bucketCount(i);
+      if (count != 0L) {
+        buckets[i].add(count);
+      }
+    }
+  }
+
+  /** Returns a snapshot of the recorded durations. */
+  LatencyHistogram snapshot() {
+    long[] counts = new long[buckets.length];
+    for (int i = 0; i < buckets.length; i++) {
+      long count = buckets[i].sum();
+      counts[i] = (count >= 0L) ? count : Long.MAX_VALUE;
+    }
+    return LatencyHistogram.of(counts);
+  }
+}
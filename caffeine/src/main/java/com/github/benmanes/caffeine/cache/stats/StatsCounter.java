@@ -21,6 +21,8 @@ import org.checkerframework.checker.index.qual.NonNegative;
 import org.checkerframework.checker.nullness.qual.NonNull;
 
 import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
 import com.github.benmanes.caffeine.cache.RemovalCause;
 
 /**
@@ -71,6 +73,40 @@ public interface StatsCounter {
    */
   void recordLoadFailure(@NonNegative long loadTime);
 
+  /**
+   * Records the successful refresh of an entry, such as by {@link LoadingCache#refresh} or due to
+   * {@link Caffeine#refreshAfterWrite}. The default implementation records the refresh as a load.
+   *
+   * @param refreshTime the number of nanoseconds the cache spent computing or retrieving the new
+   *        value
+   */
+  default void recordRefreshSuccess(@NonNegative long refreshTime) {
+    // This method was added & implemented in version 2.9.0
+    recordLoadSuccess(refreshTime);
+  }
+
+  /**
+   * Records the failed refresh of an entry, because either an exception was thrown or the new value
+   * is null. The default implementation records the refresh as a load.
+   *
+   * @param refreshTime the number of nanoseconds the cache spent computing or retrieving the new
+   *        value prior to discovering the value doesn't exist or an exception being thrown
+   */
+  default void recordRefreshFailure(@NonNegative long refreshTime) {
+    // This method was added & implemented in version 2.9.0
+    recordLoadFailure(refreshTime);
+  }
+
+  /**
+   * Records the duration of a cycle of the cache's maintenance work, which applies the pending
+   * policy updates and evicts entries while holding the eviction lock.
+   *
+   * @param maintenanceTime the number of nanoseconds the cache spent performing its maintenance
+   */
+  default void recordMaintenance(@NonNegative long maintenanceTime) {
+    // This method was added & implemented in version 2.9.0
+  }
+
   /**
    * Records the eviction of an entry from the cache. This should only been called when an entry is
    * evicted due to the cache's eviction strategy, and not as a result of manual
@@ -109,6 +145,17 @@ public interface StatsCounter {
     recordEviction(weight);
   }
 
+  /**
+   * Records lookups that returned null without loading, because the key's recent load was absent
+   * and the cache {@linkplain Caffeine#cacheAbsentLoads remembers absent loads}. These lookups are
+   * recorded by neither {@link #recordHits} nor {@link #recordMisses}.
+   *
+   * @param count the number of lookups served by a remembered absent load
+   */
+  default void recordAbsentHits(@NonNegative int count) {
+    // This method was added & implemented in version 2.9.0
+  }
+
   /**
    * Returns a snapshot of this counter's values. Note that this may be an inconsistent view, as it
    * may be interleaved with update operations.
@@ -38,7 +38,10 @@ public final class BoundedBufferTest {
 
   @DataProvider
   public Object[][] buffer() {
-    return new Object[][] {{ new BoundedBuffer<String>() }};
+    return new Object[][] {
+        { new BoundedBuffer<String>(/* adaptive */ false) },
+        { new BoundedBuffer<String>(/* adaptive */ true) },
+    };
   }
 
   @Test(dataProvider = "buffer")
@@ -63,6 +66,65 @@ public final class BoundedBufferTest {
     assertThat(read[0], is(buffer.writes()));
   }
 
+  @Test
+  public void rejected() {
+    BoundedBuffer<String> buffer = new BoundedBuffer<>(/* adaptive */ false);
+    for (int i = 0; i < (2 * BoundedBuffer.BUFFER_SIZE); i++) {
+      buffer.offer(DUMMY);
+    }
+    assertThat(buffer.accepted(), is((long) BoundedBuffer.BUFFER_SIZE));
+    assertThat(buffer.rejected(), is((long) BoundedBuffer.BUFFER_SIZE));
+  }
+
+  @Test
+  public void rejected_concurrent() {
+    BoundedBuffer.RingBuffer<String> buffer =
+        new BoundedBuffer.RingBuffer<>(DUMMY, BoundedBuffer.BUFFER_SIZE);
+    for (int i = 1; i < BoundedBuffer.BUFFER_SIZE; i++) {
+      assertThat(buffer.offer(DUMMY), is(Buffer.SUCCESS));
+    }
+
+    ConcurrentTestHarness.timeTasks(10, () -> {
+      for (int i = 0; i < 1000; i++) {
+        buffer.offer(DUMMY);
+      }
+    });
+    assertThat(buffer.rejected(), is(10L * 1000));
+  }
+
+  @Test
+  public void adaptive_grow() {
+    BoundedBuffer<String> buffer = new BoundedBuffer<>(/* adaptive */ true);
+    for (int round = 0; round < 4; round++) {
+      for (int i = 0; i < BoundedBuffer.MAXIMUM_BUFFER_SIZE; i++) {
+        buffer.offer(DUMMY);
+      }
+      buffer.drainTo(e -> {});
+    }
+    for (int i = 0; i < BoundedBuffer.MAXIMUM_BUFFER_SIZE; i++) {
+      assertThat(buffer.offer(DUMMY), is(Buffer.SUCCESS));
+    }
+    assertThat(buffer.offer(DUMMY), is(Buffer.FULL));
+  }
+
+  @Test
+  public void adaptive_shrink() {
+    BoundedBuffer<String> buffer = new BoundedBuffer<>(/* adaptive */ true);
+    for (int round = 0; round < 4; round++) {
+      for (int i = 0; i < BoundedBuffer.MAXIMUM_BUFFER_SIZE; i++) {
+        buffer.offer(DUMMY);
+      }
+      buffer.drainTo(e -> {});
+    }
+    for (int round = 0; round < 4; round++) {
+      buffer.drainTo(e -> {});
+    }
+    for (int i = 0; i < BoundedBuffer.BUFFER_SIZE; i++) {
+      assertThat(buffer.offer(DUMMY), is(Buffer.SUCCESS));
+    }
+    assertThat(buffer.offer(DUMMY), is(Buffer.FULL));
+  }
+
   @Test(dataProvider = "buffer")
   @SuppressWarnings("ThreadPriorityCheck")
   public void offerAndDrain(BoundedBuffer<String> buffer) {
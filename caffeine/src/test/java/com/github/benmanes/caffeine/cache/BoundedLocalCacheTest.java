@@ -27,19 +27,32 @@ import static java.util.Arrays.asList;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.either;
+import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.everyItem;
 import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.lessThan;
 import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.mockito.ArgumentMatchers.any;
 
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.ReentrantLock;
 
 import org.mockito.Mockito;
@@ -48,6 +61,8 @@ import org.testng.annotations.Test;
 
 import com.github.benmanes.caffeine.cache.BoundedLocalCache.PerformCleanupTask;
 import com.github.benmanes.caffeine.cache.Policy.Eviction;
+import com.github.benmanes.caffeine.cache.References.LookupKeyPool;
+import com.github.benmanes.caffeine.cache.References.ReusableLookupKeyReference;
 import com.github.benmanes.caffeine.cache.References.WeakKeyReference;
 import com.github.benmanes.caffeine.cache.testing.CacheContext;
 import com.github.benmanes.caffeine.cache.testing.CacheProvider;
@@ -69,6 +84,7 @@ import com.github.benmanes.caffeine.testing.ConcurrentTestHarness;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterables;
+import com.google.common.testing.FakeTicker;
 import com.google.common.testing.GcFinalization;
 
 /**
@@ -115,6 +131,519 @@ public final class BoundedLocalCacheTest {
     });
   }
 
+  @Test
+  public void maintenanceBudget() {
+    Cache<Integer, Integer> cache = Caffeine.newBuilder()
+        .executor(task -> {})
+        .maintenanceBudget(1)
+        .maximumSize(100)
+        .build();
+    BoundedLocalCache<Integer, Integer> localCache = asBoundedLocalCache(cache);
+    for (int i = 0; i < 10; i++) {
+      cache.put(i, -i);
+    }
+    assertThat(cache.policy().maintenanceBacklog(), is(10));
+
+    cache.cleanUp();
+    assertThat(cache.policy().maintenanceBacklog(), is(9));
+    assertThat(localCache.drainStatus, is(PROCESSING_TO_IDLE));
+
+    for (int i = 0; i < 9; i++) {
+      cache.cleanUp();
+    }
+    assertThat(cache.policy().maintenanceBacklog(), is(0));
+    assertThat(localCache.accessOrderWindowDeque().size()
+        + localCache.accessOrderProbationDeque().size(), is(10));
+  }
+
+  @Test
+  public void maintenanceBudget_reschedules() {
+    Queue<Runnable> tasks = new ArrayDeque<>();
+    Cache<Integer, Integer> cache = Caffeine.newBuilder()
+        .maintenanceBudget(1)
+        .executor(tasks::add)
+        .maximumSize(100)
+        .build();
+    for (int i = 0; i < 10; i++) {
+      cache.put(i, -i);
+    }
+    tasks.clear();
+
+    cache.cleanUp();
+    assertThat(cache.policy().maintenanceBacklog(), is(9));
+    assertThat(tasks, hasSize(1));
+
+    int executed = 0;
+    for (Runnable task; (task = tasks.poll()) != null; executed++) {
+      task.run();
+    }
+    assertThat(executed, is(9));
+    assertThat(cache.policy().maintenanceBacklog(), is(0));
+    assertThat(asBoundedLocalCache(cache).drainStatus, is(IDLE));
+  }
+
+  @Test
+  public void readBufferCounters() {
+    Cache<Integer, Integer> cache = Caffeine.newBuilder()
+        .executor(task -> {})
+        .maximumSize(1)
+        .build();
+    cache.put(1, 1);
+    cache.cleanUp();
+
+    for (int i = 0; i < (2 * BoundedBuffer.MAXIMUM_BUFFER_SIZE); i++) {
+      cache.getIfPresent(1);
+    }
+    assertThat(cache.policy().readBufferAccepted(), is((long) BoundedBuffer.BUFFER_SIZE));
+    assertThat(cache.policy().readBufferRejected(),
+        is((long) (2 * BoundedBuffer.MAXIMUM_BUFFER_SIZE - BoundedBuffer.BUFFER_SIZE)));
+  }
+
+  @Test
+  public void frequencySketch_import() {
+    Cache<Integer, Integer> peer = Caffeine.newBuilder()
+        .executor(Runnable::run)
+        .maximumSize(100)
+        .build();
+    for (int i = 0; i < 100; i++) {
+      peer.put(i, -i);
+    }
+    for (int i = 0; i < 5; i++) {
+      peer.getIfPresent(1);
+    }
+    peer.cleanUp();
+    int frequency = asBoundedLocalCache(peer).frequencyOf(1);
+    byte[] sketch = peer.policy().eviction().get().exportFrequencySketch();
+
+    Cache<Integer, Integer> cache = Caffeine.newBuilder()
+        .executor(Runnable::run)
+        .maximumSize(100)
+        .build();
+    BoundedLocalCache<Integer, Integer> localCache = asBoundedLocalCache(cache);
+    assertThat(localCache.frequencySketch().isNotInitialized(), is(true));
+
+    cache.policy().eviction().get().importFrequencySketch(sketch);
+    assertThat(localCache.frequencyOf(1), is(frequency));
+
+    cache.policy().eviction().get().mergeFrequencySketch(sketch);
+    assertThat(localCache.frequencyOf(1), is(frequency));
+  }
+
+  @Test
+  public void refreshAhead() {
+    FakeTicker ticker = new FakeTicker();
+    LoadingCache<Integer, Integer> cache = Caffeine.newBuilder()
+        .refreshAfterWrite(1, TimeUnit.MINUTES)
+        .executor(Runnable::run)
+        .ticker(ticker::read)
+        .refreshAhead(1)
+        .build(key -> -key + (int) TimeUnit.NANOSECONDS.toMinutes(ticker.read()));
+    cache.put(1, -1);
+    cache.cleanUp();
+
+    ticker.advance(30, TimeUnit.SECONDS);
+    cache.cleanUp();
+    assertThat(cache.policy().getIfPresentQuietly(1), is(-1));
+
+    ticker.advance(1, TimeUnit.MINUTES);
+    cache.cleanUp();
+    assertThat(cache.policy().getIfPresentQuietly(1), is(0));
+  }
+
+  @Test
+  public void refreshAhead_permits() {
+    FakeTicker ticker = new FakeTicker();
+    AtomicInteger reloads = new AtomicInteger();
+    CompletableFuture<Integer> reload = new CompletableFuture<>();
+    LoadingCache<Integer, Integer> cache = Caffeine.newBuilder()
+        .refreshAfterWrite(1, TimeUnit.MINUTES)
+        .executor(Runnable::run)
+        .ticker(ticker::read)
+        .refreshAhead(1)
+        .build(new CacheLoader<Integer, Integer>() {
+          @Override public Integer load(Integer key) {
+            return -key;
+          }
+          @Override public CompletableFuture<Integer> asyncReload(
+              Integer key, Integer oldValue, Executor executor) {
+            reloads.incrementAndGet();
+            return reload;
+          }
+        });
+    cache.putAll(ImmutableMap.of(1, -1, 2, -2, 3, -3));
+    cache.cleanUp();
+
+    ticker.advance(2, TimeUnit.MINUTES);
+    cache.cleanUp();
+    assertThat(reloads.get(), is(1));
+
+    ticker.advance(2, TimeUnit.MINUTES);
+    cache.cleanUp();
+    assertThat(reloads.get(), is(1));
+
+    reload.complete(0);
+    ticker.advance(2, TimeUnit.MINUTES);
+    cache.cleanUp();
+    assertThat(reloads.get(), is(2));
+  }
+
+  @Test
+  public void refreshAhead_prioritizesPopular() {
+    FakeTicker ticker = new FakeTicker();
+    AtomicInteger reloaded = new AtomicInteger();
+    LoadingCache<Integer, Integer> cache = Caffeine.newBuilder()
+        .refreshAfterWrite(1, TimeUnit.MINUTES)
+        .executor(Runnable::run)
+        .ticker(ticker::read)
+        .maximumSize(10)
+        .refreshAhead(1)
+        .build(new CacheLoader<Integer, Integer>() {
+          @Override public Integer load(Integer key) {
+            return -key;
+          }
+          @Override public CompletableFuture<Integer> asyncReload(
+              Integer key, Integer oldValue, Executor executor) {
+            reloaded.set(key);
+            return new CompletableFuture<>();
+          }
+        });
+    for (int i = 0; i < 10; i++) {
+      cache.put(i, -i);
+    }
+    for (int i = 0; i < 5; i++) {
+      asBoundedLocalCache(cache).frequencySketch().increment(7);
+    }
+    cache.cleanUp();
+
+    ticker.advance(2, TimeUnit.MINUTES);
+    cache.cleanUp();
+    assertThat(reloaded.get(), is(7));
+  }
+
+  @Test
+  public void refreshAhead_skipsExpired() {
+    FakeTicker ticker = new FakeTicker();
+    AtomicInteger reloads = new AtomicInteger();
+    LoadingCache<Integer, Integer> cache = Caffeine.newBuilder()
+        .expireAfterWrite(2, TimeUnit.MINUTES)
+        .refreshAfterWrite(1, TimeUnit.MINUTES)
+        .executor(Runnable::run)
+        .ticker(ticker::read)
+        .build(new CacheLoader<Integer, Integer>() {
+          @Override public Integer load(Integer key) {
+            return -key;
+          }
+          @Override public CompletableFuture<Integer> asyncReload(
+              Integer key, Integer oldValue, Executor executor) {
+            reloads.incrementAndGet();
+            return CompletableFuture.completedFuture(0);
+          }
+        });
+    cache.put(1, -1);
+
+    ticker.advance(3, TimeUnit.MINUTES);
+    asBoundedLocalCache(cache).refreshAheadEntries(new Semaphore(1));
+    assertThat(reloads.get(), is(0));
+  }
+
+  @Test
+  public void staleWhileRevalidate() {
+    FakeTicker ticker = new FakeTicker();
+    LoadingCache<Integer, Integer> cache = Caffeine.newBuilder()
+        .staleWhileRevalidate(Duration.ofMinutes(1))
+        .expireAfterWrite(1, TimeUnit.MINUTES)
+        .executor(Runnable::run)
+        .ticker(ticker::read)
+        .build(key -> 10 * key);
+    cache.put(1, -1);
+    cache.put(2, -2);
+
+    ticker.advance(90, TimeUnit.SECONDS);
+    assertThat(cache.get(1), is(-1));
+    assertThat(cache.getIfPresent(1), is(10));
+
+    ticker.advance(1, TimeUnit.MINUTES);
+    assertThat(cache.getIfPresent(2), is(nullValue()));
+    assertThat(cache.get(2), is(20));
+  }
+
+  @Test
+  public void staleIfError() {
+    FakeTicker ticker = new FakeTicker();
+    AtomicInteger reloads = new AtomicInteger();
+    LoadingCache<Integer, Integer> cache = Caffeine.newBuilder()
+        .staleWhileRevalidate(Duration.ofMinutes(1))
+        .expireAfterWrite(1, TimeUnit.MINUTES)
+        .staleIfError(Duration.ofMinutes(5))
+        .executor(Runnable::run)
+        .ticker(ticker::read)
+        .build(new CacheLoader<Integer, Integer>() {
+          @Override public Integer load(Integer key) {
+            throw new AssertionError();
+          }
+          @Override public Integer reload(Integer key, Integer oldValue) {
+            reloads.incrementAndGet();
+            throw new IllegalStateException();
+          }
+        });
+    cache.put(1, -1);
+
+    ticker.advance(90, TimeUnit.SECONDS);
+    assertThat(cache.get(1), is(-1));
+    assertThat(reloads.get(), is(1));
+
+    ticker.advance(3, TimeUnit.MINUTES);
+    assertThat(cache.getIfPresent(1), is(-1));
+    assertThat(reloads.get(), is(2));
+
+    ticker.advance(2, TimeUnit.MINUTES);
+    assertThat(cache.getIfPresent(1), is(nullValue()));
+  }
+
+  @Test
+  public void staleIfError_serializationProxy() {
+    LoadingCache<Integer, Integer> cache = Caffeine.newBuilder()
+        .staleWhileRevalidate(Duration.ofMinutes(1))
+        .expireAfterWrite(2, TimeUnit.MINUTES)
+        .staleIfError(Duration.ofMinutes(5))
+        .jitter(0.1)
+        .build(key -> -key);
+    SerializationProxy<?, ?> proxy = (SerializationProxy<?, ?>)
+        ((BoundedLocalCache.BoundedLocalManualCache<?, ?>) cache).writeReplace();
+    Caffeine<Object, Object> builder = proxy.recreateCaffeine();
+
+    assertThat(builder.expiry, is(nullValue()));
+    assertThat(builder.refreshAfterWriteNanos, is((long) Caffeine.UNSET_INT));
+    assertThat(builder.expireAfterWriteNanos, is(TimeUnit.MINUTES.toNanos(2)));
+    assertThat(builder.getStaleWhileRevalidateNanos(), is(TimeUnit.MINUTES.toNanos(1)));
+    assertThat(builder.getStaleIfErrorNanos(), is(TimeUnit.MINUTES.toNanos(5)));
+    assertThat(builder.getJitter(), is(sameInstance(asBoundedLocalCache(cache).jitter)));
+
+    LoadingCache<Integer, Integer> copy = builder.build(key -> key);
+    assertThat(asBoundedLocalCache(copy).staleIfErrorAgeNanos,
+        is(asBoundedLocalCache(cache).staleIfErrorAgeNanos));
+    assertThat(asBoundedLocalCache(copy).refreshJitter,
+        is(sameInstance(asBoundedLocalCache(cache).refreshJitter)));
+  }
+
+  @Test
+  public void cacheAbsentLoads() {
+    FakeTicker ticker = new FakeTicker();
+    AtomicInteger loads = new AtomicInteger();
+    LoadingCache<Integer, Integer> cache = Caffeine.newBuilder()
+        .cacheAbsentLoads(Duration.ofMinutes(1), 100)
+        .executor(Runnable::run)
+        .ticker(ticker::read)
+        .maximumSize(100)
+        .recordStats()
+        .build(key -> {
+          loads.incrementAndGet();
+          return null;
+        });
+
+    assertThat(cache.get(1), is(nullValue()));
+    assertThat(cache.get(1), is(nullValue()));
+    assertThat(loads.get(), is(1));
+    assertThat(cache.asMap().containsKey(1), is(false));
+    assertThat(cache.stats().absentHitCount(), is(1L));
+    assertThat(cache.stats().requestCount(), is(1L));
+
+    cache.put(1, 2);
+    assertThat(cache.get(1), is(2));
+    cache.invalidate(1);
+    assertThat(cache.get(1), is(nullValue()));
+    assertThat(loads.get(), is(2));
+
+    ticker.advance(90, TimeUnit.SECONDS);
+    assertThat(cache.get(1), is(nullValue()));
+    assertThat(loads.get(), is(3));
+  }
+
+  @Test
+  public void getNode_weakKeys() {
+    Integer key = 1;
+    BoundedLocalCache<Integer, Integer> cache = (BoundedLocalCache<Integer, Integer>) Caffeine
+        .newBuilder().weakKeys().build().asMap();
+    cache.put(key, 2);
+
+    assertThat(cache.getNode(key).getValue(), is(2));
+    assertThat(cache.getNode(Integer.valueOf(-1)), is(nullValue()));
+
+    int index = LookupKeyPool.index();
+    ReusableLookupKeyReference lookupKey = cache.lookupKeys.slots.get(index);
+    assertThat(lookupKey.get(), is(nullValue()));
+
+    // falls back to allocating when the slot is claimed, such as by another thread
+    assertThat(cache.lookupKeys.acquire(index), is(sameInstance(lookupKey)));
+    assertThat(cache.getNode(key).getValue(), is(2));
+    assertThat(cache.lookupKeys.slots.get(index), is(nullValue()));
+    cache.lookupKeys.release(index, lookupKey);
+    assertThat(cache.lookupKeys.slots.get(index), is(sameInstance(lookupKey)));
+  }
+
+  @Test
+  public void getNode_weakKeys_identity() {
+    Integer key = Integer.valueOf(1_000);
+    Integer equal = Integer.valueOf(1_000);
+    BoundedLocalCache<Integer, Integer> cache = (BoundedLocalCache<Integer, Integer>) Caffeine
+        .newBuilder().weakKeys().build().asMap();
+    cache.put(key, 2);
+
+    assertThat(equal, is(not(sameInstance(key))));
+    assertThat(cache.getNode(equal), is(nullValue()));
+    assertThat(cache.getNode(key).getValue(), is(2));
+  }
+
+  @Test
+  public void serializationProxy_options() {
+    MaintenanceListener listener = cycle -> {};
+    CacheLoader<Integer, Integer> loader = new CacheLoader<Integer, Integer>() {
+      @Override public Integer load(Integer key) {
+        return -key;
+      }
+      @Override public Map<Integer, Integer> reloadAll(
+          Map<? extends Integer, ? extends Integer> oldValues) {
+        return ImmutableMap.of();
+      }
+    };
+    LoadingCache<Integer, Integer> cache = Caffeine.newBuilder()
+        .expirationResolution(Duration.ofMillis(1), Duration.ofHours(1))
+        .maximumConcurrentLoads(2, Duration.ofSeconds(1))
+        .cacheAbsentLoads(Duration.ofMinutes(1), 100)
+        .coalesceRefreshes(Duration.ofMillis(10), 5)
+        .refreshAfterWrite(1, TimeUnit.MINUTES)
+        .expireAfterWrite(2, TimeUnit.MINUTES)
+        .weigher((Integer key, Integer value) -> 1)
+        .recordMaintenance(listener)
+        .maintenanceBudget(16)
+        .expirationBudget(32)
+        .sizeAwareAdmission()
+        .adaptiveReadBuffer()
+        .maximumWeight(100)
+        .refreshAhead(3)
+        .jitter(0.1)
+        .build(loader);
+    SerializationProxy<?, ?> proxy = (SerializationProxy<?, ?>)
+        ((BoundedLocalCache.BoundedLocalManualCache<?, ?>) cache).writeReplace();
+    Caffeine<Object, Object> builder = proxy.recreateCaffeine();
+
+    assertThat(builder.isSizeAwareAdmission(), is(true));
+    assertThat(builder.hasAdaptiveReadBuffer(), is(true));
+    assertThat(builder.getMaintenanceBudget(), is(16));
+    assertThat(builder.getExpirationBudget(), is(32));
+    assertThat(builder.expirationResolutionNanos, is(TimeUnit.MILLISECONDS.toNanos(1)));
+    assertThat(builder.expirationHorizonNanos, is(TimeUnit.HOURS.toNanos(1)));
+    assertThat(builder.getRefreshAheadConcurrency(), is(3));
+    assertThat(builder.getRefreshCoalesceDelayNanos(), is(TimeUnit.MILLISECONDS.toNanos(10)));
+    assertThat(builder.getRefreshCoalesceBatchSize(), is(5));
+    assertThat(builder.loadConcurrency, is(2));
+    assertThat(builder.loadQueueTimeoutNanos, is(TimeUnit.SECONDS.toNanos(1)));
+    assertThat(builder.absentLoadsNanos, is(TimeUnit.MINUTES.toNanos(1)));
+    assertThat(builder.absentLoadsMaximum, is(100L));
+    assertThat(builder.maintenanceListener, is(sameInstance(listener)));
+
+    LoadingCache<Integer, Integer> copy = builder.build(loader);
+    assertThat(asBoundedLocalCache(copy).sizeAwareAdmission, is(true));
+    assertThat(asBoundedLocalCache(copy).timerWheel().spans,
+        is(asBoundedLocalCache(cache).timerWheel().spans));
+    assertThat(copy.policy().maintenanceStats().isPresent(), is(true));
+  }
+
+  @Test
+  public void serializationProxy_recordMaintenance() {
+    Cache<Integer, Integer> cache = Caffeine.newBuilder()
+        .maximumSize(10)
+        .recordMaintenance()
+        .build();
+    SerializationProxy<?, ?> proxy = (SerializationProxy<?, ?>)
+        ((BoundedLocalCache.BoundedLocalManualCache<?, ?>) cache).writeReplace();
+
+    assertThat(proxy.maintenanceListener, is(nullValue()));
+    assertThat(proxy.recreateCaffeine().maintenanceListener,
+        is(sameInstance(Caffeine.IGNORING_MAINTENANCE_LISTENER)));
+  }
+
+  @Test
+  public void recordMaintenance() {
+    List<MaintenanceStats> cycles = new ArrayList<>();
+    FakeTicker ticker = new FakeTicker().setAutoIncrementStep(1, TimeUnit.NANOSECONDS);
+    Cache<Integer, Integer> cache = Caffeine.newBuilder()
+        .recordMaintenance(cycles::add)
+        .executor(Runnable::run)
+        .ticker(ticker::read)
+        .maximumSize(10)
+        .build();
+    cache.put(1, 1);
+
+    // Each read of the ticker advances it by a nanosecond
+    MaintenanceStats cycle = cycles.get(0);
+    assertThat(cycle.cycleCount(), is(1L));
+    assertThat(cycle.readDrainTime(), is(1L));
+    assertThat(cycle.writeDrainTime(), is(1L));
+    assertThat(cycle.referenceDrainTime(), is(1L));
+    assertThat(cycle.expirationTime(), is(1L));
+    assertThat(cycle.evictionTime(), is(1L));
+    assertThat(cycle.climbTime(), is(1L));
+    assertThat(cycle.totalTime(), is(7L));
+    assertThat(cycle.lockWaitTime(), is(1L));
+    assertThat(cycle.lockHoldTime(), is(8L));
+    assertThat(cycle.writeBufferPeak(), is(1L));
+
+    MaintenanceStats totals = cycles.stream()
+        .reduce(MaintenanceStats.empty(), MaintenanceStats::plus);
+    assertThat(cache.policy().maintenanceStats().get(), is(totals));
+  }
+
+  @Test
+  public void recordMaintenance_listenerFails() {
+    Cache<Integer, Integer> cache = Caffeine.newBuilder()
+        .recordMaintenance(cycle -> { throw new IllegalStateException(); })
+        .executor(Runnable::run)
+        .maximumSize(10)
+        .build();
+    cache.put(1, 1);
+    cache.cleanUp();
+
+    assertThat(cache.getIfPresent(1), is(1));
+    assertThat(cache.policy().maintenanceStats().get().cycleCount(), is(greaterThan(1L)));
+  }
+
+  @Test
+  public void recordMaintenance_notifiedWithoutLock() {
+    AtomicReference<BoundedLocalCache<Integer, Integer>> localCache = new AtomicReference<>();
+    List<Boolean> lockHeld = new ArrayList<>();
+    Cache<Integer, Integer> cache = Caffeine.newBuilder()
+        .recordMaintenance(cycle -> lockHeld.add(localCache.get().evictionLock.isLocked()))
+        .executor(Runnable::run)
+        .maximumSize(10)
+        .build();
+    localCache.set(asBoundedLocalCache(cache));
+    cache.put(1, 1);
+    cache.cleanUp();
+
+    assertThat(lockHeld, is(not(empty())));
+    assertThat(lockHeld, everyItem(is(false)));
+  }
+
+  @Test
+  public void recordMaintenance_writeBufferRetries() {
+    BoundedLocalCache<Integer, Integer> cache = (BoundedLocalCache<Integer, Integer>) Caffeine
+        .newBuilder().recordMaintenance().maximumSize(10).build().asMap();
+    cache.evictionLock.lock();
+    try {
+      while (cache.writeBuffer().offer(() -> {})) {}
+      cache.afterWrite(() -> {});
+    } finally {
+      cache.evictionLock.unlock();
+    }
+    cache.cleanUp();
+
+    MaintenanceStats stats = cache.maintenanceRecorder.snapshot().get();
+    assertThat(stats.writeBufferRetries(), is((long) BoundedLocalCache.WRITE_BUFFER_RETRIES));
+    assertThat(stats.writeBufferOverflows(), is(1L));
+    assertThat(stats.writeBufferPeak(), is(greaterThan(0L)));
+  }
+
   @Test
   public void scheduleDrainBuffers() {
     Executor executor = Mockito.mock(Executor.class);
@@ -281,6 +810,87 @@ public final class BoundedLocalCacheTest {
     assertThat(evictionList, is(equalTo(asList(expect))));
   }
 
+  @Test
+  public void evict_sizeAwareAdmission_rejected() {
+    // The candidate (freq 2) beats the first victim (freq 1), but not the two that it displaces
+    assertThat(evictHeavyCandidate(/* sizeAware */ false, 2), containsInAnyOrder(3, 4, 9));
+    assertThat(evictHeavyCandidate(/* sizeAware */ true, 2), containsInAnyOrder(1, 2, 3, 4));
+  }
+
+  @Test
+  public void evict_sizeAwareAdmission_admitted() {
+    assertThat(evictHeavyCandidate(/* sizeAware */ false, 3), containsInAnyOrder(3, 4, 9));
+    assertThat(evictHeavyCandidate(/* sizeAware */ true, 3), containsInAnyOrder(3, 4, 9));
+  }
+
+  /**
+   * Fills the probation queue with four entries of weight 5 and frequency 1, and then adds a
+   * candidate of weight 10 that exceeds the maximum weight of 20.
+   */
+  private Set<Integer> evictHeavyCandidate(boolean sizeAware, int candidateFreq) {
+    Caffeine<Integer, Integer> builder = Caffeine.newBuilder()
+        .executor(CacheExecutor.DIRECT.create())
+        .weigher((Integer k, Integer v) -> v)
+        .maximumWeight(20);
+    if (sizeAware) {
+      builder.sizeAwareAdmission();
+    }
+    Cache<Integer, Integer> cache = builder.build();
+    BoundedLocalCache<Integer, Integer> localCache = asBoundedLocalCache(cache);
+    localCache.frequencySketch().ensureCapacity(1024);
+
+    for (int i = 1; i <= 4; i++) {
+      cache.put(i, 5);
+    }
+    for (int i = 1; i < candidateFreq; i++) {
+      localCache.frequencySketch().increment(9);
+    }
+    cache.put(9, 10);
+    cache.cleanUp();
+
+    assertThat(localCache.weightedSize(), is(20L));
+    return cache.asMap().keySet();
+  }
+
+  @Test
+  public void admitBySize() {
+    Cache<Integer, Integer> cache = Caffeine.newBuilder()
+        .executor(CacheExecutor.DIRECT.create())
+        .weigher((Integer k, Integer v) -> v)
+        .sizeAwareAdmission()
+        .maximumWeight(100)
+        .build();
+    BoundedLocalCache<Integer, Integer> localCache = asBoundedLocalCache(cache);
+    localCache.frequencySketch().ensureCapacity(1024);
+    for (int i = 1; i <= 4; i++) {
+      cache.put(i, 5);
+    }
+    cache.put(9, 12);
+    cache.put(10, 40);
+
+    localCache.evictionLock.lock();
+    try {
+      Node<Integer, Integer> victim = localCache.accessOrderProbationDeque().peekFirst();
+      Node<Integer, Integer> candidate = localCache.getNode(9);
+      assertThat(victim.getKey(), is(1));
+      assertThat(localCache.admitBySize(candidate, 9, victim), is(0));
+
+      for (int i = 0; i < 3; i++) {
+        localCache.frequencySketch().increment(9);
+      }
+      assertThat(localCache.admitBySize(candidate, 9, victim), is(3));
+
+      // The victims preceding the candidate are lighter than it
+      Node<Integer, Integer> heavy = localCache.getNode(10);
+      for (int i = 0; i < 15; i++) {
+        localCache.frequencySketch().increment(10);
+      }
+      assertThat(localCache.admitBySize(heavy, 10, victim), is(0));
+    } finally {
+      localCache.evictionLock.unlock();
+    }
+  }
+
   @Test(groups = "slow")
   public void evict_update() {
     Integer key = 0;
@@ -0,0 +1,231 @@
+/*
+ * Copyright 2020 Ben Manes. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.benmanes.caffeine.cache;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.testng.annotations.Test;
+
+import com.github.benmanes.caffeine.cache.BoundedLongCache.LongNode;
+import com.github.benmanes.caffeine.cache.BoundedLongCache.Segment;
+import com.github.benmanes.caffeine.testing.ConcurrentTestHarness;
+
+/**
+ * @author ben.manes@gmail.com (Ben Manes)
+ */
+public final class BoundedLongCacheTest {
+
+  @Test
+  public void getIfPresent() {
+    LongCache<Integer> cache = Caffeine.newBuilder()
+        .executor(Runnable::run)
+        .maximumSize(100)
+        .recordStats()
+        .buildLong();
+    cache.put(1L, 1);
+
+    assertThat(cache.getIfPresent(1L), is(1));
+    assertThat(cache.getIfPresent(2L), is(nullValue()));
+    assertThat(cache.stats().hitCount(), is(1L));
+    assertThat(cache.stats().missCount(), is(1L));
+  }
+
+  @Test
+  public void get() {
+    LongLoadingCache<Long> cache = Caffeine.newBuilder()
+        .executor(Runnable::run)
+        .maximumSize(100)
+        .recordStats()
+        .buildLong(key -> -key);
+
+    assertThat(cache.get(1L), is(-1L));
+    assertThat(cache.get(1L, key -> key), is(-1L));
+    assertThat(cache.get(2L, key -> null), is(nullValue()));
+    assertThat(cache.estimatedSize(), is(1L));
+    assertThat(cache.stats().loadSuccessCount(), is(1L));
+    assertThat(cache.stats().loadFailureCount(), is(1L));
+  }
+
+  @Test(expectedExceptions = IllegalStateException.class)
+  public void get_recursive() {
+    LongCache<Long> cache = Caffeine.newBuilder().maximumSize(100).buildLong();
+    cache.get(1L, key -> cache.get(key, k -> k));
+  }
+
+  @Test
+  public void put_replace() {
+    List<RemovalCause> causes = new ArrayList<>();
+    LongCache<Integer> cache = Caffeine.newBuilder()
+        .removalListener((key, value, cause) -> causes.add(cause))
+        .executor(Runnable::run)
+        .maximumSize(100)
+        .buildLong();
+    cache.put(1L, 1);
+    cache.put(1L, 2);
+
+    assertThat(cache.getIfPresent(1L), is(2));
+    assertThat(cache.estimatedSize(), is(1L));
+    assertThat(causes, contains(RemovalCause.REPLACED));
+  }
+
+  @Test
+  public void invalidate() {
+    List<RemovalCause> causes = new ArrayList<>();
+    LongCache<Integer> cache = Caffeine.newBuilder()
+        .removalListener((key, value, cause) -> causes.add(cause))
+        .executor(Runnable::run)
+        .maximumSize(100)
+        .buildLong();
+    for (long i = 0; i < 10; i++) {
+      cache.put(i, (int) i);
+    }
+    cache.invalidate(1L);
+    assertThat(cache.getIfPresent(1L), is(nullValue()));
+    assertThat(cache.estimatedSize(), is(9L));
+
+    cache.invalidateAll();
+    cache.cleanUp();
+    assertThat(cache.estimatedSize(), is(0L));
+    assertThat(causes, everyItem(is(RemovalCause.EXPLICIT)));
+    assertThat(causes.size(), is(10));
+    assertThat(((BoundedLongCache<?>) cache).size, is(0L));
+  }
+
+  @Test
+  public void evict_retainsFrequent() {
+    List<RemovalCause> causes = new ArrayList<>();
+    LongCache<Long> cache = Caffeine.newBuilder()
+        .removalListener((key, value, cause) -> causes.add(cause))
+        .executor(Runnable::run)
+        .maximumSize(1_000)
+        .recordStats()
+        .buildLong();
+    for (long i = 0; i < 100_000; i++) {
+      cache.put(i, i);
+      if ((i % 7) == 0) {
+        for (long hot = 0; hot < 100; hot++) {
+          cache.getIfPresent(hot);
+        }
+      }
+    }
+    cache.cleanUp();
+
+    assertThat(cache.estimatedSize(), is(1_000L));
+    assertThat(cache.stats().evictionCount(), is(99_000L));
+    assertThat(causes, everyItem(is(RemovalCause.SIZE)));
+
+    int retained = 0;
+    for (long hot = 0; hot < 100; hot++) {
+      retained += (cache.getIfPresent(hot) == null) ? 0 : 1;
+    }
+    assertThat(retained, is(greaterThan(90)));
+  }
+
+  @Test
+  public void table_rebuild() {
+    BoundedLongCache<Long> cache = (BoundedLongCache<Long>) Caffeine.newBuilder()
+        .executor(Runnable::run)
+        .maximumSize(100_000)
+        .initialCapacity(0)
+        .<Long>buildLong();
+    for (int round = 0; round < 10; round++) {
+      for (long i = 0; i < 1_000; i++) {
+        cache.put(i, i);
+      }
+      for (long i = 0; i < 1_000; i++) {
+        assertThat(cache.getIfPresent(i), is(i));
+        cache.invalidate(i);
+      }
+    }
+    assertThat(cache.estimatedSize(), is(0L));
+
+    // A probe always reaches an empty slot
+    for (Segment<Long> segment : cache.segments) {
+      assertThat(4 * (segment.count + segment.tombstones),
+          is(lessThanOrEqualTo(3 * segment.table.length())));
+    }
+  }
+
+  @Test
+  public void concurrent() {
+    BoundedLongCache<Long> cache = (BoundedLongCache<Long>) Caffeine.newBuilder()
+        .maximumSize(500)
+        .<Long>buildLong();
+    ConcurrentTestHarness.timeTasks(8, () -> {
+      Random random = ThreadLocalRandom.current();
+      for (int i = 0; i < 100_000; i++) {
+        long key = random.nextInt(5_000);
+        int operation = random.nextInt(10);
+        if (operation < 6) {
+          Long value = cache.getIfPresent(key);
+          if (value != null) {
+            assertThat(value, is(key));
+          }
+        } else if (operation < 8) {
+          cache.put(key, key);
+        } else if (operation < 9) {
+          cache.get(key, k -> k);
+        } else {
+          cache.invalidate(key);
+        }
+      }
+    });
+    cache.cleanUp();
+
+    long live = 0;
+    for (Segment<Long> segment : cache.segments) {
+      for (int i = 0; i < segment.table.length(); i++) {
+        LongNode<Long> node = segment.table.get(i);
+        if ((node != null) && (node != BoundedLongCache.TOMBSTONE)) {
+          assertThat(node.value, is(node.key));
+          assertThat(node.queueType, is(not(BoundedLongCache.UNLINKED)));
+          live++;
+        }
+      }
+    }
+    assertThat(live, is(cache.estimatedSize()));
+    assertThat(live, is(cache.size));
+    assertThat(live, is(lessThanOrEqualTo(500L)));
+  }
+
+  @Test(expectedExceptions = IllegalStateException.class)
+  public void build_unbounded() {
+    Caffeine.newBuilder().buildLong();
+  }
+
+  @Test(expectedExceptions = IllegalStateException.class)
+  public void build_expiration() {
+    Caffeine.newBuilder().maximumSize(100).expireAfterWrite(1, TimeUnit.MINUTES).buildLong();
+  }
+
+  @Test(expectedExceptions = IllegalStateException.class)
+  public void build_weakValues() {
+    Caffeine.newBuilder().maximumSize(100).weakValues().buildLong(key -> key);
+  }
+}
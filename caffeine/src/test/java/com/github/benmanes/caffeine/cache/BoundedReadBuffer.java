@@ -0,0 +1,79 @@
+/*
+ * Copyright 2020 Ben Manes. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.benmanes.caffeine.cache;
+
+import java.util.function.Consumer;
+
+/**
+ * A read buffer strategy that delegates to the cache's {@link BoundedBuffer}.
+ *
+ * @author ben.manes@gmail.com (Ben Manes)
+ */
+public final class BoundedReadBuffer<E> extends ReadBuffer<E> {
+  /** The initial number of elements that each stripe accepts. */
+  public static final int STRIPE_SIZE = BoundedBuffer.BUFFER_SIZE;
+
+  final BoundedBuffer<E> buffer;
+
+  BoundedReadBuffer(boolean adaptive) {
+    buffer = new BoundedBuffer<>(adaptive);
+  }
+
+  /** Returns a buffer whose stripes have a fixed capacity. */
+  public static <E> BoundedReadBuffer<E> fixed() {
+    return new BoundedReadBuffer<>(/* adaptive */ false);
+  }
+
+  /** Returns a buffer whose stripes resize based on their rejection rate. */
+  public static <E> BoundedReadBuffer<E> adaptive() {
+    return new BoundedReadBuffer<>(/* adaptive */ true);
+  }
+
+  /** Returns the number of elements that the stripes accept, in total, until drained. */
+  public int capacity() {
+    Buffer<E>[] stripes = buffer.table;
+    if (stripes == null) {
+      return 0;
+    }
+    int capacity = 0;
+    for (Buffer<E> stripe : stripes) {
+      if (stripe != null) {
+        capacity += ((BoundedBuffer.RingBuffer<E>) stripe).capacity;
+      }
+    }
+    return capacity;
+  }
+
+  @Override
+  public int offer(E e) {
+    return buffer.offer(e);
+  }
+
+  @Override
+  public void drainTo(Consumer<E> consumer) {
+    buffer.drainTo(consumer);
+  }
+
+  @Override
+  public int reads() {
+    return buffer.reads();
+  }
+
+  @Override
+  public int writes() {
+    return buffer.writes();
+  }
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright 2020 Ben Manes. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.benmanes.caffeine.cache;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.github.benmanes.caffeine.cache.CacheSnapshot.Codec;
+import com.google.common.base.Strings;
+import com.google.common.primitives.Ints;
+
+/**
+ * @author ben.manes@gmail.com (Ben Manes)
+ */
+public final class CacheSnapshotTest {
+  static final Codec<Integer> INTEGER = new Codec<Integer>() {
+    @Override public byte[] encode(Integer value) {
+      return Ints.toByteArray(value);
+    }
+    @Override public Integer decode(byte[] bytes) {
+      return Ints.fromByteArray(bytes);
+    }
+  };
+  static final Codec<String> STRING = new Codec<String>() {
+    @Override public byte[] encode(String value) {
+      return value.getBytes(UTF_8);
+    }
+    @Override public String decode(byte[] bytes) {
+      return new String(bytes, UTF_8);
+    }
+  };
+
+  Path path;
+
+  @BeforeMethod
+  public void beforeMethod() throws IOException {
+    path = Files.createTempFile("cache", ".snapshot");
+  }
+
+  @AfterMethod
+  public void afterMethod() throws IOException {
+    Files.deleteIfExists(path);
+  }
+
+  @Test
+  public void roundTrip_unbounded() throws IOException {
+    Cache<Integer, String> cache = Caffeine.newBuilder().build();
+    for (int i = 0; i < 1_000; i++) {
+      cache.put(i, Integer.toString(i));
+    }
+    assertThat(CacheSnapshot.write(cache, path, INTEGER, STRING), is(1_000L));
+
+    Cache<Integer, String> restored = Caffeine.newBuilder().build();
+    assertThat(CacheSnapshot.read(restored, path, INTEGER, STRING), is(1_000L));
+    assertThat(restored.asMap(), is(cache.asMap()));
+  }
+
+  @Test
+  public void roundTrip_largeValue() throws IOException {
+    String value = Strings.repeat("a", 3 * CacheSnapshot.BUFFER_SIZE);
+    Cache<Integer, String> cache = Caffeine.newBuilder().build();
+    cache.put(1, "a");
+    cache.put(2, value);
+    cache.put(3, "b");
+    CacheSnapshot.write(cache, path, INTEGER, STRING);
+
+    Cache<Integer, String> restored = Caffeine.newBuilder().build();
+    CacheSnapshot.read(restored, path, INTEGER, STRING);
+    assertThat(restored.asMap(), is(cache.asMap()));
+  }
+
+  @Test
+  public void roundTrip_empty() throws IOException {
+    Cache<Integer, String> cache = Caffeine.newBuilder().maximumSize(10).build();
+    assertThat(CacheSnapshot.write(cache, path, INTEGER, STRING), is(0L));
+    assertThat(CacheSnapshot.read(cache, path, INTEGER, STRING), is(0L));
+  }
+
+  @Test
+  public void roundTrip_frequency() throws IOException {
+    Cache<Integer, String> cache = Caffeine.newBuilder()
+        .executor(Runnable::run).maximumSize(100).build();
+    for (int i = 0; i < 100; i++) {
+      cache.put(i, Integer.toString(i));
+    }
+    for (int i = 0; i < 5; i++) {
+      cache.getIfPresent(7);
+    }
+    cache.cleanUp();
+    BoundedLocalCache<?, ?> original = CacheSnapshot.boundedLocalCache(cache);
+    int frequency = original.frequencyOf(7);
+    assertThat(frequency > 1, is(true));
+    CacheSnapshot.write(cache, path, INTEGER, STRING);
+
+    Cache<Integer, String> restored = Caffeine.newBuilder()
+        .executor(Runnable::run).maximumSize(100).build();
+    CacheSnapshot.read(restored, path, INTEGER, STRING);
+    BoundedLocalCache<?, ?> bounded = CacheSnapshot.boundedLocalCache(restored);
+    assertThat(bounded.frequencyOf(7) >= frequency, is(true));
+    assertThat(restored.asMap(), is(cache.asMap()));
+  }
+
+  @Test
+  public void read_smallerMaximum() throws IOException {
+    Cache<Integer, String> cache = Caffeine.newBuilder()
+        .executor(Runnable::run).maximumSize(100).build();
+    for (int i = 0; i < 100; i++) {
+      cache.put(i, Integer.toString(i));
+    }
+    for (int i = 0; i < 10; i++) {
+      for (int key = 0; key < 10; key++) {
+        cache.getIfPresent(key);
+      }
+    }
+    cache.cleanUp();
+    CacheSnapshot.write(cache, path, INTEGER, STRING);
+
+    Cache<Integer, String> restored = Caffeine.newBuilder()
+        .executor(Runnable::run).maximumSize(10).build();
+    CacheSnapshot.read(restored, path, INTEGER, STRING);
+    restored.cleanUp();
+    assertThat(restored.estimatedSize(), is(10L));
+
+    // Allows for the sketch of the smaller cache to overestimate a cold entry due to collisions
+    long retained = restored.asMap().keySet().stream().filter(key -> key < 10).count();
+    assertThat(retained >= 9, is(true));
+  }
+
+  @Test
+  public void roundTrip_async() throws IOException {
+    AsyncCache<Integer, String> cache = Caffeine.newBuilder().maximumSize(10).buildAsync();
+    cache.synchronous().put(1, "a");
+    CacheSnapshot.write(cache.synchronous(), path, INTEGER, STRING);
+
+    AsyncCache<Integer, String> restored = Caffeine.newBuilder().maximumSize(10).buildAsync();
+    CacheSnapshot.read(restored.synchronous(), path, INTEGER, STRING);
+    assertThat(restored.synchronous().asMap(), is(cache.synchronous().asMap()));
+  }
+
+  @Test(expectedExceptions = StreamCorruptedException.class)
+  public void read_invalid() throws IOException {
+    Files.write(path, Strings.repeat("x", 64).getBytes(UTF_8));
+    CacheSnapshot.read(Caffeine.newBuilder().build(), path, INTEGER, STRING);
+  }
+
+  @Test(expectedExceptions = EOFException.class)
+  public void read_truncated() throws IOException {
+    Cache<Integer, String> cache = Caffeine.newBuilder().build();
+    cache.put(1, "a");
+    CacheSnapshot.write(cache, path, INTEGER, STRING);
+
+    byte[] bytes = Files.readAllBytes(path);
+    Files.write(path, Arrays.copyOf(bytes, bytes.length - 1));
+    CacheSnapshot.read(Caffeine.newBuilder().build(), path, INTEGER, STRING);
+  }
+
+  @Test(expectedExceptions = EOFException.class)
+  public void read_excessiveCount() throws IOException {
+    ByteBuffer header = ByteBuffer.allocate(CacheSnapshot.HEADER_SIZE).putInt(CacheSnapshot.MAGIC)
+        .putInt(CacheSnapshot.VERSION).putLong(Integer.MAX_VALUE);
+    Files.write(path, header.array());
+    CacheSnapshot.read(Caffeine.newBuilder().build(), path, INTEGER, STRING);
+  }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2020 Ben Manes. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.benmanes.caffeine.cache;
+
+import static com.github.benmanes.caffeine.testing.Awaits.await;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+import java.time.Duration;
+import java.util.concurrent.Future;
+
+import org.mockito.Mockito;
+import org.testng.annotations.Test;
+
+/**
+ * @author ben.manes@gmail.com (Ben Manes)
+ */
+public final class CachedTickerTest {
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void cachedTicker_zero() {
+    Ticker.cachedTicker(Duration.ZERO);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void cachedTicker_negative() {
+    Ticker.cachedTicker(Duration.ofMillis(-1));
+  }
+
+  @Test(expectedExceptions = ArithmeticException.class)
+  public void cachedTicker_overflow() {
+    Ticker.cachedTicker(Duration.ofSeconds(Long.MAX_VALUE));
+  }
+
+  @Test
+  public void read_cached() {
+    CachedTicker ticker = new CachedTicker(Long.MAX_VALUE);
+    long nanos = ticker.read();
+    assertThat(ticker.read(), is(nanos));
+    assertThat(nanos, is(lessThanOrEqualTo(System.nanoTime())));
+  }
+
+  @Test
+  public void tick() {
+    CachedTicker ticker = new CachedTicker(Long.MAX_VALUE);
+    long nanos = ticker.read();
+    await().until(() -> System.nanoTime() > nanos);
+
+    ticker.tick();
+    assertThat(ticker.read(), is(greaterThan(nanos)));
+  }
+
+  @Test
+  public void refreshed() {
+    Ticker ticker = Ticker.cachedTicker(Duration.ofMillis(1));
+    long nanos = ticker.read();
+    await().until(() -> ticker.read() > nanos);
+  }
+
+  @Test
+  public void tick_unreachable() {
+    CachedTicker.Tick tick = new CachedTicker.Tick(new CachedTicker(1));
+    Future<?> future = Mockito.mock(Future.class);
+    tick.future = future;
+
+    tick.clear();
+    tick.run();
+    Mockito.verify(future).cancel(false);
+  }
+
+  @Test
+  public void maintenanceTicker() {
+    Ticker ticker = Ticker.cachedTicker(Duration.ofSeconds(1));
+    Caffeine<?, ?> builder = Caffeine.newBuilder().ticker(ticker);
+    assertThat(builder.getTicker(), is(Ticker.disabledTicker()));
+    assertThat(builder.getMaintenanceTicker(), is(Ticker.systemTicker()));
+
+    builder.expireAfterWrite(Duration.ofMinutes(1));
+    assertThat(builder.getTicker(), is(ticker));
+  }
+}
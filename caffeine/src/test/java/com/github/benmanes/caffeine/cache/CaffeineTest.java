@@ -16,6 +16,8 @@
 package com.github.benmanes.caffeine.cache;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.nullValue;
@@ -188,6 +190,49 @@ public final class CaffeineTest {
     assertThat(builder.initialCapacity, is(Integer.MAX_VALUE));
   }
 
+  /* --------------- maintenanceBudget --------------- */
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void maintenanceBudget_zero() {
+    Caffeine.newBuilder().maintenanceBudget(0);
+  }
+
+  @Test(expectedExceptions = IllegalStateException.class)
+  public void maintenanceBudget_twice() {
+    Caffeine.newBuilder().maintenanceBudget(1).maintenanceBudget(1);
+  }
+
+  @Test
+  public void maintenanceBudget() {
+    Caffeine<?, ?> builder = Caffeine.newBuilder().maintenanceBudget(1);
+    assertThat(builder.getMaintenanceBudget(), is(1));
+    builder.build();
+  }
+
+  /* --------------- adaptiveReadBuffer --------------- */
+
+  @Test(expectedExceptions = IllegalStateException.class)
+  public void adaptiveReadBuffer_twice() {
+    Caffeine.newBuilder().adaptiveReadBuffer().adaptiveReadBuffer();
+  }
+
+  @Test(expectedExceptions = IllegalStateException.class)
+  public void adaptiveReadBuffer_unbounded() {
+    Caffeine.newBuilder().adaptiveReadBuffer().build();
+  }
+
+  @Test
+  public void adaptiveReadBuffer() {
+    Cache<Object, Object> fixed = Caffeine.newBuilder().maximumSize(10).build();
+    BoundedLocalCache<?, ?> fixedCache = (BoundedLocalCache<?, ?>) fixed.asMap();
+    assertThat(((BoundedBuffer<?>) fixedCache.readBuffer).adaptive, is(false));
+
+    Caffeine<Object, Object> builder = Caffeine.newBuilder().maximumSize(10).adaptiveReadBuffer();
+    assertThat(builder.hasAdaptiveReadBuffer(), is(true));
+    BoundedLocalCache<?, ?> adaptiveCache = (BoundedLocalCache<?, ?>) builder.build().asMap();
+    assertThat(((BoundedBuffer<?>) adaptiveCache.readBuffer).adaptive, is(true));
+  }
+
   /* --------------- maximumSize --------------- */
 
   @Test(expectedExceptions = IllegalArgumentException.class)
@@ -301,6 +346,31 @@ public final class CaffeineTest {
     builder.build();
   }
 
+  /* --------------- sizeAwareAdmission --------------- */
+
+  @Test(expectedExceptions = IllegalStateException.class)
+  public void sizeAwareAdmission_twice() {
+    Caffeine.newBuilder().sizeAwareAdmission().sizeAwareAdmission();
+  }
+
+  @Test(expectedExceptions = IllegalStateException.class)
+  public void sizeAwareAdmission_maximumSize() {
+    Caffeine.newBuilder().maximumSize(10).sizeAwareAdmission().build();
+  }
+
+  @Test(expectedExceptions = IllegalStateException.class)
+  public void sizeAwareAdmission_unbounded() {
+    Caffeine.newBuilder().sizeAwareAdmission().buildAsync();
+  }
+
+  @Test
+  public void sizeAwareAdmission() {
+    Caffeine<?, ?> builder = Caffeine.newBuilder()
+        .maximumWeight(10).weigher((k, v) -> 1).sizeAwareAdmission();
+    assertThat(builder.isSizeAwareAdmission(), is(true));
+    builder.build();
+  }
+
   /* --------------- expireAfterAccess --------------- */
 
   @Test(expectedExceptions = IllegalArgumentException.class)
@@ -470,6 +540,191 @@ public final class CaffeineTest {
     builder.build();
   }
 
+  /* --------------- jitter --------------- */
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void jitter_zero() {
+    Caffeine.newBuilder().jitter(0.0);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void jitter_one() {
+    Caffeine.newBuilder().jitter(1.0);
+  }
+
+  @Test(expectedExceptions = NullPointerException.class)
+  public void jitter_nullDuration() {
+    Caffeine.newBuilder().jitter(null);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void jitter_zeroDuration() {
+    Caffeine.newBuilder().jitter(Duration.ZERO);
+  }
+
+  @Test(expectedExceptions = IllegalStateException.class)
+  public void jitter_twice() {
+    Caffeine.newBuilder().jitter(0.1).jitter(Duration.ofMillis(1));
+  }
+
+  @Test(expectedExceptions = IllegalStateException.class)
+  public void jitter_noExpiration() {
+    Caffeine.newBuilder().jitter(0.1).build();
+  }
+
+  @Test(expectedExceptions = IllegalStateException.class)
+  public void jitter_expireAfterWriteAndAccess() {
+    Caffeine.newBuilder().jitter(0.1)
+        .expireAfterWrite(Duration.ofMillis(1))
+        .expireAfterAccess(Duration.ofMillis(1))
+        .build();
+  }
+
+  @Test
+  public void jitter_expireAfterWrite() {
+    Caffeine<Object, Object> builder = Caffeine.newBuilder()
+        .expireAfterWrite(Duration.ofMillis(1)).jitter(0.1);
+    assertThat(builder.expiresAfterWrite(), is(false));
+    assertThat(builder.expiresVariable(), is(true));
+    assertThat(builder.getExpiry(false), is(instanceOf(JitteredExpiry.class)));
+    assertThat(builder.build().policy().expireVariably().isPresent(), is(true));
+  }
+
+  @Test
+  public void jitter_expireAfterAccess() {
+    Caffeine<Object, Object> builder = Caffeine.newBuilder()
+        .expireAfterAccess(Duration.ofMillis(1)).jitter(Duration.ofMillis(1));
+    assertThat(builder.expiresAfterAccess(), is(false));
+    assertThat(builder.expiresVariable(), is(true));
+    builder.buildAsync();
+  }
+
+  @Test
+  public void jitter_expiry() {
+    Caffeine<Object, Object> builder = Caffeine.newBuilder().jitter(0.1)
+        .expireAfter(expiry);
+    assertThat(builder.getExpiry(false), is(instanceOf(JitteredExpiry.class)));
+    builder.build();
+  }
+
+  @Test
+  public void jitter_refreshAfterWrite() {
+    Caffeine<Object, Object> builder = Caffeine.newBuilder()
+        .refreshAfterWrite(Duration.ofMillis(1)).jitter(0.1);
+    assertThat(builder.expiresVariable(), is(false));
+    assertThat(builder.getJitter(), is(not(nullValue())));
+    builder.build(loader);
+  }
+
+  /* --------------- expirationResolution --------------- */
+
+  @Test(expectedExceptions = NullPointerException.class)
+  public void expirationResolution_null() {
+    Caffeine.newBuilder().expirationResolution(null, Duration.ofDays(1));
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void expirationResolution_zero() {
+    Caffeine.newBuilder().expirationResolution(Duration.ZERO, Duration.ofDays(1));
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void expirationResolution_horizon() {
+    Caffeine.newBuilder().expirationResolution(Duration.ofDays(1), Duration.ofDays(1));
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void expirationResolution_roundedHorizon() {
+    Caffeine.newBuilder().expirationResolution(Duration.ofSeconds(1), Duration.ofMillis(1050));
+  }
+
+  @Test(expectedExceptions = IllegalStateException.class)
+  public void expirationResolution_twice() {
+    Caffeine.newBuilder()
+        .expirationResolution(Duration.ofMillis(1), Duration.ofDays(1))
+        .expirationResolution(Duration.ofMillis(1), Duration.ofDays(1));
+  }
+
+  @Test(expectedExceptions = IllegalStateException.class)
+  public void expirationResolution_noVariableExpiration() {
+    Caffeine.newBuilder().expireAfterWrite(Duration.ofMillis(1))
+        .expirationResolution(Duration.ofMillis(1), Duration.ofDays(1)).build();
+  }
+
+  @Test
+  public void expirationResolution() {
+    Caffeine<Object, Object> builder = Caffeine.newBuilder().expireAfter(expiry)
+        .expirationResolution(Duration.ofMillis(1), Duration.ofDays(1));
+    BoundedLocalCache<Object, Object> cache =
+        ((BoundedLocalCache.BoundedLocalManualCache<Object, Object>) builder.build()).cache;
+    long resolution = Caffeine.ceilingPowerOfTwo(Duration.ofMillis(1).toNanos());
+    assertThat(cache.timerWheel().spans[0], is(resolution));
+  }
+
+  /* --------------- expirationBudget --------------- */
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void expirationBudget_zero() {
+    Caffeine.newBuilder().expirationBudget(0);
+  }
+
+  @Test(expectedExceptions = IllegalStateException.class)
+  public void expirationBudget_twice() {
+    Caffeine.newBuilder().expirationBudget(10).expirationBudget(10);
+  }
+
+  @Test(expectedExceptions = IllegalStateException.class)
+  public void expirationBudget_noVariableExpiration() {
+    Caffeine.newBuilder().expireAfterWrite(Duration.ofMillis(1)).expirationBudget(10).build();
+  }
+
+  @Test
+  public void expirationBudget() {
+    Caffeine<Object, Object> builder = Caffeine.newBuilder()
+        .expireAfter(expiry).expirationBudget(10);
+    assertThat(builder.getExpirationBudget(), is(10));
+
+    Cache<Object, Object> cache = builder.build();
+    assertThat(cache.policy().expirationLag(), is(Duration.ZERO));
+    assertThat(cache.policy().expirationTimersProcessed(), is(0L));
+  }
+
+  /* --------------- recordMaintenance --------------- */
+
+  @Test(expectedExceptions = NullPointerException.class)
+  public void recordMaintenance_null() {
+    Caffeine.newBuilder().recordMaintenance(null);
+  }
+
+  @Test(expectedExceptions = IllegalStateException.class)
+  public void recordMaintenance_twice() {
+    Caffeine.newBuilder().recordMaintenance().recordMaintenance(cycle -> {});
+  }
+
+  @Test(expectedExceptions = IllegalStateException.class)
+  public void recordMaintenance_unbounded() {
+    Caffeine.newBuilder().recordMaintenance().build();
+  }
+
+  @Test
+  public void recordMaintenance_disabled() {
+    Cache<Object, Object> cache = Caffeine.newBuilder().maximumSize(10).build();
+    assertThat(cache.policy().maintenanceStats().isPresent(), is(false));
+  }
+
+  @Test
+  public void recordMaintenance() {
+    Caffeine<Object, Object> builder = Caffeine.newBuilder()
+        .maximumSize(10).executor(Runnable::run).recordMaintenance();
+    assertThat(builder.maintenanceListener, is(Caffeine.IGNORING_MAINTENANCE_LISTENER));
+
+    Cache<Object, Object> cache = builder.build();
+    cache.put(1, 1);
+    cache.cleanUp();
+    MaintenanceStats stats = cache.policy().maintenanceStats().get();
+    assertThat(stats.cycleCount(), is(greaterThan(0L)));
+  }
+
   /* --------------- refreshAfterWrite --------------- */
 
   @Test(expectedExceptions = IllegalArgumentException.class)
@@ -532,6 +787,307 @@ public final class CaffeineTest {
     builder.build(k -> k);
   }
 
+  /* --------------- refreshAhead --------------- */
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void refreshAhead_zero() {
+    Caffeine.newBuilder().refreshAhead(0);
+  }
+
+  @Test(expectedExceptions = IllegalStateException.class)
+  public void refreshAhead_twice() {
+    Caffeine.newBuilder().refreshAhead(1).refreshAhead(1);
+  }
+
+  @Test(expectedExceptions = IllegalStateException.class)
+  public void refreshAhead_noCacheLoader() {
+    Caffeine.newBuilder().refreshAfterWrite(Duration.ofMillis(1)).refreshAhead(1).build();
+  }
+
+  @Test(expectedExceptions = IllegalStateException.class)
+  public void refreshAhead_noRefreshAfterWrite() {
+    Caffeine.newBuilder().refreshAhead(1).build(loader);
+  }
+
+  @Test(expectedExceptions = IllegalStateException.class)
+  public void refreshAhead_async_noRefreshAfterWrite() {
+    Caffeine.newBuilder().refreshAhead(1).buildAsync(loader);
+  }
+
+  @Test
+  public void refreshAhead() {
+    Caffeine<Object, Object> builder = Caffeine.newBuilder()
+        .refreshAfterWrite(Duration.ofMillis(1)).refreshAhead(10);
+    assertThat(builder.refreshesAhead(), is(true));
+    assertThat(builder.getRefreshAheadConcurrency(), is(10));
+    builder.build(loader);
+  }
+
+  /* --------------- coalesceBulkLoads --------------- */
+
+  @Test(expectedExceptions = NullPointerException.class)
+  public void coalesceBulkLoads_null() {
+    Caffeine.newBuilder().coalesceBulkLoads(null, 1);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void coalesceBulkLoads_negativeDelay() {
+    Caffeine.newBuilder().coalesceBulkLoads(Duration.ofMillis(-1), 1);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void coalesceBulkLoads_zeroBatchSize() {
+    Caffeine.newBuilder().coalesceBulkLoads(Duration.ofMillis(1), 0);
+  }
+
+  @Test(expectedExceptions = IllegalStateException.class)
+  public void coalesceBulkLoads_twice() {
+    Caffeine.newBuilder().coalesceBulkLoads(Duration.ofMillis(1), 1)
+        .coalesceBulkLoads(Duration.ofMillis(1), 1);
+  }
+
+  @Test(expectedExceptions = IllegalStateException.class)
+  public void coalesceBulkLoads_noCacheLoader() {
+    Caffeine.newBuilder().coalesceBulkLoads(Duration.ofMillis(1), 1).buildAsync();
+  }
+
+  @Test(expectedExceptions = IllegalStateException.class)
+  public void coalesceBulkLoads_syncCache() {
+    Caffeine.newBuilder().coalesceBulkLoads(Duration.ofMillis(1), 1).build(loader);
+  }
+
+  @Test(expectedExceptions = IllegalStateException.class)
+  public void coalesceBulkLoads_noBulkLoader() {
+    Caffeine.newBuilder().coalesceBulkLoads(Duration.ofMillis(1), 1).buildAsync(k -> k);
+  }
+
+  @Test
+  public void coalesceBulkLoads() {
+    Caffeine<Object, Object> builder = Caffeine.newBuilder()
+        .coalesceBulkLoads(Duration.ofMillis(1), 10);
+    assertThat(builder.coalesceDelayNanos, is(TimeUnit.MILLISECONDS.toNanos(1)));
+    assertThat(builder.coalesceBatchSize, is(10));
+    builder.buildAsync(loader);
+  }
+
+  /* --------------- coalesceRefreshes --------------- */
+
+  @Test(expectedExceptions = NullPointerException.class)
+  public void coalesceRefreshes_null() {
+    Caffeine.newBuilder().coalesceRefreshes(null, 1);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void coalesceRefreshes_negativeDelay() {
+    Caffeine.newBuilder().coalesceRefreshes(Duration.ofMillis(-1), 1);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void coalesceRefreshes_zeroBatchSize() {
+    Caffeine.newBuilder().coalesceRefreshes(Duration.ofMillis(1), 0);
+  }
+
+  @Test(expectedExceptions = IllegalStateException.class)
+  public void coalesceRefreshes_twice() {
+    Caffeine.newBuilder().coalesceRefreshes(Duration.ofMillis(1), 1)
+        .coalesceRefreshes(Duration.ofMillis(1), 1);
+  }
+
+  @Test(expectedExceptions = IllegalStateException.class)
+  public void coalesceRefreshes_noCacheLoader() {
+    Caffeine.newBuilder().refreshAfterWrite(Duration.ofMillis(1))
+        .coalesceRefreshes(Duration.ofMillis(1), 1).build();
+  }
+
+  @Test(expectedExceptions = IllegalStateException.class)
+  public void coalesceRefreshes_noRefreshAfterWrite() {
+    Caffeine.newBuilder().coalesceRefreshes(Duration.ofMillis(1), 1).build(loader);
+  }
+
+  @Test(expectedExceptions = IllegalStateException.class)
+  public void coalesceRefreshes_noBulkReloader() {
+    Caffeine.newBuilder().refreshAfterWrite(Duration.ofMillis(1))
+        .coalesceRefreshes(Duration.ofMillis(1), 1).build(k -> k);
+  }
+
+  @Test
+  public void coalesceRefreshes() {
+    Caffeine<Object, Object> builder = Caffeine.newBuilder()
+        .refreshAfterWrite(Duration.ofMillis(1))
+        .coalesceRefreshes(Duration.ofMillis(1), 10);
+    assertThat(builder.getRefreshCoalesceDelayNanos(), is(TimeUnit.MILLISECONDS.toNanos(1)));
+    assertThat(builder.getRefreshCoalesceBatchSize(), is(10));
+    builder.build(loader);
+    builder.buildAsync(loader);
+  }
+
+  /* --------------- maximumConcurrentLoads --------------- */
+
+  @Test(expectedExceptions = NullPointerException.class)
+  public void maximumConcurrentLoads_null() {
+    Caffeine.newBuilder().maximumConcurrentLoads(1, null);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void maximumConcurrentLoads_zero() {
+    Caffeine.newBuilder().maximumConcurrentLoads(0, Duration.ofMillis(1));
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void maximumConcurrentLoads_negativeTimeout() {
+    Caffeine.newBuilder().maximumConcurrentLoads(1, Duration.ofMillis(-1));
+  }
+
+  @Test(expectedExceptions = IllegalStateException.class)
+  public void maximumConcurrentLoads_twice() {
+    Caffeine.newBuilder().maximumConcurrentLoads(1, Duration.ofMillis(1))
+        .maximumConcurrentLoads(1, Duration.ofMillis(1));
+  }
+
+  @Test(expectedExceptions = IllegalStateException.class)
+  public void maximumConcurrentLoads_noCacheLoader() {
+    Caffeine.newBuilder().maximumConcurrentLoads(1, Duration.ofMillis(1)).build();
+  }
+
+  @Test
+  public void maximumConcurrentLoads() {
+    Caffeine<Object, Object> builder = Caffeine.newBuilder()
+        .maximumConcurrentLoads(10, Duration.ofMillis(1));
+    assertThat(builder.limitsLoads(), is(true));
+    assertThat(builder.getLoadLimiter().maximum, is(10));
+    assertThat(builder.getLoadLimiter().timeoutNanos, is(TimeUnit.MILLISECONDS.toNanos(1)));
+    assertThat(builder.build(loader).policy().inFlightLoads(), is(0));
+    assertThat(builder.buildAsync(loader).synchronous().policy().queuedLoads(), is(0));
+  }
+
+  /* --------------- staleWhileRevalidate --------------- */
+
+  @Test(expectedExceptions = NullPointerException.class)
+  public void staleWhileRevalidate_null() {
+    Caffeine.newBuilder().staleWhileRevalidate(null);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void staleWhileRevalidate_zero() {
+    Caffeine.newBuilder().staleWhileRevalidate(Duration.ZERO);
+  }
+
+  @Test(expectedExceptions = IllegalStateException.class)
+  public void staleWhileRevalidate_twice() {
+    Caffeine.newBuilder().staleWhileRevalidate(Duration.ofMillis(1))
+        .staleWhileRevalidate(Duration.ofMillis(1));
+  }
+
+  @Test(expectedExceptions = IllegalStateException.class)
+  public void staleWhileRevalidate_noCacheLoader() {
+    Caffeine.newBuilder().expireAfterWrite(Duration.ofMillis(1))
+        .staleWhileRevalidate(Duration.ofMillis(1)).build();
+  }
+
+  @Test(expectedExceptions = IllegalStateException.class)
+  public void staleWhileRevalidate_noExpireAfterWrite() {
+    Caffeine.newBuilder().staleWhileRevalidate(Duration.ofMillis(1)).build(loader);
+  }
+
+  @Test(expectedExceptions = IllegalStateException.class)
+  public void staleWhileRevalidate_refreshAfterWrite() {
+    Caffeine.newBuilder().expireAfterWrite(Duration.ofMillis(2))
+        .refreshAfterWrite(Duration.ofMillis(1))
+        .staleWhileRevalidate(Duration.ofMillis(1)).build(loader);
+  }
+
+  @Test
+  public void staleWhileRevalidate() {
+    Caffeine<Object, Object> builder = Caffeine.newBuilder()
+        .expireAfterWrite(Duration.ofMillis(1))
+        .staleWhileRevalidate(Duration.ofMillis(2));
+    assertThat(builder.servesStale(), is(true));
+    assertThat(builder.expiresAfterWrite(), is(false));
+    assertThat(builder.expiresVariable(), is(true));
+    assertThat(builder.refreshAfterWrite(), is(true));
+    assertThat(builder.getRefreshAfterWriteNanos(), is(TimeUnit.MILLISECONDS.toNanos(1)));
+    assertThat(builder.getStaleIfErrorAgeNanos(), is(0L));
+    assertThat(builder.build(loader).policy().expireVariably().isPresent(), is(true));
+    builder.buildAsync(loader);
+  }
+
+  /* --------------- staleIfError --------------- */
+
+  @Test(expectedExceptions = NullPointerException.class)
+  public void staleIfError_null() {
+    Caffeine.newBuilder().staleIfError(null);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void staleIfError_zero() {
+    Caffeine.newBuilder().staleIfError(Duration.ZERO);
+  }
+
+  @Test(expectedExceptions = IllegalStateException.class)
+  public void staleIfError_twice() {
+    Caffeine.newBuilder().staleIfError(Duration.ofMillis(1)).staleIfError(Duration.ofMillis(1));
+  }
+
+  @Test(expectedExceptions = IllegalStateException.class)
+  public void staleIfError_noCacheLoader() {
+    Caffeine.newBuilder().staleIfError(Duration.ofMillis(1)).build();
+  }
+
+  @Test(expectedExceptions = IllegalStateException.class)
+  public void staleIfError_noStaleWhileRevalidate() {
+    Caffeine.newBuilder().expireAfterWrite(Duration.ofMillis(1))
+        .staleIfError(Duration.ofMillis(1)).build(loader);
+  }
+
+  @Test
+  public void staleIfError() {
+    Caffeine<Object, Object> builder = Caffeine.newBuilder()
+        .expireAfterWrite(Duration.ofMillis(1))
+        .staleWhileRevalidate(Duration.ofMillis(2))
+        .staleIfError(Duration.ofMillis(3));
+    assertThat(builder.getStaleIfErrorAgeNanos(), is(TimeUnit.MILLISECONDS.toNanos(4)));
+    builder.build(loader);
+  }
+
+  /* --------------- cacheAbsentLoads --------------- */
+
+  @Test(expectedExceptions = NullPointerException.class)
+  public void cacheAbsentLoads_null() {
+    Caffeine.newBuilder().cacheAbsentLoads(null, 1);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void cacheAbsentLoads_zeroDuration() {
+    Caffeine.newBuilder().cacheAbsentLoads(Duration.ZERO, 1);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void cacheAbsentLoads_zeroSize() {
+    Caffeine.newBuilder().cacheAbsentLoads(Duration.ofMillis(1), 0);
+  }
+
+  @Test(expectedExceptions = IllegalStateException.class)
+  public void cacheAbsentLoads_twice() {
+    Caffeine.newBuilder()
+        .cacheAbsentLoads(Duration.ofMillis(1), 1)
+        .cacheAbsentLoads(Duration.ofMillis(1), 1);
+  }
+
+  @Test(expectedExceptions = IllegalStateException.class)
+  public void cacheAbsentLoads_noCacheLoader() {
+    Caffeine.newBuilder().cacheAbsentLoads(Duration.ofMillis(1), 1).build();
+  }
+
+  @Test
+  public void cacheAbsentLoads() {
+    Caffeine<Object, Object> builder = Caffeine.newBuilder()
+        .cacheAbsentLoads(Duration.ofMillis(1), 1);
+    assertThat(builder.getAbsentLoads(), is(not(nullValue())));
+    assertThat(Caffeine.newBuilder().getAbsentLoads(), is(nullValue()));
+    builder.build(loader);
+    builder.buildAsync(loader);
+  }
+
   /* --------------- weakKeys --------------- */
 
   @Test(expectedExceptions = IllegalStateException.class)
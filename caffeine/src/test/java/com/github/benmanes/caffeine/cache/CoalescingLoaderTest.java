@@ -0,0 +1,343 @@
+/*
+ * Copyright 2020 Ben Manes. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.benmanes.caffeine.cache;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+import java.io.Serializable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.testing.SerializableTester;
+
+/**
+ * @author ben.manes@gmail.com (Ben Manes)
+ */
+@Test(singleThreaded = true)
+public final class CoalescingLoaderTest {
+  private static final long DELAY_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+  @Mock Scheduler scheduler;
+  AutoCloseable mocks;
+
+  List<Set<Integer>> batches;
+  Executor executor;
+
+  @BeforeMethod
+  public void beforeMethod() {
+    mocks = MockitoAnnotations.openMocks(this);
+    batches = new ArrayList<>();
+    executor = Runnable::run;
+  }
+
+  @AfterMethod
+  public void afterMethod() throws Exception {
+    mocks.close();
+  }
+
+  @Test
+  public void asyncLoad_scheduled() {
+    CoalescingLoader<Integer, Integer> loader = newLoader(scheduler, 10);
+    CompletableFuture<Integer> first = loader.asyncLoad(1, executor);
+    CompletableFuture<Integer> second = loader.asyncLoad(2, executor);
+    assertThat(first.isDone(), is(false));
+    assertThat(second.isDone(), is(false));
+
+    ArgumentCaptor<Runnable> task = ArgumentCaptor.forClass(Runnable.class);
+    verify(scheduler).schedule(any(), task.capture(),
+        eq(DELAY_NANOS), eq(TimeUnit.NANOSECONDS));
+
+    task.getValue().run();
+    assertThat(batches, contains(ImmutableSet.of(1, 2)));
+    assertThat(first.join(), is(-1));
+    assertThat(second.join(), is(-2));
+  }
+
+  @Test
+  public void asyncLoad_sameKey() {
+    CoalescingLoader<Integer, Integer> loader = newLoader(scheduler, 10);
+    CompletableFuture<Integer> first = loader.asyncLoad(1, executor);
+    CompletableFuture<Integer> second = loader.asyncLoad(1, executor);
+    assertThat(second, is(sameInstance(first)));
+
+    loader.dispatch(loader.generation, executor);
+    assertThat(batches, contains(ImmutableSet.of(1)));
+    assertThat(first.join(), is(-1));
+  }
+
+  @Test
+  public void asyncLoad_fullBatch() {
+    CoalescingLoader<Integer, Integer> loader = newLoader(scheduler, 2);
+    CompletableFuture<Integer> first = loader.asyncLoad(1, executor);
+    CompletableFuture<Integer> second = loader.asyncLoad(2, executor);
+
+    assertThat(batches, contains(ImmutableSet.of(1, 2)));
+    assertThat(first.join(), is(-1));
+    assertThat(second.join(), is(-2));
+    assertThat(loader.pending.futures.isEmpty(), is(true));
+  }
+
+  @Test
+  public void asyncLoad_fullBatch_staleTimer() {
+    CoalescingLoader<Integer, Integer> loader = newLoader(scheduler, 2);
+    loader.asyncLoad(1, executor);
+    loader.asyncLoad(2, executor);
+    CompletableFuture<Integer> third = loader.asyncLoad(3, executor);
+
+    ArgumentCaptor<Runnable> task = ArgumentCaptor.forClass(Runnable.class);
+    verify(scheduler, times(2)).schedule(any(), task.capture(),
+        eq(DELAY_NANOS), eq(TimeUnit.NANOSECONDS));
+
+    task.getAllValues().get(0).run();
+    assertThat(third.isDone(), is(false));
+    assertThat(batches, contains(ImmutableSet.of(1, 2)));
+
+    task.getAllValues().get(1).run();
+    assertThat(batches, contains(ImmutableSet.of(1, 2), ImmutableSet.of(3)));
+    assertThat(third.join(), is(-3));
+  }
+
+  @Test
+  public void asyncLoad_fullBatch_slowExecutor() {
+    List<Runnable> tasks = new ArrayList<>();
+    executor = tasks::add;
+
+    CoalescingLoader<Integer, Integer> loader = newLoader(scheduler, 2);
+    List<CompletableFuture<Integer>> futures = new ArrayList<>();
+    for (int i = 1; i <= 5; i++) {
+      futures.add(loader.asyncLoad(i, executor));
+    }
+    assertThat(tasks.size(), is(2));
+    assertThat(loader.pending.futures.keySet(), contains(5));
+
+    runAll(tasks);
+    loader.dispatch(loader.generation, executor);
+    runAll(tasks);
+    assertThat(batches, contains(ImmutableSet.of(1, 2), ImmutableSet.of(3, 4), ImmutableSet.of(5)));
+    for (int i = 1; i <= 5; i++) {
+      assertThat(futures.get(i - 1).join(), is(-i));
+    }
+  }
+
+  @Test
+  public void asyncLoad_rejected() {
+    RejectedExecutionException error = new RejectedExecutionException();
+    executor = task -> { throw error; };
+
+    CoalescingLoader<Integer, Integer> loader = newLoader(scheduler, 2);
+    CompletableFuture<Integer> first = loader.asyncLoad(1, executor);
+    CompletableFuture<Integer> second = loader.asyncLoad(2, executor);
+
+    assertThat(batches.isEmpty(), is(true));
+    assertThat(loader.pending.futures.isEmpty(), is(true));
+    for (CompletableFuture<Integer> future : Arrays.asList(first, second)) {
+      try {
+        future.join();
+        Assert.fail();
+      } catch (CompletionException e) {
+        assertThat(e.getCause(), is(sameInstance(error)));
+      }
+    }
+  }
+
+  @Test
+  public void asyncLoad_disabledScheduler() {
+    List<Runnable> tasks = new ArrayList<>();
+    executor = tasks::add;
+
+    CoalescingLoader<Integer, Integer> loader = newLoader(Scheduler.disabledScheduler(), 10);
+    CompletableFuture<Integer> first = loader.asyncLoad(1, executor);
+    CompletableFuture<Integer> second = loader.asyncLoad(2, executor);
+    assertThat(tasks.size(), is(1));
+
+    tasks.get(0).run();
+    assertThat(batches, contains(ImmutableSet.of(1, 2)));
+    assertThat(first.join(), is(-1));
+    assertThat(second.join(), is(-2));
+  }
+
+  @Test
+  public void asyncLoadAll() {
+    CoalescingLoader<Integer, Integer> loader = newLoader(scheduler, 10);
+    CompletableFuture<Integer> future = loader.asyncLoad(1, executor);
+    CompletableFuture<Map<Integer, Integer>> result =
+        loader.asyncLoadAll(Arrays.asList(1, 2, 3), executor);
+    assertThat(result.isDone(), is(false));
+
+    loader.dispatch(loader.generation, executor);
+    assertThat(batches, contains(ImmutableSet.of(1, 2, 3)));
+    assertThat(future.join(), is(-1));
+    assertThat(result.join().keySet(), contains(1, 2, 3));
+    assertThat(result.join().get(3), is(-3));
+  }
+
+  @Test
+  public void dispatch_empty() {
+    CoalescingLoader<Integer, Integer> loader = newLoader(scheduler, 10);
+    loader.dispatch(loader.generation, executor);
+    assertThat(batches.isEmpty(), is(true));
+    verifyNoInteractions(scheduler);
+  }
+
+  @Test
+  public void dispatch_absent() {
+    CacheLoader<Integer, Integer> delegate = new CacheLoader<Integer, Integer>() {
+      @Override public Integer load(Integer key) {
+        throw new AssertionError();
+      }
+      @Override public Map<Integer, Integer> loadAll(Iterable<? extends Integer> keys) {
+        return ImmutableMap.of();
+      }
+    };
+    CoalescingLoader<Integer, Integer> loader =
+        new CoalescingLoader<>(delegate, scheduler, DELAY_NANOS, 10);
+    CompletableFuture<Integer> future = loader.asyncLoad(1, executor);
+
+    loader.dispatch(loader.generation, executor);
+    assertThat(future.join(), is((Integer) null));
+  }
+
+  @Test
+  public void dispatch_failure() {
+    IllegalStateException error = new IllegalStateException();
+    CacheLoader<Integer, Integer> delegate = new CacheLoader<Integer, Integer>() {
+      @Override public Integer load(Integer key) {
+        throw new AssertionError();
+      }
+      @Override public Map<Integer, Integer> loadAll(Iterable<? extends Integer> keys) {
+        throw error;
+      }
+    };
+    CoalescingLoader<Integer, Integer> loader =
+        new CoalescingLoader<>(delegate, scheduler, DELAY_NANOS, 10);
+    CompletableFuture<Integer> first = loader.asyncLoad(1, executor);
+    CompletableFuture<Integer> second = loader.asyncLoad(2, executor);
+
+    loader.dispatch(loader.generation, executor);
+    for (CompletableFuture<Integer> future : Arrays.asList(first, second)) {
+      try {
+        future.join();
+        Assert.fail();
+      } catch (CompletionException e) {
+        assertThat(e.getCause(), is(sameInstance(error)));
+      }
+    }
+  }
+
+  @Test
+  public void cache_coalesced() {
+    AsyncLoadingCache<Integer, Integer> cache = Caffeine.newBuilder()
+        .coalesceBulkLoads(Duration.ofMinutes(1), 3)
+        .scheduler(scheduler)
+        .buildAsync(newCacheLoader());
+
+    CompletableFuture<Integer> first = cache.get(1);
+    CompletableFuture<Integer> second = cache.get(2);
+    assertThat(first.isDone(), is(false));
+
+    CompletableFuture<Integer> third = cache.get(3);
+    assertThat(batches, contains(ImmutableSet.of(1, 2, 3)));
+    assertThat(first.join(), is(-1));
+    assertThat(second.join(), is(-2));
+    assertThat(third.join(), is(-3));
+    assertThat(cache.synchronous().estimatedSize(), is(3L));
+  }
+
+  @Test
+  public void cache_serialize() {
+    List<Caffeine<Object, Object>> builders = Arrays.asList(
+        Caffeine.newBuilder(), Caffeine.newBuilder().maximumSize(10));
+    for (Caffeine<Object, Object> builder : builders) {
+      AsyncLoadingCache<Integer, Integer> cache = builder
+          .coalesceBulkLoads(Duration.ofMinutes(1), 3)
+          .buildAsync(new SerializableLoader());
+      AsyncLoadingCache<Integer, Integer> copy = SerializableTester.reserialize(cache);
+
+      CoalescingLoader<?, ?> loader = (CoalescingLoader<?, ?>)
+          ((LocalAsyncLoadingCache<?, ?>) copy).loader;
+      assertThat(loader.delegate, is(instanceOf(SerializableLoader.class)));
+      assertThat(loader.delayNanos, is(TimeUnit.MINUTES.toNanos(1)));
+      assertThat(loader.maximumBatchSize, is(3));
+      assertThat(copy.get(1).join(), is(-1));
+    }
+  }
+
+  private static void runAll(List<Runnable> tasks) {
+    while (!tasks.isEmpty()) {
+      tasks.remove(0).run();
+    }
+  }
+
+  private CoalescingLoader<Integer, Integer> newLoader(Scheduler scheduler, int batchSize) {
+    return new CoalescingLoader<>(newCacheLoader(), scheduler, DELAY_NANOS, batchSize);
+  }
+
+  private CacheLoader<Integer, Integer> newCacheLoader() {
+    return new CacheLoader<Integer, Integer>() {
+      @Override public Integer load(Integer key) {
+        throw new AssertionError();
+      }
+      @Override public Map<Integer, Integer> loadAll(Iterable<? extends Integer> keys) {
+        Set<Integer> batch = ImmutableSet.copyOf(keys);
+        batches.add(batch);
+        return batch.stream().collect(Collectors.toMap(key -> key, key -> -key));
+      }
+    };
+  }
+
+  static final class SerializableLoader implements CacheLoader<Integer, Integer>, Serializable {
+    private static final long serialVersionUID = 1L;
+
+    @Override public Integer load(Integer key) {
+      throw new AssertionError();
+    }
+    @Override public Map<Integer, Integer> loadAll(Iterable<? extends Integer> keys) {
+      Map<Integer, Integer> result = new HashMap<>();
+      keys.forEach(key -> result.put(key, -key));
+      return result;
+    }
+  }
+}
@@ -0,0 +1,321 @@
+/*
+ * Copyright 2020 Ben Manes. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.benmanes.caffeine.cache;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.testing.FakeTicker;
+
+/**
+ * @author ben.manes@gmail.com (Ben Manes)
+ */
+@Test(singleThreaded = true)
+public final class CoalescingReloaderTest {
+  private static final long DELAY_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+  @Mock Scheduler scheduler;
+  AutoCloseable mocks;
+
+  List<Map<Integer, Integer>> batches;
+  Executor executor;
+
+  @BeforeMethod
+  public void beforeMethod() {
+    mocks = MockitoAnnotations.openMocks(this);
+    batches = new ArrayList<>();
+    executor = Runnable::run;
+  }
+
+  @AfterMethod
+  public void afterMethod() throws Exception {
+    mocks.close();
+  }
+
+  @Test
+  public void reload_scheduled() {
+    CoalescingReloader<Integer, Integer> reloader = newReloader(scheduler, 10);
+    CompletableFuture<Integer> first = reloader.reload(1, -1, executor);
+    CompletableFuture<Integer> second = reloader.reload(2, -2, executor);
+    assertThat(first.isDone(), is(false));
+    assertThat(second.isDone(), is(false));
+
+    ArgumentCaptor<Runnable> task = ArgumentCaptor.forClass(Runnable.class);
+    verify(scheduler).schedule(any(), task.capture(),
+        eq(DELAY_NANOS), eq(TimeUnit.NANOSECONDS));
+
+    task.getValue().run();
+    assertThat(batches, contains(ImmutableMap.of(1, -1, 2, -2)));
+    assertThat(first.join(), is(-10));
+    assertThat(second.join(), is(-20));
+  }
+
+  @Test
+  public void reload_sameKey() {
+    CoalescingReloader<Integer, Integer> reloader = newReloader(scheduler, 10);
+    CompletableFuture<Integer> first = reloader.reload(1, -1, executor);
+    CompletableFuture<Integer> second = reloader.reload(1, -2, executor);
+    assertThat(second, is(sameInstance(first)));
+
+    reloader.dispatch(reloader.generation, executor);
+    assertThat(batches, contains(ImmutableMap.of(1, -1)));
+    assertThat(first.join(), is(-10));
+  }
+
+  @Test
+  public void reload_fullBatch() {
+    CoalescingReloader<Integer, Integer> reloader = newReloader(scheduler, 2);
+    CompletableFuture<Integer> first = reloader.reload(1, -1, executor);
+    CompletableFuture<Integer> second = reloader.reload(2, -2, executor);
+
+    assertThat(batches, contains(ImmutableMap.of(1, -1, 2, -2)));
+    assertThat(first.join(), is(-10));
+    assertThat(second.join(), is(-20));
+    assertThat(reloader.pending.futures.isEmpty(), is(true));
+    assertThat(reloader.pending.oldValues.isEmpty(), is(true));
+  }
+
+  @Test
+  public void reload_fullBatch_staleTimer() {
+    CoalescingReloader<Integer, Integer> reloader = newReloader(scheduler, 2);
+    reloader.reload(1, -1, executor);
+    reloader.reload(2, -2, executor);
+    CompletableFuture<Integer> third = reloader.reload(3, -3, executor);
+
+    ArgumentCaptor<Runnable> task = ArgumentCaptor.forClass(Runnable.class);
+    verify(scheduler, times(2)).schedule(any(), task.capture(),
+        eq(DELAY_NANOS), eq(TimeUnit.NANOSECONDS));
+
+    task.getAllValues().get(0).run();
+    assertThat(third.isDone(), is(false));
+    assertThat(batches, contains(ImmutableMap.of(1, -1, 2, -2)));
+
+    task.getAllValues().get(1).run();
+    assertThat(batches, contains(ImmutableMap.of(1, -1, 2, -2), ImmutableMap.of(3, -3)));
+    assertThat(third.join(), is(-30));
+  }
+
+  @Test
+  public void reload_rejected() {
+    RejectedExecutionException error = new RejectedExecutionException();
+    executor = task -> { throw error; };
+
+    CoalescingReloader<Integer, Integer> reloader = newReloader(scheduler, 2);
+    CompletableFuture<Integer> first = reloader.reload(1, -1, executor);
+    CompletableFuture<Integer> second = reloader.reload(2, -2, executor);
+
+    assertThat(batches.isEmpty(), is(true));
+    assertThat(reloader.pending.futures.isEmpty(), is(true));
+    assertThat(reloader.pending.oldValues.isEmpty(), is(true));
+    for (CompletableFuture<Integer> future : Arrays.asList(first, second)) {
+      try {
+        future.join();
+        Assert.fail();
+      } catch (CompletionException e) {
+        assertThat(e.getCause(), is(sameInstance(error)));
+      }
+    }
+  }
+
+  @Test
+  public void reload_disabledScheduler() {
+    List<Runnable> tasks = new ArrayList<>();
+    executor = tasks::add;
+
+    CoalescingReloader<Integer, Integer> reloader =
+        newReloader(Scheduler.disabledScheduler(), 10);
+    CompletableFuture<Integer> first = reloader.reload(1, -1, executor);
+    CompletableFuture<Integer> second = reloader.reload(2, -2, executor);
+    assertThat(tasks.size(), is(1));
+
+    tasks.get(0).run();
+    assertThat(batches, contains(ImmutableMap.of(1, -1, 2, -2)));
+    assertThat(first.join(), is(-10));
+    assertThat(second.join(), is(-20));
+  }
+
+  @Test
+  public void dispatch_empty() {
+    CoalescingReloader<Integer, Integer> reloader = newReloader(scheduler, 10);
+    reloader.dispatch(reloader.generation, executor);
+    assertThat(batches.isEmpty(), is(true));
+    verifyNoInteractions(scheduler);
+  }
+
+  @Test
+  public void dispatch_absent() {
+    CacheLoader<Integer, Integer> loader = new CacheLoader<Integer, Integer>() {
+      @Override public Integer load(Integer key) {
+        throw new AssertionError();
+      }
+      @Override public Map<Integer, Integer> reloadAll(
+          Map<? extends Integer, ? extends Integer> oldValues) {
+        return ImmutableMap.of();
+      }
+    };
+    CoalescingReloader<Integer, Integer> reloader =
+        new CoalescingReloader<>(loader, scheduler, DELAY_NANOS, 10);
+    CompletableFuture<Integer> future = reloader.reload(1, -1, executor);
+
+    reloader.dispatch(reloader.generation, executor);
+    assertThat(future.join(), is((Integer) null));
+  }
+
+  @Test
+  public void dispatch_failure() {
+    IllegalStateException error = new IllegalStateException();
+    CacheLoader<Integer, Integer> loader = new CacheLoader<Integer, Integer>() {
+      @Override public Integer load(Integer key) {
+        throw new AssertionError();
+      }
+      @Override public Map<Integer, Integer> reloadAll(
+          Map<? extends Integer, ? extends Integer> oldValues) {
+        throw error;
+      }
+    };
+    CoalescingReloader<Integer, Integer> reloader =
+        new CoalescingReloader<>(loader, scheduler, DELAY_NANOS, 10);
+    CompletableFuture<Integer> first = reloader.reload(1, -1, executor);
+    CompletableFuture<Integer> second = reloader.reload(2, -2, executor);
+
+    reloader.dispatch(reloader.generation, executor);
+    for (CompletableFuture<Integer> future : Arrays.asList(first, second)) {
+      try {
+        future.join();
+        Assert.fail();
+      } catch (CompletionException e) {
+        assertThat(e.getCause(), is(sameInstance(error)));
+      }
+    }
+  }
+
+  @Test
+  public void cache_coalesced() {
+    FakeTicker ticker = new FakeTicker();
+    LoadingCache<Integer, Integer> cache = Caffeine.newBuilder()
+        .coalesceRefreshes(Duration.ofMinutes(1), 3)
+        .refreshAfterWrite(1, TimeUnit.MINUTES)
+        .executor(Runnable::run)
+        .scheduler(scheduler)
+        .ticker(ticker::read)
+        .build(newCacheLoader());
+    cache.putAll(ImmutableMap.of(1, -1, 2, -2, 3, -3));
+    ticker.advance(2, TimeUnit.MINUTES);
+
+    assertThat(cache.get(1), is(-1));
+    assertThat(cache.get(2), is(-2));
+    assertThat(batches.isEmpty(), is(true));
+
+    assertThat(cache.get(3), is(-3));
+    assertThat(batches, contains(ImmutableMap.of(1, -1, 2, -2, 3, -3)));
+    assertThat(cache.asMap(), is(ImmutableMap.of(1, -10, 2, -20, 3, -30)));
+  }
+
+  @Test
+  public void cache_coalesced_async() {
+    FakeTicker ticker = new FakeTicker();
+    AsyncLoadingCache<Integer, Integer> cache = Caffeine.newBuilder()
+        .coalesceRefreshes(Duration.ofMinutes(1), 2)
+        .refreshAfterWrite(1, TimeUnit.MINUTES)
+        .executor(Runnable::run)
+        .scheduler(scheduler)
+        .ticker(ticker::read)
+        .buildAsync(newCacheLoader());
+    cache.synchronous().putAll(ImmutableMap.of(1, -1, 2, -2));
+    ticker.advance(2, TimeUnit.MINUTES);
+
+    cache.get(1);
+    cache.get(2);
+    assertThat(batches, contains(ImmutableMap.of(1, -1, 2, -2)));
+    assertThat(cache.synchronous().asMap(), is(ImmutableMap.of(1, -10, 2, -20)));
+  }
+
+  @Test
+  public void cache_rejected() {
+    FakeTicker ticker = new FakeTicker();
+    boolean[] reject = { false };
+    Executor rejecting = task -> {
+      if (reject[0]) {
+        throw new RejectedExecutionException();
+      }
+      task.run();
+    };
+    LoadingCache<Integer, Integer> cache = Caffeine.newBuilder()
+        .coalesceRefreshes(Duration.ofMinutes(1), 1)
+        .refreshAfterWrite(1, TimeUnit.MINUTES)
+        .executor(rejecting)
+        .scheduler(scheduler)
+        .ticker(ticker::read)
+        .build(newCacheLoader());
+    cache.put(1, -1);
+    ticker.advance(2, TimeUnit.MINUTES);
+
+    reject[0] = true;
+    assertThat(cache.get(1), is(-1));
+    assertThat(batches.isEmpty(), is(true));
+
+    reject[0] = false;
+    assertThat(cache.get(1), is(-1));
+    assertThat(batches, contains(ImmutableMap.of(1, -1)));
+    assertThat(cache.getIfPresent(1), is(-10));
+  }
+
+  private CoalescingReloader<Integer, Integer> newReloader(Scheduler scheduler, int batchSize) {
+    return new CoalescingReloader<>(newCacheLoader(), scheduler, DELAY_NANOS, batchSize);
+  }
+
+  private CacheLoader<Integer, Integer> newCacheLoader() {
+    return new CacheLoader<Integer, Integer>() {
+      @Override public Integer load(Integer key) {
+        throw new AssertionError();
+      }
+      @Override public Map<Integer, Integer> reloadAll(
+          Map<? extends Integer, ? extends Integer> oldValues) {
+        batches.add(ImmutableMap.copyOf(oldValues));
+        return oldValues.entrySet().stream().collect(
+            Collectors.toMap(Map.Entry::getKey, entry -> 10 * entry.getValue()));
+      }
+    };
+  }
+}
@@ -21,6 +21,7 @@ import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.hamcrest.Matchers.nullValue;
 
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.concurrent.ThreadLocalRandom;
@@ -86,6 +87,125 @@ public final class FrequencySketchTest {
     assertThat(sketch.frequency(item + 2), is(0));
   }
 
+  @Test
+  public void ensureCapacity_blocked() {
+    BlockedFrequencySketch<Integer> sketch = new BlockedFrequencySketch<>();
+    sketch.ensureCapacity(1);
+    assertThat(sketch.table.length, is(8));
+    assertThat(sketch.blockMask, is(0));
+
+    sketch.ensureCapacity(512);
+    assertThat(sketch.table.length, is(512));
+    assertThat(sketch.blockMask, is(63));
+  }
+
+  @Test(dataProvider = "sketch")
+  public void raise(FrequencySketch<Integer> sketch) {
+    sketch.raise(item, 7);
+    assertThat(sketch.frequency(item), is(7));
+    assertThat(sketch.frequency(item + 1), is(0));
+    assertThat(sketch.size, is(0));
+  }
+
+  @Test(dataProvider = "sketch")
+  public void raise_lower(FrequencySketch<Integer> sketch) {
+    for (int i = 0; i < 5; i++) {
+      sketch.increment(item);
+    }
+    sketch.raise(item, 3);
+    assertThat(sketch.frequency(item), is(5));
+  }
+
+  @Test(dataProvider = "sketch")
+  public void raise_max(FrequencySketch<Integer> sketch) {
+    sketch.raise(item, 20);
+    assertThat(sketch.frequency(item), is(15));
+  }
+
+  @Test
+  public void raise_notInitialized() {
+    for (FrequencySketch<Integer> sketch : Arrays.asList(
+        new FrequencySketch<Integer>(), new BlockedFrequencySketch<Integer>())) {
+      sketch.raise(item, 5);
+      assertThat(sketch.frequency(item), is(0));
+    }
+  }
+
+  @Test(dataProvider = "sketch")
+  public void toByteArray(FrequencySketch<Integer> sketch) {
+    sketch.increment(item);
+    long[] counters = FrequencySketch.copyOf(sketch.toByteArray());
+    assertThat(counters, is(sketch.table));
+  }
+
+  @Test
+  public void toByteArray_notInitialized() {
+    FrequencySketch<Integer> sketch = new FrequencySketch<>();
+    assertThat(FrequencySketch.copyOf(sketch.toByteArray()).length, is(0));
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void copyOf_tooShort() {
+    FrequencySketch.copyOf(new byte[2]);
+  }
+
+  @Test(dataProvider = "sketch", expectedExceptions = IllegalArgumentException.class)
+  public void copyOf_truncated(FrequencySketch<Integer> sketch) {
+    byte[] bytes = sketch.toByteArray();
+    FrequencySketch.copyOf(Arrays.copyOf(bytes, bytes.length - 1));
+  }
+
+  @Test
+  public void saturatedAdd() {
+    assertThat(FrequencySketch.saturatedAdd(0x1234L, 0x4321L), is(0x5555L));
+    assertThat(FrequencySketch.saturatedAdd(0xF0F0L, 0x1111L), is(0xF1F1L));
+    assertThat(FrequencySketch.saturatedAdd(-1L, -1L), is(-1L));
+  }
+
+  @Test(dataProvider = "sketch")
+  public void merge(FrequencySketch<Integer> sketch) {
+    FrequencySketch<Integer> other = makeSketch(sketch, 512);
+    for (int i = 0; i < 4; i++) {
+      sketch.increment(item);
+      other.increment(item);
+    }
+    other.increment(item + 1);
+    other.increment(item + 1);
+
+    sketch.merge(other.table, /* reset */ false);
+    assertThat(sketch.frequency(item), is(8));
+    assertThat(sketch.frequency(item + 1), is(2));
+
+    sketch.merge(other.table, /* reset */ true);
+    assertThat(sketch.frequency(item), is(6));
+    assertThat(sketch.frequency(item + 1), is(2));
+  }
+
+  @Test(dataProvider = "sketch")
+  public void merge_differentSizes(FrequencySketch<Integer> sketch) {
+    FrequencySketch<Integer> larger = makeSketch(sketch, 4 * sketch.table.length);
+    FrequencySketch<Integer> smaller = makeSketch(sketch, sketch.table.length / 4);
+    larger.increment(item);
+    smaller.increment(item);
+    smaller.increment(item);
+
+    sketch.merge(larger.table, /* reset */ false);
+    sketch.merge(smaller.table, /* reset */ false);
+    assertThat(sketch.frequency(item), is(3));
+  }
+
+  @Test(dataProvider = "sketch")
+  public void replace(FrequencySketch<Integer> sketch) {
+    FrequencySketch<Integer> other = makeSketch(sketch, 512);
+    other.increment(item + 1);
+    sketch.increment(item);
+
+    sketch.replace(other.table);
+    assertThat(sketch.frequency(item), is(0));
+    assertThat(sketch.frequency(item + 1), is(1));
+    assertThat(sketch.size, is(0));
+  }
+
   @Test(dataProvider = "sketch")
   public void indexOf_aroundZero(FrequencySketch<Integer> sketch) {
     Set<Integer> indexes = new HashSet<>(16);
@@ -98,11 +218,10 @@ public final class FrequencySketchTest {
     assertThat(indexes, hasSize(4 * hashes.length));
   }
 
-  @Test
-  public void reset() {
+  @Test(dataProvider = "sketch")
+  public void reset(FrequencySketch<Integer> prototype) {
     boolean reset = false;
-    FrequencySketch<Integer> sketch = new FrequencySketch<>();
-    sketch.ensureCapacity(64);
+    FrequencySketch<Integer> sketch = makeSketch(prototype, 64);
 
     for (int i = 1; i < 20 * sketch.table.length; i++) {
       sketch.increment(i);
@@ -115,9 +234,8 @@ public final class FrequencySketchTest {
     assertThat(sketch.size, lessThanOrEqualTo(sketch.sampleSize / 2));
   }
 
-  @Test
-  public void heavyHitters() {
-    FrequencySketch<Double> sketch = makeSketch(512);
+  @Test(dataProvider = "sketch")
+  public void heavyHitters(FrequencySketch<Double> sketch) {
     for (int i = 100; i < 100_000; i++) {
       sketch.increment((double) i);
     }
@@ -147,11 +265,17 @@ public final class FrequencySketchTest {
 
   @DataProvider(name = "sketch")
   public Object[][] providesSketch() {
-    return new Object[][] {{ makeSketch(512) }};
+    return new Object[][] {
+      { makeSketch(new FrequencySketch<>(), 512) },
+      { makeSketch(new BlockedFrequencySketch<>(), 512) },
+    };
   }
 
-  private static <E> FrequencySketch<E> makeSketch(long maximumSize) {
-    FrequencySketch<E> sketch = new FrequencySketch<>();
+  /** Returns an initialized sketch of the same type as the prototype. */
+  private static <E> FrequencySketch<E> makeSketch(FrequencySketch<?> prototype, long maximumSize) {
+    FrequencySketch<E> sketch = (prototype instanceof BlockedFrequencySketch<?>)
+        ? new BlockedFrequencySketch<>()
+        : new FrequencySketch<>();
     sketch.ensureCapacity(maximumSize);
     return sketch;
   }
@@ -0,0 +1,169 @@
+/*
+ * Copyright 2020 Ben Manes. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.benmanes.caffeine.cache;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.testng.annotations.Test;
+
+import com.google.common.testing.FakeTicker;
+
+/**
+ * @author ben.manes@gmail.com (Ben Manes)
+ */
+public final class JitterTest {
+
+  @Test
+  public void fraction() {
+    Jitter jitter = Jitter.ofFraction(0.1);
+    Set<Long> durations = new HashSet<>();
+    for (int i = 0; i < 1_000; i++) {
+      long duration = jitter.apply(1_000_000);
+      assertThat(duration, is(allOf(greaterThanOrEqualTo(900_000L), lessThanOrEqualTo(1_000_000L))));
+      durations.add(duration);
+    }
+    assertThat(durations.size(), is(greaterThan(1)));
+  }
+
+  @Test
+  public void duration() {
+    Jitter jitter = Jitter.ofDuration(100);
+    for (int i = 0; i < 1_000; i++) {
+      assertThat(jitter.apply(1_000_000), is(greaterThanOrEqualTo(1_000_000L - 100)));
+      assertThat(jitter.apply(50), is(allOf(greaterThanOrEqualTo(0L), lessThanOrEqualTo(50L))));
+    }
+  }
+
+  @Test
+  public void seeded() {
+    Jitter jitter = Jitter.ofFraction(0.5);
+    assertThat(jitter.apply(1_000_000, 42L), is(jitter.apply(1_000_000, 42L)));
+
+    Set<Long> durations = new HashSet<>();
+    for (long seed = 0; seed < 100; seed++) {
+      durations.add(jitter.apply(1_000_000, seed));
+    }
+    assertThat(durations.size(), is(greaterThan(1)));
+  }
+
+  @Test
+  public void unbounded() {
+    Jitter jitter = Jitter.ofFraction(0.5);
+    assertThat(jitter.apply(0L), is(0L));
+    assertThat(jitter.apply(Long.MAX_VALUE), is(Long.MAX_VALUE));
+  }
+
+  @Test
+  public void expiry_read() {
+    JitteredExpiry<Integer, Integer> expiry = new JitteredExpiry<>(
+        FixedExpiry.afterWrite(1_000_000), Jitter.ofFraction(0.5));
+    assertThat(expiry.expireAfterCreate(1, 1, 0L), is(lessThanOrEqualTo(1_000_000L)));
+    assertThat(expiry.expireAfterRead(1, 1, 0L, 123L), is(123L));
+  }
+
+  @Test
+  public void expiry_gracePeriod() {
+    JitteredExpiry<Integer, Integer> expiry = new JitteredExpiry<>(
+        FixedExpiry.afterWrite(1_000_000), Jitter.ofFraction(0.9), 500_000);
+    for (int i = 0; i < 1_000; i++) {
+      assertThat(expiry.expireAfterCreate(1, 1, 0L),
+          is(allOf(greaterThanOrEqualTo(600_000L), lessThanOrEqualTo(1_500_000L))));
+    }
+    assertThat(new JitteredExpiry<>(FixedExpiry.afterWrite(Long.MAX_VALUE),
+        Jitter.ofFraction(0.5), 1L).expireAfterCreate(1, 1, 0L), is(Long.MAX_VALUE));
+  }
+
+  @Test
+  public void staleWhileRevalidate_jittersFreshness() {
+    FakeTicker ticker = new FakeTicker();
+    LoadingCache<Integer, Integer> cache = Caffeine.newBuilder()
+        .staleWhileRevalidate(Duration.ofSeconds(50))
+        .expireAfterWrite(100, TimeUnit.SECONDS)
+        .executor(Runnable::run)
+        .ticker(ticker::read)
+        .jitter(0.9)
+        .build(key -> -key);
+    for (int i = 0; i < 1_000; i++) {
+      cache.put(i, i);
+    }
+
+    ticker.advance(59, TimeUnit.SECONDS);
+    cache.cleanUp();
+    assertThat(cache.estimatedSize(), is(1_000L));
+
+    ticker.advance(92, TimeUnit.SECONDS);
+    cache.cleanUp();
+    assertThat(cache.estimatedSize(), is(0L));
+  }
+
+  @Test
+  public void expireAfterWrite_spread() {
+    FakeTicker ticker = new FakeTicker();
+    Cache<Integer, Integer> cache = Caffeine.newBuilder()
+        .expireAfterWrite(100, TimeUnit.SECONDS)
+        .executor(Runnable::run)
+        .ticker(ticker::read)
+        .jitter(0.5)
+        .build();
+    for (int i = 0; i < 1_000; i++) {
+      cache.put(i, i);
+    }
+
+    ticker.advance(49, TimeUnit.SECONDS);
+    cache.cleanUp();
+    assertThat(cache.estimatedSize(), is(1_000L));
+
+    ticker.advance(26, TimeUnit.SECONDS);
+    cache.cleanUp();
+    assertThat(cache.estimatedSize(), is(allOf(greaterThan(0L), lessThanOrEqualTo(900L))));
+
+    ticker.advance(30, TimeUnit.SECONDS);
+    cache.cleanUp();
+    assertThat(cache.estimatedSize(), is(0L));
+  }
+
+  @Test
+  public void refreshAfterWrite_spread() {
+    FakeTicker ticker = new FakeTicker();
+    LoadingCache<Integer, Integer> cache = Caffeine.newBuilder()
+        .refreshAfterWrite(100, TimeUnit.SECONDS)
+        .executor(Runnable::run)
+        .ticker(ticker::read)
+        .jitter(0.5)
+        .build(key -> -key);
+    for (int i = 0; i < 1_000; i++) {
+      cache.put(i, i);
+    }
+
+    ticker.advance(75, TimeUnit.SECONDS);
+    int refreshed = 0;
+    for (int i = 0; i < 1_000; i++) {
+      cache.get(i);
+      refreshed += (cache.getIfPresent(i) < 0) ? 1 : 0;
+    }
+    assertThat(refreshed, is(allOf(greaterThan(0), lessThanOrEqualTo(900))));
+  }
+}
@@ -0,0 +1,308 @@
+/*
+ * Copyright 2020 Ben Manes. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.benmanes.caffeine.cache;
+
+import static com.github.benmanes.caffeine.testing.Awaits.await;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.github.benmanes.caffeine.testing.ConcurrentTestHarness;
+import com.google.common.testing.FakeTicker;
+import com.google.common.util.concurrent.Uninterruptibles;
+
+/**
+ * @author ben.manes@gmail.com (Ben Manes)
+ */
+@Test(singleThreaded = true)
+public final class LoadLimiterTest {
+  private static final long TIMEOUT_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+  @Mock Scheduler scheduler;
+  AutoCloseable mocks;
+
+  @BeforeMethod
+  public void beforeMethod() {
+    mocks = MockitoAnnotations.openMocks(this);
+  }
+
+  @AfterMethod
+  public void afterMethod() throws Exception {
+    mocks.close();
+  }
+
+  @Test
+  public void tryAcquire() {
+    LoadLimiter limiter = new LoadLimiter(2, TIMEOUT_NANOS, scheduler);
+    assertThat(limiter.tryAcquire(), is(true));
+    assertThat(limiter.tryAcquire(), is(true));
+    assertThat(limiter.tryAcquire(), is(false));
+    assertThat(limiter.inFlight(), is(2));
+
+    limiter.release();
+    assertThat(limiter.inFlight(), is(1));
+    assertThat(limiter.tryAcquire(), is(true));
+  }
+
+  @Test
+  public void limit() {
+    LoadLimiter limiter = new LoadLimiter(1, TIMEOUT_NANOS, scheduler);
+    Function<Integer, Integer> function = limiter.limit(key -> {
+      assertThat(limiter.inFlight(), is(1));
+      return -key;
+    });
+    assertThat(function.apply(1), is(-1));
+    assertThat(limiter.inFlight(), is(0));
+  }
+
+  @Test
+  public void limit_failure() {
+    LoadLimiter limiter = new LoadLimiter(1, TIMEOUT_NANOS, scheduler);
+    Function<Integer, Integer> function = limiter.limit(key -> {
+      throw new IllegalStateException();
+    });
+    try {
+      function.apply(1);
+      Assert.fail();
+    } catch (IllegalStateException expected) {}
+    assertThat(limiter.inFlight(), is(0));
+  }
+
+  @Test
+  public void limit_timeout() {
+    LoadLimiter limiter = new LoadLimiter(1, TIMEOUT_NANOS, scheduler);
+    assertThat(limiter.tryAcquire(), is(true));
+    try {
+      limiter.limit(Function.identity()).apply(1);
+      Assert.fail();
+    } catch (CompletionException e) {
+      assertThat(e.getCause(), is(instanceOf(TimeoutException.class)));
+    }
+    assertThat(limiter.inFlight(), is(1));
+    assertThat(limiter.queued(), is(0));
+  }
+
+  @Test
+  public void submit() {
+    LoadLimiter limiter = new LoadLimiter(1, TIMEOUT_NANOS, scheduler);
+    CompletableFuture<Integer> load = new CompletableFuture<>();
+    CompletableFuture<Integer> future = limiter.submit(() -> load);
+    assertThat(limiter.inFlight(), is(1));
+
+    load.complete(1);
+    assertThat(future.join(), is(1));
+    assertThat(limiter.inFlight(), is(0));
+  }
+
+  @Test
+  public void submit_queued() {
+    LoadLimiter limiter = new LoadLimiter(1, Long.MAX_VALUE, Scheduler.disabledScheduler());
+    CompletableFuture<Integer> first = new CompletableFuture<>();
+    AtomicInteger started = new AtomicInteger();
+    limiter.submit(() -> first);
+
+    CompletableFuture<Integer> second = limiter.submit(() -> {
+      started.incrementAndGet();
+      return CompletableFuture.completedFuture(2);
+    });
+    assertThat(started.get(), is(0));
+    assertThat(limiter.queued(), is(1));
+
+    first.complete(1);
+    assertThat(started.get(), is(1));
+    assertThat(second.join(), is(2));
+    assertThat(limiter.queued(), is(0));
+    assertThat(limiter.inFlight(), is(0));
+  }
+
+  @Test
+  public void submit_expiredByScheduler() {
+    LoadLimiter limiter = new LoadLimiter(1, TIMEOUT_NANOS, scheduler);
+    CompletableFuture<Integer> first = new CompletableFuture<>();
+    limiter.submit(() -> first);
+    CompletableFuture<Integer> second = limiter.submit(() -> {
+      throw new AssertionError();
+    });
+
+    ArgumentCaptor<Runnable> task = ArgumentCaptor.forClass(Runnable.class);
+    verify(scheduler).schedule(any(), task.capture(),
+        eq(TIMEOUT_NANOS), eq(TimeUnit.NANOSECONDS));
+    task.getValue().run();
+    assertTimedOut(second);
+    assertThat(limiter.queued(), is(0));
+
+    first.complete(1);
+    assertThat(limiter.inFlight(), is(0));
+  }
+
+  @Test
+  public void submit_expiredOnHandOff() {
+    LoadLimiter limiter = new LoadLimiter(1, 0L, Scheduler.disabledScheduler());
+    CompletableFuture<Integer> first = new CompletableFuture<>();
+    limiter.submit(() -> first);
+    CompletableFuture<Integer> second = limiter.submit(() -> {
+      throw new AssertionError();
+    });
+
+    first.complete(1);
+    assertTimedOut(second);
+    assertThat(limiter.queued(), is(0));
+    assertThat(limiter.inFlight(), is(0));
+  }
+
+  @Test
+  public void submit_failure() {
+    LoadLimiter limiter = new LoadLimiter(1, TIMEOUT_NANOS, scheduler);
+    try {
+      limiter.submit(() -> {
+        throw new IllegalStateException();
+      });
+      Assert.fail();
+    } catch (IllegalStateException expected) {}
+    assertThat(limiter.inFlight(), is(0));
+  }
+
+  @Test
+  public void cache_refreshSkipped() {
+    FakeTicker ticker = new FakeTicker();
+    AtomicInteger reloads = new AtomicInteger();
+    LoadingCache<Integer, Integer> cache = Caffeine.newBuilder()
+        .maximumConcurrentLoads(1, Duration.ZERO)
+        .refreshAfterWrite(1, TimeUnit.MINUTES)
+        .executor(Runnable::run)
+        .ticker(ticker::read)
+        .build(new CacheLoader<Integer, Integer>() {
+          @Override public Integer load(Integer key) {
+            return -key;
+          }
+          @Override public CompletableFuture<Integer> asyncReload(
+              Integer key, Integer oldValue, Executor executor) {
+            reloads.incrementAndGet();
+            return new CompletableFuture<>();
+          }
+        });
+    cache.put(1, -1);
+    cache.put(2, -2);
+    ticker.advance(2, TimeUnit.MINUTES);
+
+    assertThat(cache.get(1), is(-1));
+    assertThat(cache.policy().inFlightLoads(), is(1));
+    assertThat(cache.get(2), is(-2));
+    assertThat(reloads.get(), is(1));
+    assertThat(cache.policy().inFlightLoads(), is(1));
+
+    try {
+      cache.get(3);
+      Assert.fail();
+    } catch (CompletionException e) {
+      assertThat(e.getCause(), is(instanceOf(TimeoutException.class)));
+    }
+  }
+
+  @Test
+  public void cache_async_queued() {
+    CompletableFuture<Integer> load = new CompletableFuture<>();
+    AsyncLoadingCache<Integer, Integer> cache = Caffeine.newBuilder()
+        .maximumConcurrentLoads(1, Duration.ofMinutes(1))
+        .executor(Runnable::run)
+        .buildAsync((key, executor) -> (key == 1) ? load : CompletableFuture.completedFuture(-key));
+
+    CompletableFuture<Integer> first = cache.get(1);
+    CompletableFuture<Integer> second = cache.get(2);
+    assertThat(second.isDone(), is(false));
+    assertThat(cache.synchronous().policy().inFlightLoads(), is(1));
+    assertThat(cache.synchronous().policy().queuedLoads(), is(1));
+
+    load.complete(-1);
+    assertThat(first.join(), is(-1));
+    assertThat(second.join(), is(-2));
+    assertThat(cache.synchronous().policy().inFlightLoads(), is(0));
+    assertThat(cache.synchronous().policy().queuedLoads(), is(0));
+  }
+
+  private static void assertTimedOut(CompletableFuture<?> future) {
+    try {
+      future.join();
+      Assert.fail();
+    } catch (CompletionException e) {
+      assertThat(e.getCause(), is(instanceOf(TimeoutException.class)));
+    }
+  }
+
+  @Test
+  public void cache_waitsBeforeCompute() {
+    LoadingCache<Integer, Integer> cache = Caffeine.newBuilder()
+        .maximumConcurrentLoads(1, Duration.ofMinutes(1))
+        .build(key -> -key);
+    LoadLimiter limiter = ((LocalLoadingCache<?, ?>) cache).cache().loadLimiter();
+    assertThat(limiter.tryAcquire(), is(true));
+
+    AtomicReference<Integer> result = new AtomicReference<>();
+    ConcurrentTestHarness.execute(() -> result.set(cache.get(1)));
+    await().until(() -> limiter.queued() == 1);
+
+    // would block on the hash table's lock if the waiting load had started its computation
+    cache.put(1, 1);
+    limiter.release();
+    await().until(() -> result.get() != null);
+    assertThat(result.get(), is(1));
+    assertThat(limiter.inFlight(), is(0));
+  }
+
+  @Test
+  public void cache_joinsInFlightLoad() {
+    AtomicInteger loads = new AtomicInteger();
+    LoadingCache<Integer, Integer> cache = Caffeine.newBuilder()
+        .maximumConcurrentLoads(1, Duration.ofMillis(10))
+        .build(key -> {
+          loads.incrementAndGet();
+          Uninterruptibles.sleepUninterruptibly(100, TimeUnit.MILLISECONDS);
+          return -key;
+        });
+
+    // callers that would time out waiting for the permit instead wait for the load holding it
+    List<Integer> results = ConcurrentTestHarness.timeTasks(10, () -> cache.get(1)).results();
+    assertThat(results, everyItem(is(-1)));
+    assertThat(loads.get(), is(1));
+
+    LoadLimiter limiter = ((LocalLoadingCache<?, ?>) cache).cache().loadLimiter();
+    assertThat(limiter.loading.isEmpty(), is(true));
+    assertThat(limiter.inFlight(), is(0));
+  }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2020 Ben Manes. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.benmanes.caffeine.cache;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import org.testng.annotations.Test;
+
+/**
+ * @author ben.manes@gmail.com (Ben Manes)
+ */
+public final class MaintenanceStatsTest {
+
+  @Test
+  public void empty() {
+    MaintenanceStats stats = new MaintenanceStats(new long[MaintenanceStats.COUNTERS]);
+    assertThat(stats, is(MaintenanceStats.empty()));
+    assertThat(stats.hashCode(), is(MaintenanceStats.empty().hashCode()));
+    assertThat(stats.toString(), is(MaintenanceStats.empty().toString()));
+  }
+
+  @Test
+  public void plus() {
+    MaintenanceStats one = of(1, 10, 5, 3);
+    MaintenanceStats two = of(2, 30, 2, 4);
+
+    MaintenanceStats sum = one.plus(two);
+    assertThat(sum.cycleCount(), is(3L));
+    assertThat(sum.totalTime(), is(40L));
+    assertThat(sum.writeBufferPeak(), is(5L));
+    assertThat(sum.readBufferDrops(), is(7L));
+    assertThat(sum, is(two.plus(one)));
+  }
+
+  @Test
+  public void plus_saturated() {
+    MaintenanceStats max = of(Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE);
+    assertThat(max.plus(max), is(max));
+  }
+
+  @Test
+  public void minus() {
+    MaintenanceStats one = of(1, 10, 5, 3);
+    MaintenanceStats two = of(2, 30, 2, 4);
+
+    assertThat(one.plus(two).minus(two), is(one));
+    assertThat(one.minus(two), is(of(0, 0, 5, 0)));
+  }
+
+  private static MaintenanceStats of(long cycles, long totalTime, long peak, long drops) {
+    long[] counters = new long[MaintenanceStats.COUNTERS];
+    counters[MaintenanceStats.CYCLES] = cycles;
+    counters[MaintenanceStats.TOTAL_TIME] = totalTime;
+    counters[MaintenanceStats.WRITE_BUFFER_PEAK] = peak;
+    counters[MaintenanceStats.READ_BUFFER_DROPS] = drops;
+    return new MaintenanceStats(counters);
+  }
+}
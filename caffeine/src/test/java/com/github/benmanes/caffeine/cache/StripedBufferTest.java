@@ -18,8 +18,10 @@ package com.github.benmanes.caffeine.cache;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.nullValue;
 
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.function.Consumer;
 
 import org.testng.annotations.DataProvider;
@@ -65,6 +67,29 @@ public final class StripedBufferTest {
     assertThat(buffer.drains, is(1));
   }
 
+  @Test
+  public void threadHash_uninitializedProbe() throws InterruptedException {
+    int[] hashes = new int[3];
+    Thread thread = new Thread(() -> {
+      hashes[0] = StripedBuffer.getProbe();
+      hashes[1] = StripedBuffer.getThreadHash();
+      ThreadLocalRandom.current();
+      hashes[2] = StripedBuffer.getThreadHash();
+    });
+    thread.start();
+    thread.join();
+
+    assertThat(hashes[0], is(0));
+    assertThat(hashes[1], is(not(0)));
+    assertThat(hashes[2], is(not(hashes[1])));
+  }
+
+  @Test
+  public void threadHash_initializedProbe() {
+    ThreadLocalRandom.current();
+    assertThat(StripedBuffer.getThreadHash(), is(StripedBuffer.getProbe()));
+  }
+
   @DataProvider
   public Object[][] buffers() {
     return new Object[][] {
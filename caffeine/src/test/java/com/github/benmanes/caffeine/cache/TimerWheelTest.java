@@ -109,6 +109,108 @@ public final class TimerWheelTest {
     };
   }
 
+  @Test
+  public void layout_default() {
+    assertThat(timerWheel.spans, is(SPANS));
+    assertThat(timerWheel.wheel.length, is(TimerWheel.BUCKETS.length));
+  }
+
+  @Test
+  public void layout_configured() {
+    long resolution = TimeUnit.MILLISECONDS.toNanos(1);
+    long horizon = TimeUnit.DAYS.toNanos(30);
+    timerWheel = new TimerWheel<>(cache, resolution, horizon);
+
+    int wheels = timerWheel.wheel.length;
+    assertThat(timerWheel.spans[0], is(Caffeine.ceilingPowerOfTwo(resolution)));
+    assertThat(timerWheel.spans[wheels - 1] >= horizon, is(true));
+    assertThat(timerWheel.spans[wheels], is(timerWheel.spans[wheels - 1]));
+    assertThat(timerWheel.wheel[wheels - 1].length, is(1));
+    for (int i = 0; i < wheels - 1; i++) {
+      assertThat(timerWheel.wheel[i].length, is(64));
+      assertThat(timerWheel.spans[i + 1], is(64 * timerWheel.spans[i]));
+    }
+  }
+
+  @Test
+  public void layout_shortHorizon() {
+    long resolution = TimeUnit.SECONDS.toNanos(1);
+    timerWheel = new TimerWheel<>(cache, resolution, resolution);
+    assertThat(timerWheel.wheel.length, is(2));
+    assertThat(timerWheel.wheel[0].length, is(64));
+    assertThat(timerWheel.wheel[1].length, is(1));
+  }
+
+  @Test
+  public void layout_maximum() {
+    timerWheel = new TimerWheel<>(cache, 1L, Long.MAX_VALUE);
+    int wheels = timerWheel.wheel.length;
+    assertThat(timerWheel.spans[wheels - 1] > 0, is(true));
+    assertThat(timerWheel.shift[wheels - 1] < 64, is(true));
+  }
+
+  @Test
+  public void schedule_fineResolution() {
+    when(cache.evictEntry(captor.capture(), any(), anyLong())).thenReturn(true);
+    timerWheel = new TimerWheel<>(cache,
+        TimeUnit.MILLISECONDS.toNanos(1), TimeUnit.DAYS.toNanos(1));
+    timerWheel.nanos = NOW;
+    for (int timeout : new int[] { 50, 120, 200 }) {
+      timerWheel.schedule(new Timer(NOW + TimeUnit.MILLISECONDS.toNanos(timeout)));
+    }
+
+    timerWheel.advance(NOW + TimeUnit.MILLISECONDS.toNanos(60));
+    verify(cache, times(1)).evictEntry(any(), any(), anyLong());
+    timerWheel.advance(NOW + TimeUnit.MILLISECONDS.toNanos(130));
+    verify(cache, times(2)).evictEntry(any(), any(), anyLong());
+    timerWheel.advance(NOW + TimeUnit.MILLISECONDS.toNanos(210));
+    verify(cache, times(3)).evictEntry(any(), any(), anyLong());
+  }
+
+  @Test
+  public void advance_budget() {
+    when(cache.evictEntry(captor.capture(), any(), anyLong())).thenReturn(true);
+    timerWheel.nanos = NOW;
+    for (int i = 0; i < 100; i++) {
+      timerWheel.schedule(new Timer(NOW + TimeUnit.SECONDS.toNanos(1 + (i % 30))));
+    }
+
+    long time = NOW + TimeUnit.MINUTES.toNanos(1);
+    assertThat(timerWheel.advance(time, 30), is(false));
+    assertThat(timerWheel.processed(), is(30L));
+    assertThat(timerWheel.lag(), is(not(0L)));
+    assertThat(timerWheel.getExpirationDelay(), is(0L));
+    verify(cache, times(30)).evictEntry(any(), any(), anyLong());
+
+    assertThat(timerWheel.advance(time, 30), is(false));
+    assertThat(timerWheel.advance(time + 1, 30), is(false));
+    verify(cache, times(90)).evictEntry(any(), any(), anyLong());
+
+    assertThat(timerWheel.advance(time + 2, 30), is(true));
+    assertThat(timerWheel.processed(), is(100L));
+    assertThat(timerWheel.lag(), is(0L));
+    verify(cache, times(100)).evictEntry(any(), any(), anyLong());
+  }
+
+  @Test
+  public void advance_budget_resumesHigherWheels() {
+    when(cache.evictEntry(captor.capture(), any(), anyLong())).thenReturn(true);
+    timerWheel.nanos = NOW;
+    for (int i = 0; i < 10; i++) {
+      timerWheel.schedule(new Timer(NOW + TimeUnit.SECONDS.toNanos(30)));
+      timerWheel.schedule(new Timer(NOW + TimeUnit.HOURS.toNanos(2)));
+    }
+
+    long time = NOW + TimeUnit.HOURS.toNanos(3);
+    assertThat(timerWheel.advance(time, 5), is(false));
+    int calls = 0;
+    while (!timerWheel.advance(time, 5)) {
+      assertThat(++calls, is(lessThan(10)));
+    }
+    verify(cache, times(20)).evictEntry(any(), any(), anyLong());
+    checkTimerWheel(time);
+  }
+
   @Test(dataProvider = "fuzzySchedule")
   public void schedule_fuzzy(long clock, long nanos, long[] times) {
     when(cache.evictEntry(captor.capture(), any(), anyLong())).thenReturn(true);
@@ -18,7 +18,9 @@ package com.github.benmanes.caffeine.cache;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
 
+import java.time.Duration;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 import org.testng.annotations.Listeners;
 import org.testng.annotations.Test;
@@ -68,4 +70,20 @@ public final class UnboundedLocalCacheTest {
     assertThat(cache.synchronous().policy().expireAfterAccess(), is(Optional.empty()));
     assertThat(cache.synchronous().policy().refreshAfterWrite(), is(Optional.empty()));
   }
+
+  @Test
+  public void serializationProxy_loadingOptions() {
+    LoadingCache<Integer, Integer> cache = Caffeine.newBuilder()
+        .maximumConcurrentLoads(2, Duration.ofSeconds(1))
+        .cacheAbsentLoads(Duration.ofMinutes(1), 100)
+        .build(key -> -key);
+    SerializationProxy<?, ?> proxy = (SerializationProxy<?, ?>)
+        ((UnboundedLocalCache.UnboundedLocalManualCache<?, ?>) cache).writeReplace();
+    Caffeine<Object, Object> builder = proxy.recreateCaffeine();
+
+    assertThat(builder.loadConcurrency, is(2));
+    assertThat(builder.loadQueueTimeoutNanos, is(TimeUnit.SECONDS.toNanos(1)));
+    assertThat(builder.absentLoadsNanos, is(TimeUnit.MINUTES.toNanos(1)));
+    assertThat(builder.absentLoadsMaximum, is(100L));
+  }
 }
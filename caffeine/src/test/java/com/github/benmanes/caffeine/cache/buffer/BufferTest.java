@@ -16,7 +16,9 @@
 package com.github.benmanes.caffeine.cache.buffer;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 
 import java.util.Arrays;
 import java.util.Iterator;
@@ -24,6 +26,7 @@ import java.util.Iterator;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
+import com.github.benmanes.caffeine.cache.BoundedReadBuffer;
 import com.github.benmanes.caffeine.cache.ReadBuffer;
 import com.github.benmanes.caffeine.testing.ConcurrentTestHarness;
 
@@ -52,7 +55,14 @@ public final class BufferTest {
       }
     });
     int recorded = buffer.recorded();
-    assertThat(recorded, is(ReadBuffer.BUFFER_SIZE));
+    if (buffer instanceof BoundedReadBuffer) {
+      // A stripe added late in the run may not fill up, but none may accept beyond its capacity
+      int capacity = ((BoundedReadBuffer<Boolean>) buffer).capacity();
+      assertThat(recorded, is(greaterThanOrEqualTo(BoundedReadBuffer.STRIPE_SIZE)));
+      assertThat(recorded, is(lessThanOrEqualTo(capacity)));
+    } else {
+      assertThat(recorded, is(ReadBuffer.BUFFER_SIZE));
+    }
   }
 
   @Test(dataProvider = "buffers")
@@ -17,6 +17,7 @@ package com.github.benmanes.caffeine.cache.buffer;
 
 import java.util.function.Supplier;
 
+import com.github.benmanes.caffeine.cache.BoundedReadBuffer;
 import com.github.benmanes.caffeine.cache.ReadBuffer;
 
 /**
@@ -32,7 +33,9 @@ public enum BufferType {
   ManyToOne(ManyToOneBuffer::new),
   ManyToOne_spaced(ManyToOneSpacedBuffer::new),
   MpmcArray(MpmcArrayBuffer::new),
-  MpscCompound(MpscCompoundBuffer::new);
+  MpscCompound(MpscCompoundBuffer::new),
+  Bounded_fixed(BoundedReadBuffer::fixed),
+  Bounded_adaptive(BoundedReadBuffer::adaptive);
 
   private final Supplier<ReadBuffer<Boolean>> factory;
 
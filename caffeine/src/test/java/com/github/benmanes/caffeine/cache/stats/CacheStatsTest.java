@@ -89,6 +89,21 @@ public final class CacheStatsTest {
     assertThat(sum, is(one.plus(two)));
   }
 
+  @Test
+  public void absentHits() {
+    CacheStats one = new CacheStats(11, 13, 17, 19, 23, 27, 54, 3);
+    CacheStats two = new CacheStats(53, 47, 43, 41, 37, 31, 62, 7);
+    assertThat(one.absentHitCount(), is(3L));
+    assertThat(two.minus(one).absentHitCount(), is(4L));
+    assertThat(two.plus(one).absentHitCount(), is(10L));
+    assertThat(one, is(not(equalTo(new CacheStats(11, 13, 17, 19, 23, 27, 54)))));
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void absentHits_negative() {
+    new CacheStats(0, 0, 0, 0, 0, 0, 0, -1);
+  }
+
   @Test
   public void overflow() {
     CacheStats max = new CacheStats(Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE,
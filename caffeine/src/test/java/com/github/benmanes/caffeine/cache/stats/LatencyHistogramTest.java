@@ -0,0 +1,107 @@
+/*
+ * Copyright 2020 Ben Manes. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.benmanes.caffeine.cache.stats;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.both;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.not;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+/**
+ * @author ben.manes@gmail.com (Ben Manes)
+ */
+public final class LatencyHistogramTest {
+
+  @Test
+  public void empty() {
+    LatencyHistogram histogram = new LatencyRecorder().snapshot();
+    assertThat(histogram, is(LatencyHistogram.empty()));
+    assertThat(histogram.count(), is(0L));
+    assertThat(histogram.max(), is(0L));
+    assertThat(histogram.percentile(99.0), is(0L));
+  }
+
+  @Test
+  public void bucketFor_bounds() {
+    for (int bucket = 1; bucket < LatencyHistogram.BUCKETS; bucket++) {
+      long lowest = LatencyHistogram.highestValueOf(bucket - 1) + 1;
+      long highest = LatencyHistogram.highestValueOf(bucket);
+      assertThat(LatencyHistogram.bucketFor(lowest), is(bucket));
+      assertThat(LatencyHistogram.bucketFor(highest), is(bucket));
+    }
+    assertThat(LatencyHistogram.bucketFor(-1L), is(0));
+    assertThat(LatencyHistogram.bucketFor(Long.MAX_VALUE), is(LatencyHistogram.BUCKETS - 1));
+  }
+
+  @Test
+  public void bucketFor_relativeError() {
+    for (int i = 0; i < 10_000; i++) {
+      long duration = ThreadLocalRandom.current().nextLong(1L << LatencyHistogram.MAXIMUM_EXPONENT);
+      long highest = LatencyHistogram.highestValueOf(LatencyHistogram.bucketFor(duration));
+      assertThat(highest, is(both(greaterThanOrEqualTo(duration))
+          .and(lessThanOrEqualTo(duration + (duration / LatencyHistogram.SUB_BUCKETS)))));
+    }
+  }
+
+  @Test
+  public void percentile() {
+    LatencyRecorder recorder = new LatencyRecorder();
+    for (int i = 1; i <= 100; i++) {
+      recorder.record(i * 1_000_000L);
+    }
+    LatencyHistogram histogram = recorder.snapshot();
+    assertThat(histogram.count(), is(100L));
+    assertThat(histogram.percentile(50.0), is(both(greaterThanOrEqualTo(50_000_000L))
+        .and(lessThanOrEqualTo(56_250_000L))));
+    assertThat(histogram.percentile(99.0), is(both(greaterThanOrEqualTo(99_000_000L))
+        .and(lessThanOrEqualTo(111_375_000L))));
+    assertThat(histogram.percentile(100.0), is(histogram.max()));
+    assertThat(histogram.percentile(0.0), is(lessThanOrEqualTo(1_125_000L)));
+  }
+
+  @Test(dataProvider = "badPercentiles", expectedExceptions = IllegalArgumentException.class)
+  public void percentile_invalid(double percentile) {
+    LatencyHistogram.empty().percentile(percentile);
+  }
+
+  @Test
+  public void plusMinus() {
+    LatencyRecorder one = new LatencyRecorder();
+    LatencyRecorder two = new LatencyRecorder();
+    one.record(10);
+    two.record(10);
+    two.record(1_000);
+
+    LatencyHistogram sum = one.snapshot().plus(two.snapshot());
+    assertThat(sum.count(), is(3L));
+    assertThat(sum.minus(two.snapshot()), is(one.snapshot()));
+    assertThat(one.snapshot().minus(two.snapshot()), is(LatencyHistogram.empty()));
+    assertThat(sum, is(not(one.snapshot())));
+    assertThat(sum.hashCode(), is(one.snapshot().plus(two.snapshot()).hashCode()));
+  }
+
+  @DataProvider(name = "badPercentiles")
+  public Object[][] providesBadPercentiles() {
+    return new Object[][] { { -1.0 }, { 100.1 }, { Double.NaN } };
+  }
+}
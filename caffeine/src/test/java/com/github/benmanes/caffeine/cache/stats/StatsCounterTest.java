@@ -73,6 +73,54 @@ public final class StatsCounterTest {
     assertThat(counter.snapshot(), is(new CacheStats(2, 2, 2, 2, 4, 6, 22)));
   }
 
+  @Test
+  public void absentHits() {
+    ConcurrentStatsCounter counter = new ConcurrentStatsCounter();
+    counter.recordAbsentHits(2);
+    assertThat(counter.snapshot(), is(new CacheStats(0, 0, 0, 0, 0, 0, 0, 2)));
+    assertThat(counter.snapshot().requestCount(), is(0L));
+
+    StatsCounter guarded = StatsCounter.guardedStatsCounter(counter);
+    guarded.recordAbsentHits(1);
+    assertThat(guarded.snapshot().absentHitCount(), is(3L));
+
+    DisabledStatsCounter.INSTANCE.recordAbsentHits(1);
+    assertThat(DisabledStatsCounter.INSTANCE.snapshot(), is(CacheStats.empty()));
+  }
+
+  @Test
+  public void latencies() {
+    ConcurrentStatsCounter counter = ConcurrentStatsCounter.withLatencyHistograms();
+    counter.recordLoadSuccess(1_000);
+    counter.recordRefreshFailure(2_000);
+    counter.recordMaintenance(3_000);
+
+    CacheStats stats = counter.snapshot();
+    assertThat(stats.loadCount(), is(2L));
+    assertThat(stats.loadFailureCount(), is(1L));
+    assertThat(stats.totalLoadTime(), is(3_000L));
+    assertThat(stats.loadLatency().count(), is(2L));
+    assertThat(stats.refreshLatency().count(), is(1L));
+    assertThat(stats.maintenanceLatency().count(), is(1L));
+
+    ConcurrentStatsCounter other = ConcurrentStatsCounter.withLatencyHistograms();
+    other.incrementBy(counter);
+    assertThat(other.snapshot(), is(stats));
+  }
+
+  @Test
+  public void latencies_disabled() {
+    ConcurrentStatsCounter counter = new ConcurrentStatsCounter();
+    counter.recordRefreshSuccess(1_000);
+    counter.recordMaintenance(2_000);
+
+    CacheStats stats = counter.snapshot();
+    assertThat(stats.loadSuccessCount(), is(1L));
+    assertThat(stats.loadLatency(), is(LatencyHistogram.empty()));
+    assertThat(stats.refreshLatency(), is(LatencyHistogram.empty()));
+    assertThat(stats.maintenanceLatency(), is(LatencyHistogram.empty()));
+  }
+
   @Test
   public void concurrent() {
     StatsCounter counter = new ConcurrentStatsCounter();
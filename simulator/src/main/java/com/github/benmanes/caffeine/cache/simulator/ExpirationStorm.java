@@ -0,0 +1,124 @@
+/*
+ * Copyright 2020 Ben Manes. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.benmanes.caffeine.cache.simulator;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+
+import picocli.CommandLine;
+import picocli.CommandLine.Help;
+import picocli.CommandLine.Option;
+
+/**
+ * An experiment that shows how expiration jitter smooths the work that follows a bulk population of
+ * a cache. The entries are written at once by {@link Cache#putAll} into a cache without jitter and
+ * a cache with jitter, time is advanced in steps, and the number of entries that expired during
+ * each step is reported. Without jitter the entries all expire in a single step, which in a
+ * loading cache would be followed by a stampede of reloads.
+ * <p>
+ * <pre>{@code
+ *   ./gradlew :simulator:expirationStorm \
+ *      -Pentries=? \
+ *      -PexpireAfterWrite=? \
+ *      -Pjitter=? \
+ *      -Psteps=?
+ * }</pre>
+ *
+ * @author ben.manes@gmail.com (Ben Manes)
+ */
+@SuppressWarnings("PMD.ImmutableField")
+public final class ExpirationStorm implements Runnable {
+  @Option(names = "--entries", defaultValue = "100000",
+      description = "The number of entries that are written at once")
+  private int entries;
+  @Option(names = "--expireAfterWrite", defaultValue = "600",
+      description = "The time to live, in seconds")
+  private long expireAfterWrite;
+  @Option(names = "--jitter", defaultValue = "0.1",
+      description = "The maximum fraction of the time to live that an entry may be shortened by")
+  private double jitter;
+  @Option(names = "--steps", defaultValue = "20",
+      description = "The number of steps that the jittered interval is divided into")
+  private int steps;
+
+  @Override
+  public void run() {
+    AtomicLong time = new AtomicLong();
+    LongAdder plainExpired = new LongAdder();
+    LongAdder jitteredExpired = new LongAdder();
+    Cache<Long, Long> plain = newCache(time, plainExpired).build();
+    Cache<Long, Long> jittered = newCache(time, jitteredExpired).jitter(jitter).build();
+
+    Map<Long, Long> batch = LongStream.range(0, entries).boxed()
+        .collect(Collectors.toMap(key -> key, key -> key));
+    plain.putAll(batch);
+    jittered.putAll(batch);
+
+    long ttl = TimeUnit.SECONDS.toNanos(expireAfterWrite);
+    long start = ttl - (long) (jitter * ttl);
+    long step = Math.max(1, (ttl - start) / steps);
+    time.set(start - step);
+    plain.cleanUp();
+    jittered.cleanUp();
+
+    long plainPeak = 0;
+    long jitteredPeak = 0;
+    System.out.printf("%12s %12s %12s%n", "Time (s)", "Plain", "Jittered");
+    while ((plain.estimatedSize() > 0) || (jittered.estimatedSize() > 0)) {
+      time.addAndGet(step);
+      plain.cleanUp();
+      jittered.cleanUp();
+
+      long plainCount = plainExpired.sumThenReset();
+      long jitteredCount = jitteredExpired.sumThenReset();
+      plainPeak = Math.max(plainPeak, plainCount);
+      jitteredPeak = Math.max(jitteredPeak, jitteredCount);
+      System.out.printf("%,12.1f %,12d %,12d%n",
+          time.get() / (double) TimeUnit.SECONDS.toNanos(1), plainCount, jitteredCount);
+    }
+    System.out.printf("%nPeak expirations per step: plain=%,d, jittered=%,d%n",
+        plainPeak, jitteredPeak);
+  }
+
+  /** Returns a builder whose cache is maintained on the calling thread using the simulated time. */
+  private Caffeine<Object, Object> newCache(AtomicLong time, LongAdder expired) {
+    return Caffeine.newBuilder()
+        .expireAfterWrite(expireAfterWrite, TimeUnit.SECONDS)
+        .executor(Runnable::run)
+        .ticker(time::get)
+        .removalListener((key, value, cause) -> {
+          if (cause == RemovalCause.EXPIRED) {
+            expired.increment();
+          }
+        });
+  }
+
+  public static void main(String[] args) {
+    new CommandLine(ExpirationStorm.class)
+        .setColorScheme(Help.defaultColorScheme(Help.Ansi.ON))
+        .setCommandName(ExpirationStorm.class.getSimpleName())
+        .setCaseInsensitiveEnumValuesAllowed(true)
+        .execute(args);
+  }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2020 Ben Manes. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.benmanes.caffeine.cache.simulator;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.simulator.parser.TraceFormat;
+import com.github.benmanes.caffeine.cache.simulator.policy.AccessEvent;
+import com.google.common.base.Stopwatch;
+
+import picocli.CommandLine;
+import picocli.CommandLine.Help;
+import picocli.CommandLine.Option;
+
+/**
+ * An experiment that measures how much faster a cache reaches its steady-state hit rate when it
+ * adopts the popularity history of a peer, rather than starting cold. A peer cache is trained on
+ * the beginning of the trace and its frequency sketch is exported. The remainder of the trace is
+ * then replayed against an empty cache that imported the peer's sketch and an empty cache that did
+ * not, and their hit rates are reported for each interval.
+ * <p>
+ * <pre>{@code
+ *   ./gradlew :simulator:warmStart \
+ *      -PinputFormat=? \
+ *      -PinputFiles=? \
+ *      -PmaximumSize=? \
+ *      -PwarmupEvents=? \
+ *      -PreportInterval=?
+ * }</pre>
+ *
+ * @author ben.manes@gmail.com (Ben Manes)
+ */
+@SuppressWarnings("PMD.ImmutableField")
+public final class WarmStart implements Runnable {
+  @Option(names = "--inputFiles", required = true, description = "The trace input files. To use "
+      + "a mix of formats, specify the entry as format:path, e.g. lirs:loop.trace.gz")
+  private List<String> inputFiles = new ArrayList<>();
+  @Option(names = "--inputFormat", required = true, description = "The default trace input format")
+  private TraceFormat inputFormat;
+
+  @Option(names = "--maximumSize", required = true, description = "The maximum size of the caches")
+  private long maximumSize;
+  @Option(names = "--warmupEvents", required = true,
+      description = "The number of events that the peer is trained on")
+  private long warmupEvents;
+  @Option(names = "--reportInterval", defaultValue = "100000",
+      description = "The number of events between reports of the hit rates")
+  private long reportInterval;
+
+  @Override
+  @SuppressWarnings("PMD.ForLoopCanBeForeach")
+  public void run() {
+    Stopwatch stopwatch = Stopwatch.createStarted();
+    Cache<Long, Boolean> peer = newCache();
+    try (Stream<AccessEvent> events = inputFormat.readFiles(inputFiles).events()) {
+      events.limit(warmupEvents).forEach(event -> record(peer, event.key()));
+    }
+    byte[] sketch = peer.policy().eviction().get().exportFrequencySketch();
+    System.out.printf("Trained the peer on %,d events (sketch of %,d bytes)%n%n",
+        warmupEvents, sketch.length);
+
+    Cache<Long, Boolean> cold = newCache();
+    Cache<Long, Boolean> warm = newCache();
+    warm.policy().eviction().get().importFrequencySketch(sketch);
+
+    long coldHits = 0;
+    long warmHits = 0;
+    long coldTotalHits = 0;
+    long warmTotalHits = 0;
+    long count = 0;
+    System.out.printf("%12s %10s %10s %10s%n", "Events", "Cold", "Warm", "Gain");
+    try (Stream<AccessEvent> events = inputFormat.readFiles(inputFiles).events()) {
+      for (Iterator<AccessEvent> i = events.skip(warmupEvents).iterator(); i.hasNext();) {
+        long key = i.next().key();
+        coldHits += record(cold, key) ? 1 : 0;
+        warmHits += record(warm, key) ? 1 : 0;
+        count++;
+
+        if ((count % reportInterval) == 0) {
+          report(count, coldHits, warmHits, reportInterval);
+          coldTotalHits += coldHits;
+          warmTotalHits += warmHits;
+          coldHits = 0;
+          warmHits = 0;
+        }
+      }
+    }
+    long remainder = (count % reportInterval);
+    if (remainder != 0) {
+      report(count, coldHits, warmHits, remainder);
+    }
+    System.out.println();
+    report(count, coldTotalHits + coldHits, warmTotalHits + warmHits, count);
+    System.out.printf("%nExecuted in %s%n", stopwatch);
+  }
+
+  /** Returns an empty cache, maintained on the calling thread for a deterministic replay. */
+  private Cache<Long, Boolean> newCache() {
+    return Caffeine.newBuilder()
+        .maximumSize(maximumSize)
+        .executor(Runnable::run)
+        .build();
+  }
+
+  /** Returns if the key was present, otherwise inserts it and returns false. */
+  private static boolean record(Cache<Long, Boolean> cache, long key) {
+    if (cache.getIfPresent(key) != null) {
+      return true;
+    }
+    cache.put(key, Boolean.TRUE);
+    return false;
+  }
+
+  private static void report(long events, long coldHits, long warmHits, long interval) {
+    double coldHitRate = 100.0 * coldHits / Math.max(1, interval);
+    double warmHitRate = 100.0 * warmHits / Math.max(1, interval);
+    System.out.printf("%,12d %9.2f%% %9.2f%% %+9.2f%%%n",
+        events, coldHitRate, warmHitRate, warmHitRate - coldHitRate);
+  }
+
+  public static void main(String[] args) {
+    new CommandLine(WarmStart.class)
+        .setColorScheme(Help.defaultColorScheme(Help.Ansi.ON))
+        .setCommandName(WarmStart.class.getSimpleName())
+        .setCaseInsensitiveEnumValuesAllowed(true)
+        .execute(args);
+  }
+}
@@ -16,7 +16,10 @@
 package com.github.benmanes.caffeine.cache.simulator.policy.product;
 
 import static com.github.benmanes.caffeine.cache.simulator.policy.Policy.Characteristic.WEIGHTED;
+import static java.util.Locale.US;
+import static java.util.stream.Collectors.toSet;
 
+import java.util.EnumSet;
 import java.util.Set;
 
 import com.github.benmanes.caffeine.cache.Cache;
@@ -26,7 +29,6 @@ import com.github.benmanes.caffeine.cache.simulator.BasicSettings;
 import com.github.benmanes.caffeine.cache.simulator.policy.AccessEvent;
 import com.github.benmanes.caffeine.cache.simulator.policy.Policy;
 import com.github.benmanes.caffeine.cache.simulator.policy.PolicyStats;
-import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Sets;
 import com.google.common.primitives.Ints;
 import com.typesafe.config.Config;
@@ -40,9 +42,9 @@ public final class CaffeinePolicy implements Policy {
   private final Cache<Long, AccessEvent> cache;
   private final PolicyStats policyStats;
 
-  public CaffeinePolicy(Config config, Set<Characteristic> characteristics) {
-    policyStats = new PolicyStats("product.Caffeine");
-    BasicSettings settings = new BasicSettings(config);
+  public CaffeinePolicy(CaffeineSettings settings,
+      Set<Characteristic> characteristics, Admission admission) {
+    policyStats = new PolicyStats("product.Caffeine" + admission.label);
     Caffeine<Long, AccessEvent> builder = Caffeine.newBuilder()
         .removalListener((Long key, AccessEvent value, RemovalCause cause) ->
             policyStats.recordEviction())
@@ -50,6 +52,9 @@ public final class CaffeinePolicy implements Policy {
     if (characteristics.contains(WEIGHTED)) {
       builder.maximumWeight(settings.maximumSize());
       builder.weigher((key, value) -> value.weight());
+      if (admission == Admission.SIZE_AWARE) {
+        builder.sizeAwareAdmission();
+      }
     } else {
       builder.maximumSize(settings.maximumSize());
       builder.initialCapacity(Ints.saturatedCast(settings.maximumSize()));
@@ -59,7 +64,12 @@ public final class CaffeinePolicy implements Policy {
 
   /** Returns all variations of this policy based on the configuration parameters. */
   public static Set<Policy> policies(Config config, Set<Characteristic> characteristics) {
-    return ImmutableSet.of(new CaffeinePolicy(config, characteristics));
+    CaffeineSettings settings = new CaffeineSettings(config);
+    return settings.admission().stream()
+        .filter(admission -> characteristics.contains(WEIGHTED)
+            || (admission == Admission.FREQUENCY))
+        .map(admission -> new CaffeinePolicy(settings, characteristics, admission))
+        .collect(toSet());
   }
 
   @Override public Set<Characteristic> characteristics() {
@@ -84,4 +94,35 @@ public final class CaffeinePolicy implements Policy {
   public PolicyStats stats() {
     return policyStats;
   }
+
+  enum Admission {
+    FREQUENCY(""),
+    SIZE_AWARE(" (size-aware)");
+
+    final String label;
+
+    Admission(String label) {
+      this.label = label;
+    }
+  }
+
+  static final class CaffeineSettings extends BasicSettings {
+    public CaffeineSettings(Config config) {
+      super(config);
+    }
+    public Set<Admission> admission() {
+      Set<Admission> admission = EnumSet.noneOf(Admission.class);
+      for (String policy : config().getStringList("caffeine.admission")) {
+        String name = policy.toLowerCase(US).replaceAll("[^a-z]", "");
+        if (name.equals("frequency")) {
+          admission.add(Admission.FREQUENCY);
+        } else if (name.equals("sizeaware")) {
+          admission.add(Admission.SIZE_AWARE);
+        } else {
+          throw new IllegalArgumentException("Unknown admission: " + policy);
+        }
+      }
+      return admission;
+    }
+  }
 }